@@ -3,13 +3,17 @@ package com.workflow.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {
     "com.workflow.api",
     "com.workflow.engine",
     "com.workflow.storage"
 })
+@EnableR2dbcRepositories(basePackages = "com.workflow.storage.repository")
 public class WorkflowOrchestratorApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,61 @@
+package com.workflow.api.controller;
+
+import com.workflow.engine.latency.LatencyHistograms;
+import com.workflow.engine.latency.LatencyInterval;
+import com.workflow.engine.latency.LatencyReport;
+import com.workflow.engine.latency.LatencySnapshots;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Latency percentiles per step and for whole instances of a definition,
+ * merged from the streaming histograms. {@code scope=node} answers from this
+ * node's memory, {@code scope=cluster} from the snapshots every node persists.
+ */
+@RestController
+@RequestMapping("/api/latency")
+@CrossOrigin(origins = "*")
+public class LatencyController {
+
+    // Upper bound on points per series, a finer step is widened to fit
+    private static final int MAX_POINTS = 500;
+
+    private final LatencyHistograms latencyHistograms;
+    private final LatencySnapshots latencySnapshots;
+
+    public LatencyController(LatencyHistograms latencyHistograms, LatencySnapshots latencySnapshots) {
+        this.latencyHistograms = latencyHistograms;
+        this.latencySnapshots = latencySnapshots;
+    }
+
+    @GetMapping("/{definitionName}")
+    public Mono<ResponseEntity<LatencyReport>> getLatency(
+            @PathVariable String definitionName,
+            @RequestParam(defaultValue = "15m") String window,
+            @RequestParam(defaultValue = "1m") String step,
+            @RequestParam(defaultValue = "cluster") String scope) {
+        Duration windowLength = DurationStyle.detectAndParse(window);
+        Duration stepLength = DurationStyle.detectAndParse(step);
+        if (windowLength.isNegative() || windowLength.isZero() || stepLength.isNegative() || stepLength.isZero()
+                || !(scope.equals("node") || scope.equals("cluster"))) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Duration resolution = stepLength.compareTo(windowLength.dividedBy(MAX_POINTS)) < 0
+            ? windowLength.dividedBy(MAX_POINTS)
+            : stepLength;
+
+        Instant to = Instant.now();
+        Instant from = to.minus(windowLength);
+        Mono<List<LatencyInterval>> intervals = scope.equals("node")
+            ? Mono.fromSupplier(() -> latencyHistograms.intervals(definitionName, from))
+            : latencySnapshots.cluster(definitionName, from).collectList();
+        return intervals.map(found -> ResponseEntity.ok(
+            LatencyReport.of(definitionName, scope, found, from, to, resolution)));
+    }
+}
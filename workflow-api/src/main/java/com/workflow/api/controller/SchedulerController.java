@@ -0,0 +1,26 @@
+package com.workflow.api.controller;
+
+import com.workflow.engine.scheduling.StepScheduler;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Step queues of this node's scheduler, with how long their steps waited
+ * for an execution slot.
+ */
+@RestController
+@RequestMapping("/api/scheduler")
+@CrossOrigin(origins = "*")
+public class SchedulerController {
+
+    private final StepScheduler scheduler;
+
+    public SchedulerController(StepScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @GetMapping("/queues")
+    public Flux<StepScheduler.QueueStats> getQueues() {
+        return Flux.defer(() -> Flux.fromIterable(scheduler.stats()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.workflow.api.controller;
+
+import com.workflow.engine.tracing.InMemoryTraceExporter;
+import com.workflow.engine.tracing.Trace;
+import com.workflow.engine.tracing.TraceSummary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Traces recorded in this node's memory. Each node only holds the traces of
+ * the executions it ran.
+ */
+@RestController
+@RequestMapping("/api/traces")
+@CrossOrigin(origins = "*")
+public class TraceController {
+
+    private final InMemoryTraceExporter traceExporter;
+
+    public TraceController(InMemoryTraceExporter traceExporter) {
+        this.traceExporter = traceExporter;
+    }
+
+    @GetMapping
+    public Flux<TraceSummary> getTraces(
+            @RequestParam(required = false) UUID instanceId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return Flux.defer(() -> Flux.fromIterable(traceExporter.recent(instanceId, limit)));
+    }
+
+    @GetMapping("/{traceId}")
+    public Mono<ResponseEntity<Trace>> getTrace(@PathVariable String traceId) {
+        return Mono.fromSupplier(() -> traceExporter.find(traceId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+}
@@ -1,14 +1,21 @@
 package com.workflow.api.controller;
 
+import com.workflow.api.dto.BulkStartResponse;
 import com.workflow.api.dto.StartWorkflowRequest;
 import com.workflow.api.dto.WorkflowInstanceResponse;
+import com.workflow.api.dto.WorkflowStatsResponse;
 import com.workflow.api.dto.WorkflowStepResponse;
 import com.workflow.api.service.WorkflowService;
+import com.workflow.engine.profile.InstanceProfile;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.UUID;
 
 @RestController
@@ -26,8 +33,24 @@ public class WorkflowController {
     @ResponseStatus(HttpStatus.ACCEPTED)
     public Mono<WorkflowInstanceResponse> startWorkflow(
             @PathVariable String workflowName,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody StartWorkflowRequest request) {
-        return workflowService.startWorkflow(workflowName, request.input());
+        return workflowService.startWorkflow(workflowName, request, idempotencyKey);
+    }
+
+    @PostMapping(value = "/start/{workflowName}/bulk",
+                 consumes = MediaType.APPLICATION_NDJSON_VALUE,
+                 produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Flux<BulkStartResponse> startWorkflows(
+            @PathVariable String workflowName,
+            @RequestBody Flux<StartWorkflowRequest> requests) {
+        return workflowService.startWorkflows(workflowName, requests);
+    }
+
+    @GetMapping("/stats")
+    public Mono<WorkflowStatsResponse> getWorkflowStats() {
+        return workflowService.getWorkflowStats();
     }
 
     @GetMapping("/{instanceId}")
@@ -35,6 +58,38 @@ public class WorkflowController {
         return workflowService.getWorkflowInstance(instanceId);
     }
 
+    /**
+     * Waits for the instance to finish. Responds 200 with the terminal
+     * instance, or 202 with its current state if the timeout expires first.
+     */
+    @GetMapping("/{instanceId}/result")
+    public Mono<ResponseEntity<WorkflowInstanceResponse>> awaitWorkflowResult(
+            @PathVariable UUID instanceId,
+            @RequestParam(defaultValue = "30s") String timeout) {
+        Duration wait;
+        try {
+            wait = DurationStyle.detectAndParse(timeout);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (wait.isNegative() || wait.isZero()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return workflowService.awaitWorkflowResult(instanceId, wait)
+            .map(instance -> instance.isTerminal()
+                ? ResponseEntity.ok(WorkflowInstanceResponse.from(instance))
+                : ResponseEntity.accepted().body(WorkflowInstanceResponse.from(instance)));
+    }
+
+    /**
+     * Where the instance's wall time went, with the critical path through its
+     * steps. Works while the instance is still running.
+     */
+    @GetMapping("/{instanceId}/profile")
+    public Mono<InstanceProfile> getWorkflowProfile(@PathVariable UUID instanceId) {
+        return workflowService.getWorkflowProfile(instanceId);
+    }
+
     @GetMapping
     public Flux<WorkflowInstanceResponse> getAllWorkflowInstances() {
         return workflowService.getAllWorkflowInstances();
@@ -2,6 +2,7 @@ package com.workflow.api.controller;
 
 import com.workflow.api.service.WorkflowService;
 import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.entity.WorkflowDefinitionSummary;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -28,7 +29,7 @@ public class WorkflowDefinitionController {
     }
 
     @GetMapping
-    public Flux<WorkflowDefinition> getAllWorkflowDefinitions() {
+    public Flux<WorkflowDefinitionSummary> getAllWorkflowDefinitions() {
         return workflowService.getAllWorkflowDefinitions();
     }
 }
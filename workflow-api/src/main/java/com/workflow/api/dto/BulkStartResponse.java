@@ -0,0 +1,9 @@
+package com.workflow.api.dto;
+
+import java.util.UUID;
+
+public record BulkStartResponse(
+    long line,
+    UUID instanceId
+) {
+}
@@ -1,6 +1,16 @@
 package com.workflow.api.dto;
 
+/**
+ * {@code priority} ({@code high}, {@code normal} or {@code low}) overrides
+ * the definition's. With a {@code tenant}, the instance's steps queue with
+ * the tenant's other instances instead of with the definition's.
+ */
 public record StartWorkflowRequest(
-    String input
+    String input,
+    String priority,
+    String tenant
 ) {
+    public StartWorkflowRequest(String input) {
+        this(input, null, null);
+    }
 }
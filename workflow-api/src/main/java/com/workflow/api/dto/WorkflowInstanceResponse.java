@@ -1,5 +1,7 @@
 package com.workflow.api.dto;
 
+import com.workflow.storage.entity.WorkflowInstance;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -15,4 +17,18 @@ public record WorkflowInstanceResponse(
     LocalDateTime completedAt,
     LocalDateTime updatedAt
 ) {
+    public static WorkflowInstanceResponse from(WorkflowInstance instance) {
+        return new WorkflowInstanceResponse(
+            instance.id(),
+            instance.workflowDefinitionId(),
+            instance.status(),
+            instance.currentStepId(),
+            instance.input(),
+            instance.output(),
+            instance.errorMessage(),
+            instance.startedAt(),
+            instance.completedAt(),
+            instance.updatedAt()
+        );
+    }
 }
@@ -0,0 +1,11 @@
+package com.workflow.api.dto;
+
+import java.util.Map;
+import java.util.UUID;
+
+public record WorkflowStatsResponse(
+    long total,
+    Map<String, Long> byStatus,
+    Map<UUID, Map<String, Long>> byDefinition
+) {
+}
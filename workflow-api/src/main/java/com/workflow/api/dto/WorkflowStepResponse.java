@@ -1,5 +1,7 @@
 package com.workflow.api.dto;
 
+import com.workflow.storage.entity.WorkflowStep;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -16,4 +18,19 @@ public record WorkflowStepResponse(
     LocalDateTime completedAt,
     int retryCount
 ) {
+    public static WorkflowStepResponse from(WorkflowStep step) {
+        return new WorkflowStepResponse(
+            step.id(),
+            step.workflowInstanceId(),
+            step.stepId(),
+            step.stepType(),
+            step.status(),
+            step.input(),
+            step.output(),
+            step.errorMessage(),
+            step.startedAt(),
+            step.completedAt(),
+            step.retryCount()
+        );
+    }
 }
@@ -0,0 +1,136 @@
+package com.workflow.api.service;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.IdempotencyKeyRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Deduplicates workflow starts that carry an {@code Idempotency-Key}. The key
+ * is claimed in {@code workflow_idempotency_keys}, whose primary key makes the
+ * claim atomic across nodes. Recently seen keys are answered from a small LRU
+ * cache, and concurrent requests with the same key on this node share one
+ * claim. A key can be reused once it is older than {@code workflow.idempotency.window}.
+ */
+@Component
+public class IdempotentStarts {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotentStarts.class);
+
+    private record Key(String workflowName, String idempotencyKey) {
+    }
+
+    private record Claim(UUID instanceId, Instant claimedAt) {
+    }
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final WorkflowStateStore stateStore;
+    private final Duration window;
+    private final Map<Key, Claim> recent;
+    private final Map<Key, Mono<WorkflowInstance>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentStarts(IdempotencyKeyRepository keyRepository,
+                            WorkflowStateStore stateStore,
+                            @Value("${workflow.idempotency.window:PT24H}") Duration window,
+                            @Value("${workflow.idempotency.cache-size:10000}") int cacheSize) {
+        this.keyRepository = keyRepository;
+        this.stateStore = stateStore;
+        this.window = window;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Claim> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code starter} with a fresh instance id if the key is unclaimed,
+     * otherwise returns the instance that claimed it.
+     */
+    public Mono<WorkflowInstance> start(String workflowName, String idempotencyKey,
+                                        Function<UUID, Mono<WorkflowInstance>> starter) {
+        Key key = new Key(workflowName, idempotencyKey);
+        Claim claim = recent.get(key);
+        if (claim != null && claim.claimedAt().plus(window).isAfter(Instant.now())) {
+            return existing(claim.instanceId());
+        }
+        return inFlight.computeIfAbsent(key, k -> claimOrFind(k, starter)
+            .doFinally(signal -> inFlight.remove(k))
+            .cache());
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.idempotency.purge-interval:PT1H}")
+    public void purge() {
+        keyRepository.purgeOlderThan(window.toSeconds())
+            .subscribe(
+                purged -> logger.debug("Purged {} expired idempotency keys", purged),
+                error -> logger.warn("Failed to purge expired idempotency keys", error)
+            );
+    }
+
+    private Mono<WorkflowInstance> claimOrFind(Key key, Function<UUID, Mono<WorkflowInstance>> starter) {
+        UUID instanceId = UUID.randomUUID();
+        return keyRepository.claim(key.workflowName(), key.idempotencyKey(), instanceId, window.toSeconds())
+            .hasElement()
+            .flatMap(claimed -> {
+                if (claimed) {
+                    Claim claim = new Claim(instanceId, Instant.now());
+                    recent.put(key, claim);
+                    return starter.apply(instanceId)
+                        .onErrorResume(error -> unclaimIfNotCreated(key, claim).then(Mono.error(error)));
+                }
+                return keyRepository.find(key.workflowName(), key.idempotencyKey())
+                    .flatMap(found -> {
+                        logger.debug("Idempotency key {} already started instance {}", key, found.workflowInstanceId());
+                        recent.put(key, new Claim(found.workflowInstanceId(),
+                            found.createdAt().atZone(ZoneId.systemDefault()).toInstant()));
+                        return existing(found.workflowInstanceId());
+                    });
+            });
+    }
+
+    /**
+     * Frees the key after a failed start that never wrote its instance, so
+     * that a retry starts it instead of waiting for an instance that will
+     * not appear. A start that failed after writing it keeps the key.
+     */
+    private Mono<Void> unclaimIfNotCreated(Key key, Claim claim) {
+        return stateStore.findInstance(claim.instanceId())
+            .hasElement()
+            .flatMap(created -> {
+                if (created) {
+                    return Mono.empty();
+                }
+                recent.remove(key, claim);
+                return keyRepository.release(key.workflowName(), key.idempotencyKey(), claim.instanceId()).then();
+            })
+            .onErrorResume(error -> {
+                logger.warn("Failed to release idempotency key {} after a failed start", key, error);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<WorkflowInstance> existing(UUID instanceId) {
+        // Another node may have claimed the key and not yet written the instance
+        return stateStore.findInstance(instanceId)
+            .repeatWhenEmpty(10, attempts -> attempts.delayElements(Duration.ofMillis(50)))
+            .switchIfEmpty(Mono.error(new IllegalStateException(
+                "Instance " + instanceId + " for idempotency key is not available yet")));
+    }
+}
@@ -3,19 +3,21 @@ package com.workflow.api.service;
 import com.workflow.api.service.WorkflowService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.stream.Stream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class WorkflowDefinitionLoader implements CommandLineRunner {
@@ -24,55 +26,68 @@ public class WorkflowDefinitionLoader implements CommandLineRunner {
 
     private final WorkflowService workflowService;
     private final ResourceLoader resourceLoader;
+    private final Duration warmUpTimeout;
 
-    public WorkflowDefinitionLoader(WorkflowService workflowService, ResourceLoader resourceLoader) {
+    public WorkflowDefinitionLoader(WorkflowService workflowService, ResourceLoader resourceLoader,
+                                    @Value("${workflow.warm-up.timeout:PT60S}") Duration warmUpTimeout) {
         this.workflowService = workflowService;
         this.resourceLoader = resourceLoader;
+        this.warmUpTimeout = warmUpTimeout;
     }
 
+    /**
+     * Runs before the application reports itself ready, so the readiness
+     * probe stays down until every active definition is compiled and its
+     * steps are prepared.
+     */
     @Override
     public void run(String... args) throws Exception {
         logger.info("Loading workflow definitions from classpath...");
-        loadWorkflowDefinitions().subscribe();
+        long started = System.nanoTime();
+        Long cached = loadWorkflowDefinitions()
+            .onErrorResume(error -> Flux.empty())
+            .then(workflowService.preloadWorkflowDefinitions())
+            .timeout(warmUpTimeout)
+            .onErrorResume(error -> {
+                logger.warn("Warm-up did not finish, remaining definitions load on first use", error);
+                return Mono.empty();
+            })
+            .block();
+        logger.info("Warmed up {} active workflow definitions in {} ms",
+            cached, Duration.ofNanos(System.nanoTime() - started).toMillis());
     }
 
     private Flux<Void> loadWorkflowDefinitions() {
         try {
-            Resource workflowsResource = resourceLoader.getResource("classpath:workflows/");
-            if (workflowsResource.exists()) {
-                Path workflowsPath = Paths.get(workflowsResource.getURI());
-
-                return Flux.fromStream(this.getYamlFiles(workflowsPath))
-                    .flatMap(this::loadWorkflowDefinition)
-                    .doOnNext(definition -> logger.info("Loaded workflow definition: {}", definition.name()))
-                    .doOnError(error -> logger.error("Error loading workflow definitions", error))
-                    .then()
-                    .flux();
-            } else {
+            // Resolved as resources rather than paths so that this also works from the packaged jar
+            ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+            List<Resource> yamlFiles = new ArrayList<>(List.of(resolver.getResources("classpath*:workflows/**/*.yml")));
+            yamlFiles.addAll(List.of(resolver.getResources("classpath*:workflows/**/*.yaml")));
+            if (yamlFiles.isEmpty()) {
                 logger.warn("Workflows directory not found in classpath");
                 return Flux.empty();
             }
+
+            return Flux.fromIterable(yamlFiles)
+                .flatMap(this::loadWorkflowDefinition)
+                .doOnNext(definition -> logger.info("Loaded workflow definition: {}", definition.name()))
+                .doOnError(error -> logger.error("Error loading workflow definitions", error))
+                .thenMany(Flux.empty());
         } catch (Exception e) {
             logger.error("Failed to load workflow definitions", e);
             return Flux.error(e);
         }
     }
 
-    private Stream<Path> getYamlFiles(Path workflowsPath) throws IOException {
-        return Files.walk(workflowsPath)
-            .filter(Files::isRegularFile)
-            .filter(path -> path.toString().endsWith(".yml") || path.toString().endsWith(".yaml"));
-    }
-
-    private Mono<com.workflow.storage.entity.WorkflowDefinition> loadWorkflowDefinition(Path yamlFile) {
+    private Mono<com.workflow.storage.entity.WorkflowDefinition> loadWorkflowDefinition(Resource yamlFile) {
         try {
-            String yamlContent = Files.readString(yamlFile, StandardCharsets.UTF_8);
-            String fileName = yamlFile.getFileName().toString();
+            String yamlContent = yamlFile.getContentAsString(StandardCharsets.UTF_8);
+            String fileName = yamlFile.getFilename();
             String workflowName = fileName.substring(0, fileName.lastIndexOf('.'));
 
-            return workflowService.createWorkflowDefinition(workflowName, yamlContent, "1.0.0")
+            return workflowService.deployWorkflowDefinition(workflowName, yamlContent)
                 .onErrorResume(error -> {
-                    logger.warn("Workflow definition '{}' already exists, skipping", workflowName);
+                    logger.error("Rejected workflow definition '{}' from {}: {}", workflowName, yamlFile, error.getMessage());
                     return Mono.empty();
                 });
         } catch (IOException e) {
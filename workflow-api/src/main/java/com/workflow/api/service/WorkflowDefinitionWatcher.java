@@ -0,0 +1,142 @@
+package com.workflow.api.service;
+
+import com.workflow.storage.entity.WorkflowDefinition;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Deploys workflow definition files from a directory as they change. Events
+ * are collected until the directory has been quiet for the debounce period,
+ * so a file written in several steps is deployed once. Deployment runs on the
+ * watcher thread; starts keep using the previous version until the new one
+ * has been stored and swapped into the cache.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.definitions.watch-directory")
+public class WorkflowDefinitionWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowDefinitionWatcher.class);
+    private static final Duration DEPLOY_TIMEOUT = Duration.ofSeconds(30);
+
+    private final WorkflowService workflowService;
+    private final Path directory;
+    private final Duration debounce;
+    private volatile WatchService watchService;
+
+    public WorkflowDefinitionWatcher(WorkflowService workflowService,
+                                     @Value("${workflow.definitions.watch-directory}") Path directory,
+                                     @Value("${workflow.definitions.watch-debounce:PT0.5S}") Duration debounce) {
+        this.workflowService = workflowService;
+        this.directory = directory;
+        this.debounce = debounce;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            logger.warn("Workflow definitions directory {} does not exist, not watching it", directory);
+            return;
+        }
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+        Thread thread = new Thread(this::watch, "workflow-definition-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for workflow definition changes", directory);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        // Picks up files that changed while this node was down
+        yamlFiles().forEach(this::deploy);
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            changed.addAll(yamlFiles());
+                        } else {
+                            Path file = directory.resolve((Path) event.context());
+                            if (isYaml(file)) {
+                                changed.add(file);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.error("Workflow definitions directory {} is no longer accessible, stopped watching", directory);
+                        return;
+                    }
+                    key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                changed.forEach(this::deploy);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", directory);
+        }
+    }
+
+    private void deploy(Path file) {
+        String fileName = file.getFileName().toString();
+        String workflowName = fileName.substring(0, fileName.lastIndexOf('.'));
+        try {
+            String yamlContent = Files.readString(file, StandardCharsets.UTF_8);
+            WorkflowDefinition deployed = workflowService.deployWorkflowDefinition(workflowName, yamlContent)
+                .block(DEPLOY_TIMEOUT);
+            logger.debug("Workflow definition '{}' is at version {}", workflowName, deployed.version());
+        } catch (NoSuchFileException e) {
+            // Removed before it settled
+        } catch (Exception e) {
+            logger.error("Rejected workflow definition '{}' from {}: {}", workflowName, file, e.getMessage());
+        }
+    }
+
+    private Set<Path> yamlFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> Files.isRegularFile(file) && isYaml(file))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        } catch (IOException e) {
+            logger.error("Failed to list {}", directory, e);
+            return Set.of();
+        }
+    }
+
+    private static boolean isYaml(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".yml") || name.endsWith(".yaml");
+    }
+}
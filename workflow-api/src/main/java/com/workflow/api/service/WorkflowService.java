@@ -1,98 +1,332 @@
 package com.workflow.api.service;
 
+import com.workflow.api.dto.BulkStartResponse;
+import com.workflow.api.dto.StartWorkflowRequest;
 import com.workflow.api.dto.WorkflowInstanceResponse;
+import com.workflow.api.dto.WorkflowStatsResponse;
 import com.workflow.api.dto.WorkflowStepResponse;
+import com.workflow.engine.completion.CompletionSignals;
 import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.profile.ExecutionProfiler;
+import com.workflow.engine.profile.InstanceProfile;
+import com.workflow.engine.queue.WorkQueue;
+import com.workflow.engine.registry.WorkflowDefinitionCache;
+import com.workflow.engine.registry.WorkflowDefinitionDeployer;
+import com.workflow.engine.scheduling.Scheduling;
+import com.workflow.engine.stats.WorkflowStatusCounters;
 import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.entity.WorkflowDefinitionSummary;
 import com.workflow.storage.entity.WorkflowInstance;
-import com.workflow.storage.entity.WorkflowStep;
 import com.workflow.storage.repository.WorkflowDefinitionRepository;
-import com.workflow.storage.repository.WorkflowInstanceRepository;
-import com.workflow.storage.repository.WorkflowStepRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @Service
 public class WorkflowService {
 
     private final WorkflowDefinitionRepository definitionRepository;
-    private final WorkflowInstanceRepository instanceRepository;
-    private final WorkflowStepRepository stepRepository;
+    private final WorkflowDefinitionCache definitionCache;
+    private final WorkflowDefinitionDeployer definitionDeployer;
+    private final WorkflowStateStore stateStore;
     private final WorkflowExecutor workflowExecutor;
+    private final WorkflowStatusCounters statusCounters;
+    private final WorkQueue workQueue;
+    private final CompletionSignals completionSignals;
+    private final IdempotentStarts idempotentStarts;
+    private final ExecutionProfiler executionProfiler;
+    private final Duration maxResultTimeout;
+    private final boolean queueExecution;
+    private final int bulkBatchSize;
+    private final int bulkMaxConcurrency;
 
     public WorkflowService(WorkflowDefinitionRepository definitionRepository,
-                          WorkflowInstanceRepository instanceRepository,
-                          WorkflowStepRepository stepRepository,
-                          WorkflowExecutor workflowExecutor) {
+                          WorkflowDefinitionCache definitionCache,
+                          WorkflowDefinitionDeployer definitionDeployer,
+                          WorkflowStateStore stateStore,
+                          WorkflowExecutor workflowExecutor,
+                          WorkflowStatusCounters statusCounters,
+                          WorkQueue workQueue,
+                          CompletionSignals completionSignals,
+                          IdempotentStarts idempotentStarts,
+                          ExecutionProfiler executionProfiler,
+                          @Value("${workflow.execution.mode:local}") String executionMode,
+                          @Value("${workflow.bulk.batch-size:500}") int bulkBatchSize,
+                          @Value("${workflow.bulk.max-concurrency:64}") int bulkMaxConcurrency,
+                          @Value("${workflow.result.max-timeout:PT2M}") Duration maxResultTimeout) {
         this.definitionRepository = definitionRepository;
-        this.instanceRepository = instanceRepository;
-        this.stepRepository = stepRepository;
+        this.definitionCache = definitionCache;
+        this.definitionDeployer = definitionDeployer;
+        this.stateStore = stateStore;
         this.workflowExecutor = workflowExecutor;
+        this.statusCounters = statusCounters;
+        this.workQueue = workQueue;
+        this.completionSignals = completionSignals;
+        this.idempotentStarts = idempotentStarts;
+        this.executionProfiler = executionProfiler;
+        this.maxResultTimeout = maxResultTimeout;
+        this.queueExecution = "queue".equals(executionMode);
+        this.bulkBatchSize = bulkBatchSize;
+        this.bulkMaxConcurrency = bulkMaxConcurrency;
     }
 
     public Mono<WorkflowInstanceResponse> startWorkflow(String workflowName, String input) {
-        return definitionRepository.findByNameAndActive(workflowName, true)
+        return startWorkflow(workflowName, new StartWorkflowRequest(input), null);
+    }
+
+    /**
+     * Starts a workflow. With a non-null {@code idempotencyKey}, repeats of
+     * the same key for the same workflow return the instance the first
+     * request created instead of starting another one.
+     */
+    public Mono<WorkflowInstanceResponse> startWorkflow(String workflowName, StartWorkflowRequest request,
+                                                        String idempotencyKey) {
+        return Mono.fromSupplier(() -> scheduling(request))
+            .flatMap(scheduling -> definitionCache.getActive(workflowName)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Workflow not found: " + workflowName)))
+                .flatMap(definition -> idempotencyKey == null
+                    ? start(definition, UUID.randomUUID(), request.input(), scheduling)
+                    : idempotentStarts.start(workflowName, idempotencyKey,
+                        instanceId -> start(definition, instanceId, request.input(), scheduling))))
+            .map(WorkflowInstanceResponse::from);
+    }
+
+    /**
+     * Starts one instance per request. Instances are inserted in batches of
+     * {@code workflow.bulk.batch-size}, in one call per run of consecutive
+     * requests with the same priority and tenant, and each is reported with
+     * its 1-based line number once its run is written. In local mode a written
+     * run is handed to a launcher running on its own subscription, which
+     * starts at most {@code workflow.bulk.max-concurrency} instances of the
+     * request at a time; a client that goes away stops further writes but
+     * not the launches. The next run is written only after every instance
+     * written before the current run has started, so requests are pulled
+     * about as fast as instances start.
+     */
+    public Flux<BulkStartResponse> startWorkflows(String workflowName, Flux<StartWorkflowRequest> requests) {
+        return definitionCache.getActive(workflowName)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Workflow not found: " + workflowName)))
-            .flatMap(definition -> workflowExecutor.executeWorkflow(definition, input))
-            .map(this::mapToResponse);
+            .flatMapMany(definition -> {
+                Flux<Run> runs = requests
+                    .buffer(bulkBatchSize)
+                    .concatMap(batch -> Flux.fromIterable(runs(batch)));
+                Flux<WorkflowInstance> accepted = queueExecution
+                    ? runs.concatMap(run -> workQueue.enqueueAll(definition, run.inputs(), run.scheduling()))
+                    : Flux.using(() -> new BulkLauncher(definition), launcher -> runs.concatMap(launcher::write),
+                        BulkLauncher::close);
+                return accepted.index((index, instance) -> new BulkStartResponse(index + 1, instance.id()));
+            });
     }
 
     public Mono<WorkflowInstanceResponse> getWorkflowInstance(UUID instanceId) {
-        return instanceRepository.findById(instanceId)
+        return stateStore.findInstance(instanceId)
             .switchIfEmpty(Mono.error(new IllegalArgumentException("Workflow instance not found: " + instanceId)))
-            .map(this::mapToResponse);
+            .map(WorkflowInstanceResponse::from);
+    }
+
+    /**
+     * Returns the instance once it is terminal, or its current state when
+     * {@code timeout} (capped at {@code workflow.result.max-timeout}) expires
+     * first. The wait is driven by {@link CompletionSignals}; storage is only
+     * read before and after it.
+     */
+    public Mono<WorkflowInstance> awaitWorkflowResult(UUID instanceId, Duration timeout) {
+        Duration wait = timeout.compareTo(maxResultTimeout) > 0 ? maxResultTimeout : timeout;
+        return stateStore.findInstance(instanceId)
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Workflow instance not found: " + instanceId)))
+            .flatMap(instance -> instance.isTerminal()
+                ? Mono.just(instance)
+                : Flux.merge(
+                        completionSignals.awaitTerminal(instanceId).thenReturn(true),
+                        // Catches a completion that landed between the first read and registering the wait
+                        stateStore.findInstance(instanceId).filter(WorkflowInstance::isTerminal).map(terminal -> true))
+                    .next()
+                    .timeout(wait, Mono.just(false))
+                    .then(stateStore.findInstance(instanceId)));
     }
 
     public Flux<WorkflowInstanceResponse> getAllWorkflowInstances() {
-        return instanceRepository.findAll()
-            .map(this::mapToResponse);
+        return stateStore.findAllInstances()
+            .map(WorkflowInstanceResponse::from);
+    }
+
+    public Mono<WorkflowStatsResponse> getWorkflowStats() {
+        return Mono.fromSupplier(() -> {
+            Map<String, Long> byStatus = new TreeMap<>();
+            Map<UUID, Map<String, Long>> byDefinition = new TreeMap<>();
+            long total = 0;
+
+            for (Map.Entry<WorkflowStatusCounters.Key, Long> entry : statusCounters.snapshot().entrySet()) {
+                String status = entry.getKey().status();
+                long count = entry.getValue();
+                total += count;
+                byStatus.merge(status, count, Long::sum);
+                byDefinition.computeIfAbsent(entry.getKey().workflowDefinitionId(), id -> new TreeMap<>())
+                    .put(status, count);
+            }
+
+            return new WorkflowStatsResponse(total, byStatus, byDefinition);
+        });
     }
 
     public Flux<WorkflowStepResponse> getWorkflowSteps(UUID instanceId) {
-        return stepRepository.findByWorkflowInstanceIdOrderByStartedAt(instanceId)
-            .map(this::mapStepToResponse);
+        return stateStore.findSteps(instanceId)
+            .map(WorkflowStepResponse::from);
+    }
+
+    public Mono<InstanceProfile> getWorkflowProfile(UUID instanceId) {
+        return stateStore.findInstance(instanceId)
+            .zipWith(stateStore.findSteps(instanceId).collectList())
+            .map(found -> InstanceProfile.of(found.getT1(), found.getT2(),
+                executionProfiler.counters(instanceId).orElse(null), LocalDateTime.now()))
+            .switchIfEmpty(Mono.error(new IllegalArgumentException("Workflow instance not found: " + instanceId)));
     }
 
     public Mono<WorkflowDefinition> createWorkflowDefinition(String name, String yamlContent, String version) {
-        WorkflowDefinition definition = WorkflowDefinition.create(name, yamlContent, version);
-        return definitionRepository.save(definition);
-    }
-
-    public Flux<WorkflowDefinition> getAllWorkflowDefinitions() {
-        return definitionRepository.findAll();
-    }
-
-    private WorkflowInstanceResponse mapToResponse(WorkflowInstance instance) {
-        return new WorkflowInstanceResponse(
-            instance.id(),
-            instance.workflowDefinitionId(),
-            instance.status(),
-            instance.currentStepId(),
-            instance.input(),
-            instance.output(),
-            instance.errorMessage(),
-            instance.startedAt(),
-            instance.completedAt(),
-            instance.updatedAt()
-        );
-    }
-
-    private WorkflowStepResponse mapStepToResponse(WorkflowStep step) {
-        return new WorkflowStepResponse(
-            step.id(),
-            step.workflowInstanceId(),
-            step.stepId(),
-            step.stepType(),
-            step.status(),
-            step.input(),
-            step.output(),
-            step.errorMessage(),
-            step.startedAt(),
-            step.completedAt(),
-            step.retryCount()
-        );
+        return definitionDeployer.deploy(name, yamlContent, version);
+    }
+
+    /**
+     * Makes {@code yamlContent} the active definition for {@code name} under
+     * the version declared in the YAML; unchanged content is a no-op.
+     */
+    public Mono<WorkflowDefinition> deployWorkflowDefinition(String name, String yamlContent) {
+        return definitionDeployer.deploy(name, yamlContent);
+    }
+
+    public Flux<WorkflowDefinitionSummary> getAllWorkflowDefinitions() {
+        return definitionRepository.findAllSummaries();
+    }
+
+    public Mono<Long> preloadWorkflowDefinitions() {
+        return definitionCache.preload();
+    }
+
+    private record Run(Scheduling scheduling, List<String> inputs) {
+    }
+
+    private record Accepted(WorkflowInstance instance, Scheduling scheduling) {
+    }
+
+    private record Written(List<WorkflowInstance> instances, long queuedBefore) {
+    }
+
+    private Mono<WorkflowInstance> start(CompiledWorkflowDefinition definition, UUID instanceId, String input,
+                                         Scheduling scheduling) {
+        return queueExecution
+            ? workQueue.enqueue(definition, instanceId, input, scheduling)
+            : detached(scheduling.scope(workflowExecutor.executeWorkflow(definition, instanceId, input)));
+    }
+
+    /**
+     * Runs the execution on its own subscription and relays its outcome. A
+     * client that disconnects, for instance while the instance waits for
+     * its definition's maxConcurrency, then no longer cancels it, which
+     * would leave it PENDING with nothing to resume it in local mode.
+     */
+    private static <T> Mono<T> detached(Mono<T> execution) {
+        return Mono.defer(() -> {
+            Sinks.One<T> outcome = Sinks.one();
+            execution.subscribe(outcome::tryEmitValue, outcome::tryEmitError, outcome::tryEmitEmpty);
+            return outcome.asMono();
+        });
+    }
+
+    /**
+     * Launches the instances of one bulk request in local mode. Nothing that
+     * has been written is left PENDING: writes and launches run on
+     * subscriptions of their own, and the launch queue is completed only
+     * after the last write has been queued.
+     */
+    private final class BulkLauncher {
+
+        private final CompiledWorkflowDefinition definition;
+        private final Sinks.Many<Accepted> queue = Sinks.many().unicast().onBackpressureBuffer();
+        private final Sinks.Many<Long> started = Sinks.many().replay().latest();
+        private volatile Mono<Written> lastWrite = Mono.empty();
+        private long queued;
+        private long startedCount;
+
+        BulkLauncher(CompiledWorkflowDefinition definition) {
+            this.definition = definition;
+            queue.asFlux()
+                .doOnNext(accepted -> started.tryEmitNext(++startedCount))
+                .flatMap(this::launch, bulkMaxConcurrency)
+                .subscribe();
+        }
+
+        /**
+         * Writes a run and queues its instances, then relays them once every
+         * instance queued before this run has started.
+         */
+        Flux<WorkflowInstance> write(Run run) {
+            return Mono.defer(() -> {
+                    Sinks.One<Written> written = Sinks.one();
+                    lastWrite = written.asMono();
+                    workflowExecutor.createInstances(definition, run.inputs()).collectList()
+                        .subscribe(instances -> written.tryEmitValue(enqueue(instances, run.scheduling())),
+                            written::tryEmitError);
+                    return written.asMono();
+                })
+                .flatMapMany(written -> Flux.fromIterable(written.instances())
+                    .concatWith(startedUpTo(written.queuedBefore()).thenMany(Flux.empty())));
+        }
+
+        void close() {
+            lastWrite.onErrorResume(error -> Mono.empty())
+                .doFinally(signal -> queue.tryEmitComplete())
+                .subscribe();
+        }
+
+        private Written enqueue(List<WorkflowInstance> instances, Scheduling scheduling) {
+            long queuedBefore = queued;
+            for (WorkflowInstance instance : instances) {
+                queue.tryEmitNext(new Accepted(instance, scheduling));
+            }
+            queued += instances.size();
+            return new Written(instances, queuedBefore);
+        }
+
+        private Mono<Void> startedUpTo(long count) {
+            return count == 0 ? Mono.empty() : started.asFlux().filter(launched -> launched >= count).next().then();
+        }
+
+        private Mono<Void> launch(Accepted accepted) {
+            return accepted.scheduling().scope(workflowExecutor.runInstance(definition, accepted.instance()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+        }
+    }
+
+    /**
+     * Splits a batch into runs of consecutive requests with the same
+     * scheduling, keeping their order.
+     */
+    private static List<Run> runs(List<StartWorkflowRequest> batch) {
+        List<Run> runs = new ArrayList<>();
+        for (StartWorkflowRequest request : batch) {
+            Scheduling scheduling = scheduling(request);
+            if (runs.isEmpty() || !runs.get(runs.size() - 1).scheduling().equals(scheduling)) {
+                runs.add(new Run(scheduling, new ArrayList<>()));
+            }
+            runs.get(runs.size() - 1).inputs().add(request.input());
+        }
+        return runs;
+    }
+
+    private static Scheduling scheduling(StartWorkflowRequest request) {
+        return Scheduling.of(request.priority(), request.tenant());
     }
 }
@@ -0,0 +1,147 @@
+package com.workflow.api.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workflow.engine.completion.CompletionSignals;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.notify.PostgresNotifications;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Relays workflow updates between API nodes over PostgreSQL
+ * {@code LISTEN/NOTIFY}, so that WebSocket clients see transitions executed on
+ * any node. Outgoing updates are collected into batches, conflated by entity,
+ * and sent as one notification per batch. Batches too large for NOTIFY go
+ * through {@link PostgresNotifications#publish} by reference. Terminal
+ * instance updates from other nodes also fire the local
+ * {@link CompletionSignals}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.cluster.relay-updates", havingValue = "true")
+public class ClusterUpdateRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterUpdateRelay.class);
+    static final String CHANNEL = "workflow_updates";
+
+    record RelayedUpdate(UUID key, String type, UUID instanceId, UUID workflowDefinitionId, String status, String message) {
+    }
+
+    record RelayBatch(String origin, List<RelayedUpdate> updates) {
+    }
+
+    private final PostgresNotifications notifications;
+    private final WorkflowUpdateHandler updateHandler;
+    private final CompletionSignals completionSignals;
+    private final ObjectMapper objectMapper;
+    private final Duration payloadRetention;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Sinks.Many<WorkflowUpdate> outgoing = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable sender;
+    private volatile Disposable receiver;
+
+    public ClusterUpdateRelay(PostgresNotifications notifications,
+                              WorkflowUpdateHandler updateHandler,
+                              CompletionSignals completionSignals,
+                              ObjectMapper objectMapper,
+                              @Value("${workflow.cluster.batch-size:100}") int batchSize,
+                              @Value("${workflow.cluster.max-batch-delay:PT0.05S}") Duration maxBatchDelay,
+                              @Value("${workflow.cluster.payload-retention:PT5M}") Duration payloadRetention) {
+        this.notifications = notifications;
+        this.updateHandler = updateHandler;
+        this.completionSignals = completionSignals;
+        this.objectMapper = objectMapper;
+        this.payloadRetention = payloadRetention;
+        this.sender = outgoing.asFlux()
+            .bufferTimeout(batchSize, maxBatchDelay)
+            .concatMap(this::send)
+            .subscribe();
+    }
+
+    void publish(WorkflowUpdate update) {
+        outgoing.emitNext(update, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        receiver = notifications.subscribe(CHANNEL)
+            .subscribe(
+                this::receive,
+                error -> logger.error("Stopped receiving relayed workflow updates", error)
+            );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outgoing.tryEmitComplete();
+        sender.dispose();
+        if (receiver != null) {
+            receiver.dispose();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.cluster.payload-retention:PT5M}")
+    public void purgePayloads() {
+        notifications.purgePayloads(payloadRetention)
+            .subscribe(
+                purged -> logger.debug("Purged {} relayed update payloads", purged),
+                error -> logger.warn("Failed to purge relayed update payloads", error)
+            );
+    }
+
+    private Mono<Void> send(List<WorkflowUpdate> batch) {
+        // Only the latest state of each instance or step in the batch is worth sending
+        Map<UUID, RelayedUpdate> latest = new LinkedHashMap<>();
+        for (WorkflowUpdate update : batch) {
+            latest.put(update.key(), new RelayedUpdate(update.key(), update.type(), update.instanceId(),
+                update.workflowDefinitionId(), update.status(), new String(update.payload(), StandardCharsets.UTF_8)));
+        }
+
+        try {
+            String payload = objectMapper.writeValueAsString(new RelayBatch(nodeId, List.copyOf(latest.values())));
+            return notifications.publish(CHANNEL, payload)
+                .onErrorResume(error -> {
+                    logger.warn("Failed to relay {} workflow updates", latest.size(), error);
+                    return Mono.empty();
+                });
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing relayed workflow updates", e);
+            return Mono.empty();
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            RelayBatch batch = objectMapper.readValue(payload, RelayBatch.class);
+            if (nodeId.equals(batch.origin())) {
+                return;
+            }
+            for (RelayedUpdate relayed : batch.updates()) {
+                updateHandler.deliver(new WorkflowUpdate(relayed.key(), relayed.type(), relayed.instanceId(),
+                    relayed.workflowDefinitionId(), relayed.status(), relayed.message().getBytes(StandardCharsets.UTF_8)));
+                if ("instance".equals(relayed.type()) && WorkflowInstance.isTerminal(relayed.status())) {
+                    completionSignals.complete(relayed.instanceId());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed relayed workflow update batch", e);
+        }
+    }
+}
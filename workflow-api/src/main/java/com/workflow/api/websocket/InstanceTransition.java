@@ -0,0 +1,13 @@
+package com.workflow.api.websocket;
+
+import com.workflow.api.dto.WorkflowInstanceResponse;
+
+/**
+ * Payload of an {@code instance} update. {@code previousStatus} is null for a
+ * newly created instance.
+ */
+public record InstanceTransition(
+    WorkflowInstanceResponse instance,
+    String previousStatus
+) {
+}
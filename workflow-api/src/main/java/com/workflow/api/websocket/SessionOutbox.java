@@ -0,0 +1,92 @@
+package com.workflow.api.websocket;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+/**
+ * Bounded, conflating queue of updates for one WebSocket session. Updates
+ * are released only as the connection requests them. While they wait, a newer
+ * update for the same entity replaces the queued one in place, so a slow
+ * client skips intermediate states instead of buffering them. If the queue
+ * is full of distinct entities, it is dropped and replaced by a single
+ * {@code resync} message that tells the client to reload over REST.
+ */
+class SessionOutbox {
+
+    static final WorkflowUpdate RESYNC = new WorkflowUpdate(
+        new UUID(0, 0), "resync", null, null, null,
+        "{\"type\":\"resync\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final int capacity;
+    private final LinkedHashMap<UUID, WorkflowUpdate> pending = new LinkedHashMap<>();
+    private volatile SubscriptionFilter filter = SubscriptionFilter.ALL;
+    private FluxSink<WorkflowUpdate> sink;
+    private boolean draining;
+
+    SessionOutbox(int capacity) {
+        this.capacity = capacity;
+    }
+
+    Flux<WorkflowUpdate> updates() {
+        return Flux.create(created -> {
+            synchronized (this) {
+                sink = created;
+            }
+            created.onRequest(requested -> drain());
+        });
+    }
+
+    void setFilter(SubscriptionFilter filter) {
+        this.filter = filter;
+    }
+
+    boolean accepts(WorkflowUpdate update) {
+        return filter.matches(update);
+    }
+
+    void offer(WorkflowUpdate update) {
+        synchronized (this) {
+            if (!pending.containsKey(update.key()) && pending.size() >= capacity) {
+                pending.clear();
+                pending.put(RESYNC.key(), RESYNC);
+            }
+            // An existing key keeps its place in the queue and takes the newer state
+            pending.put(update.key(), update);
+        }
+        drain();
+    }
+
+    int size() {
+        synchronized (this) {
+            return pending.size();
+        }
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        // Emits outside the lock; whoever sets draining loops until demand or updates run out
+        while (true) {
+            WorkflowUpdate next;
+            synchronized (this) {
+                if (sink == null || sink.isCancelled() || sink.requestedFromDownstream() == 0 || pending.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                Iterator<WorkflowUpdate> iterator = pending.values().iterator();
+                next = iterator.next();
+                iterator.remove();
+            }
+            sink.next(next);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.workflow.api.websocket;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Which updates a session receives. Empty sets match everything; a session
+ * that never sends a subscription receives all updates.
+ */
+record SubscriptionFilter(
+    Set<String> types,
+    Set<UUID> instanceIds,
+    Set<UUID> definitionIds,
+    Set<String> statuses
+) {
+    static final SubscriptionFilter ALL = new SubscriptionFilter(Set.of(), Set.of(), Set.of(), Set.of());
+
+    SubscriptionFilter {
+        types = types == null ? Set.of() : Set.copyOf(types);
+        instanceIds = instanceIds == null ? Set.of() : Set.copyOf(instanceIds);
+        definitionIds = definitionIds == null ? Set.of() : Set.copyOf(definitionIds);
+        statuses = statuses == null ? Set.of() : Set.copyOf(statuses);
+    }
+
+    boolean matches(WorkflowUpdate update) {
+        return (types.isEmpty() || types.contains(update.type()))
+            && (instanceIds.isEmpty() || instanceIds.contains(update.instanceId()))
+            && (definitionIds.isEmpty() || definitionIds.contains(update.workflowDefinitionId()))
+            && (statuses.isEmpty() || statuses.contains(update.status()));
+    }
+}
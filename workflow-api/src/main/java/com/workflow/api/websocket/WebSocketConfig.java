@@ -14,9 +14,9 @@ import java.util.Map;
 public class WebSocketConfig {
 
     @Bean
-    public HandlerMapping handlerMapping() {
+    public HandlerMapping handlerMapping(WorkflowUpdateHandler workflowUpdateHandler) {
         Map<String, WebSocketHandler> map = new HashMap<>();
-        map.put("/ws/workflow-updates", new WorkflowUpdateHandler());
+        map.put("/ws/workflow-updates", workflowUpdateHandler);
 
         SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping();
         mapping.setUrlMap(map);
@@ -0,0 +1,18 @@
+package com.workflow.api.websocket;
+
+import java.util.UUID;
+
+/**
+ * One serialized update, shared by every session it is delivered to.
+ * {@code key} identifies the entity the update describes; a newer update
+ * with the same key supersedes an older one that has not been sent yet.
+ */
+record WorkflowUpdate(
+    UUID key,
+    String type,
+    UUID instanceId,
+    UUID workflowDefinitionId,
+    String status,
+    byte[] payload
+) {
+}
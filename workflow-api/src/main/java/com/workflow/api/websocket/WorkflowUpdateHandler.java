@@ -1,33 +1,53 @@
 package com.workflow.api.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.workflow.storage.entity.WorkflowInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketMessage;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Streams workflow updates to connected clients. A client may narrow what it
+ * receives by sending a subscription message:
+ * <pre>{"type": "subscribe", "types": ["instance"], "instanceIds": [...], "definitionIds": [...], "statuses": [...]}</pre>
+ * Each session gets its own bounded {@link SessionOutbox}, so one slow
+ * client cannot hold back or grow memory for the others.
+ */
+@Component
 public class WorkflowUpdateHandler implements WebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkflowUpdateHandler.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Static sink for broadcasting updates to all connected clients
-    private static final Sinks.Many<String> updateSink = Sinks.many().multicast().onBackpressureBuffer();
-    private static final Map<String, WebSocketSession> activeSessions = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final int sessionBufferSize;
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+
+    public WorkflowUpdateHandler(ObjectMapper objectMapper,
+                                 @Value("${workflow.websocket.session-buffer-size:256}") int sessionBufferSize) {
+        this.objectMapper = objectMapper;
+        this.sessionBufferSize = sessionBufferSize;
+    }
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
         String sessionId = session.getId();
-        activeSessions.put(sessionId, session);
+        SessionOutbox outbox = new SessionOutbox(sessionBufferSize);
+        outboxes.put(sessionId, outbox);
 
         logger.info("WebSocket session connected: {}", sessionId);
 
@@ -37,29 +57,82 @@ public class WorkflowUpdateHandler implements WebSocketHandler {
             Flux.interval(Duration.ofSeconds(30))
                 .map(tick -> createMessage(session, Map.of("type", "heartbeat", "timestamp", System.currentTimeMillis()))),
 
-            // Workflow updates
-            updateSink.asFlux()
-                .map(update -> session.textMessage(update))
+            // Workflow updates, wrapping the shared bytes without copying
+            outbox.updates()
+                .map(update -> new WebSocketMessage(WebSocketMessage.Type.TEXT, session.bufferFactory().wrap(update.payload())))
         );
 
+        Mono<Void> input = session.receive()
+            .map(WebSocketMessage::getPayloadAsText)
+            .doOnNext(text -> subscribe(sessionId, outbox, text))
+            .then();
+
         return session.send(output)
-            .doOnTerminate(() -> {
-                activeSessions.remove(sessionId);
+            .and(input)
+            .doFinally(signal -> {
+                outboxes.remove(sessionId);
                 logger.info("WebSocket session disconnected: {}", sessionId);
             });
     }
 
-    public static void broadcastUpdate(String type, Object data) {
+    /**
+     * Delivers an update to every local session whose subscription matches.
+     * The message is serialized at most once, and not at all if nobody wants it.
+     */
+    public void broadcastUpdate(String type, UUID key, WorkflowInstance instance, Object data) {
+        if (outboxes.isEmpty()) {
+            return;
+        }
+
+        WorkflowUpdate probe = new WorkflowUpdate(key, type, instance.id(), instance.workflowDefinitionId(), instance.status(), null);
+        List<SessionOutbox> recipients = recipients(probe);
+        if (!recipients.isEmpty()) {
+            WorkflowUpdate update = toUpdate(type, key, instance, data);
+            if (update != null) {
+                recipients.forEach(outbox -> outbox.offer(update));
+            }
+        }
+    }
+
+    /**
+     * Delivers an already serialized update, such as one relayed from another
+     * node, to every local session whose subscription matches.
+     */
+    void deliver(WorkflowUpdate update) {
+        recipients(update).forEach(outbox -> outbox.offer(update));
+    }
+
+    WorkflowUpdate toUpdate(String type, UUID key, WorkflowInstance instance, Object data) {
         try {
-            Map<String, Object> message = Map.of(
+            byte[] payload = objectMapper.writeValueAsBytes(Map.of(
                 "type", type,
                 "data", data,
                 "timestamp", System.currentTimeMillis()
-            );
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            updateSink.tryEmitNext(jsonMessage);
+            ));
+            return new WorkflowUpdate(key, type, instance.id(), instance.workflowDefinitionId(), instance.status(), payload);
         } catch (JsonProcessingException e) {
             logger.error("Error serializing workflow update", e);
+            return null;
+        }
+    }
+
+    private List<SessionOutbox> recipients(WorkflowUpdate update) {
+        return outboxes.values().stream()
+            .filter(outbox -> outbox.accepts(update))
+            .toList();
+    }
+
+    private void subscribe(String sessionId, SessionOutbox outbox, String text) {
+        try {
+            JsonNode message = objectMapper.readTree(text);
+            if (message instanceof ObjectNode fields && "subscribe".equals(fields.path("type").asText())) {
+                fields.remove("type");
+                SubscriptionFilter filter = objectMapper.treeToValue(fields, SubscriptionFilter.class);
+                outbox.setFilter(filter);
+                logger.debug("WebSocket session {} subscribed with {}", sessionId, filter);
+            }
+        } catch (JsonProcessingException e) {
+            logger.debug("Ignoring malformed message from WebSocket session {}", sessionId, e);
         }
     }
 
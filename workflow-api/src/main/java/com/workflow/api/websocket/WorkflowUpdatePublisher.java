@@ -0,0 +1,52 @@
+package com.workflow.api.websocket;
+
+import com.workflow.api.dto.WorkflowInstanceResponse;
+import com.workflow.api.dto.WorkflowStepResponse;
+import com.workflow.engine.listener.WorkflowExecutionListener;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Pushes instance status changes and step transitions to the clients
+ * connected to {@code /ws/workflow-updates}, on this node and, when the
+ * cluster relay is enabled, on every other node.
+ */
+@Component
+public class WorkflowUpdatePublisher implements WorkflowExecutionListener {
+
+    private final WorkflowUpdateHandler updateHandler;
+    private final Optional<ClusterUpdateRelay> clusterRelay;
+
+    public WorkflowUpdatePublisher(WorkflowUpdateHandler updateHandler, Optional<ClusterUpdateRelay> clusterRelay) {
+        this.updateHandler = updateHandler;
+        this.clusterRelay = clusterRelay;
+    }
+
+    @Override
+    public void onInstanceTransition(WorkflowInstance instance, String previousStatus) {
+        publish("instance", instance.id(), instance,
+            new InstanceTransition(WorkflowInstanceResponse.from(instance), previousStatus));
+    }
+
+    @Override
+    public void onStepTransition(WorkflowInstance instance, WorkflowStep step) {
+        publish("step", step.id(), instance, WorkflowStepResponse.from(step));
+    }
+
+    private void publish(String type, UUID key, WorkflowInstance instance, Object data) {
+        if (clusterRelay.isEmpty()) {
+            updateHandler.broadcastUpdate(type, key, instance, data);
+            return;
+        }
+        // Other nodes need the serialized update even if no local session does
+        WorkflowUpdate update = updateHandler.toUpdate(type, key, instance, data);
+        if (update != null) {
+            updateHandler.deliver(update);
+            clusterRelay.get().publish(update);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.workflow.api.controller;
 
+import com.workflow.api.dto.BulkStartResponse;
 import com.workflow.api.dto.StartWorkflowRequest;
 import com.workflow.api.dto.WorkflowInstanceResponse;
 import com.workflow.api.service.WorkflowService;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -18,6 +20,8 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,13 +55,13 @@ class WorkflowControllerTest {
             LocalDateTime.now()
         );
 
-        when(workflowService.startWorkflow(eq("test-workflow"), any()))
+        when(workflowService.startWorkflow(eq("test-workflow"), any(), isNull()))
             .thenReturn(Mono.just(response));
 
         StartWorkflowRequest request = new StartWorkflowRequest("{\"test\": \"data\"}");
 
         // When
-        Mono<WorkflowInstanceResponse> result = workflowController.startWorkflow("test-workflow", request);
+        Mono<WorkflowInstanceResponse> result = workflowController.startWorkflow("test-workflow", null, request);
 
         // Then
         StepVerifier.create(result)
@@ -65,6 +69,60 @@ class WorkflowControllerTest {
             .verifyComplete();
     }
 
+    @Test
+    void shouldPassTheIdempotencyKeyWhenStartingWorkflow() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+        UUID definitionId = UUID.randomUUID();
+        WorkflowInstanceResponse response = new WorkflowInstanceResponse(
+            instanceId,
+            definitionId,
+            "RUNNING",
+            "step1",
+            "{\"test\": \"data\"}",
+            null,
+            null,
+            LocalDateTime.now(),
+            null,
+            LocalDateTime.now()
+        );
+
+        when(workflowService.startWorkflow(eq("test-workflow"), any(), eq("retry-1")))
+            .thenReturn(Mono.just(response));
+
+        StartWorkflowRequest request = new StartWorkflowRequest("{\"test\": \"data\"}");
+
+        // When
+        Mono<WorkflowInstanceResponse> result = workflowController.startWorkflow("test-workflow", "retry-1", request);
+
+        // Then
+        StepVerifier.create(result)
+            .expectNext(response)
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldStartWorkflowsInBulk() {
+        // Given
+        Flux<StartWorkflowRequest> requests = Flux.just(
+            new StartWorkflowRequest("{\"n\": 1}"),
+            new StartWorkflowRequest("{\"n\": 2}")
+        );
+        BulkStartResponse first = new BulkStartResponse(1, UUID.randomUUID());
+        BulkStartResponse second = new BulkStartResponse(2, UUID.randomUUID());
+
+        when(workflowService.startWorkflows("test-workflow", requests))
+            .thenReturn(Flux.just(first, second));
+
+        // When
+        Flux<BulkStartResponse> result = workflowController.startWorkflows("test-workflow", requests);
+
+        // Then
+        StepVerifier.create(result)
+            .expectNext(first, second)
+            .verifyComplete();
+    }
+
     @Test
     void shouldGetWorkflowInstance() {
         // Given
@@ -125,6 +183,20 @@ class WorkflowControllerTest {
             .verifyComplete();
     }
 
+    @Test
+    void shouldRejectMalformedOrNonPositiveResultTimeouts() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+
+        // When / Then
+        for (String timeout : new String[] {"soon", "-5s", "0s"}) {
+            StepVerifier.create(workflowController.awaitWorkflowResult(instanceId, timeout))
+                .assertNext(entity -> assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+        }
+        verifyNoInteractions(workflowService);
+    }
+
     @Test
     void shouldReturnCorrectControllerInstance() {
         // Given/When/Then
@@ -0,0 +1,128 @@
+package com.workflow.api.service;
+
+import com.workflow.storage.entity.IdempotencyKey;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.IdempotencyKeyRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentStartsTest {
+
+    @Mock
+    private IdempotencyKeyRepository keyRepository;
+
+    @Mock
+    private WorkflowStateStore stateStore;
+
+    private IdempotentStarts idempotentStarts;
+
+    @BeforeEach
+    void setUp() {
+        idempotentStarts = new IdempotentStarts(keyRepository, stateStore, Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentStartsWithSameKey() {
+        // Given
+        Sinks.One<UUID> claim = Sinks.one();
+        when(keyRepository.claim(eq("order"), eq("key-1"), any(), anyLong())).thenReturn(claim.asMono());
+        AtomicInteger started = new AtomicInteger();
+
+        // When
+        Mono<WorkflowInstance> first = idempotentStarts.start("order", "key-1",
+            id -> { started.incrementAndGet(); return Mono.just(WorkflowInstance.create(id, UUID.randomUUID(), "{}")); });
+        Mono<WorkflowInstance> second = idempotentStarts.start("order", "key-1",
+            id -> { started.incrementAndGet(); return Mono.just(WorkflowInstance.create(id, UUID.randomUUID(), "{}")); });
+        UUID[] ids = new UUID[2];
+        first.subscribe(instance -> ids[0] = instance.id());
+        second.subscribe(instance -> ids[1] = instance.id());
+        claim.tryEmitValue(UUID.randomUUID());
+
+        // Then
+        assertThat(started).hasValue(1);
+        assertThat(ids[0]).isNotNull().isEqualTo(ids[1]);
+        verify(keyRepository, times(1)).claim(eq("order"), eq("key-1"), any(), anyLong());
+    }
+
+    @Test
+    void shouldReturnExistingInstanceWhenKeyAlreadyClaimed() {
+        // Given
+        UUID existingId = UUID.randomUUID();
+        WorkflowInstance existing = WorkflowInstance.create(existingId, UUID.randomUUID(), "{}");
+        when(keyRepository.claim(eq("order"), eq("key-2"), any(), anyLong())).thenReturn(Mono.empty());
+        when(keyRepository.find("order", "key-2"))
+            .thenReturn(Mono.just(new IdempotencyKey("order", "key-2", existingId, LocalDateTime.now())));
+        when(stateStore.findInstance(existingId)).thenReturn(Mono.just(existing));
+
+        // When / Then
+        StepVerifier.create(idempotentStarts.start("order", "key-2", id -> Mono.error(new AssertionError("started twice"))))
+            .expectNext(existing)
+            .verifyComplete();
+
+        // A repeat is answered from the local cache without claiming again
+        StepVerifier.create(idempotentStarts.start("order", "key-2", id -> Mono.error(new AssertionError("started twice"))))
+            .expectNext(existing)
+            .verifyComplete();
+        verify(keyRepository, times(1)).claim(eq("order"), eq("key-2"), any(), anyLong());
+        verify(keyRepository, never()).purgeOlderThan(anyLong());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenStartFailsBeforeCreatingTheInstance() {
+        // Given
+        when(keyRepository.claim(eq("order"), eq("key-3"), any(), anyLong()))
+            .thenAnswer(call -> Mono.just(call.getArgument(2)));
+        when(stateStore.findInstance(any())).thenReturn(Mono.empty());
+        when(keyRepository.release(eq("order"), eq("key-3"), any())).thenReturn(Mono.just(1));
+
+        // When / Then
+        StepVerifier.create(idempotentStarts.start("order", "key-3", id -> Mono.error(new IllegalStateException("db down"))))
+            .expectErrorMessage("db down")
+            .verify();
+        verify(keyRepository).release(eq("order"), eq("key-3"), any());
+
+        // The retry claims the key again instead of answering from the cache
+        StepVerifier.create(idempotentStarts.start("order", "key-3",
+                id -> Mono.just(WorkflowInstance.create(id, UUID.randomUUID(), "{}"))))
+            .expectNextCount(1)
+            .verifyComplete();
+        verify(keyRepository, times(2)).claim(eq("order"), eq("key-3"), any(), anyLong());
+    }
+
+    @Test
+    void shouldKeepKeyWhenStartFailsAfterCreatingTheInstance() {
+        // Given
+        when(keyRepository.claim(eq("order"), eq("key-4"), any(), anyLong()))
+            .thenAnswer(call -> Mono.just(call.getArgument(2)));
+        when(stateStore.findInstance(any()))
+            .thenAnswer(call -> Mono.just(WorkflowInstance.create(call.getArgument(0), UUID.randomUUID(), "{}")));
+
+        // When / Then
+        StepVerifier.create(idempotentStarts.start("order", "key-4", id -> Mono.error(new IllegalStateException("lost"))))
+            .expectErrorMessage("lost")
+            .verify();
+        verify(keyRepository, never()).release(any(), any(), any());
+    }
+}
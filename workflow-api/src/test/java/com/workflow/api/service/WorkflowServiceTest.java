@@ -0,0 +1,135 @@
+package com.workflow.api.service;
+
+import com.workflow.api.dto.StartWorkflowRequest;
+import com.workflow.engine.completion.CompletionSignals;
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.profile.ExecutionProfiler;
+import com.workflow.engine.queue.WorkQueue;
+import com.workflow.engine.registry.WorkflowDefinitionCache;
+import com.workflow.engine.registry.WorkflowDefinitionDeployer;
+import com.workflow.engine.stats.WorkflowStatusCounters;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.WorkflowDefinitionRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowServiceTest {
+
+    @Mock
+    private WorkflowDefinitionRepository definitionRepository;
+    @Mock
+    private WorkflowDefinitionCache definitionCache;
+    @Mock
+    private WorkflowDefinitionDeployer definitionDeployer;
+    @Mock
+    private WorkflowStateStore stateStore;
+    @Mock
+    private WorkflowExecutor workflowExecutor;
+    @Mock
+    private WorkflowStatusCounters statusCounters;
+    @Mock
+    private WorkQueue workQueue;
+    @Mock
+    private CompletionSignals completionSignals;
+    @Mock
+    private IdempotentStarts idempotentStarts;
+
+    private WorkflowService workflowService;
+    private CompiledWorkflowDefinition definition;
+
+    @BeforeEach
+    void setUp() {
+        workflowService = new WorkflowService(definitionRepository, definitionCache, definitionDeployer, stateStore,
+            workflowExecutor, statusCounters, workQueue, completionSignals, idempotentStarts, new ExecutionProfiler(10),
+            "local", 500, 64, Duration.ofMinutes(2));
+        WorkflowDefinitionModel model = new WorkflowDefinitionModel("fragile", "1.0.0", List.of(), Map.of(),
+            Priority.NORMAL, 1, 1);
+        definition = new CompiledWorkflowDefinition(UUID.randomUUID(), model.name(), model.version(), model);
+        when(definitionCache.getActive("fragile")).thenReturn(Mono.just(definition));
+    }
+
+    @Test
+    void shouldKeepLocalExecutionRunningWhenTheClientGoesAway() {
+        // Given
+        Sinks.One<WorkflowInstance> finished = Sinks.one();
+        PublisherProbe<WorkflowInstance> execution = PublisherProbe.of(finished.asMono());
+        when(workflowExecutor.executeWorkflow(eq(definition), any(UUID.class), eq("{}"))).thenReturn(execution.mono());
+
+        // When
+        Disposable request = workflowService.startWorkflow("fragile", new StartWorkflowRequest("{}"), null).subscribe();
+        request.dispose();
+
+        // Then
+        execution.assertWasSubscribed();
+        assertThat(execution.wasCancelled()).isFalse();
+    }
+
+    @Test
+    void shouldRelayTheOutcomeOfLocalExecution() {
+        // Given
+        WorkflowInstance completed = WorkflowInstance.create(definition.id(), "{}").withStatus("COMPLETED");
+        when(workflowExecutor.executeWorkflow(eq(definition), any(UUID.class), eq("{}"))).thenReturn(Mono.just(completed));
+
+        // When / Then
+        StepVerifier.create(workflowService.startWorkflow("fragile", new StartWorkflowRequest("{}"), null))
+            .assertNext(response -> assertThat(response.status()).isEqualTo("COMPLETED"))
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldLaunchEveryWrittenBulkInstanceWhenTheClientGoesAway() {
+        // Given
+        WorkflowService bulkService = new WorkflowService(definitionRepository, definitionCache, definitionDeployer,
+            stateStore, workflowExecutor, statusCounters, workQueue, completionSignals, idempotentStarts,
+            new ExecutionProfiler(10), "local", 2, 1, Duration.ofMinutes(2));
+        Map<UUID, String> statuses = new ConcurrentHashMap<>();
+        when(workflowExecutor.createInstances(eq(definition), any())).thenAnswer(invocation ->
+            Flux.fromIterable(invocation.<List<String>>getArgument(1))
+                .map(input -> WorkflowInstance.create(definition.id(), input))
+                .doOnNext(instance -> statuses.put(instance.id(), instance.status())));
+        Sinks.Empty<Void> release = Sinks.empty();
+        when(workflowExecutor.runInstance(eq(definition), any())).thenAnswer(invocation -> {
+            WorkflowInstance instance = invocation.getArgument(1);
+            return release.asMono().then(Mono.fromSupplier(() -> {
+                statuses.put(instance.id(), "COMPLETED");
+                return instance.withStatus("COMPLETED");
+            }));
+        });
+        StartWorkflowRequest request = new StartWorkflowRequest("{}");
+
+        // When
+        StepVerifier.create(bulkService.startWorkflows("fragile", Flux.just(request, request, request, request)).take(1))
+            .expectNextCount(1)
+            .verifyComplete();
+        release.tryEmitEmpty();
+
+        // Then
+        assertThat(statuses).hasSize(2);
+        assertThat(statuses.values()).containsOnly("COMPLETED");
+    }
+}
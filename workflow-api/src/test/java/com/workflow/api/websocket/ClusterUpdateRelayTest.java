@@ -0,0 +1,80 @@
+package com.workflow.api.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workflow.engine.completion.CompletionSignals;
+import com.workflow.storage.notify.PostgresNotifications;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterUpdateRelayTest {
+
+    @Mock
+    private PostgresNotifications notifications;
+
+    @Mock
+    private WorkflowUpdateHandler sendingHandler;
+
+    @Mock
+    private WorkflowUpdateHandler receivingHandler;
+
+    private ClusterUpdateRelay sender;
+    private ClusterUpdateRelay receiver;
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdown();
+        receiver.shutdown();
+    }
+
+    @Test
+    void shouldDeliverLatestUpdatePerEntityToOtherNodesOnly() {
+        // Given
+        Sinks.Many<String> channel = Sinks.many().replay().all();
+        when(notifications.subscribe(ClusterUpdateRelay.CHANNEL)).thenReturn(channel.asFlux());
+        when(notifications.publish(eq(ClusterUpdateRelay.CHANNEL), any())).thenAnswer(invocation -> {
+            channel.tryEmitNext(invocation.getArgument(1));
+            return Mono.empty();
+        });
+        ObjectMapper objectMapper = new ObjectMapper();
+        sender = new ClusterUpdateRelay(notifications, sendingHandler, new CompletionSignals(), objectMapper, 10, Duration.ofMillis(200), Duration.ofMinutes(5));
+        receiver = new ClusterUpdateRelay(notifications, receivingHandler, new CompletionSignals(), objectMapper, 10, Duration.ofMillis(20), Duration.ofMinutes(5));
+        sender.start();
+        receiver.start();
+        UUID instanceId = UUID.randomUUID();
+
+        // When
+        sender.publish(update(instanceId, "RUNNING"));
+        sender.publish(update(instanceId, "COMPLETED"));
+
+        // Then
+        ArgumentCaptor<WorkflowUpdate> delivered = ArgumentCaptor.forClass(WorkflowUpdate.class);
+        verify(receivingHandler, timeout(1000)).deliver(delivered.capture());
+        assertThat(delivered.getValue().status()).isEqualTo("COMPLETED");
+        verify(sendingHandler, after(100).never()).deliver(any());
+    }
+
+    private static WorkflowUpdate update(UUID instanceId, String status) {
+        return new WorkflowUpdate(instanceId, "instance", instanceId, UUID.randomUUID(), status,
+            ("{\"status\":\"" + status + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package com.workflow.api.websocket;
+
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionOutboxTest {
+
+    @Test
+    void shouldKeepOnlyLatestUpdatePerEntityWhileClientIsBehind() {
+        // Given
+        SessionOutbox outbox = new SessionOutbox(10);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        // When
+        outbox.offer(update(first, "PENDING"));
+        outbox.offer(update(second, "PENDING"));
+        outbox.offer(update(first, "RUNNING"));
+        outbox.offer(update(first, "COMPLETED"));
+
+        // Then
+        assertThat(outbox.size()).isEqualTo(2);
+        StepVerifier.create(outbox.updates(), 0)
+            .thenRequest(2)
+            .assertNext(update -> assertThat(update.status()).isEqualTo("COMPLETED"))
+            .assertNext(update -> assertThat(update.instanceId()).isEqualTo(second))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void shouldReplaceQueueWithResyncWhenFull() {
+        // Given
+        SessionOutbox outbox = new SessionOutbox(2);
+
+        // When
+        outbox.offer(update(UUID.randomUUID(), "RUNNING"));
+        outbox.offer(update(UUID.randomUUID(), "RUNNING"));
+        UUID latest = UUID.randomUUID();
+        outbox.offer(update(latest, "RUNNING"));
+
+        // Then
+        StepVerifier.create(outbox.updates(), 0)
+            .thenRequest(2)
+            .expectNext(SessionOutbox.RESYNC)
+            .assertNext(update -> assertThat(update.instanceId()).isEqualTo(latest))
+            .thenCancel()
+            .verify();
+    }
+
+    @Test
+    void shouldFilterBySubscription() {
+        // Given
+        UUID watched = UUID.randomUUID();
+        SessionOutbox outbox = new SessionOutbox(10);
+        outbox.setFilter(new SubscriptionFilter(null, Set.of(watched), null, null));
+
+        // Then
+        assertThat(outbox.accepts(update(watched, "RUNNING"))).isTrue();
+        assertThat(outbox.accepts(update(UUID.randomUUID(), "RUNNING"))).isFalse();
+    }
+
+    private static WorkflowUpdate update(UUID instanceId, String status) {
+        return new WorkflowUpdate(instanceId, "instance", instanceId, UUID.randomUUID(), status,
+            status.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,78 @@
+package com.workflow.benchmarks;
+
+/**
+ * Workflow YAML shared by the benchmarks.
+ */
+final class BenchmarkDefinitions {
+
+    static final String SMALL = """
+        name: small-workflow
+        version: 1.0.0
+        variables:
+          batchSize: 100
+          mode: fast
+        steps:
+          - id: start
+            type: log
+            level: debug
+            message: "Starting batch of ${batchSize} in ${mode} mode"
+            next: check
+          - id: check
+            type: condition
+            expression: "#batchSize > 50 and #mode == 'fast'"
+            onTrue: fast-path
+            onFalse: slow-path
+          - id: fast-path
+            type: log
+            level: debug
+            message: "Fast path for ${batchSize}"
+            next: finish
+          - id: slow-path
+            type: log
+            level: debug
+            message: "Slow path for ${batchSize}"
+            next: finish
+          - id: finish
+            type: log
+            level: debug
+            message: "Finished ${mode}"
+        """;
+
+    private BenchmarkDefinitions() {
+    }
+
+    /**
+     * A linear workflow alternating log and condition steps.
+     */
+    static String large(int steps) {
+        StringBuilder yaml = new StringBuilder("""
+            name: large-workflow
+            version: 1.0.0
+            variables:
+              batchSize: 100
+              mode: fast
+              region: eu-west-1
+            steps:
+            """);
+        for (int i = 0; i < steps; i++) {
+            String next = i + 1 < steps ? "step-" + (i + 1) : null;
+            yaml.append("  - id: step-").append(i).append('\n');
+            if (i % 2 == 0) {
+                yaml.append("    type: log\n")
+                    .append("    level: debug\n")
+                    .append("    message: \"Step ").append(i).append(" for ${batchSize} in ${region}\"\n");
+                if (next != null) {
+                    yaml.append("    next: ").append(next).append('\n');
+                }
+            } else {
+                yaml.append("    type: condition\n")
+                    .append("    expression: \"#batchSize > ").append(i).append("\"\n");
+                if (next != null) {
+                    yaml.append("    onTrue: ").append(next).append('\n')
+                        .append("    onFalse: ").append(next).append('\n');
+                }
+            }
+        }
+        return yaml.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.workflow.benchmarks;
+
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.latency.LatencyHistograms;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.profile.ExecutionProfiler;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import com.workflow.engine.scheduling.ConcurrencyLimiter;
+import com.workflow.engine.scheduling.StepScheduler;
+import com.workflow.engine.spill.SpillStore;
+import com.workflow.engine.tracing.InMemoryTraceExporter;
+import com.workflow.engine.tracing.WorkflowTracer;
+import com.workflow.storage.store.WorkflowStateStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds the {@link WorkflowExecutor} the benchmarks and the load test run
+ * against, with the application's default settings. No listeners or
+ * checkpointers are registered, so only the executor's own instance and step
+ * saves reach the store: the work queue lease, context checkpoints and
+ * status counters of a deployed engine are not exercised or counted.
+ */
+public final class BenchmarkEngine {
+
+    private BenchmarkEngine() {
+    }
+
+    public static WorkflowExecutor executor(StepExecutorRegistry registry, WorkflowStateStore store,
+                                            MeterRegistry meterRegistry, EngineMetrics metrics, boolean tracing) {
+        return new WorkflowExecutor(registry, store, List.of(), List.of(), metrics,
+            new WorkflowTracer(new InMemoryTraceExporter(1000, 500), tracing), new ExecutionProfiler(10000),
+            new LatencyHistograms(Duration.ofHours(1), 2000),
+            new SpillStore(meterRegistry, true, DataSize.ofMegabytes(1), DataSize.ofMegabytes(256),
+                Path.of(System.getProperty("java.io.tmpdir"), "workflow-spill")),
+            new StepScheduler(meterRegistry, 256, 8, 4, 1, 1000),
+            new ConcurrencyLimiter(Optional.empty(), meterRegistry));
+    }
+}
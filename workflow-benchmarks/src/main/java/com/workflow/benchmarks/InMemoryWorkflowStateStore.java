@@ -0,0 +1,56 @@
+package com.workflow.benchmarks;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.store.WorkflowStateStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State store stub that keeps only running instances, so that millions of
+ * benchmarked executions do not grow the heap. Steps are acknowledged and
+ * dropped.
+ */
+public class InMemoryWorkflowStateStore implements WorkflowStateStore {
+
+    private final Map<UUID, WorkflowInstance> running = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<WorkflowInstance> saveInstance(WorkflowInstance instance) {
+        if (instance.isTerminal()) {
+            running.remove(instance.id());
+        } else {
+            running.put(instance.id(), instance);
+        }
+        return Mono.just(instance);
+    }
+
+    @Override
+    public Mono<WorkflowStep> saveStep(WorkflowStep step) {
+        return Mono.just(step);
+    }
+
+    @Override
+    public Mono<WorkflowInstance> findInstance(UUID instanceId) {
+        return Mono.justOrEmpty(running.get(instanceId));
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findAllInstances() {
+        return Flux.fromIterable(running.values());
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findInstancesByStatus(String status) {
+        return findAllInstances().filter(instance -> status.equals(instance.status()));
+    }
+
+    @Override
+    public Flux<WorkflowStep> findSteps(UUID instanceId) {
+        return Flux.empty();
+    }
+}
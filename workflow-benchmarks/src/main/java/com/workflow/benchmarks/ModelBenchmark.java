@@ -0,0 +1,70 @@
+package com.workflow.benchmarks;
+
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    /**
+     * Number of steps in the model and of variables in the context.
+     */
+    @Param({"10", "200"})
+    private int size;
+
+    private WorkflowDefinitionModel model;
+    private String lastStepId;
+    private ExecutionContext context;
+
+    @Setup
+    public void setUp() {
+        model = new WorkflowYamlParser().parseWorkflow(BenchmarkDefinitions.large(size));
+        lastStepId = "step-" + (size - 1);
+
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            variables.put("variable-" + i, "value-" + i);
+        }
+        context = new ExecutionContext(UUID.randomUUID(), variables);
+    }
+
+    @Benchmark
+    public StepDefinition findLastStep() {
+        return model.findStep(lastStepId);
+    }
+
+    @Benchmark
+    public ExecutionContext copyContext() {
+        return context.copy();
+    }
+
+    @Benchmark
+    public ExecutionContext copyContextAndSetResult() {
+        ExecutionContext copy = context.copy();
+        copy.setStepResult("step-0", "result");
+        return copy;
+    }
+}
@@ -0,0 +1,84 @@
+package com.workflow.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, printing the
+ * change in score and, when both runs used {@code -prof gc}, in bytes
+ * allocated per operation.
+ *
+ * <pre>java -cp target/benchmarks.jar com.workflow.benchmarks.ResultsDiff baseline.json current.json</pre>
+ */
+public final class ResultsDiff {
+
+    private record Result(double score, double error, String unit, Double allocatedBytes) {
+    }
+
+    private ResultsDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ResultsDiff <baseline.json> <current.json>");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op before", "B/op after");
+        current.forEach((name, result) -> {
+            Result before = baseline.get(name);
+            if (before == null) {
+                System.out.printf("%-70s %14s %14s %9s%n", name, "-", format(result), "new");
+                return;
+            }
+            System.out.printf("%-70s %14s %14s %8.1f%% %12s %12s%n", name, format(before), format(result),
+                (result.score() - before.score()) / before.score() * 100,
+                allocation(before), allocation(result));
+        });
+        baseline.keySet().stream()
+            .filter(name -> !current.containsKey(name))
+            .forEach(name -> System.out.printf("%-70s %14s %14s %9s%n", name, format(baseline.get(name)), "-", "removed"));
+    }
+
+    private static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder name = new StringBuilder(run.path("benchmark").asText()
+                .replace("com.workflow.benchmarks.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+
+            JsonNode primary = run.path("primaryMetric");
+            Double allocated = null;
+            Iterator<Map.Entry<String, JsonNode>> secondary = run.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                if (metric.getKey().endsWith("gc.alloc.rate.norm")) {
+                    allocated = metric.getValue().path("score").asDouble();
+                }
+            }
+            results.put(name.toString(), new Result(primary.path("score").asDouble(), primary.path("scoreError").asDouble(),
+                primary.path("scoreUnit").asText(), allocated));
+        }
+        return results;
+    }
+
+    private static String format(Result result) {
+        return String.format("%.3f %s", result.score(), result.unit());
+    }
+
+    private static String allocation(Result result) {
+        return result.allocatedBytes() == null ? "-" : String.format("%.0f", result.allocatedBytes());
+    }
+}
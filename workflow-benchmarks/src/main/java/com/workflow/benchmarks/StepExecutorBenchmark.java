@@ -0,0 +1,57 @@
+package com.workflow.benchmarks;
+
+import com.workflow.engine.executor.impl.ConditionStepExecutor;
+import com.workflow.engine.executor.impl.LogStepExecutor;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.StepDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StepExecutorBenchmark {
+
+    private final ConditionStepExecutor conditionExecutor = new ConditionStepExecutor();
+    private final LogStepExecutor logExecutor = new LogStepExecutor();
+    private StepDefinition conditionStep;
+    private StepDefinition logStep;
+    private ExecutionContext context;
+
+    @Setup
+    public void setUp() {
+        conditionStep = new StepDefinition("check", "condition",
+            Map.of("expression", "#batchSize > 50 and #mode == 'fast'"), null, "yes", "no");
+        logStep = new StepDefinition("log", "log",
+            Map.of("level", "debug", "message", "Processing ${batchSize} items in ${mode} mode for ${region}"),
+            null, null, null);
+        context = new ExecutionContext(UUID.randomUUID(),
+            Map.of("batchSize", 100, "mode", "fast", "region", "eu-west-1", "input", "{}"));
+        conditionExecutor.prepare(conditionStep);
+    }
+
+    @Benchmark
+    public Object evaluateCondition() {
+        return conditionExecutor.execute(conditionStep, context).block();
+    }
+
+    @Benchmark
+    public Object templateLogMessage() {
+        return logExecutor.execute(logStep, context).block();
+    }
+}
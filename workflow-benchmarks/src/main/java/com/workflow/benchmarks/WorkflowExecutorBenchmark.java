@@ -0,0 +1,69 @@
+package com.workflow.benchmarks;
+
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.executor.impl.ConditionStepExecutor;
+import com.workflow.engine.executor.impl.LogStepExecutor;
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import com.workflow.storage.entity.WorkflowInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete run through {@link WorkflowExecutor}, with state kept in memory,
+ * so that the score is engine overhead rather than database latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowExecutorBenchmark {
+
+    @Param({"small", "large"})
+    private String definition;
+
+    @Param({"false", "true"})
+    private boolean tracing;
+
+    private WorkflowExecutor executor;
+    private CompiledWorkflowDefinition compiled;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EngineMetrics metrics = new EngineMetrics(meterRegistry);
+        StepExecutorRegistry registry = new StepExecutorRegistry(
+            List.of(new LogStepExecutor(), new ConditionStepExecutor()), metrics);
+        executor = BenchmarkEngine.executor(registry, new InMemoryWorkflowStateStore(), meterRegistry, metrics, tracing);
+
+        String yaml = "small".equals(definition) ? BenchmarkDefinitions.SMALL : BenchmarkDefinitions.large(50);
+        WorkflowYamlParser parser = new WorkflowYamlParser();
+        WorkflowDefinitionModel model = parser.parseWorkflow(yaml);
+        registry.prepare(model);
+        compiled = new CompiledWorkflowDefinition(UUID.randomUUID(), model.name(), model.version(), model);
+    }
+
+    @Benchmark
+    public WorkflowInstance executeWorkflow() {
+        return executor.executeWorkflow(compiled, "{\"orderId\": 42}").block();
+    }
+}
@@ -0,0 +1,42 @@
+package com.workflow.benchmarks;
+
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YamlParserBenchmark {
+
+    @Param({"small", "large"})
+    private String definition;
+
+    private final WorkflowYamlParser parser = new WorkflowYamlParser();
+    private String yaml;
+
+    @Setup
+    public void setUp() {
+        yaml = "small".equals(definition) ? BenchmarkDefinitions.SMALL : BenchmarkDefinitions.large(200);
+    }
+
+    @Benchmark
+    public WorkflowDefinitionModel parseWorkflow() {
+        return parser.parseWorkflow(yaml);
+    }
+}
@@ -0,0 +1,47 @@
+package com.workflow.benchmarks.load;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency described by its median and 99th percentile, which is
+ * close enough to real service latencies to produce a realistic tail. Equal
+ * median and p99 give a fixed latency, and zero disables the delay.
+ */
+record LatencyDistribution(Duration median, Duration p99) {
+
+    // Standard normal quantile for 0.99
+    private static final double Z_99 = 2.3263478740408408;
+
+    LatencyDistribution {
+        if (median.isNegative() || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("Latency p99 " + p99 + " must not be below median " + median);
+        }
+        if (median.isZero() && !p99.isZero()) {
+            throw new IllegalArgumentException("A latency with a p99 needs a non-zero median");
+        }
+    }
+
+    static LatencyDistribution fixed(Duration latency) {
+        return new LatencyDistribution(latency, latency);
+    }
+
+    boolean isZero() {
+        return p99.isZero();
+    }
+
+    Duration sample() {
+        if (median.equals(p99)) {
+            return median;
+        }
+        double mu = Math.log(median.toNanos());
+        double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        double nanos = Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) nanos);
+    }
+
+    @Override
+    public String toString() {
+        return median.equals(p99) ? LoadReport.format(median) : LoadReport.format(median) + " median, " + LoadReport.format(p99) + " p99";
+    }
+}
@@ -0,0 +1,89 @@
+package com.workflow.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Outcome of one load test run. Throughput counts the instances that finished
+ * inside the measurement window, latency covers the instances started inside
+ * it, and writes per workflow divides all writes of the run, warm-up
+ * included, by all instances that finished. Those writes are the executor's
+ * own instance and step saves: the engine runs without listeners or
+ * checkpointers, so a deployed engine writes more per workflow.
+ */
+record LoadReport(
+    String workflow,
+    String store,
+    double targetRate,
+    long started,
+    long dropped,
+    long completed,
+    long failed,
+    long unfinished,
+    double workflowsPerSecond,
+    double latencyP50Millis,
+    double latencyP90Millis,
+    double latencyP99Millis,
+    double latencyMaxMillis,
+    double dbWritesPerWorkflow,
+    long httpRequests,
+    long httpErrors
+) {
+
+    static LoadReport of(String workflow, LoadTestOptions options, long started, long dropped, long completed,
+                         long failed, long finishedInWindow, Histogram latencyMicros, double writesPerWorkflow,
+                         StubHttpServer stub) {
+        double windowSeconds = options.duration().toNanos() / 1e9;
+        return new LoadReport(
+            workflow,
+            options.store(),
+            options.rate(),
+            started,
+            dropped,
+            completed,
+            failed,
+            started - completed - failed,
+            finishedInWindow / windowSeconds,
+            latencyMicros.getValueAtPercentile(50) / 1000.0,
+            latencyMicros.getValueAtPercentile(90) / 1000.0,
+            latencyMicros.getValueAtPercentile(99) / 1000.0,
+            latencyMicros.getMaxValue() / 1000.0,
+            writesPerWorkflow,
+            stub.requests(),
+            stub.errors()
+        );
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%-24s %s%n", "workflow", workflow);
+        out.printf(Locale.ROOT, "%-24s %s%n", "store", store);
+        out.printf(Locale.ROOT, "%-24s %.1f/s%n", "target rate", targetRate);
+        out.printf(Locale.ROOT, "%-24s %d started, %d dropped%n", "measured starts", started, dropped);
+        out.printf(Locale.ROOT, "%-24s %d completed, %d failed, %d unfinished%n", "outcome", completed, failed, unfinished);
+        out.printf(Locale.ROOT, "%-24s %.1f/s%n", "throughput", workflowsPerSecond);
+        out.printf(Locale.ROOT, "%-24s p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n", "instance latency",
+            latencyP50Millis, latencyP90Millis, latencyP99Millis, latencyMaxMillis);
+        out.printf(Locale.ROOT, "%-24s %.2f (executor saves only, no listeners or checkpointers)%n",
+            "db writes per workflow", dbWritesPerWorkflow);
+        out.printf(Locale.ROOT, "%-24s %d requests, %d errors%n", "stub http", httpRequests, httpErrors);
+    }
+
+    void write(Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    static String format(Duration duration) {
+        long nanos = duration.toNanos();
+        if (nanos % 1_000_000 != 0) {
+            return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+        }
+        return duration.toMillis() + "ms";
+    }
+}
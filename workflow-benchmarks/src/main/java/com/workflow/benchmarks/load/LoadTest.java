@@ -0,0 +1,238 @@
+package com.workflow.benchmarks.load;
+
+import com.workflow.benchmarks.BenchmarkEngine;
+import com.workflow.benchmarks.InMemoryWorkflowStateStore;
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.executor.impl.ConditionStepExecutor;
+import com.workflow.engine.executor.impl.DelayStepExecutor;
+import com.workflow.engine.executor.impl.HttpStepExecutor;
+import com.workflow.engine.executor.impl.LogStepExecutor;
+import com.workflow.engine.interpreter.WorkflowDefinitionValidator;
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import com.workflow.storage.embedded.EmbeddedWorkflowStateStore;
+import com.workflow.storage.entity.WorkflowInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives the engine at a fixed start rate with every external dependency
+ * replaced by a local stand-in: {@code http} steps call a {@link StubHttpServer}
+ * and state goes to an in-memory or embedded store behind a simulated database
+ * round trip. The executor, step executors and definition handling are the
+ * production classes, built by {@link BenchmarkEngine} without listeners or
+ * checkpointers.
+ *
+ * <pre>java -cp workflow-benchmarks/target/benchmarks.jar com.workflow.benchmarks.load.LoadTest --rate=500 --http-latency=20ms --http-latency-p99=150ms</pre>
+ */
+public final class LoadTest {
+
+    private static final Duration TICK = Duration.ofMillis(5);
+
+    // Rewrites the scheme and host of every http step url to the stub, keeping the path
+    private static final Pattern HTTP_URL = Pattern.compile("(url:\\s*[\"']?)https?://[^/\\s\"']+");
+
+    private static final String DEFAULT_DEFINITION = """
+        name: load-test-workflow
+        version: 1.0.0
+        variables:
+          batchSize: 100
+        steps:
+          - id: fetch
+            type: http
+            method: GET
+            url: http://stub/todos/1
+            next: check
+          - id: check
+            type: condition
+            expression: "#result['status'] == 200"
+            onTrue: save
+            onFalse: report-error
+          - id: save
+            type: http
+            method: POST
+            url: http://stub/post
+            body:
+              batchSize: "${batchSize}"
+              originalData: "#result"
+            next: done
+          - id: done
+            type: log
+            level: debug
+            message: "Processed ${batchSize} records"
+          - id: report-error
+            type: log
+            level: debug
+            message: "Fetch failed: ${result}"
+        """;
+
+    private final LoadTestOptions options;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder finishedInWindow = new LongAdder();
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        LoadReport report = new LoadTest(options).run();
+        report.print(System.out);
+        if (options.out() != null) {
+            report.write(options.out());
+        }
+    }
+
+    private LoadReport run() throws IOException {
+        Path storeDirectory = options.store().equals("embedded") ? Files.createTempDirectory("workflow-load-test") : null;
+        EmbeddedWorkflowStateStore embedded = storeDirectory != null
+            ? new EmbeddedWorkflowStateStore(storeDirectory, DataSize.ofMegabytes(64), options.fsyncInterval(), 0.5)
+            : null;
+        SimulatedWorkflowStateStore store = new SimulatedWorkflowStateStore(
+            embedded != null ? embedded : new InMemoryWorkflowStateStore(), options.dbLatency());
+
+        try (StubHttpServer stub = new StubHttpServer(options.httpLatency(), options.httpErrorRate())) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            EngineMetrics metrics = new EngineMetrics(meterRegistry);
+            StepExecutorRegistry registry = new StepExecutorRegistry(List.of(
+                new LogStepExecutor(),
+                new ConditionStepExecutor(),
+                new DelayStepExecutor(),
+                new HttpStepExecutor(WebClient.builder(), metrics)), metrics);
+            CompiledWorkflowDefinition definition = compile(registry, stub.baseUrl());
+            WorkflowExecutor executor = BenchmarkEngine.executor(registry, store, meterRegistry, metrics,
+                options.tracing());
+
+            System.out.printf("Running %s at %.1f/s: %s warm-up, %s measured%n", definition.name(), options.rate(),
+                options.warmup(), options.duration());
+            System.out.printf("Stub http %s, %.1f%% errors; %s store, %s per write%n%n", options.httpLatency(),
+                options.httpErrorRate() * 100, options.store(), options.dbLatency());
+
+            drive(executor, definition);
+            double writesPerWorkflow = finished.sum() == 0 ? 0 : (double) store.writes() / finished.sum();
+            return LoadReport.of(definition.name(), options, started.sum(), dropped.sum(), completed.sum(),
+                failed.sum(), finishedInWindow.sum(), latencyMicros, writesPerWorkflow, stub);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+                FileSystemUtils.deleteRecursively(storeDirectory);
+            }
+        }
+    }
+
+    private CompiledWorkflowDefinition compile(StepExecutorRegistry registry, String stubUrl) throws IOException {
+        String yaml = options.definition() != null ? Files.readString(options.definition()) : DEFAULT_DEFINITION;
+        yaml = HTTP_URL.matcher(yaml).replaceAll(match -> Matcher.quoteReplacement(match.group(1) + stubUrl));
+
+        WorkflowDefinitionModel model = new WorkflowYamlParser().parseWorkflow(yaml);
+        new WorkflowDefinitionValidator(registry).validate(model);
+        return new CompiledWorkflowDefinition(UUID.randomUUID(), model.name(), model.version(), model);
+    }
+
+    /**
+     * Issues starts on schedule until the measurement window closes, then
+     * waits for every instance to finish.
+     */
+    private void drive(WorkflowExecutor executor, CompiledWorkflowDefinition definition) {
+        long origin = System.nanoTime();
+        long measureFrom = origin + options.warmup().toNanos();
+        long measureUntil = measureFrom + options.duration().toNanos();
+        double intervalNanos = 1e9 / options.rate();
+        long[] issued = {0};
+
+        Flux.interval(TICK)
+            .map(tick -> System.nanoTime())
+            .takeUntil(now -> now >= measureUntil)
+            .doOnNext(now -> {
+                long due = (long) ((Math.min(now, measureUntil) - origin) / intervalNanos);
+                while (issued[0] < due) {
+                    // Latency is measured from the scheduled start, so a harness that falls behind shows up in it
+                    long scheduled = origin + (long) (issued[0] * intervalNanos);
+                    start(executor, definition, issued[0]++, scheduled, measureFrom, measureUntil);
+                }
+            })
+            .blockLast();
+
+        long deadline = System.nanoTime() + options.drainTimeout().toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void start(WorkflowExecutor executor, CompiledWorkflowDefinition definition, long sequence,
+                       long scheduled, long measureFrom, long measureUntil) {
+        boolean measured = scheduled >= measureFrom && scheduled < measureUntil;
+        if (inFlight.get() >= options.maxInFlight()) {
+            if (measured) {
+                dropped.increment();
+            }
+            return;
+        }
+        inFlight.incrementAndGet();
+        if (measured) {
+            started.increment();
+        }
+
+        executor.executeWorkflow(definition, "{\"orderId\": " + sequence + "}")
+            .subscribe(
+                instance -> finish(instance, scheduled, measured, measureFrom, measureUntil),
+                error -> finish(null, scheduled, measured, measureFrom, measureUntil)
+            );
+    }
+
+    private void finish(WorkflowInstance instance, long scheduled, boolean measured, long measureFrom, long measureUntil) {
+        long now = System.nanoTime();
+        inFlight.decrementAndGet();
+        finished.increment();
+        if (now >= measureFrom && now < measureUntil) {
+            finishedInWindow.increment();
+        }
+        if (measured) {
+            latencyMicros.recordValue((now - scheduled) / 1000);
+            if (instance != null && "COMPLETED".equals(instance.status())) {
+                completed.increment();
+            } else {
+                failed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.workflow.benchmarks.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ */
+record LoadTestOptions(
+    double rate,
+    Duration warmup,
+    Duration duration,
+    Duration drainTimeout,
+    int maxInFlight,
+    Path definition,
+    LatencyDistribution httpLatency,
+    double httpErrorRate,
+    String store,
+    LatencyDistribution dbLatency,
+    Duration fsyncInterval,
+    boolean tracing,
+    Path out
+) {
+
+    static final String USAGE = """
+        Usage: LoadTest [--name=value ...]
+          --rate=200                  workflow starts per second (open model: starts do not wait for completions)
+          --warmup=10s                run at the target rate before measuring
+          --duration=30s              measurement window
+          --drain-timeout=30s         how long to wait for measured instances to finish
+          --max-in-flight=10000       starts beyond this many running instances are dropped and reported
+          --definition=<file.yml>     workflow to run; http step hosts are pointed at the stub (default: built-in)
+          --http-latency=20ms         stub response latency median
+          --http-latency-p99=<d>      stub latency p99, log-normal between median and p99 (default: median)
+          --http-error-rate=0         fraction of stub responses that are 503
+          --store=memory              memory, or embedded for the on-disk segment log in a temporary directory
+          --db-latency=1ms            simulated round trip added to every write, median
+          --db-latency-p99=<d>        simulated round trip p99 (default: median)
+          --fsync-interval=2ms        group commit interval of the embedded store
+          --tracing=true              record in-process traces, as the application does by default
+          --out=<file.json>           also write the report as JSON
+        """;
+
+    private static final Set<String> NAMES = Set.of(
+        "rate", "warmup", "duration", "drain-timeout", "max-in-flight", "definition", "http-latency",
+        "http-latency-p99", "http-error-rate", "store", "db-latency", "db-latency-p99", "fsync-interval",
+        "tracing", "out");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+
+        Duration httpMedian = duration(values, "http-latency", "20ms");
+        Duration dbMedian = duration(values, "db-latency", "1ms");
+        String store = values.getOrDefault("store", "memory");
+        if (!store.equals("memory") && !store.equals("embedded")) {
+            throw new IllegalArgumentException("--store must be memory or embedded");
+        }
+        double rate = Double.parseDouble(values.getOrDefault("rate", "200"));
+        if (rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+
+        return new LoadTestOptions(
+            rate,
+            duration(values, "warmup", "10s"),
+            duration(values, "duration", "30s"),
+            duration(values, "drain-timeout", "30s"),
+            Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+            values.containsKey("definition") ? Path.of(values.get("definition")) : null,
+            new LatencyDistribution(httpMedian, duration(values, "http-latency-p99", httpMedian)),
+            Double.parseDouble(values.getOrDefault("http-error-rate", "0")),
+            store,
+            new LatencyDistribution(dbMedian, duration(values, "db-latency-p99", dbMedian)),
+            duration(values, "fsync-interval", "2ms"),
+            Boolean.parseBoolean(values.getOrDefault("tracing", "true")),
+            values.containsKey("out") ? Path.of(values.get("out")) : null
+        );
+    }
+
+    private static Duration duration(Map<String, String> values, String name, String defaultValue) {
+        return DurationStyle.detectAndParse(values.getOrDefault(name, defaultValue));
+    }
+
+    private static Duration duration(Map<String, String> values, String name, Duration defaultValue) {
+        return values.containsKey(name) ? DurationStyle.detectAndParse(values.get(name)) : defaultValue;
+    }
+}
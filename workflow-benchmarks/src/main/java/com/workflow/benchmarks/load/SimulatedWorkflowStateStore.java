@@ -0,0 +1,74 @@
+package com.workflow.benchmarks.load;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.store.WorkflowStateStore;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the store under test, counting writes and adding a sampled database
+ * round trip to each one. A batch save is one round trip, as it is for the
+ * database-backed stores.
+ */
+class SimulatedWorkflowStateStore implements WorkflowStateStore {
+
+    private final WorkflowStateStore delegate;
+    private final LatencyDistribution writeLatency;
+    private final LongAdder writes = new LongAdder();
+
+    SimulatedWorkflowStateStore(WorkflowStateStore delegate, LatencyDistribution writeLatency) {
+        this.delegate = delegate;
+        this.writeLatency = writeLatency;
+    }
+
+    long writes() {
+        return writes.sum();
+    }
+
+    @Override
+    public Mono<WorkflowInstance> saveInstance(WorkflowInstance instance) {
+        return roundTrip().then(Mono.defer(() -> delegate.saveInstance(instance)));
+    }
+
+    @Override
+    public Flux<WorkflowInstance> saveInstances(List<WorkflowInstance> instances) {
+        return roundTrip().thenMany(Flux.defer(() -> delegate.saveInstances(instances)));
+    }
+
+    @Override
+    public Mono<WorkflowStep> saveStep(WorkflowStep step) {
+        return roundTrip().then(Mono.defer(() -> delegate.saveStep(step)));
+    }
+
+    @Override
+    public Mono<WorkflowInstance> findInstance(UUID instanceId) {
+        return delegate.findInstance(instanceId);
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findAllInstances() {
+        return delegate.findAllInstances();
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findInstancesByStatus(String status) {
+        return delegate.findInstancesByStatus(status);
+    }
+
+    @Override
+    public Flux<WorkflowStep> findSteps(UUID instanceId) {
+        return delegate.findSteps(instanceId);
+    }
+
+    private Mono<Void> roundTrip() {
+        return Mono.defer(() -> {
+            writes.increment();
+            return writeLatency.isZero() ? Mono.empty() : Mono.delay(writeLatency.sample()).then();
+        });
+    }
+}
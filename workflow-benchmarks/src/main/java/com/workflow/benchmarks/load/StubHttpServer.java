@@ -0,0 +1,72 @@
+package com.workflow.benchmarks.load;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for the services that {@code http} steps call. Every path answers
+ * with a small JSON document after a sampled latency, and a configurable
+ * fraction of requests fail with 503.
+ */
+class StubHttpServer implements Closeable {
+
+    private static final String BODY = """
+        {"id": 1, "userId": 1, "title": "stub", "completed": false}""";
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final DisposableServer server;
+
+    StubHttpServer(LatencyDistribution latency, double errorRate) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle(this::handle)
+            .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        requests.increment();
+        boolean fail = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        Mono<Void> delay = latency.isZero() ? Mono.empty() : Mono.delay(latency.sample()).then();
+
+        return request.receive().then()
+            .then(delay)
+            .then(Mono.defer(() -> {
+                if (fail) {
+                    errors.increment();
+                    return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send().then();
+                }
+                return response.header("Content-Type", "application/json").sendString(Mono.just(BODY)).then();
+            }));
+    }
+}
@@ -0,0 +1,241 @@
+package com.workflow.engine.checkpoint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workflow.engine.executor.LeaseLostException;
+import com.workflow.engine.executor.WorkflowCheckpointer;
+import com.workflow.engine.listener.WorkflowExecutionListener;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.PersistentMap;
+import com.workflow.engine.queue.WorkItemLeases;
+import com.workflow.storage.entity.ContextCheckpoint;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.ContextCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Makes the execution context of queued instances durable, so that a node
+ * taking over an instance continues with the variables and step results the
+ * previous owner had. After each step, only the variables and step results
+ * that changed since the previous checkpoint are written. The change set
+ * comes from diffing the context's persistent maps against the last
+ * checkpointed version, which skips everything the two still share. Every
+ * {@code compaction-interval} deltas, a full snapshot is written instead and
+ * the rows before it are deleted, which bounds the rows a restore reads.
+ *
+ * <p>Runs before the work item is advanced, so a crash between the two
+ * writes resumes the previous step again rather than skipping its context.
+ * A checkpoint is only written while this node holds the work item's lease.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.execution.mode", havingValue = "queue")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ContextCheckpoints implements WorkflowCheckpointer, WorkflowExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextCheckpoints.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() { };
+    private static final TypeReference<List<String>> LIST = new TypeReference<>() { };
+
+    /**
+     * The context as of the last checkpoint written for an instance.
+     */
+    private record Checkpointed(PersistentMap<String, Object> variables,
+                                PersistentMap<String, Object> stepResults,
+                                int deltas) {
+    }
+
+    private record Delta(Map<String, Object> variables, List<String> removed, Map<String, Object> stepResults) {
+
+        boolean isEmpty() {
+            return variables.isEmpty() && removed.isEmpty() && stepResults.isEmpty();
+        }
+    }
+
+    private final ContextCheckpointRepository checkpointRepository;
+    private final WorkItemLeases leases;
+    private final EngineMetrics metrics;
+    private final int compactionInterval;
+    private final Map<UUID, Checkpointed> checkpointed;
+
+    public ContextCheckpoints(ContextCheckpointRepository checkpointRepository,
+                              WorkItemLeases leases,
+                              EngineMetrics metrics,
+                              @Value("${workflow.checkpoint.compaction-interval:20}") int compactionInterval,
+                              @Value("${workflow.queue.max-in-flight:100}") int maxInFlight) {
+        this.checkpointRepository = checkpointRepository;
+        this.leases = leases;
+        this.metrics = metrics;
+        this.compactionInterval = compactionInterval;
+        // Instances whose lease was lost are never removed explicitly; without a
+        // base, the next checkpoint of an instance is a full snapshot
+        int capacity = Math.max(16, maxInFlight * 2);
+        this.checkpointed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Checkpointed> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Mono<Void> checkpoint(WorkflowInstance instance, String nextStepId, ExecutionContext context) {
+        PersistentMap<String, Object> variables = context.getVariables();
+        PersistentMap<String, Object> stepResults = context.getStepResults();
+        String resultStepId = context.getLastResultStepId();
+        Checkpointed previous = previous(instance.id());
+        boolean full = previous == null || previous.deltas() >= compactionInterval;
+
+        Delta delta = diff(variables, stepResults, resultStepId, full ? null : previous);
+        if (!full && delta.isEmpty()) {
+            return Mono.empty();
+        }
+        Checkpointed current = new Checkpointed(variables, stepResults, full ? 0 : previous.deltas() + 1);
+
+        return Mono.fromCallable(() -> encode(delta.variables()))
+            .flatMap(encodedVariables -> checkpointRepository.insert(instance.id(), leases.getNodeId(), full,
+                encodedVariables, encode(delta.stepResults()), delta.removed().isEmpty() ? null : encode(delta.removed()),
+                resultStepId))
+            .switchIfEmpty(Mono.error(() -> new LeaseLostException(instance.id())))
+            .flatMap(id -> full && previous != null
+                ? checkpointRepository.deleteBefore(instance.id(), id).thenReturn(id)
+                : Mono.just(id))
+            .as(write -> metrics.timePersistence(PersistenceCall.CHECKPOINT, write))
+            .doOnSuccess(id -> remember(instance.id(), current))
+            .then();
+    }
+
+    @Override
+    public Mono<ExecutionContext> restore(WorkflowInstance instance, ExecutionContext initial) {
+        return metrics.timePersistence(PersistenceCall.RESTORE,
+                checkpointRepository.findSinceLatestSnapshot(instance.id()).collectList())
+            .map(rows -> {
+                if (rows.isEmpty()) {
+                    return initial;
+                }
+                ExecutionContext restored = apply(initial, rows);
+                remember(instance.id(), new Checkpointed(
+                    restored.getVariables(), restored.getStepResults(), rows.size() - 1));
+                logger.debug("Restored context of instance {} from {} checkpoints", instance.id(), rows.size());
+                return restored;
+            });
+    }
+
+    @Override
+    public void onInstanceTransition(WorkflowInstance instance, String previousStatus) {
+        if (!instance.isTerminal()) {
+            return;
+        }
+        synchronized (checkpointed) {
+            checkpointed.remove(instance.id());
+        }
+        checkpointRepository.deleteByInstance(instance.id())
+            .subscribe(
+                deleted -> { },
+                error -> logger.warn("Failed to delete context checkpoints of instance {}", instance.id(), error)
+            );
+    }
+
+    private static Delta diff(PersistentMap<String, Object> variables, PersistentMap<String, Object> stepResults,
+                              String resultStepId, Checkpointed base) {
+        Map<String, Object> changedVariables = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        variables.diff(base != null ? base.variables() : PersistentMap.empty(), new PersistentMap.Changes<>() {
+            @Override
+            public void changed(String name, Object value) {
+                // Step results are diffed on their own; a result taken from a step is stored as its id
+                if (!name.equals(ExecutionContext.STEPS_VARIABLE)
+                        && !(name.equals(ExecutionContext.RESULT_VARIABLE) && resultStepId != null)) {
+                    changedVariables.put(name, ExecutionContext.materialize(value));
+                }
+            }
+
+            @Override
+            public void removed(String name) {
+                removed.add(name);
+            }
+        });
+
+        Map<String, Object> changedResults = new LinkedHashMap<>();
+        stepResults.diff(base != null ? base.stepResults() : PersistentMap.empty(), new PersistentMap.Changes<>() {
+            @Override
+            public void changed(String stepId, Object result) {
+                changedResults.put(stepId, ExecutionContext.materialize(result));
+            }
+
+            @Override
+            public void removed(String stepId) {
+                // Step results are only ever added or replaced
+            }
+        });
+        return new Delta(changedVariables, removed, changedResults);
+    }
+
+    /**
+     * Applies the latest full snapshot and the deltas after it, in order.
+     */
+    private static ExecutionContext apply(ExecutionContext initial, List<ContextCheckpoint> rows) {
+        PersistentMap<String, Object> variables = PersistentMap.empty();
+        PersistentMap<String, Object> stepResults = PersistentMap.empty();
+        String resultStepId = null;
+        for (ContextCheckpoint row : rows) {
+            for (Map.Entry<String, Object> entry : decode(row.variables(), MAP).entrySet()) {
+                variables = variables.with(entry.getKey(), entry.getValue());
+            }
+            if (row.removedVariables() != null) {
+                for (String name : decode(row.removedVariables(), LIST)) {
+                    variables = variables.without(name);
+                }
+            }
+            for (Map.Entry<String, Object> entry : decode(row.stepResults(), MAP).entrySet()) {
+                stepResults = stepResults.with(entry.getKey(), entry.getValue());
+            }
+            resultStepId = row.resultStepId();
+        }
+        return initial.restore(variables, stepResults, resultStepId);
+    }
+
+    private Checkpointed previous(UUID instanceId) {
+        synchronized (checkpointed) {
+            return checkpointed.get(instanceId);
+        }
+    }
+
+    private void remember(UUID instanceId, Checkpointed current) {
+        synchronized (checkpointed) {
+            checkpointed.put(instanceId, current);
+        }
+    }
+
+    private static String encode(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode context checkpoint", e);
+        }
+    }
+
+    private static <T> T decode(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt context checkpoint", e);
+        }
+    }
+}
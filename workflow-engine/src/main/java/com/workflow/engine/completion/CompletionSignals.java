@@ -0,0 +1,70 @@
+package com.workflow.engine.completion;
+
+import com.workflow.engine.listener.WorkflowExecutionListener;
+import com.workflow.storage.entity.WorkflowInstance;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory signals that fire when an instance reaches a terminal state, so
+ * callers can wait for a result without polling storage. Only callers that
+ * are currently waiting hold an entry; nothing is kept for instances nobody
+ * is waiting on.
+ */
+@Component
+public class CompletionSignals implements WorkflowExecutionListener {
+
+    private static final class Waiter {
+        private final Sinks.Empty<Void> terminal = Sinks.empty();
+        private int waiting;
+    }
+
+    private final Map<UUID, Waiter> waiters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onInstanceTransition(WorkflowInstance instance, String previousStatus) {
+        if (instance.isTerminal()) {
+            complete(instance.id());
+        }
+    }
+
+    /**
+     * Completes once {@link #complete} is called for the instance. The wait
+     * is registered on subscription and released on completion, error or
+     * cancellation.
+     */
+    public Mono<Void> awaitTerminal(UUID instanceId) {
+        return Mono.usingWhen(
+            Mono.fromSupplier(() -> waiters.compute(instanceId, (id, waiter) -> {
+                Waiter registered = waiter != null ? waiter : new Waiter();
+                registered.waiting++;
+                return registered;
+            })),
+            waiter -> waiter.terminal.asMono(),
+            waiter -> release(instanceId, waiter),
+            (waiter, error) -> release(instanceId, waiter),
+            waiter -> release(instanceId, waiter)
+        );
+    }
+
+    public void complete(UUID instanceId) {
+        Waiter waiter = waiters.remove(instanceId);
+        if (waiter != null) {
+            waiter.terminal.tryEmitEmpty();
+        }
+    }
+
+    int waitingInstances() {
+        return waiters.size();
+    }
+
+    private Mono<Void> release(UUID instanceId, Waiter waiter) {
+        return Mono.fromRunnable(() -> waiters.computeIfPresent(instanceId,
+            (id, current) -> current == waiter && --current.waiting == 0 ? null : current));
+    }
+}
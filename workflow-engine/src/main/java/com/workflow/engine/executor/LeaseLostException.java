@@ -0,0 +1,15 @@
+package com.workflow.engine.executor;
+
+import java.util.UUID;
+
+/**
+ * Raised by a {@link WorkflowCheckpointer} when this node no longer owns the
+ * instance it is executing. The executor stops without recording anything,
+ * since the instance's state now belongs to the new owner.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(UUID workflowInstanceId) {
+        super("Lease lost for workflow instance: " + workflowInstanceId);
+    }
+}
@@ -0,0 +1,152 @@
+package com.workflow.engine.executor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workflow.engine.model.StepDefinition;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a step's raw result to the part later steps need, before it is
+ * stored in the context or written to the step record. Any step may set:
+ *
+ * <ul>
+ *   <li>{@code resultSelector}, a SpEL expression evaluated with the raw
+ *   result as root object and as {@code #result}. {@code #json(text)} parses
+ *   JSON text, such as an http step's {@code body}.</li>
+ *   <li>{@code outputPath}, a path like {@code $.body.items[0].id} into the
+ *   result, applied after the selector. JSON text met on the way is parsed.</li>
+ * </ul>
+ *
+ * A selector that yields null, or a path that does not exist in the result,
+ * fails the step.
+ */
+public class ResultProjection {
+
+    public static final String RESULT_SELECTOR = "resultSelector";
+    public static final String OUTPUT_PATH = "outputPath";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Pattern PATH_SEGMENT = Pattern.compile("\\.([A-Za-z_][\\w-]*)|\\[(\\d+)]|\\['([^']*)']");
+    private static final Method JSON_FUNCTION;
+
+    static {
+        try {
+            JSON_FUNCTION = ResultProjection.class.getDeclaredMethod("json", String.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    // Keyed by expression and path text, which only come from workflow definitions
+    private final Map<String, Expression> selectors = new ConcurrentHashMap<>();
+    private final Map<String, List<Object>> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Parses the step's selector and path, so that a definition with a
+     * malformed one is rejected before it is stored.
+     */
+    public void prepare(StepDefinition step) {
+        String selector = step.getConfigString(RESULT_SELECTOR);
+        if (selector != null) {
+            selector(selector);
+        }
+        String path = step.getConfigString(OUTPUT_PATH);
+        if (path != null) {
+            path(path);
+        }
+    }
+
+    public Object apply(StepDefinition step, Object result) {
+        String selector = step.getConfigString(RESULT_SELECTOR);
+        String path = step.getConfigString(OUTPUT_PATH);
+        Object projected = result;
+        if (selector != null) {
+            StandardEvaluationContext evalContext = new StandardEvaluationContext(projected);
+            evalContext.setVariable("result", projected);
+            evalContext.registerFunction("json", JSON_FUNCTION);
+            projected = selector(selector).getValue(evalContext);
+            if (projected == null) {
+                throw new IllegalArgumentException("resultSelector of step '" + step.id() + "' produced null");
+            }
+        }
+        if (path != null) {
+            projected = select(projected, path(path), path, step.id());
+        }
+        return projected;
+    }
+
+    public static Object json(String text) {
+        try {
+            return objectMapper.readValue(text, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Not valid JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private Expression selector(String expression) {
+        return selectors.computeIfAbsent(expression, parser::parseExpression);
+    }
+
+    private List<Object> path(String path) {
+        return paths.computeIfAbsent(path, ResultProjection::parsePath);
+    }
+
+    /**
+     * Splits {@code $.a.b[0]['c d']} into {@code a, b, 0, c d}, with list
+     * indexes as integers.
+     */
+    private static List<Object> parsePath(String path) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("outputPath must start with '$': " + path);
+        }
+        List<Object> segments = new ArrayList<>();
+        Matcher matcher = PATH_SEGMENT.matcher(path);
+        int position = 1;
+        while (position < path.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                throw new IllegalArgumentException("Invalid outputPath at position " + position + ": " + path);
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                segments.add(Integer.parseInt(matcher.group(2)));
+            } else {
+                segments.add(matcher.group(3));
+            }
+            position = matcher.end();
+        }
+        return List.copyOf(segments);
+    }
+
+    private static Object select(Object result, List<Object> segments, String path, String stepId) {
+        Object current = result;
+        for (Object segment : segments) {
+            if (current instanceof String text) {
+                current = json(text);
+            }
+            if (segment instanceof Integer index && current instanceof List<?> list && index < list.size()) {
+                current = list.get(index);
+            } else if (segment instanceof String name && current instanceof Map<?, ?> map && map.containsKey(name)) {
+                current = map.get(name);
+            } else {
+                current = null;
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("outputPath '" + path + "' of step '" + stepId + "' not found in result");
+            }
+        }
+        return current;
+    }
+}
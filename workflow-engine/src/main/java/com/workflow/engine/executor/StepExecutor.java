@@ -10,6 +10,14 @@ public interface StepExecutor {
 
     Mono<Object> execute(StepDefinition stepDefinition, ExecutionContext context);
 
+    /**
+     * Called when a definition containing the step is compiled, ahead of its
+     * first execution. Implementations parse and cache whatever they can, and
+     * throw if the step's configuration can never run.
+     */
+    default void prepare(StepDefinition stepDefinition) {
+    }
+
     default boolean canHandle(String stepType) {
         return getStepType().equals(stepType);
     }
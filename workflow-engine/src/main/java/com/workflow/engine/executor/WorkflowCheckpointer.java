@@ -0,0 +1,25 @@
+package com.workflow.engine.executor;
+
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.storage.entity.WorkflowInstance;
+import reactor.core.publisher.Mono;
+
+/**
+ * Invoked after a step has completed and before the next one starts, so that
+ * progress can be made durable. The executor waits for every checkpointer
+ * before continuing. A checkpointer that finds this node no longer owns the
+ * instance fails with {@link LeaseLostException}.
+ */
+public interface WorkflowCheckpointer {
+
+    Mono<Void> checkpoint(WorkflowInstance instance, String nextStepId, ExecutionContext context);
+
+    /**
+     * Invoked when an instance is resumed past its first step, with the
+     * context built from the definition and input. Returns the context to
+     * continue with.
+     */
+    default Mono<ExecutionContext> restore(WorkflowInstance instance, ExecutionContext context) {
+        return Mono.just(context);
+    }
+}
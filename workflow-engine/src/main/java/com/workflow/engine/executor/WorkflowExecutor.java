@@ -1,61 +1,168 @@
 package com.workflow.engine.executor;
 
-import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.latency.LatencyHistograms;
+import com.workflow.engine.listener.WorkflowExecutionListener;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
 import com.workflow.engine.model.ExecutionContext;
 import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.model.ValueSpiller;
 import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.profile.ExecutionProfiler;
 import com.workflow.engine.registry.StepExecutorRegistry;
-import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.engine.scheduling.ConcurrencyLimitReachedException;
+import com.workflow.engine.scheduling.ConcurrencyLimiter;
+import com.workflow.engine.scheduling.StepScheduler;
+import com.workflow.engine.tracing.WorkflowTracer;
 import com.workflow.storage.entity.WorkflowInstance;
 import com.workflow.storage.entity.WorkflowStep;
-import com.workflow.storage.repository.WorkflowInstanceRepository;
-import com.workflow.storage.repository.WorkflowStepRepository;
+import com.workflow.storage.store.WorkflowStateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class WorkflowExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkflowExecutor.class);
 
-    private final WorkflowYamlParser yamlParser;
     private final StepExecutorRegistry executorRegistry;
-    private final WorkflowInstanceRepository instanceRepository;
-    private final WorkflowStepRepository stepRepository;
-
-    public WorkflowExecutor(WorkflowYamlParser yamlParser,
-                           StepExecutorRegistry executorRegistry,
-                           WorkflowInstanceRepository instanceRepository,
-                           WorkflowStepRepository stepRepository) {
-        this.yamlParser = yamlParser;
+    private final WorkflowStateStore stateStore;
+    private final List<WorkflowExecutionListener> listeners;
+    private final List<WorkflowCheckpointer> checkpointers;
+    private final EngineMetrics metrics;
+    private final WorkflowTracer tracer;
+    private final ExecutionProfiler profiler;
+    private final LatencyHistograms latencies;
+    private final ValueSpiller spiller;
+    private final StepScheduler scheduler;
+    private final ConcurrencyLimiter limiter;
+
+    public WorkflowExecutor(StepExecutorRegistry executorRegistry,
+                           WorkflowStateStore stateStore,
+                           List<WorkflowExecutionListener> listeners,
+                           List<WorkflowCheckpointer> checkpointers,
+                           EngineMetrics metrics,
+                           WorkflowTracer tracer,
+                           ExecutionProfiler profiler,
+                           LatencyHistograms latencies,
+                           ValueSpiller spiller,
+                           StepScheduler scheduler,
+                           ConcurrencyLimiter limiter) {
         this.executorRegistry = executorRegistry;
-        this.instanceRepository = instanceRepository;
-        this.stepRepository = stepRepository;
+        this.stateStore = stateStore;
+        this.listeners = listeners;
+        this.checkpointers = checkpointers;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.profiler = profiler;
+        this.latencies = latencies;
+        this.spiller = spiller;
+        this.scheduler = scheduler;
+        this.limiter = limiter;
+    }
+
+    public Mono<WorkflowInstance> executeWorkflow(CompiledWorkflowDefinition definition, String input) {
+        return executeWorkflow(definition, UUID.randomUUID(), input);
     }
 
-    public Mono<WorkflowInstance> executeWorkflow(WorkflowDefinition definition, String input) {
+    public Mono<WorkflowInstance> executeWorkflow(CompiledWorkflowDefinition definition, UUID instanceId, String input) {
         logger.info("Starting workflow execution for definition: {}", definition.name());
 
-        return Mono.fromCallable(() -> yamlParser.parseWorkflow(definition.yamlContent()))
-            .flatMap(workflowModel -> {
-                // Create workflow instance
-                WorkflowInstance instance = WorkflowInstance.create(definition.id(), input);
-                return instanceRepository.save(instance)
-                    .flatMap(savedInstance -> executeWorkflowSteps(workflowModel, savedInstance, input));
+        // Create workflow instance
+        return tracer.traceInstance(instanceId, definition.name(), createInstance(definition, instanceId, input)
+            .flatMap(savedInstance -> run(definition, savedInstance)));
+    }
+
+    public Mono<WorkflowInstance> createInstance(CompiledWorkflowDefinition definition, String input) {
+        return createInstance(definition, UUID.randomUUID(), input);
+    }
+
+    public Mono<WorkflowInstance> createInstance(CompiledWorkflowDefinition definition, UUID instanceId, String input) {
+        return saveInstance(WorkflowInstance.create(instanceId, definition.id(), input), null);
+    }
+
+    /**
+     * Creates PENDING instances for a batch of inputs with a single write.
+     */
+    public Flux<WorkflowInstance> createInstances(CompiledWorkflowDefinition definition, List<String> inputs) {
+        List<WorkflowInstance> instances = inputs.stream()
+            .map(input -> WorkflowInstance.create(definition.id(), input))
+            .toList();
+        return metrics.timePersistence(PersistenceCall.SAVE_INSTANCES, stateStore.saveInstances(instances))
+            .doOnNext(saved -> notifyInstanceTransition(saved, null));
+    }
+
+    /**
+     * Executes a previously created PENDING instance from its first step.
+     */
+    public Mono<WorkflowInstance> runInstance(CompiledWorkflowDefinition definition, WorkflowInstance instance) {
+        return tracer.traceInstance(instance.id(), definition.name(), run(definition, instance));
+    }
+
+    /**
+     * Fails an instance without running it, for one the engine has given up on.
+     */
+    public Mono<WorkflowInstance> failInstance(WorkflowInstance instance, String error) {
+        return saveInstance(instance.withError(error), instance.status());
+    }
+
+    private Mono<WorkflowInstance> run(CompiledWorkflowDefinition definition, WorkflowInstance instance) {
+        Mono<WorkflowInstance> execution = executeWorkflowSteps(definition.model(), instance, instance.input());
+        // Admitted before anything runs, so an instance over maxConcurrency stays PENDING while it waits
+        return limiter.admit(definition, instance.id(), metrics.trackExecuting(profiler.profile(instance.id(), execution)))
+            .doOnSuccess(completed -> {
+                logger.info("Workflow execution completed: {}", completed.id());
+                metrics.recordInstance(definition.name(), completed);
+                latencies.recordInstance(definition.name(), completed);
             })
-            .doOnSuccess(instance -> logger.info("Workflow execution completed: {}", instance.id()))
-            .doOnError(error -> logger.error("Workflow execution failed", error));
+            .doOnError(error -> logger.error("Workflow execution failed", error))
+            .doFinally(signal -> stateStore.release(instance.id()));
+    }
+
+    public Mono<WorkflowInstance> resumeWorkflow(CompiledWorkflowDefinition definition, WorkflowInstance instance, String stepId) {
+        logger.info("Resuming workflow instance {} at step: {}", instance.id(), stepId);
+
+        WorkflowDefinitionModel workflowModel = definition.model();
+        Mono<WorkflowInstance> execution = Mono.fromCallable(() -> stepId != null ? workflowModel.findStep(stepId) : workflowModel.getFirstStep())
+            .flatMap(step -> {
+                ExecutionContext context = createContext(workflowModel, instance, instance.input());
+                return (stepId != null ? restore(instance, context) : Mono.just(context))
+                    .flatMap(restored -> executeFrom(workflowModel, instance, step, restored));
+            });
+        return tracer.traceInstance(instance.id(), definition.name(),
+            limiter.admit(definition, instance.id(), metrics.trackExecuting(profiler.profile(instance.id(), execution)))
+            .doOnSuccess(resumed -> {
+                logger.info("Workflow execution completed: {}", resumed.id());
+                metrics.recordInstance(definition.name(), resumed);
+                latencies.recordInstance(definition.name(), resumed);
+            })
+            // An instance over its cluster-wide limit has not started; the worker hands it back to the queue
+            .doOnError(error -> !(error instanceof ConcurrencyLimitReachedException),
+                error -> logger.error("Workflow execution failed", error))
+            .doFinally(signal -> stateStore.release(instance.id())));
     }
 
     private Mono<WorkflowInstance> executeWorkflowSteps(WorkflowDefinitionModel workflowModel,
                                                        WorkflowInstance instance,
                                                        String input) {
-        ExecutionContext context = new ExecutionContext(instance.id(), workflowModel.variables());
+        ExecutionContext context = createContext(workflowModel, instance, input);
+
+        // Start with the first step
+        return executeFrom(workflowModel, instance, workflowModel.getFirstStep(), context);
+    }
+
+    private ExecutionContext createContext(WorkflowDefinitionModel workflowModel, WorkflowInstance instance, String input) {
+        ExecutionContext context = new ExecutionContext(instance.id(), workflowModel.variables(), spiller);
 
         // Parse input as JSON if possible, otherwise store as string
         try {
@@ -63,16 +170,22 @@ public class WorkflowExecutor {
         } catch (Exception e) {
             context.setVariable("input", input);
         }
+        return context;
+    }
 
-        // Start with the first step
-        StepDefinition firstStep = workflowModel.getFirstStep();
-        if (firstStep == null) {
-            return instanceRepository.save(instance.withStatus("COMPLETED"));
+    private Mono<WorkflowInstance> executeFrom(WorkflowDefinitionModel workflowModel,
+                                              WorkflowInstance instance,
+                                              StepDefinition step,
+                                              ExecutionContext context) {
+        if (step == null) {
+            return saveInstance(instance.withStatus("COMPLETED"), instance.status());
         }
 
         // Update instance status to RUNNING
-        return instanceRepository.save(instance.withStatus("RUNNING"))
-            .flatMap(runningInstance -> executeStepChain(workflowModel, runningInstance, firstStep, context));
+        Mono<WorkflowInstance> running = "RUNNING".equals(instance.status())
+            ? Mono.just(instance)
+            : saveInstance(instance.withStatus("RUNNING"), instance.status());
+        return running.flatMap(runningInstance -> executeStepChain(workflowModel, runningInstance, step, context));
     }
 
     private Mono<WorkflowInstance> executeStepChain(WorkflowDefinitionModel workflowModel,
@@ -81,9 +194,40 @@ public class WorkflowExecutor {
                                                    ExecutionContext context) {
         if (step == null) {
             // No more steps, complete the workflow
-            return instanceRepository.save(instance.withStatus("COMPLETED"));
+            return saveInstance(instance.withStatus("COMPLETED"), instance.status());
         }
 
+        // Deferred so that the step record is stamped RUNNING when the step is admitted, not when it starts waiting
+        Mono<WorkflowInstance> stepRecord = latencies.time(workflowModel.name(), step.id(),
+            Mono.defer(() -> executeStepRecord(instance, step, context)));
+        // A delay step holds no resources while it waits, so it does not take an execution slot
+        if (!"delay".equals(step.type())) {
+            stepRecord = scheduler.schedule(workflowModel, stepRecord);
+        }
+        return tracer.trace("step " + step.id(), Map.of("stepId", step.id(), "type", step.type()), stepRecord)
+            .flatMap(updatedInstance -> {
+                if (updatedInstance.isTerminal()) {
+                    return Mono.just(updatedInstance);
+                }
+                // Determine next step
+                String nextStepId = step.getNextStep(context.isConditionResult());
+                if (nextStepId == null) {
+                    // No next step, complete workflow
+                    return saveInstance(updatedInstance.withStatus("COMPLETED"), updatedInstance.status());
+                }
+                // Continue with next step
+                StepDefinition nextStep = workflowModel.findStep(nextStepId);
+                return Mono.defer(() -> executeStepChain(workflowModel, updatedInstance, nextStep, context));
+            });
+    }
+
+    /**
+     * Runs one step and records it, returning the instance with its current
+     * step advanced, or failed if the step failed.
+     */
+    private Mono<WorkflowInstance> executeStepRecord(WorkflowInstance instance,
+                                                     StepDefinition step,
+                                                     ExecutionContext context) {
         logger.debug("Executing step: {} of type: {}", step.id(), step.type());
         context.setCurrentStepId(step.id());
 
@@ -96,43 +240,94 @@ public class WorkflowExecutor {
             context.getVariable("input") != null ? context.getVariable("input").toString() : null
         );
 
-        return stepRepository.save(workflowStep.withStatus("RUNNING"))
+        // The failure path must save over the latest version, which moves on once the current step is recorded
+        AtomicReference<WorkflowInstance> latest = new AtomicReference<>(instance);
+        return saveStep(instance, workflowStep.withStatus("RUNNING"))
             .flatMap(runningStep -> executeStep(step, context)
                 .flatMap(result -> {
                     // Save step result and update context
-                    context.setLastResult(result);
-                    return stepRepository.save(runningStep.withResult(result.toString()))
+                    context.setStepResult(step.id(), result);
+                    return saveStep(instance, runningStep.withResult(result.toString()))
                         .then(updateInstanceCurrentStep(instance, step.id()))
+                        .doOnNext(latest::set)
                         .flatMap(updatedInstance -> {
-                            // Determine next step
                             String nextStepId = step.getNextStep(context.isConditionResult());
-                            if (nextStepId == null) {
-                                // No next step, complete workflow
-                                return instanceRepository.save(updatedInstance.withStatus("COMPLETED"));
-                            } else {
-                                // Continue with next step
-                                StepDefinition nextStep = workflowModel.findStep(nextStepId);
-                                return executeStepChain(workflowModel, updatedInstance, nextStep, context);
-                            }
+                            return nextStepId == null
+                                ? Mono.just(updatedInstance)
+                                : checkpoint(updatedInstance, nextStepId, context).thenReturn(updatedInstance);
                         });
                 })
-                .onErrorResume(error -> {
+                // A lost lease aborts the execution as is; the new owner's state must not be overwritten
+                .onErrorResume(error -> !(error instanceof LeaseLostException), error -> {
                     logger.error("Step execution failed: {}", step.id(), error);
-                    return stepRepository.save(runningStep.withError(error.getMessage()))
-                        .then(instanceRepository.save(instance.withError(error.getMessage())));
+                    return saveStep(instance, runningStep.withError(error.getMessage()))
+                        .then(Mono.defer(() -> saveInstance(latest.get().withError(error.getMessage()), instance.status())));
                 }));
     }
 
     private Mono<Object> executeStep(StepDefinition step, ExecutionContext context) {
         try {
-            StepExecutor executor = executorRegistry.getExecutor(step.type());
-            return executor.execute(step, context);
+            return tracer.trace("execute " + step.type(), Map.of(),
+                profiler.timeExecution(step.type(), executorRegistry.execute(step, context)));
         } catch (Exception e) {
             return Mono.error(new RuntimeException("Failed to execute step: " + step.id(), e));
         }
     }
 
+    private Mono<ExecutionContext> restore(WorkflowInstance instance, ExecutionContext context) {
+        Mono<ExecutionContext> restored = Mono.just(context);
+        for (WorkflowCheckpointer checkpointer : checkpointers) {
+            restored = restored.flatMap(current -> checkpointer.restore(instance, current));
+        }
+        return restored;
+    }
+
     private Mono<WorkflowInstance> updateInstanceCurrentStep(WorkflowInstance instance, String stepId) {
-        return instanceRepository.save(instance.withCurrentStep(stepId));
+        return persist(PersistenceCall.SAVE_INSTANCE, stateStore.saveInstance(instance.withCurrentStep(stepId)));
+    }
+
+    private Mono<Void> checkpoint(WorkflowInstance instance, String nextStepId, ExecutionContext context) {
+        return Flux.fromIterable(checkpointers)
+            .concatMap(checkpointer -> checkpointer.checkpoint(instance, nextStepId, context))
+            .then();
+    }
+
+    private Mono<WorkflowInstance> saveInstance(WorkflowInstance instance, String previousStatus) {
+        return persist(PersistenceCall.SAVE_INSTANCE, stateStore.saveInstance(instance))
+            .doOnNext(saved -> {
+                if (!Objects.equals(saved.status(), previousStatus)) {
+                    notifyInstanceTransition(saved, previousStatus);
+                }
+            });
+    }
+
+    private Mono<WorkflowStep> saveStep(WorkflowInstance instance, WorkflowStep step) {
+        return persist(PersistenceCall.SAVE_STEP, stateStore.saveStep(step))
+            .doOnNext(saved -> notifyStepTransition(instance, saved));
+    }
+
+    private <T> Mono<T> persist(PersistenceCall call, Mono<T> operation) {
+        return tracer.trace("persist " + call.tag(), Map.of(),
+            profiler.timePersistence(metrics.timePersistence(call, operation)));
+    }
+
+    private void notifyStepTransition(WorkflowInstance instance, WorkflowStep step) {
+        for (WorkflowExecutionListener listener : listeners) {
+            try {
+                listener.onStepTransition(instance, step);
+            } catch (Exception e) {
+                logger.warn("Execution listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void notifyInstanceTransition(WorkflowInstance instance, String previousStatus) {
+        for (WorkflowExecutionListener listener : listeners) {
+            try {
+                listener.onInstanceTransition(instance, previousStatus);
+            } catch (Exception e) {
+                logger.warn("Execution listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
     }
 }
@@ -11,17 +11,29 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ConditionStepExecutor implements StepExecutor {
 
     private final ExpressionParser parser = new SpelExpressionParser();
+    // Keyed by expression text, which only comes from workflow definitions
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
 
     @Override
     public String getStepType() {
         return "condition";
     }
 
+    @Override
+    public void prepare(StepDefinition stepDefinition) {
+        String expression = stepDefinition.getConfigString("expression");
+        if (expression == null || expression.isEmpty()) {
+            throw new IllegalArgumentException("Condition step requires an 'expression' parameter");
+        }
+        parse(expression);
+    }
+
     @Override
     public Mono<Object> execute(StepDefinition stepDefinition, ExecutionContext context) {
         String expression = stepDefinition.getConfigString("expression");
@@ -31,12 +43,18 @@ public class ConditionStepExecutor implements StepExecutor {
         }
 
         try {
-            // Create evaluation context with workflow variables
-            StandardEvaluationContext evalContext = new StandardEvaluationContext();
-            context.getVariables().forEach(evalContext::setVariable);
+            // Workflow variables are looked up as the expression refers to them, so only
+            // the spilled ones it reads are materialized
+            StandardEvaluationContext evalContext = new StandardEvaluationContext() {
+                @Override
+                public Object lookupVariable(String name) {
+                    Object value = super.lookupVariable(name);
+                    return value != null ? value : context.getVariable(name);
+                }
+            };
 
             // Parse and evaluate the SpEL expression
-            Expression exp = parser.parseExpression(expression);
+            Expression exp = parse(expression);
             Boolean result = exp.getValue(evalContext, Boolean.class);
 
             // Store the condition result in the execution context
@@ -52,4 +70,8 @@ public class ConditionStepExecutor implements StepExecutor {
             throw new IllegalArgumentException("Failed to evaluate condition expression: " + expression, e);
         }
     }
+
+    private Expression parse(String expression) {
+        return expressions.computeIfAbsent(expression, parser::parseExpression);
+    }
 }
@@ -1,22 +1,28 @@
 package com.workflow.engine.executor.impl;
 
 import com.workflow.engine.executor.StepExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
 import com.workflow.engine.model.ExecutionContext;
 import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.tracing.TraceContext;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.util.Arrays;
 import java.util.Map;
 
 @Component
 public class HttpStepExecutor implements StepExecutor {
 
     private final WebClient webClient;
+    private final EngineMetrics metrics;
 
-    public HttpStepExecutor(WebClient.Builder webClientBuilder) {
+    public HttpStepExecutor(WebClient.Builder webClientBuilder, EngineMetrics metrics) {
         this.webClient = webClientBuilder.build();
+        this.metrics = metrics;
     }
 
     @Override
@@ -24,6 +30,18 @@ public class HttpStepExecutor implements StepExecutor {
         return "http";
     }
 
+    @Override
+    public void prepare(StepDefinition stepDefinition) {
+        String method = stepDefinition.getConfigString("method");
+        if (method == null || stepDefinition.getConfigString("url") == null) {
+            throw new IllegalArgumentException("HTTP step requires 'method' and 'url' parameters");
+        }
+        // HttpMethod.valueOf accepts any token, so only the standard methods are let through
+        if (Arrays.stream(HttpMethod.values()).noneMatch(known -> known.name().equalsIgnoreCase(method))) {
+            throw new IllegalArgumentException("Unknown HTTP method '" + method + "'");
+        }
+    }
+
     @Override
     public Mono<Object> execute(StepDefinition stepDefinition, ExecutionContext context) {
         String method = stepDefinition.getConfigString("method");
@@ -32,17 +50,20 @@ public class HttpStepExecutor implements StepExecutor {
 
         HttpMethod httpMethod = HttpMethod.valueOf(method.toUpperCase());
 
-        WebClient.RequestHeadersSpec<?> requestSpec;
+        Mono<String> request = Mono.deferContextual(reactorContext -> {
+            WebClient.RequestBodySpec requestSpec = webClient.method(httpMethod).uri(url);
+            // Continue the caller's trace in the called service
+            TraceContext.current(reactorContext)
+                .ifPresent(trace -> requestSpec.header(TraceContext.TRACEPARENT, trace.traceparent()));
 
-        if (body != null && (httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PUT || httpMethod == HttpMethod.PATCH)) {
-            requestSpec = webClient.method(httpMethod).uri(url).bodyValue(body);
-        } else {
-            requestSpec = webClient.method(httpMethod).uri(url);
-        }
+            WebClient.RequestHeadersSpec<?> headersSpec = requestSpec;
+            if (body != null && (httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PUT || httpMethod == HttpMethod.PATCH)) {
+                headersSpec = requestSpec.bodyValue(body);
+            }
+            return headersSpec.retrieve().bodyToMono(String.class);
+        });
 
-        return requestSpec
-            .retrieve()
-            .bodyToMono(String.class)
+        return metrics.timeHttp(host(url), request)
             .map(response -> {
                 // Create a response object with status and body
                 return (Object) Map.of(
@@ -62,4 +83,13 @@ public class HttpStepExecutor implements StepExecutor {
                 ));
             });
     }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "unknown";
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
 }
@@ -55,10 +55,10 @@ public class LogStepExecutor implements StepExecutor {
 
     private String replaceVariables(String message, ExecutionContext context) {
         String result = message;
-        for (Map.Entry<String, Object> entry : context.getVariables().entrySet()) {
-            String placeholder = "${" + entry.getKey() + "}";
+        for (String name : context.getVariables().keySet()) {
+            String placeholder = "${" + name + "}";
             if (result.contains(placeholder)) {
-                result = result.replace(placeholder, String.valueOf(entry.getValue()));
+                result = result.replace(placeholder, String.valueOf(context.getVariable(name)));
             }
         }
         return result;
@@ -0,0 +1,67 @@
+package com.workflow.engine.interpreter;
+
+import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Checks a parsed definition for mistakes that would otherwise only surface
+ * when an instance reaches the broken step.
+ */
+@Component
+public class WorkflowDefinitionValidator {
+
+    private final StepExecutorRegistry executorRegistry;
+
+    public WorkflowDefinitionValidator(StepExecutorRegistry executorRegistry) {
+        this.executorRegistry = executorRegistry;
+    }
+
+    public void validate(WorkflowDefinitionModel model) {
+        List<String> problems = new ArrayList<>();
+        if (model.steps().isEmpty()) {
+            problems.add("no steps");
+        }
+        if (model.weight() < 1) {
+            problems.add("weight must be at least 1");
+        }
+        if (model.maxConcurrency() < 0) {
+            problems.add("maxConcurrency must not be negative");
+        }
+
+        Set<String> stepIds = new HashSet<>();
+        for (StepDefinition step : model.steps()) {
+            if (step.id() == null) {
+                problems.add("a step has no id");
+            } else if (!stepIds.add(step.id())) {
+                problems.add("duplicate step id '" + step.id() + "'");
+            }
+            if (step.type() == null || !executorRegistry.hasExecutor(step.type())) {
+                problems.add("step '" + step.id() + "' has unknown type '" + step.type() + "'");
+            } else {
+                try {
+                    executorRegistry.prepare(step);
+                } catch (RuntimeException e) {
+                    problems.add("step '" + step.id() + "': " + e.getMessage());
+                }
+            }
+        }
+
+        for (StepDefinition step : model.steps()) {
+            Stream.of(step.next(), step.onTrue(), step.onFalse())
+                .filter(target -> target != null && !stepIds.contains(target))
+                .forEach(target -> problems.add("step '" + step.id() + "' refers to unknown step '" + target + "'"));
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid workflow definition '" + model.name() + "': " + String.join("; ", problems));
+        }
+    }
+}
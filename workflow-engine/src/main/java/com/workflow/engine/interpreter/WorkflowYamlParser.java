@@ -1,5 +1,6 @@
 package com.workflow.engine.interpreter;
 
+import com.workflow.engine.model.Priority;
 import com.workflow.engine.model.StepDefinition;
 import com.workflow.engine.model.WorkflowDefinitionModel;
 import org.yaml.snakeyaml.Yaml;
@@ -21,6 +22,10 @@ public class WorkflowYamlParser {
             String name = (String) workflowData.get("name");
             String version = (String) workflowData.getOrDefault("version", "1.0.0");
             Map<String, Object> variables = (Map<String, Object>) workflowData.getOrDefault("variables", Map.of());
+            Object priority = workflowData.get("priority");
+            Priority parsedPriority = priority != null ? Priority.parse(priority.toString()) : Priority.NORMAL;
+            int weight = ((Number) workflowData.getOrDefault("weight", 1)).intValue();
+            int maxConcurrency = ((Number) workflowData.getOrDefault("maxConcurrency", 0)).intValue();
 
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> stepsData = (List<Map<String, Object>>) workflowData.get("steps");
@@ -29,7 +34,7 @@ public class WorkflowYamlParser {
                 .map(this::parseStep)
                 .collect(Collectors.toList());
 
-            return new WorkflowDefinitionModel(name, version, steps, variables);
+            return new WorkflowDefinitionModel(name, version, steps, variables, parsedPriority, weight, maxConcurrency);
 
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid workflow YAML: " + e.getMessage(), e);
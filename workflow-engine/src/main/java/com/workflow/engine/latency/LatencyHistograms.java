@@ -0,0 +1,159 @@
+package com.workflow.engine.latency;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per definition and step, plus one per definition for
+ * whole-instance durations. Each series records into an HdrHistogram
+ * {@link Recorder}, which takes a value without locking, and is rotated into
+ * a ring of fixed intervals covering the retention window. Windows and
+ * percentiles are answered by merging intervals, so nothing is aggregated
+ * from the instance and step tables.
+ *
+ * <p>The interval still being recorded is not visible until the next
+ * rotation.
+ */
+@Component
+public class LatencyHistograms {
+
+    // Two significant digits bound the error at 1% and keep a packed interval histogram small
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private record SeriesKey(String definitionName, String stepId) {
+    }
+
+    private static final class Series {
+        final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS, true);
+        final Deque<LatencyInterval> intervals = new ArrayDeque<>();
+        Instant intervalStart;
+
+        Series(Instant intervalStart) {
+            this.intervalStart = intervalStart;
+        }
+    }
+
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final int maxSeries;
+    private final Clock clock;
+    private final LongAdder droppedSamples = new LongAdder();
+
+    public LatencyHistograms(@Value("${workflow.latency.retention:PT1H}") Duration retention,
+                             @Value("${workflow.latency.max-series:2000}") int maxSeries) {
+        this(retention, maxSeries, Clock.systemUTC());
+    }
+
+    LatencyHistograms(Duration retention, int maxSeries, Clock clock) {
+        this.retention = retention;
+        this.maxSeries = maxSeries;
+        this.clock = clock;
+    }
+
+    public void record(String definitionName, String stepId, long micros) {
+        SeriesKey key = new SeriesKey(definitionName, stepId);
+        Series target = series.get(key);
+        if (target == null) {
+            if (series.size() >= maxSeries) {
+                droppedSamples.increment();
+                return;
+            }
+            target = series.computeIfAbsent(key, k -> new Series(clock.instant()));
+        }
+        target.recorder.recordValue(Math.max(0, micros));
+    }
+
+    /**
+     * Records the duration of a completed or failed instance.
+     */
+    public void recordInstance(String definitionName, WorkflowInstance instance) {
+        if (!instance.isTerminal() || instance.startedAt() == null || instance.completedAt() == null) {
+            return;
+        }
+        record(definitionName, null, Duration.between(instance.startedAt(), instance.completedAt()).toNanos() / 1000);
+    }
+
+    /**
+     * Records how long {@code operation} takes from subscription until it
+     * completes or fails.
+     */
+    public <T> Mono<T> time(String definitionName, String stepId, Mono<T> operation) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return operation.doOnTerminate(() -> record(definitionName, stepId, (System.nanoTime() - start) / 1000));
+        });
+    }
+
+    /**
+     * Closes the current interval of every series and drops intervals that
+     * ended before the retention window. Returns the closed intervals that
+     * have samples.
+     */
+    public List<LatencyInterval> rotate() {
+        Instant now = clock.instant();
+        Instant retainFrom = now.minus(retention);
+        List<LatencyInterval> closed = new ArrayList<>();
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            SeriesKey key = entry.getKey();
+            Series current = entry.getValue();
+            Histogram histogram = current.recorder.getIntervalHistogram();
+            synchronized (current) {
+                if (histogram.getTotalCount() > 0) {
+                    LatencyInterval interval = new LatencyInterval(
+                        key.definitionName(), key.stepId(), current.intervalStart, now, histogram);
+                    current.intervals.addLast(interval);
+                    closed.add(interval);
+                }
+                current.intervalStart = now;
+                while (!current.intervals.isEmpty() && current.intervals.peekFirst().end().isBefore(retainFrom)) {
+                    current.intervals.removeFirst();
+                }
+                if (current.intervals.isEmpty() && histogram.getTotalCount() == 0) {
+                    // Idle for the whole retention window; a sample racing with the removal is lost
+                    series.remove(key, current);
+                }
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Intervals of the definition that ended after {@code since}, oldest
+     * first within each series.
+     */
+    public List<LatencyInterval> intervals(String definitionName, Instant since) {
+        List<LatencyInterval> result = new ArrayList<>();
+        series.forEach((key, current) -> {
+            if (!key.definitionName().equals(definitionName)) {
+                return;
+            }
+            synchronized (current) {
+                for (LatencyInterval interval : current.intervals) {
+                    if (interval.end().isAfter(since)) {
+                        result.add(interval);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    public long droppedSamples() {
+        return droppedSamples.sum();
+    }
+}
@@ -0,0 +1,18 @@
+package com.workflow.engine.latency;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Instant;
+
+/**
+ * Latencies recorded for one series during one interval, in microseconds.
+ * {@code stepId} is null for whole-instance durations.
+ */
+public record LatencyInterval(
+    String definitionName,
+    String stepId,
+    Instant start,
+    Instant end,
+    Histogram histogram
+) {
+}
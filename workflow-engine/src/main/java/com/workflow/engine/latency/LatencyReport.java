@@ -0,0 +1,78 @@
+package com.workflow.engine.latency;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency percentiles of one definition over a window, per step and for the
+ * whole instance, with a time series at {@code step} resolution. Intervals
+ * are assigned to the point their start falls in, so the resolution is
+ * never finer than the recording interval.
+ */
+public record LatencyReport(
+    String definitionName,
+    String scope,
+    Instant from,
+    Instant to,
+    Duration step,
+    List<Series> series
+) {
+
+    /**
+     * {@code stepId} is null for the whole-instance series.
+     */
+    public record Series(String stepId, Summary window, List<Point> points) {
+    }
+
+    public record Point(Instant start, Summary latency) {
+    }
+
+    public record Summary(long count, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+        static Summary of(Histogram micros) {
+            return new Summary(
+                micros.getTotalCount(),
+                micros.getValueAtPercentile(50) / 1000.0,
+                micros.getValueAtPercentile(95) / 1000.0,
+                micros.getValueAtPercentile(99) / 1000.0,
+                micros.getMaxValue() / 1000.0
+            );
+        }
+    }
+
+    public static LatencyReport of(String definitionName, String scope, List<LatencyInterval> intervals,
+                                   Instant from, Instant to, Duration step) {
+        Map<String, Histogram> windows = new HashMap<>();
+        Map<String, TreeMap<Long, Histogram>> buckets = new HashMap<>();
+        for (LatencyInterval interval : intervals) {
+            if (!interval.end().isAfter(from) || interval.start().isAfter(to)) {
+                continue;
+            }
+            String stepId = interval.stepId();
+            windows.computeIfAbsent(stepId, id -> new Histogram(2)).add(interval.histogram());
+            long bucket = Math.max(0, Duration.between(from, interval.start()).toNanos() / step.toNanos());
+            buckets.computeIfAbsent(stepId, id -> new TreeMap<>())
+                .computeIfAbsent(bucket, b -> new Histogram(2))
+                .add(interval.histogram());
+        }
+
+        List<Series> series = new ArrayList<>();
+        for (Map.Entry<String, Histogram> window : windows.entrySet()) {
+            List<Point> points = new ArrayList<>();
+            buckets.get(window.getKey()).forEach((bucket, histogram) ->
+                points.add(new Point(from.plus(step.multipliedBy(bucket)), Summary.of(histogram))));
+            series.add(new Series(window.getKey(), Summary.of(window.getValue()), points));
+        }
+        // The instance series first, then steps by name
+        series.sort(Comparator.comparing(Series::stepId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return new LatencyReport(definitionName, scope, from, to, step, series);
+    }
+}
@@ -0,0 +1,117 @@
+package com.workflow.engine.latency;
+
+import com.workflow.storage.entity.LatencySnapshot;
+import com.workflow.storage.repository.LatencySnapshotRepository;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+
+/**
+ * Rotates this node's {@link LatencyHistograms} on a fixed interval and
+ * persists every closed interval that has samples, so that windows can be
+ * merged across nodes and survive restarts. Rows are purged after the
+ * snapshot retention.
+ */
+@Component
+public class LatencySnapshots {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencySnapshots.class);
+
+    // Instance durations are stored with an empty step id, the column is not nullable
+    private static final String INSTANCE_STEP_ID = "";
+
+    private final LatencyHistograms histograms;
+    private final LatencySnapshotRepository snapshotRepository;
+    private final String nodeId;
+    private final Duration snapshotRetention;
+
+    public LatencySnapshots(LatencyHistograms histograms,
+                            LatencySnapshotRepository snapshotRepository,
+                            @Value("${workflow.queue.node-id:#{T(java.util.UUID).randomUUID().toString()}}") String nodeId,
+                            @Value("${workflow.latency.snapshot-retention:P7D}") Duration snapshotRetention) {
+        this.histograms = histograms;
+        this.snapshotRepository = snapshotRepository;
+        this.nodeId = nodeId;
+        this.snapshotRetention = snapshotRetention;
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.latency.interval:PT10S}",
+               initialDelayString = "${workflow.latency.interval:PT10S}")
+    public void rotate() {
+        Flux.fromIterable(histograms.rotate())
+            .concatMap(interval -> snapshotRepository.insert(
+                nodeId,
+                interval.definitionName(),
+                interval.stepId() != null ? interval.stepId() : INSTANCE_STEP_ID,
+                toLocal(interval.start()),
+                toLocal(interval.end()),
+                interval.histogram().getTotalCount(),
+                encode(interval.histogram())))
+            .subscribe(
+                ignored -> { },
+                error -> logger.warn("Failed to persist latency snapshots", error)
+            );
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.latency.purge-interval:PT1H}")
+    public void purge() {
+        snapshotRepository.purgeEndedBefore(toLocal(Instant.now().minus(snapshotRetention)))
+            .subscribe(
+                purged -> logger.debug("Purged {} latency snapshots", purged),
+                error -> logger.warn("Failed to purge latency snapshots", error)
+            );
+    }
+
+    /**
+     * Intervals of the definition persisted by any node that ended after {@code since}.
+     */
+    public Flux<LatencyInterval> cluster(String definitionName, Instant since) {
+        return snapshotRepository.findByDefinitionEndedAfter(definitionName, toLocal(since))
+            .map(LatencySnapshots::toInterval);
+    }
+
+    private static LatencyInterval toInterval(LatencySnapshot snapshot) {
+        return new LatencyInterval(
+            snapshot.definitionName(),
+            INSTANCE_STEP_ID.equals(snapshot.stepId()) ? null : snapshot.stepId(),
+            toInstant(snapshot.intervalStart()),
+            toInstant(snapshot.intervalEnd()),
+            decode(snapshot.histogram())
+        );
+    }
+
+    static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    static Histogram decode(String encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt latency snapshot", e);
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,22 @@
+package com.workflow.engine.listener;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+
+/**
+ * Callback for components that need to observe workflow execution without
+ * touching storage themselves. Notifications are delivered synchronously on
+ * the execution thread, so implementations must be cheap and non-blocking.
+ */
+public interface WorkflowExecutionListener {
+
+    default void onInstanceTransition(WorkflowInstance instance, String previousStatus) {
+    }
+
+    /**
+     * Called after every step record write. {@code instance} is the owning
+     * instance as of the time the step ran.
+     */
+    default void onStepTransition(WorkflowInstance instance, WorkflowStep step) {
+    }
+}
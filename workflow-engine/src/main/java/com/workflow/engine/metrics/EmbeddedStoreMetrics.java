@@ -0,0 +1,30 @@
+package com.workflow.engine.metrics;
+
+import com.workflow.storage.embedded.EmbeddedWorkflowStateStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk usage of the embedded state store's segment log. Storage does not
+ * depend on Micrometer, so the gauges are registered here.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.persistence.mode", havingValue = "embedded")
+public class EmbeddedStoreMetrics {
+
+    public EmbeddedStoreMetrics(EmbeddedWorkflowStateStore store, MeterRegistry meterRegistry) {
+        Gauge.builder("workflow.embedded.segments", store, EmbeddedWorkflowStateStore::segmentCount)
+            .description("Segment files of the embedded state store, including compacted ones awaiting deletion")
+            .register(meterRegistry);
+        Gauge.builder("workflow.embedded.bytes", store, EmbeddedWorkflowStateStore::sizeBytes)
+            .description("Bytes held by the embedded state store's segment files")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("workflow.embedded.garbage", store, EmbeddedWorkflowStateStore::garbageBytes)
+            .description("Bytes of superseded records not yet reclaimed by compaction")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+}
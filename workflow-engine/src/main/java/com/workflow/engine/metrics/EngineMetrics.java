@@ -0,0 +1,161 @@
+package com.workflow.engine.metrics;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for the engine's hot paths. Every meter is registered once, up front
+ * or on the first use of a new tag value, and callers keep the returned
+ * {@link Outcomes} or look it up in a plain map, so recording never goes
+ * through the registry's tag matching.
+ */
+@Component
+public class EngineMetrics {
+
+    /**
+     * Host tag values kept before further hosts are reported as {@code other}.
+     */
+    static final int MAX_HTTP_HOSTS = 256;
+
+    public enum PersistenceCall {
+        SAVE_INSTANCE("save-instance"),
+        SAVE_INSTANCES("save-instances"),
+        SAVE_STEP("save-step"),
+        FIND_INSTANCE("find-instance"),
+        ENQUEUE("enqueue"),
+        CLAIM_BATCH("claim-batch"),
+        RELEASE("release"),
+        RENEW_LEASES("renew-leases"),
+        ADVANCE("advance"),
+        COMPLETE("complete"),
+        CHECKPOINT("checkpoint"),
+        RESTORE("restore"),
+        ACQUIRE_SLOT("acquire-slot"),
+        RENEW_SLOTS("renew-slots"),
+        RELEASE_SLOT("release-slot");
+
+        private final String tag;
+
+        PersistenceCall(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /**
+     * A pair of timers for the same operation, split by whether it failed.
+     */
+    public record Outcomes(Timer success, Timer failure) {
+
+        public <T> Mono<T> time(Mono<T> operation) {
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return operation.doFinally(signal -> record(signal, start));
+            });
+        }
+
+        public <T> Flux<T> time(Flux<T> operation) {
+            return Flux.defer(() -> {
+                long start = System.nanoTime();
+                return operation.doFinally(signal -> record(signal, start));
+            });
+        }
+
+        private void record(SignalType signal, long start) {
+            // Cancellation says nothing about how long the operation takes
+            if (signal != SignalType.CANCEL) {
+                (signal == SignalType.ON_ERROR ? failure : success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<PersistenceCall, Outcomes> persistence = new EnumMap<>(PersistenceCall.class);
+    private final Map<String, Outcomes> instances = new ConcurrentHashMap<>();
+    private final Map<String, Outcomes> httpHosts = new ConcurrentHashMap<>();
+    private final Outcomes otherHttpHosts;
+    private final AtomicInteger executing = new AtomicInteger();
+
+    public EngineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (PersistenceCall call : PersistenceCall.values()) {
+            persistence.put(call, outcomes("workflow.persistence.duration", "call", call.tag));
+        }
+        this.otherHttpHosts = outcomes("workflow.http.client.duration", "host", "other");
+        Gauge.builder("workflow.instances.executing", executing, AtomicInteger::get)
+            .description("Workflow instances executing on this node")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Timers for executions of one step type.
+     */
+    public Outcomes stepTimers(String stepType) {
+        return outcomes("workflow.step.duration", "type", stepType);
+    }
+
+    public <T> Mono<T> timePersistence(PersistenceCall call, Mono<T> operation) {
+        return persistence.get(call).time(operation);
+    }
+
+    public <T> Flux<T> timePersistence(PersistenceCall call, Flux<T> operation) {
+        return persistence.get(call).time(operation);
+    }
+
+    public <T> Mono<T> timeHttp(String host, Mono<T> request) {
+        Outcomes timers = httpHosts.get(host);
+        if (timers == null) {
+            timers = httpHosts.size() < MAX_HTTP_HOSTS
+                ? httpHosts.computeIfAbsent(host, key -> outcomes("workflow.http.client.duration", "host", key))
+                : otherHttpHosts;
+        }
+        return timers.time(request);
+    }
+
+    /**
+     * Counts the execution as running on this node while it is subscribed.
+     */
+    public <T> Mono<T> trackExecuting(Mono<T> execution) {
+        return Mono.defer(() -> {
+            executing.incrementAndGet();
+            return execution.doFinally(signal -> executing.decrementAndGet());
+        });
+    }
+
+    /**
+     * Records the wall-clock duration of a finished instance, from its
+     * creation to its terminal state, including any time spent queued.
+     */
+    public void recordInstance(String definitionName, WorkflowInstance instance) {
+        if (!instance.isTerminal() || instance.startedAt() == null || instance.completedAt() == null) {
+            return;
+        }
+        Outcomes timers = instances.computeIfAbsent(definitionName,
+            name -> outcomes("workflow.instance.duration", "definition", name));
+        Duration duration = Duration.between(instance.startedAt(), instance.completedAt());
+        ("FAILED".equals(instance.status()) ? timers.failure() : timers.success()).record(duration);
+    }
+
+    private Outcomes outcomes(String name, String tagKey, String tagValue) {
+        return new Outcomes(
+            Timer.builder(name).tag(tagKey, tagValue).tag("outcome", "success").register(meterRegistry),
+            Timer.builder(name).tag(tagKey, tagValue).tag("outcome", "failure").register(meterRegistry)
+        );
+    }
+}
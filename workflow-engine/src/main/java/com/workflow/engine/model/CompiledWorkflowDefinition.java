@@ -0,0 +1,15 @@
+package com.workflow.engine.model;
+
+import java.util.UUID;
+
+/**
+ * A stored workflow definition with its YAML already parsed, so that starting
+ * or resuming an instance does not re-read or re-parse the definition row.
+ */
+public record CompiledWorkflowDefinition(
+    UUID id,
+    String name,
+    String version,
+    WorkflowDefinitionModel model
+) {
+}
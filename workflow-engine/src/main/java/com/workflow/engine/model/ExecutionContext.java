@@ -1,35 +1,80 @@
 package com.workflow.engine.model;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Variables visible to the steps of one execution. The variables are a
+ * {@link PersistentMap}: setting one replaces the map rather than changing
+ * it, so {@link #copy()} is O(1) and a copy never sees the other's changes.
+ *
+ * <p>Every step result is kept under its step id in the {@code steps}
+ * variable, so expressions can refer to any earlier step as
+ * {@code #steps['fetch-data']}. {@code result} is the latest one.
+ *
+ * <p>Values set in the context go through its {@link ValueSpiller}, which may
+ * keep a large one off the heap as a {@link SpilledValue}. The accessors for
+ * single variables and the latest result materialize spilled values; the raw
+ * maps returned by {@link #getVariables()} and {@link #getStepResults()} hold
+ * the handles, which stay identical across copies.
+ */
 public class ExecutionContext {
+
+    public static final String STEPS_VARIABLE = "steps";
+    public static final String RESULT_VARIABLE = "result";
+
     private final UUID workflowInstanceId;
-    private final Map<String, Object> variables;
+    private final ValueSpiller spiller;
+    private PersistentMap<String, Object> variables;
+    private PersistentMap<String, Object> stepResults;
     private String currentStepId;
     private Object lastResult;
+    private String lastResultStepId;
     private boolean conditionResult;
 
     public ExecutionContext(UUID workflowInstanceId, Map<String, Object> initialVariables) {
+        this(workflowInstanceId, initialVariables, ValueSpiller.NONE);
+    }
+
+    public ExecutionContext(UUID workflowInstanceId, Map<String, Object> initialVariables, ValueSpiller spiller) {
         this.workflowInstanceId = workflowInstanceId;
-        this.variables = new HashMap<>(initialVariables);
+        this.spiller = spiller;
+        this.stepResults = PersistentMap.empty();
+        PersistentMap<String, Object> initial = PersistentMap.empty();
+        for (Map.Entry<String, Object> entry : initialVariables.entrySet()) {
+            initial = initial.with(entry.getKey(), spiller.spill(entry.getValue()));
+        }
+        this.variables = initial.with(STEPS_VARIABLE, stepResults);
     }
 
     public UUID getWorkflowInstanceId() {
         return workflowInstanceId;
     }
 
-    public Map<String, Object> getVariables() {
+    /**
+     * The current variables. The map is immutable and stays as it is when
+     * variables are set later, so it can be kept as a snapshot. Spilled
+     * values appear as their {@link SpilledValue} handles.
+     */
+    public PersistentMap<String, Object> getVariables() {
         return variables;
     }
 
     public void setVariable(String name, Object value) {
-        variables.put(name, value);
+        variables = variables.with(name, spiller.spill(value));
     }
 
+    /**
+     * The variable's value, materialized if it was spilled. {@code steps}
+     * is a read-only view that materializes each result as it is read.
+     */
     public Object getVariable(String name) {
-        return variables.get(name);
+        Object value = variables.get(name);
+        return value == stepResults ? new Materializing(stepResults) : materialize(value);
     }
 
     public String getCurrentStepId() {
@@ -41,13 +86,41 @@ public class ExecutionContext {
     }
 
     public Object getLastResult() {
-        return lastResult;
+        return materialize(lastResult);
     }
 
     public void setLastResult(Object lastResult) {
-        this.lastResult = lastResult;
+        store(spiller.spill(lastResult));
+    }
+
+    /**
+     * Records a step's result under its id and as the latest {@code result}.
+     */
+    public void setStepResult(String stepId, Object result) {
+        Object stored = spiller.spill(result);
+        stepResults = stepResults.with(stepId, stored);
+        variables = variables.with(STEPS_VARIABLE, stepResults);
+        store(stored);
+        lastResultStepId = stepId;
+    }
+
+    private void store(Object result) {
+        this.lastResult = result;
+        this.lastResultStepId = null;
         // Store result in variables for expression evaluation
-        variables.put("result", lastResult);
+        variables = variables.with(RESULT_VARIABLE, result);
+    }
+
+    public PersistentMap<String, Object> getStepResults() {
+        return stepResults;
+    }
+
+    /**
+     * The step whose result is the current {@code result}, or null if the
+     * result was set directly.
+     */
+    public String getLastResultStepId() {
+        return lastResultStepId;
     }
 
     public boolean isConditionResult() {
@@ -59,10 +132,107 @@ public class ExecutionContext {
     }
 
     public ExecutionContext copy() {
-        ExecutionContext copy = new ExecutionContext(workflowInstanceId, new HashMap<>(variables));
+        ExecutionContext copy = new ExecutionContext(workflowInstanceId, spiller, variables, stepResults);
         copy.currentStepId = this.currentStepId;
         copy.lastResult = this.lastResult;
+        copy.lastResultStepId = this.lastResultStepId;
         copy.conditionResult = this.conditionResult;
         return copy;
     }
+
+    /**
+     * Rebuilds this context's execution from checkpointed state.
+     * {@code variables} holds everything but the step results; {@code result}
+     * is taken from {@code lastResultStepId} when set. Large values are
+     * spilled again as they are restored.
+     */
+    public ExecutionContext restore(Map<String, Object> variables, Map<String, Object> stepResults,
+                                    String lastResultStepId) {
+        PersistentMap<String, Object> restoredResults = PersistentMap.empty();
+        for (Map.Entry<String, Object> entry : stepResults.entrySet()) {
+            restoredResults = restoredResults.with(entry.getKey(), spiller.spill(entry.getValue()));
+        }
+        PersistentMap<String, Object> restoredVariables = PersistentMap.empty();
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            restoredVariables = restoredVariables.with(entry.getKey(), spiller.spill(entry.getValue()));
+        }
+        ExecutionContext context = new ExecutionContext(workflowInstanceId, spiller,
+            restoredVariables.with(STEPS_VARIABLE, restoredResults), restoredResults);
+        if (lastResultStepId != null) {
+            context.store(restoredResults.get(lastResultStepId));
+            context.lastResultStepId = lastResultStepId;
+        } else {
+            context.lastResult = restoredVariables.get(RESULT_VARIABLE);
+        }
+        return context;
+    }
+
+    /**
+     * The value itself, or the materialized value of a spilled one.
+     */
+    public static Object materialize(Object value) {
+        return value instanceof SpilledValue spilled ? spilled.materialize() : value;
+    }
+
+    private ExecutionContext(UUID workflowInstanceId, ValueSpiller spiller, PersistentMap<String, Object> variables,
+                             PersistentMap<String, Object> stepResults) {
+        this.workflowInstanceId = workflowInstanceId;
+        this.spiller = spiller;
+        this.variables = variables;
+        this.stepResults = stepResults;
+    }
+
+    /**
+     * Read-only view of a map of possibly spilled values.
+     */
+    private static final class Materializing extends AbstractMap<String, Object> {
+
+        private final PersistentMap<String, Object> map;
+
+        Materializing(PersistentMap<String, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return materialize(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> entries = map.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), materialize(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
 }
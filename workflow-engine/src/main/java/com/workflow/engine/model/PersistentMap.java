@@ -0,0 +1,596 @@
+package com.workflow.engine.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map that shares structure between versions. {@link #with}
+ * and {@link #without} return a new map in O(log32 n) and leave this one
+ * untouched, so keeping an old version around, for a fork or a snapshot,
+ * costs nothing.
+ *
+ * <p>This is a compressed hash-array mapped trie (CHAMP): every node holds a
+ * bitmap of inline entries and a bitmap of child nodes for the next five
+ * hash bits. A map has one canonical shape for its contents, whatever order
+ * they were added in. Keys must not be null; values may be.
+ *
+ * <p>As a {@link Map}, it is read-only: the mutators inherited from
+ * {@link AbstractMap} throw {@link UnsupportedOperationException}.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Levels start at these shifts; past the last one, the hash is used up and keys collide
+    private static final int MAX_SHIFT = 30;
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentMap<?, ?> EMPTY =
+        new PersistentMap<>(new BitmapNode<>(0, 0, new Object[0]), 0);
+
+    private final Node<K, V> root;
+    private final int size;
+    private Set<Entry<K, V>> entrySet;
+
+    private PersistentMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap<?, ?> persistent) {
+            return (PersistentMap<K, V>) persistent;
+        }
+        PersistentMap<K, V> result = empty();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public PersistentMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Change change = new Change();
+        Node<K, V> updated = root.put(key, value, hash(key), 0, change);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentMap<>(updated, change.added ? size + 1 : size);
+    }
+
+    public PersistentMap<K, V> without(Object key) {
+        if (key == null) {
+            return this;
+        }
+        Node<K, V> updated = root.remove(key, hash(key), 0);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentMap<>(updated, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Object value = root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach(action);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Receives the differences found by {@link #diff}.
+     */
+    public interface Changes<K, V> {
+
+        /**
+         * The key was added, or now maps to a different value instance.
+         */
+        void changed(K key, V value);
+
+        void removed(K key);
+    }
+
+    /**
+     * Reports how this map differs from {@code base}. Values are compared by
+     * identity. Subtrees that this map still shares with {@code base} are
+     * skipped without being visited, so diffing a map against the version
+     * it was derived from costs time proportional to the changes, not to
+     * the size of the map.
+     */
+    public void diff(PersistentMap<K, V> base, Changes<? super K, ? super V> changes) {
+        diff(base.root, root, 0, changes);
+    }
+
+    private static <K, V> void diff(Node<K, V> before, Node<K, V> after, int shift, Changes<? super K, ? super V> changes) {
+        if (before == after) {
+            return;
+        }
+        if (!(before instanceof BitmapNode<K, V> old) || !(after instanceof BitmapNode<K, V> current)) {
+            diffEntries(entries(before), entries(after), changes);
+            return;
+        }
+        int bits = old.dataMap | old.nodeMap | current.dataMap | current.nodeMap;
+        while (bits != 0) {
+            int bit = Integer.lowestOneBit(bits);
+            bits &= ~bit;
+            boolean oldData = (old.dataMap & bit) != 0;
+            boolean newData = (current.dataMap & bit) != 0;
+            if ((old.nodeMap & bit) != 0 && (current.nodeMap & bit) != 0) {
+                diff(old.childAt(bit), current.childAt(bit), shift + BITS, changes);
+            } else if (oldData && newData) {
+                int oldIndex = old.dataIndex(bit);
+                int newIndex = current.dataIndex(bit);
+                K oldKey = old.keyAt(oldIndex);
+                K newKey = current.keyAt(newIndex);
+                if (!oldKey.equals(newKey)) {
+                    changes.removed(oldKey);
+                    changes.changed(newKey, current.valueAt(newIndex));
+                } else if (old.valueAt(oldIndex) != current.valueAt(newIndex)) {
+                    changes.changed(newKey, current.valueAt(newIndex));
+                }
+            } else {
+                // An entry on one side and a subtree, or nothing, on the other
+                diffEntries(old.entriesAt(bit), current.entriesAt(bit), changes);
+            }
+        }
+    }
+
+    private static <K, V> void diffEntries(Map<K, V> before, Map<K, V> after, Changes<? super K, ? super V> changes) {
+        after.forEach((key, value) -> {
+            if (!before.containsKey(key) || before.get(key) != value) {
+                changes.changed(key, value);
+            }
+        });
+        before.keySet().forEach(key -> {
+            if (!after.containsKey(key)) {
+                changes.removed(key);
+            }
+        });
+    }
+
+    private static <K, V> Map<K, V> entries(Node<K, V> node) {
+        Map<K, V> entries = new HashMap<>();
+        node.forEach(entries::put);
+        return entries;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Change {
+        boolean added;
+    }
+
+    private abstract static sealed class Node<K, V> permits BitmapNode, CollisionNode {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node<K, V> put(K key, V value, int hash, int shift, Change change);
+
+        abstract Node<K, V> remove(Object key, int hash, int shift);
+
+        abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+        /**
+         * Number of entries stored directly in this node.
+         */
+        abstract int dataCount();
+
+        abstract int nodeCount();
+
+        abstract K keyAt(int index);
+
+        abstract V valueAt(int index);
+
+        abstract Node<K, V> nodeAt(int index);
+
+        /**
+         * A node left with a single entry and no children is inlined into
+         * its parent, which keeps the trie canonical.
+         */
+        boolean isSingleEntry() {
+            return dataCount() == 1 && nodeCount() == 0;
+        }
+    }
+
+    /**
+     * {@code content} holds the inline keys and values as pairs, in bit
+     * order, followed by the child nodes in bit order.
+     */
+    private static final class BitmapNode<K, V> extends Node<K, V> {
+
+        final int dataMap;
+        final int nodeMap;
+        final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return key.equals(content[2 * index]) ? content[2 * index + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) {
+                return childAt(bit).find(key, hash, shift + BITS);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                K existingKey = keyAt(index);
+                if (key.equals(existingKey)) {
+                    if (content[2 * index + 1] == value) {
+                        return this;
+                    }
+                    Object[] copy = content.clone();
+                    copy[2 * index + 1] = value;
+                    return new BitmapNode<>(dataMap, nodeMap, copy);
+                }
+                change.added = true;
+                Node<K, V> child = merge(existingKey, valueAt(index), hash(existingKey), key, value, hash, shift + BITS);
+                return withDataMovedToChild(bit, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node<K, V> child = childAt(bit);
+                Node<K, V> updated = child.put(key, value, hash, shift + BITS, change);
+                return updated == child ? this : withChild(bit, updated);
+            }
+            change.added = true;
+            return withData(bit, key, value);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return key.equals(content[2 * index]) ? withoutData(bit) : this;
+            }
+            if ((nodeMap & bit) != 0) {
+                Node<K, V> child = childAt(bit);
+                Node<K, V> updated = child.remove(key, hash, shift + BITS);
+                if (updated == child) {
+                    return this;
+                }
+                return updated.isSingleEntry()
+                    ? withChildInlined(bit, updated.keyAt(0), updated.valueAt(0))
+                    : withChild(bit, updated);
+            }
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            int data = dataCount();
+            for (int i = 0; i < data; i++) {
+                action.accept((K) content[2 * i], (V) content[2 * i + 1]);
+            }
+            for (int i = 2 * data; i < content.length; i++) {
+                ((Node<K, V>) content[i]).forEach(action);
+            }
+        }
+
+        @Override
+        int dataCount() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) content[2 * index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) content[2 * index + 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Node<K, V> nodeAt(int index) {
+            return (Node<K, V>) content[2 * dataCount() + index];
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node<K, V> childAt(int bit) {
+            return nodeAt(nodeIndex(bit));
+        }
+
+        private Map<K, V> entriesAt(int bit) {
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Map<K, V> entries = new HashMap<>();
+                entries.put(keyAt(index), valueAt(index));
+                return entries;
+            }
+            return (nodeMap & bit) != 0 ? entries(childAt(bit)) : Map.of();
+        }
+
+        private Node<K, V> withData(int bit, K key, V value) {
+            int at = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, at);
+            copy[at] = key;
+            copy[at + 1] = value;
+            System.arraycopy(content, at, copy, at + 2, content.length - at);
+            return new BitmapNode<>(dataMap | bit, nodeMap, copy);
+        }
+
+        private Node<K, V> withoutData(int bit) {
+            int at = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, at);
+            System.arraycopy(content, at + 2, copy, at, content.length - at - 2);
+            return new BitmapNode<>(dataMap & ~bit, nodeMap, copy);
+        }
+
+        private Node<K, V> withChild(int bit, Node<K, V> child) {
+            Object[] copy = content.clone();
+            copy[2 * dataCount() + nodeIndex(bit)] = child;
+            return new BitmapNode<>(dataMap, nodeMap, copy);
+        }
+
+        private Node<K, V> withDataMovedToChild(int bit, Node<K, V> child) {
+            int dataAt = 2 * dataIndex(bit);
+            // Position among the children once the entry has left the data section
+            int nodeAt = 2 * (dataCount() - 1) + nodeIndex(bit);
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, dataAt);
+            System.arraycopy(content, dataAt + 2, copy, dataAt, nodeAt - dataAt);
+            copy[nodeAt] = child;
+            System.arraycopy(content, nodeAt + 2, copy, nodeAt + 1, content.length - nodeAt - 2);
+            return new BitmapNode<>(dataMap & ~bit, nodeMap | bit, copy);
+        }
+
+        private Node<K, V> withChildInlined(int bit, K key, V value) {
+            int dataAt = 2 * dataIndex(bit);
+            int nodeAt = 2 * dataCount() + nodeIndex(bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, dataAt);
+            copy[dataAt] = key;
+            copy[dataAt + 1] = value;
+            System.arraycopy(content, dataAt, copy, dataAt + 2, nodeAt - dataAt);
+            System.arraycopy(content, nodeAt + 1, copy, nodeAt + 2, content.length - nodeAt - 1);
+            return new BitmapNode<>(dataMap | bit, nodeMap & ~bit, copy);
+        }
+
+        private static <K, V> Node<K, V> merge(K key1, V value1, int hash1, K key2, V value2, int hash2, int shift) {
+            if (shift > MAX_SHIFT) {
+                return new CollisionNode<>(hash1, new Object[]{key1, key2}, new Object[]{value1, value2});
+            }
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                return new BitmapNode<>(0, bit1, new Object[]{merge(key1, value1, hash1, key2, value2, hash2, shift + BITS)});
+            }
+            Object[] content = Integer.compareUnsigned(bit1, bit2) < 0
+                ? new Object[]{key1, value1, key2, value2}
+                : new Object[]{key2, value2, key1, value1};
+            return new BitmapNode<>(bit1 | bit2, 0, content);
+        }
+    }
+
+    /**
+     * Keys whose hashes are equal in every bit, compared linearly.
+     */
+    private static final class CollisionNode<K, V> extends Node<K, V> {
+
+        final int hash;
+        final Object[] keys;
+        final Object[] values;
+
+        CollisionNode(int hash, Object[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : values[index];
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (values[index] == value) {
+                    return this;
+                }
+                Object[] copy = values.clone();
+                copy[index] = value;
+                return new CollisionNode<>(this.hash, keys, copy);
+            }
+            change.added = true;
+            Object[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+            Object[] newValues = Arrays.copyOf(values, values.length + 1);
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            return new CollisionNode<>(this.hash, newKeys, newValues);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            Object[] newKeys = new Object[keys.length - 1];
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            return new CollisionNode<>(this.hash, newKeys, newValues);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int i = 0; i < keys.length; i++) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+
+        @Override
+        int dataCount() {
+            return keys.length;
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) keys[index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) values[index];
+        }
+
+        @Override
+        Node<K, V> nodeAt(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth-first over the trie, inline entries of a node before its children.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final Deque<Node<K, V>> pending = new ArrayDeque<>();
+        private Node<K, V> node;
+        private int index;
+
+        EntryIterator(Node<K, V> root) {
+            this.node = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = new SimpleImmutableEntry<>(node.keyAt(index), node.valueAt(index));
+            index++;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            while (node != null && index >= node.dataCount()) {
+                for (int i = node.nodeCount() - 1; i >= 0; i--) {
+                    pending.push(node.nodeAt(i));
+                }
+                node = pending.poll();
+                index = 0;
+            }
+        }
+    }
+}
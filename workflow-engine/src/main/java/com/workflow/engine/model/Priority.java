@@ -0,0 +1,27 @@
+package com.workflow.engine.model;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of an instance's steps. Set as {@code priority} in the
+ * definition YAML, or per start call.
+ */
+public enum Priority {
+    HIGH,
+    NORMAL,
+    LOW;
+
+    /**
+     * Parses a priority name, ignoring case. Null stays null.
+     */
+    public static Priority parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority '" + name + "', expected high, normal or low");
+        }
+    }
+}
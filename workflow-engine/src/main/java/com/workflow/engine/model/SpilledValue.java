@@ -0,0 +1,20 @@
+package com.workflow.engine.model;
+
+/**
+ * Stands in for a large variable value that has been moved off the heap.
+ * {@link ExecutionContext} hands out the materialized value, never the
+ * handle itself, except through its raw {@link PersistentMap} views.
+ */
+public interface SpilledValue {
+
+    /**
+     * Decodes the value. Repeated calls may return the same instance while
+     * it is still reachable.
+     */
+    Object materialize();
+
+    /**
+     * Encoded size in bytes.
+     */
+    int size();
+}
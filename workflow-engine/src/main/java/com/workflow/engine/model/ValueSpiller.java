@@ -0,0 +1,16 @@
+package com.workflow.engine.model;
+
+/**
+ * Decides whether a value set in an {@link ExecutionContext} is kept on the
+ * heap or replaced with a {@link SpilledValue}.
+ */
+@FunctionalInterface
+public interface ValueSpiller {
+
+    ValueSpiller NONE = value -> value;
+
+    /**
+     * Returns {@code value} itself, or a handle to a spilled copy of it.
+     */
+    Object spill(Object value);
+}
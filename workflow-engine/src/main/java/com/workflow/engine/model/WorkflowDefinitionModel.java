@@ -3,11 +3,19 @@ package com.workflow.engine.model;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * A parsed definition. {@code priority} and {@code weight} are the defaults
+ * for scheduling the steps of its instances. {@code maxConcurrency} bounds
+ * its running instances, with 0 meaning no bound.
+ */
 public record WorkflowDefinitionModel(
     String name,
     String version,
     List<StepDefinition> steps,
-    Map<String, Object> variables
+    Map<String, Object> variables,
+    Priority priority,
+    int weight,
+    int maxConcurrency
 ) {
     public StepDefinition findStep(String stepId) {
         return steps.stream()
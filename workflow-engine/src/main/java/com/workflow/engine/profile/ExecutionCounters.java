@@ -0,0 +1,55 @@
+package com.workflow.engine.profile;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time an instance spent in the engine on this node, summed over its
+ * executions.
+ */
+public final class ExecutionCounters {
+
+    private final LocalDateTime pickedUpAt = LocalDateTime.now();
+    private final LongAdder executionNanos = new LongAdder();
+    private final LongAdder timerNanos = new LongAdder();
+    private final LongAdder persistenceNanos = new LongAdder();
+    private final LongAdder persistenceCalls = new LongAdder();
+
+    /**
+     * When this node first started executing the instance.
+     */
+    public LocalDateTime pickedUpAt() {
+        return pickedUpAt;
+    }
+
+    /**
+     * Time inside step executors, other than {@code delay} steps.
+     */
+    public long executionNanos() {
+        return executionNanos.sum();
+    }
+
+    /**
+     * Time inside {@code delay} steps.
+     */
+    public long timerNanos() {
+        return timerNanos.sum();
+    }
+
+    public long persistenceNanos() {
+        return persistenceNanos.sum();
+    }
+
+    public long persistenceCalls() {
+        return persistenceCalls.sum();
+    }
+
+    void addExecution(String stepType, long nanos) {
+        ("delay".equals(stepType) ? timerNanos : executionNanos).add(nanos);
+    }
+
+    void addPersistence(long nanos) {
+        persistenceNanos.add(nanos);
+        persistenceCalls.increment();
+    }
+}
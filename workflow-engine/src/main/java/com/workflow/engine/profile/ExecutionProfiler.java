@@ -0,0 +1,73 @@
+package com.workflow.engine.profile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Accumulates {@link ExecutionCounters} for the instances executed on this
+ * node. The counters of an execution travel in the Reactor context, so the
+ * executor's persistence and step calls add to them without looking anything
+ * up. Counters are kept for a bounded number of recent instances.
+ */
+@Component
+public class ExecutionProfiler {
+
+    private final Map<UUID, ExecutionCounters> counters;
+
+    public ExecutionProfiler(@Value("${workflow.profile.max-instances:10000}") int maxInstances) {
+        this.counters = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ExecutionCounters> eldest) {
+                return size() > maxInstances;
+            }
+        };
+    }
+
+    /**
+     * Profiles an execution of the instance. A resumed instance keeps adding
+     * to the counters of its earlier executions.
+     */
+    public <T> Mono<T> profile(UUID instanceId, Mono<T> execution) {
+        return Mono.defer(() -> {
+            ExecutionCounters instanceCounters;
+            synchronized (counters) {
+                instanceCounters = counters.computeIfAbsent(instanceId, id -> new ExecutionCounters());
+            }
+            return execution.contextWrite(context -> context.put(ExecutionCounters.class, instanceCounters));
+        });
+    }
+
+    public <T> Mono<T> timeExecution(String stepType, Mono<T> operation) {
+        return time(operation, (instanceCounters, nanos) -> instanceCounters.addExecution(stepType, nanos));
+    }
+
+    public <T> Mono<T> timePersistence(Mono<T> operation) {
+        return time(operation, ExecutionCounters::addPersistence);
+    }
+
+    public Optional<ExecutionCounters> counters(UUID instanceId) {
+        synchronized (counters) {
+            return Optional.ofNullable(counters.get(instanceId));
+        }
+    }
+
+    private static <T> Mono<T> time(Mono<T> operation, ObjLongConsumer<ExecutionCounters> record) {
+        return Mono.deferContextual(context -> {
+            ExecutionCounters instanceCounters = context.getOrDefault(ExecutionCounters.class, null);
+            if (instanceCounters == null) {
+                return operation;
+            }
+            long start = System.nanoTime();
+            // Recorded before the result is passed on, so a profile read on completion includes it
+            Runnable stop = () -> record.accept(instanceCounters, System.nanoTime() - start);
+            return operation.doOnTerminate(stop).doOnCancel(stop);
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package com.workflow.engine.profile;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Where the wall time of one instance went.
+ *
+ * <p>With {@code source = engine}, the breakdown comes from the counters of
+ * the node that executed the instance. With {@code source = timestamps}, the
+ * counters are not available, for example after a restart. In that case the
+ * breakdown is derived from the step timestamps alone: persistence is unknown,
+ * and each step's duration includes writing its RUNNING row.
+ */
+public record InstanceProfile(
+    UUID instanceId,
+    String status,
+    boolean running,
+    double wallMillis,
+    String source,
+    Breakdown breakdown,
+    Retries retries,
+    List<StepTiming> steps,
+    List<StepTiming> criticalPath
+) {
+
+    /**
+     * {@code other} is wall time not covered by the categories: scheduling,
+     * listeners, checkpoints and, without engine counters, persistence.
+     */
+    public record Breakdown(
+        double queueWaitMillis,
+        double stepExecutionMillis,
+        double timerWaitMillis,
+        Double persistenceMillis,
+        double otherMillis
+    ) {
+    }
+
+    /**
+     * Step attempts that failed or were abandoned and later run again. Their
+     * time is already part of the breakdown.
+     */
+    public record Retries(int attempts, double millis) {
+    }
+
+    /**
+     * One step attempt. {@code waitBeforeMillis} is the gap since the previous
+     * step on the critical path finished, and is null in the full step list.
+     */
+    public record StepTiming(
+        String stepId,
+        String type,
+        String status,
+        double startOffsetMillis,
+        double durationMillis,
+        Double waitBeforeMillis
+    ) {
+    }
+
+    private record Attempt(WorkflowStep step, LocalDateTime start, LocalDateTime end) {
+    }
+
+    public static InstanceProfile of(WorkflowInstance instance, List<WorkflowStep> steps,
+                                     ExecutionCounters counters, LocalDateTime now) {
+        LocalDateTime created = instance.startedAt();
+        LocalDateTime finished = instance.isTerminal() && instance.completedAt() != null ? instance.completedAt() : now;
+
+        List<Attempt> attempts = new ArrayList<>();
+        for (WorkflowStep step : steps) {
+            if (step.startedAt() != null) {
+                attempts.add(new Attempt(step, step.startedAt(), step.completedAt() != null ? step.completedAt() : now));
+            }
+        }
+        attempts.sort(Comparator.comparing(Attempt::start));
+
+        List<StepTiming> timings = attempts.stream()
+            .map(attempt -> timing(attempt, created, null))
+            .toList();
+        Breakdown breakdown = counters != null
+            ? fromCounters(created, finished, counters)
+            : fromTimestamps(created, finished, attempts);
+
+        return new InstanceProfile(
+            instance.id(),
+            instance.status(),
+            !instance.isTerminal(),
+            millis(created, finished),
+            counters != null ? "engine" : "timestamps",
+            breakdown,
+            retries(attempts),
+            timings,
+            criticalPath(attempts, created)
+        );
+    }
+
+    private static Breakdown fromCounters(LocalDateTime created, LocalDateTime finished, ExecutionCounters counters) {
+        double queueWait = Math.max(0, millis(created, counters.pickedUpAt()));
+        double execution = counters.executionNanos() / 1e6;
+        double timers = counters.timerNanos() / 1e6;
+        double persistence = counters.persistenceNanos() / 1e6;
+        double other = millis(created, finished) - queueWait - execution - timers - persistence;
+        return new Breakdown(queueWait, execution, timers, persistence, Math.max(0, other));
+    }
+
+    private static Breakdown fromTimestamps(LocalDateTime created, LocalDateTime finished, List<Attempt> attempts) {
+        double queueWait = attempts.isEmpty() ? millis(created, finished) : Math.max(0, millis(created, attempts.get(0).start()));
+        double execution = 0;
+        double timers = 0;
+        for (Attempt attempt : attempts) {
+            double duration = millis(attempt.start(), attempt.end());
+            if ("delay".equals(attempt.step().stepType())) {
+                timers += duration;
+            } else {
+                execution += duration;
+            }
+        }
+        double other = millis(created, finished) - queueWait - execution - timers;
+        return new Breakdown(queueWait, execution, timers, null, Math.max(0, other));
+    }
+
+    /**
+     * A failed or unfinished attempt followed by another attempt of the same
+     * step is a retry. Completed repeats are loop iterations, not retries.
+     */
+    private static Retries retries(List<Attempt> attempts) {
+        Map<String, Integer> lastAttempt = new HashMap<>();
+        for (int i = 0; i < attempts.size(); i++) {
+            lastAttempt.put(attempts.get(i).step().stepId(), i);
+        }
+
+        int count = 0;
+        double millis = 0;
+        for (int i = 0; i < attempts.size(); i++) {
+            Attempt attempt = attempts.get(i);
+            count += attempt.step().retryCount();
+            boolean retried = lastAttempt.get(attempt.step().stepId()) > i;
+            if (retried && !"COMPLETED".equals(attempt.step().status())) {
+                count++;
+                millis += millis(attempt.start(), attempt.end());
+            }
+        }
+        return new Retries(count, millis);
+    }
+
+    /**
+     * The chain of attempts that determined the instance's duration. Working
+     * back from the attempt that finished last, each step is preceded by the
+     * latest attempt that finished before it started. For a sequential
+     * workflow, this is every attempt in order. With parallel branches, it is
+     * the slowest branch.
+     */
+    private static List<StepTiming> criticalPath(List<Attempt> attempts, LocalDateTime created) {
+        if (attempts.isEmpty()) {
+            return List.of();
+        }
+        List<Attempt> byEnd = new ArrayList<>(attempts);
+        byEnd.sort(Comparator.comparing(Attempt::end));
+
+        List<StepTiming> path = new ArrayList<>();
+        int current = byEnd.size() - 1;
+        while (current >= 0) {
+            Attempt attempt = byEnd.get(current);
+            int previous = current - 1;
+            while (previous >= 0 && byEnd.get(previous).end().isAfter(attempt.start())) {
+                previous--;
+            }
+            LocalDateTime readyAt = previous >= 0 ? byEnd.get(previous).end() : created;
+            path.add(timing(attempt, created, Math.max(0, millis(readyAt, attempt.start()))));
+            current = previous;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static StepTiming timing(Attempt attempt, LocalDateTime created, Double waitBefore) {
+        WorkflowStep step = attempt.step();
+        return new StepTiming(step.stepId(), step.stepType(), step.status(),
+            millis(created, attempt.start()), millis(attempt.start(), attempt.end()), waitBefore);
+    }
+
+    private static double millis(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toNanos() / 1e6;
+    }
+}
@@ -0,0 +1,87 @@
+package com.workflow.engine.queue;
+
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.scheduling.ConcurrencySlots;
+import com.workflow.storage.repository.ConcurrencySlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrency slots in {@code workflow_concurrency_slots}, so that a
+ * definition's {@code maxConcurrency} holds across all nodes of the queue.
+ * Slots are leased like work items: this node renews the slots of the
+ * instances it runs on every heartbeat, and the slots of a node that stops
+ * heartbeating can be taken once their lease expires.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.execution.mode", havingValue = "queue")
+public class ClusterConcurrencySlots implements ConcurrencySlots {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterConcurrencySlots.class);
+
+    private final ConcurrencySlotRepository slotRepository;
+    private final EngineMetrics metrics;
+    private final String nodeId;
+    private final Duration leaseDuration;
+    // Only these are renewed, so a slot acquired for a cancelled admission expires on its own
+    private final Set<UUID> held = ConcurrentHashMap.newKeySet();
+
+    public ClusterConcurrencySlots(ConcurrencySlotRepository slotRepository,
+                                   EngineMetrics metrics,
+                                   @Value("${workflow.queue.node-id:#{T(java.util.UUID).randomUUID().toString()}}") String nodeId,
+                                   @Value("${workflow.queue.lease-duration:PT30S}") Duration leaseDuration) {
+        this.slotRepository = slotRepository;
+        this.metrics = metrics;
+        this.nodeId = nodeId;
+        this.leaseDuration = leaseDuration;
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String definitionName, int maxConcurrency, UUID instanceId) {
+        return metrics.timePersistence(PersistenceCall.ACQUIRE_SLOT,
+                slotRepository.acquire(definitionName, maxConcurrency, instanceId, nodeId, leaseDuration.toSeconds()))
+            .map(slot -> {
+                held.add(instanceId);
+                return true;
+            })
+            .defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Void> release(String definitionName, UUID instanceId) {
+        held.remove(instanceId);
+        return metrics.timePersistence(PersistenceCall.RELEASE_SLOT,
+                slotRepository.release(definitionName, instanceId, nodeId))
+            .then();
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.queue.heartbeat-interval:PT10S}")
+    public void heartbeat() {
+        List<UUID> instanceIds = List.copyOf(held);
+        if (instanceIds.isEmpty()) {
+            return;
+        }
+        metrics.timePersistence(PersistenceCall.RENEW_SLOTS,
+                slotRepository.renew(nodeId, instanceIds, leaseDuration.toSeconds()).count())
+            .subscribe(
+                renewed -> {
+                    if (renewed < instanceIds.size()) {
+                        logger.warn("Renewed {} of {} concurrency slots; the others expired", renewed, instanceIds.size());
+                    }
+                },
+                error -> logger.warn("Failed to renew concurrency slots", error)
+            );
+    }
+}
@@ -0,0 +1,83 @@
+package com.workflow.engine.queue;
+
+import com.workflow.engine.executor.LeaseLostException;
+import com.workflow.engine.executor.WorkflowCheckpointer;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.storage.entity.WorkItem;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.WorkItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Work items currently leased by this node, keyed by workflow instance id.
+ * Advances the item's step after every completed step so that a node taking
+ * over an expired lease resumes where the previous owner stopped. Runs after
+ * the other checkpointers, so the item only moves on once the step's
+ * context is durable.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.execution.mode", havingValue = "queue")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WorkItemLeases implements WorkflowCheckpointer {
+
+    public record Lease(WorkItem item, Disposable.Swap execution) {
+    }
+
+    private final WorkItemRepository workItemRepository;
+    private final EngineMetrics metrics;
+    private final String nodeId;
+    private final Map<UUID, Lease> leases = new ConcurrentHashMap<>();
+
+    public WorkItemLeases(WorkItemRepository workItemRepository,
+                          EngineMetrics metrics,
+                          @Value("${workflow.queue.node-id:#{T(java.util.UUID).randomUUID().toString()}}") String nodeId) {
+        this.workItemRepository = workItemRepository;
+        this.metrics = metrics;
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    public Collection<Lease> getLeases() {
+        return leases.values();
+    }
+
+    public void register(WorkItem item, Disposable.Swap execution) {
+        leases.put(item.workflowInstanceId(), new Lease(item, execution));
+    }
+
+    public Lease remove(UUID workflowInstanceId) {
+        return leases.remove(workflowInstanceId);
+    }
+
+    @Override
+    public Mono<Void> checkpoint(WorkflowInstance instance, String nextStepId, ExecutionContext context) {
+        Lease lease = leases.get(instance.id());
+        if (lease == null) {
+            return Mono.empty();
+        }
+        return metrics.timePersistence(PersistenceCall.ADVANCE, workItemRepository.advance(lease.item().id(), nodeId, nextStepId))
+            .flatMap(updated -> updated == 0
+                ? Mono.error(new LeaseLostException(instance.id()))
+                : Mono.empty());
+    }
+}
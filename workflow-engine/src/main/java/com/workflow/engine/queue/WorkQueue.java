@@ -0,0 +1,89 @@
+package com.workflow.engine.queue;
+
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.scheduling.Scheduling;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.WorkItemRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Producer side of the shared work queue. Starting a workflow in queue mode
+ * only persists a PENDING instance and a work item for its first step; any
+ * node running a {@link WorkQueueWorker} may then pick it up.
+ */
+@Component
+public class WorkQueue {
+
+    private final WorkflowExecutor workflowExecutor;
+    private final WorkItemRepository workItemRepository;
+    private final EngineMetrics metrics;
+
+    public WorkQueue(WorkflowExecutor workflowExecutor, WorkItemRepository workItemRepository, EngineMetrics metrics) {
+        this.workflowExecutor = workflowExecutor;
+        this.workItemRepository = workItemRepository;
+        this.metrics = metrics;
+    }
+
+    public Mono<WorkflowInstance> enqueue(CompiledWorkflowDefinition definition, String input) {
+        return enqueue(definition, UUID.randomUUID(), input);
+    }
+
+    public Mono<WorkflowInstance> enqueue(CompiledWorkflowDefinition definition, UUID instanceId, String input) {
+        return enqueue(definition, instanceId, input, Scheduling.DEFAULT);
+    }
+
+    /**
+     * Enqueues a new instance. The scheduling overrides are kept with its
+     * work item, so they apply on whichever node runs it.
+     */
+    public Mono<WorkflowInstance> enqueue(CompiledWorkflowDefinition definition, UUID instanceId, String input,
+                                          Scheduling scheduling) {
+        return workflowExecutor.createInstance(definition, instanceId, input)
+            .flatMap(instance -> metrics.timePersistence(PersistenceCall.ENQUEUE,
+                    workItemRepository.enqueue(UUID.randomUUID(), instance.id(), null,
+                        priority(scheduling), scheduling.tenant(), limitedName(definition), maxConcurrency(definition)))
+                .thenReturn(instance));
+    }
+
+    public Flux<WorkflowInstance> enqueueAll(CompiledWorkflowDefinition definition, List<String> inputs) {
+        return enqueueAll(definition, inputs, Scheduling.DEFAULT);
+    }
+
+    public Flux<WorkflowInstance> enqueueAll(CompiledWorkflowDefinition definition, List<String> inputs,
+                                             Scheduling scheduling) {
+        return workflowExecutor.createInstances(definition, inputs)
+            .collectList()
+            .flatMapMany(instances -> {
+                UUID[] itemIds = new UUID[instances.size()];
+                UUID[] instanceIds = new UUID[instances.size()];
+                for (int i = 0; i < instances.size(); i++) {
+                    itemIds[i] = UUID.randomUUID();
+                    instanceIds[i] = instances.get(i).id();
+                }
+                return metrics.timePersistence(PersistenceCall.ENQUEUE, workItemRepository.enqueueAll(itemIds, instanceIds,
+                        priority(scheduling), scheduling.tenant(), limitedName(definition), maxConcurrency(definition)))
+                    .thenMany(Flux.fromIterable(instances));
+            });
+    }
+
+    private static String priority(Scheduling scheduling) {
+        return scheduling.priority() != null ? scheduling.priority().name() : null;
+    }
+
+    // Only limited definitions are recorded on their items, so unlimited ones skip the claim's slot count
+    private static String limitedName(CompiledWorkflowDefinition definition) {
+        return definition.model().maxConcurrency() > 0 ? definition.name() : null;
+    }
+
+    private static Integer maxConcurrency(CompiledWorkflowDefinition definition) {
+        return definition.model().maxConcurrency() > 0 ? definition.model().maxConcurrency() : null;
+    }
+}
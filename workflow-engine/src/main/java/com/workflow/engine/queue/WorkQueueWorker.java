@@ -0,0 +1,189 @@
+package com.workflow.engine.queue;
+
+import com.workflow.engine.executor.LeaseLostException;
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.metrics.EngineMetrics.PersistenceCall;
+import com.workflow.engine.registry.WorkflowDefinitionCache;
+import com.workflow.engine.scheduling.ConcurrencyLimitReachedException;
+import com.workflow.engine.scheduling.Scheduling;
+import com.workflow.storage.entity.WorkItem;
+import com.workflow.storage.repository.WorkItemRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Consumer side of the shared work queue. Claims runnable items in batches
+ * with {@code FOR UPDATE SKIP LOCKED}, so any number of nodes can poll the same
+ * table without handing out an item twice, and keeps the leases of running
+ * items alive with periodic heartbeats. Items whose owner stops heartbeating
+ * become claimable again once their lease expires. An item whose definition
+ * is at its {@code maxConcurrency} is handed back for {@code retry-interval}.
+ * An item claimed more than
+ * {@code max-attempts} times fails its instance and is dropped from the queue.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.execution.mode", havingValue = "queue")
+public class WorkQueueWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueueWorker.class);
+
+    private final WorkItemRepository workItemRepository;
+    private final WorkflowStateStore stateStore;
+    private final WorkflowDefinitionCache definitionCache;
+    private final WorkflowExecutor workflowExecutor;
+    private final WorkItemLeases leases;
+    private final EngineMetrics metrics;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final Duration leaseDuration;
+    private final Duration retryInterval;
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    public WorkQueueWorker(WorkItemRepository workItemRepository,
+                           WorkflowStateStore stateStore,
+                           WorkflowDefinitionCache definitionCache,
+                           WorkflowExecutor workflowExecutor,
+                           WorkItemLeases leases,
+                           EngineMetrics metrics,
+                           @Value("${workflow.queue.batch-size:10}") int batchSize,
+                           @Value("${workflow.queue.max-in-flight:100}") int maxInFlight,
+                           @Value("${workflow.queue.max-attempts:5}") int maxAttempts,
+                           @Value("${workflow.queue.lease-duration:PT30S}") Duration leaseDuration,
+                           @Value("${workflow.concurrency.retry-interval:PT1S}") Duration retryInterval) {
+        this.workItemRepository = workItemRepository;
+        this.stateStore = stateStore;
+        this.definitionCache = definitionCache;
+        this.workflowExecutor = workflowExecutor;
+        this.leases = leases;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.leaseDuration = leaseDuration;
+        this.retryInterval = retryInterval;
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.queue.poll-interval:PT1S}")
+    public void poll() {
+        int capacity = maxInFlight - leases.size();
+        if (capacity <= 0 || !polling.compareAndSet(false, true)) {
+            return;
+        }
+
+        metrics.timePersistence(PersistenceCall.CLAIM_BATCH,
+                workItemRepository.claimBatch(leases.getNodeId(), leaseDuration.toSeconds(), Math.min(batchSize, capacity)))
+            .doOnNext(this::start)
+            .doFinally(signal -> polling.set(false))
+            .subscribe(
+                item -> logger.debug("Claimed work item {} for instance {}", item.id(), item.workflowInstanceId()),
+                error -> logger.warn("Failed to claim work items", error)
+            );
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.queue.heartbeat-interval:PT10S}")
+    public void heartbeat() {
+        List<WorkItemLeases.Lease> held = List.copyOf(leases.getLeases());
+        if (held.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> itemIds = held.stream().map(lease -> lease.item().id()).collect(Collectors.toSet());
+        metrics.timePersistence(PersistenceCall.RENEW_LEASES,
+                workItemRepository.renewLeases(leases.getNodeId(), itemIds, leaseDuration.toSeconds()))
+            .collect(Collectors.toSet())
+            .subscribe(
+                renewed -> held.stream()
+                    .filter(lease -> !renewed.contains(lease.item().id()))
+                    .forEach(this::abandon),
+                error -> logger.warn("Failed to renew work item leases", error)
+            );
+    }
+
+    private void start(WorkItem item) {
+        if (item.attempts() > maxAttempts) {
+            giveUp(item);
+            return;
+        }
+        Disposable.Swap execution = Disposables.swap();
+        leases.register(item, execution);
+
+        execution.update(metrics.timePersistence(PersistenceCall.FIND_INSTANCE, stateStore.findInstance(item.workflowInstanceId()))
+            .flatMap(instance -> instance.isTerminal()
+                ? Mono.just(instance)
+                : definitionCache.getById(instance.workflowDefinitionId())
+                    .flatMap(definition -> Scheduling.of(item.priority(), item.tenant())
+                        .scope(workflowExecutor.resumeWorkflow(definition, instance, item.stepId()))))
+            .then(metrics.timePersistence(PersistenceCall.COMPLETE, workItemRepository.complete(item.id(), leases.getNodeId())))
+            .onErrorResume(ConcurrencyLimitReachedException.class, limited -> requeue(item))
+            .doFinally(signal -> leases.remove(item.workflowInstanceId()))
+            .subscribe(
+                completed -> logger.debug("Work item {} completed", item.id()),
+                error -> {
+                    if (error instanceof LeaseLostException) {
+                        logger.info("Lease lost for work item {}, instance {} continues on its new owner",
+                            item.id(), item.workflowInstanceId());
+                    } else {
+                        // The lease is left to expire so that another node can retry the item
+                        logger.warn("Work item {} for instance {} failed", item.id(), item.workflowInstanceId(), error);
+                    }
+                }
+            ));
+    }
+
+    /**
+     * Hands back an item whose definition is at its maxConcurrency, so that it
+     * does not hold one of this node's in-flight places while it waits.
+     */
+    private Mono<Integer> requeue(WorkItem item) {
+        return metrics.timePersistence(PersistenceCall.RELEASE,
+                workItemRepository.release(item.id(), leases.getNodeId(), retryInterval.toMillis() / 1000.0))
+            .doOnNext(released -> logger.debug("Work item {} returned to the queue, its definition is at maxConcurrency",
+                item.id()))
+            .then(Mono.empty());
+    }
+
+    /**
+     * Drops an item that failed on every attempt, failing its instance if it
+     * can still be loaded, so that it is not claimed again.
+     */
+    private void giveUp(WorkItem item) {
+        String error = "Gave up after " + maxAttempts + " attempts";
+        metrics.timePersistence(PersistenceCall.FIND_INSTANCE, stateStore.findInstance(item.workflowInstanceId()))
+            .filter(instance -> !instance.isTerminal())
+            .flatMap(instance -> workflowExecutor.failInstance(instance, error))
+            .onErrorResume(failure -> {
+                logger.warn("Failed to fail instance {} of exhausted work item {}", item.workflowInstanceId(), item.id(), failure);
+                return Mono.empty();
+            })
+            .then(metrics.timePersistence(PersistenceCall.COMPLETE, workItemRepository.complete(item.id(), leases.getNodeId())))
+            .subscribe(
+                removed -> logger.warn("Work item {} for instance {} failed {} times, dropped from the queue",
+                    item.id(), item.workflowInstanceId(), maxAttempts),
+                failure -> logger.warn("Failed to drop exhausted work item {}", item.id(), failure)
+            );
+    }
+
+    private void abandon(WorkItemLeases.Lease lease) {
+        logger.warn("Lease lost for work item {}, stopping execution of instance {}",
+            lease.item().id(), lease.item().workflowInstanceId());
+        leases.remove(lease.item().workflowInstanceId());
+        lease.execution().dispose();
+    }
+}
@@ -1,7 +1,13 @@
 package com.workflow.engine.registry;
 
+import com.workflow.engine.executor.ResultProjection;
 import com.workflow.engine.executor.StepExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
@@ -12,10 +18,25 @@ import java.util.stream.Collectors;
 public class StepExecutorRegistry {
 
     private final Map<String, StepExecutor> executors;
+    private final Map<String, EngineMetrics.Outcomes> stepTimers;
+    private final ResultProjection resultProjection = new ResultProjection();
 
-    public StepExecutorRegistry(List<StepExecutor> stepExecutors) {
+    public StepExecutorRegistry(List<StepExecutor> stepExecutors, EngineMetrics metrics) {
         this.executors = stepExecutors.stream()
             .collect(Collectors.toMap(StepExecutor::getStepType, Function.identity()));
+        this.stepTimers = executors.keySet().stream()
+            .collect(Collectors.toMap(Function.identity(), metrics::stepTimers));
+    }
+
+    /**
+     * Executes the step with the executor for its type, timing it by type
+     * and outcome, and reduces the result with the step's
+     * {@link ResultProjection} options.
+     */
+    public Mono<Object> execute(StepDefinition step, ExecutionContext context) {
+        StepExecutor executor = getExecutor(step.type());
+        return stepTimers.get(step.type()).time(Mono.defer(() -> executor.execute(step, context)))
+            .map(result -> resultProjection.apply(step, result));
     }
 
     public StepExecutor getExecutor(String stepType) {
@@ -30,6 +51,25 @@ public class StepExecutorRegistry {
         return executors.containsKey(stepType);
     }
 
+    /**
+     * Lets the executor of every step in {@code model} prepare it.
+     */
+    public void prepare(WorkflowDefinitionModel model) {
+        for (StepDefinition step : model.steps()) {
+            if (executors.containsKey(step.type())) {
+                prepare(step);
+            }
+        }
+    }
+
+    /**
+     * Lets the step's executor prepare it and parses its result projection.
+     */
+    public void prepare(StepDefinition step) {
+        getExecutor(step.type()).prepare(step);
+        resultProjection.prepare(step);
+    }
+
     public List<String> getSupportedStepTypes() {
         return List.copyOf(executors.keySet());
     }
@@ -0,0 +1,194 @@
+package com.workflow.engine.registry;
+
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.notify.PostgresNotifications;
+import com.workflow.storage.repository.WorkflowDefinitionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of compiled workflow definitions. Active definitions are
+ * looked up by name; definitions referenced by existing instances are looked
+ * up by id, and since a definition row is never rewritten under the same id,
+ * those entries never go stale. Changes to which definition is active for a
+ * name are broadcast with {@code NOTIFY}; every node then reloads the active
+ * definition in the background and swaps it in, so starts keep being served
+ * from memory. Whenever the LISTEN connection is (re)established every active
+ * entry is dropped, since changes broadcast while it was down were missed.
+ */
+@Component
+public class WorkflowDefinitionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowDefinitionCache.class);
+    static final String INVALIDATION_CHANNEL = "workflow_definition_changes";
+
+    private final WorkflowDefinitionRepository definitionRepository;
+    private final WorkflowYamlParser yamlParser;
+    private final StepExecutorRegistry executorRegistry;
+    private final PostgresNotifications notifications;
+    private final Map<String, CompiledWorkflowDefinition> activeByName = new ConcurrentHashMap<>();
+    private final Map<UUID, CompiledWorkflowDefinition> byId = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so that a load racing with one does not re-insert the old row
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Disposable invalidations;
+
+    public WorkflowDefinitionCache(WorkflowDefinitionRepository definitionRepository,
+                                   WorkflowYamlParser yamlParser,
+                                   StepExecutorRegistry executorRegistry,
+                                   PostgresNotifications notifications) {
+        this.definitionRepository = definitionRepository;
+        this.yamlParser = yamlParser;
+        this.executorRegistry = executorRegistry;
+        this.notifications = notifications;
+    }
+
+    public Mono<CompiledWorkflowDefinition> getActive(String name) {
+        CompiledWorkflowDefinition cached = activeByName.get(name);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        long loadedAt = generation.get();
+        return definitionRepository.findByNameAndActive(name, true)
+            .map(definition -> {
+                CompiledWorkflowDefinition compiled = compile(definition);
+                if (generation.get() == loadedAt) {
+                    activeByName.put(name, compiled);
+                }
+                return compiled;
+            });
+    }
+
+    public Mono<CompiledWorkflowDefinition> getById(UUID id) {
+        CompiledWorkflowDefinition cached = byId.get(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return definitionRepository.findById(id).map(this::compile);
+    }
+
+    /**
+     * Loads and compiles every active definition in parallel, so that the
+     * first start of each workflow is served from memory.
+     */
+    public Mono<Long> preload() {
+        long loadedAt = generation.get();
+        return definitionRepository.findByActive(true)
+            .flatMap(definition -> Mono.fromCallable(() -> compile(definition)).subscribeOn(Schedulers.parallel()))
+            .doOnNext(compiled -> {
+                if (generation.get() == loadedAt) {
+                    activeByName.putIfAbsent(compiled.name(), compiled);
+                }
+            })
+            .count();
+    }
+
+    /**
+     * Drops the cached active definition for {@code name} on this node and
+     * every other node. Must be called after any write that changes which
+     * definition is active for that name.
+     */
+    public Mono<Void> publishChange(String name) {
+        invalidate(name);
+        return broadcast(name);
+    }
+
+    /**
+     * Swaps in a definition that was just stored and made active, reusing its
+     * already parsed model, and tells other nodes to refresh theirs.
+     */
+    public Mono<Void> activate(WorkflowDefinition definition, WorkflowDefinitionModel model) {
+        CompiledWorkflowDefinition compiled = byId.computeIfAbsent(definition.id(), id -> new CompiledWorkflowDefinition(
+            definition.id(), definition.name(), definition.version(), model));
+        generation.incrementAndGet();
+        activeByName.put(definition.name(), compiled);
+        return broadcast(definition.name());
+    }
+
+    private Mono<Void> broadcast(String name) {
+        return notifications.notify(INVALIDATION_CHANNEL, name)
+            .onErrorResume(error -> {
+                logger.warn("Failed to broadcast invalidation of workflow definition '{}'", name, error);
+                return Mono.empty();
+            });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void listenForChanges() {
+        invalidations = notifications.listen(INVALIDATION_CHANNEL, this::invalidateAll)
+            .subscribe(
+                this::refresh,
+                error -> logger.error("Stopped listening for workflow definition changes", error)
+            );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (invalidations != null) {
+            invalidations.dispose();
+        }
+    }
+
+    void invalidate(String name) {
+        generation.incrementAndGet();
+        activeByName.remove(name);
+        logger.debug("Invalidated cached workflow definition '{}'", name);
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        activeByName.clear();
+        logger.debug("Invalidated all cached workflow definitions");
+    }
+
+    void refresh(String name) {
+        // The old entry keeps serving starts until the reload lands
+        long refreshedAt = generation.incrementAndGet();
+        definitionRepository.findByNameAndActive(name, true)
+            .map(definition -> Optional.of(compile(definition)))
+            .defaultIfEmpty(Optional.empty())
+            .subscribe(
+                compiled -> {
+                    if (compiled.isPresent() && generation.get() == refreshedAt) {
+                        activeByName.put(name, compiled.get());
+                    } else {
+                        // Deactivated, or raced with another change; fall back to reading through
+                        activeByName.remove(name);
+                    }
+                },
+                error -> {
+                    activeByName.remove(name);
+                    logger.warn("Failed to reload workflow definition '{}'", name, error);
+                }
+            );
+    }
+
+    private CompiledWorkflowDefinition compile(WorkflowDefinition definition) {
+        return byId.computeIfAbsent(definition.id(), id -> {
+            WorkflowDefinitionModel model = yamlParser.parseWorkflow(definition.yamlContent());
+            try {
+                executorRegistry.prepare(model);
+            } catch (RuntimeException e) {
+                // Stored before validation existed; the broken step fails when it runs
+                logger.warn("Workflow definition '{}' version {} has a step that cannot run: {}",
+                    definition.name(), definition.version(), e.getMessage());
+            }
+            return new CompiledWorkflowDefinition(definition.id(), definition.name(), definition.version(), model);
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package com.workflow.engine.registry;
+
+import com.workflow.engine.interpreter.WorkflowDefinitionValidator;
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.repository.WorkflowDefinitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Stores workflow definitions as new versions and makes them active. The YAML
+ * is parsed and validated before anything is written, and a rejected
+ * definition leaves the active version in place. Existing rows are never
+ * rewritten, so instances keep running against the version they started with.
+ */
+@Component
+public class WorkflowDefinitionDeployer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowDefinitionDeployer.class);
+
+    private final WorkflowDefinitionRepository definitionRepository;
+    private final WorkflowYamlParser yamlParser;
+    private final WorkflowDefinitionValidator validator;
+    private final WorkflowDefinitionCache definitionCache;
+
+    public WorkflowDefinitionDeployer(WorkflowDefinitionRepository definitionRepository,
+                                      WorkflowYamlParser yamlParser,
+                                      WorkflowDefinitionValidator validator,
+                                      WorkflowDefinitionCache definitionCache) {
+        this.definitionRepository = definitionRepository;
+        this.yamlParser = yamlParser;
+        this.validator = validator;
+        this.definitionCache = definitionCache;
+    }
+
+    /**
+     * Deploys under the version declared in the YAML.
+     */
+    public Mono<WorkflowDefinition> deploy(String name, String yamlContent) {
+        return deploy(name, yamlContent, null);
+    }
+
+    /**
+     * Makes {@code yamlContent} the active definition for {@code name}. Content
+     * identical to the active version is a no-op. If {@code version} is
+     * already taken by different content, a fingerprint of the content is
+     * appended to it as build metadata.
+     */
+    public Mono<WorkflowDefinition> deploy(String name, String yamlContent, String version) {
+        return Mono.fromCallable(() -> {
+                WorkflowDefinitionModel model = yamlParser.parseWorkflow(yamlContent);
+                validator.validate(model);
+                return model;
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(model -> definitionRepository.findByNameAndActive(name, true)
+                .filter(active -> active.yamlContent().equals(yamlContent))
+                .switchIfEmpty(Mono.defer(() -> store(name, yamlContent, version != null ? version : model.version())
+                    .flatMap(stored -> definitionCache.activate(stored, model).thenReturn(stored))
+                    .doOnNext(stored -> logger.info("Activated workflow definition '{}' version {}", name, stored.version())))));
+    }
+
+    private Mono<WorkflowDefinition> store(String name, String yamlContent, String declaredVersion) {
+        return definitionRepository.findByNameAndVersion(name, declaredVersion)
+            .filter(existing -> !existing.yamlContent().equals(yamlContent))
+            .map(conflict -> declaredVersion + "+" + fingerprint(yamlContent))
+            .defaultIfEmpty(declaredVersion)
+            .flatMap(version -> definitionRepository.findByNameAndVersion(name, version)
+                // Going back to content that was deployed before
+                .flatMap(existing -> definitionRepository.activate(existing.id(), name).thenReturn(existing))
+                .switchIfEmpty(Mono.defer(() -> insert(name, yamlContent, version))));
+    }
+
+    private Mono<WorkflowDefinition> insert(String name, String yamlContent, String version) {
+        WorkflowDefinition definition = WorkflowDefinition.create(name, yamlContent, version);
+        return definitionRepository.insertActive(definition.id(), name, yamlContent, version)
+            .thenReturn(definition)
+            // Another node deployed the same file first
+            .onErrorResume(DataIntegrityViolationException.class,
+                error -> definitionRepository.findByNameAndVersion(name, version));
+    }
+
+    private static String fingerprint(String yamlContent) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(yamlContent.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 6));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.workflow.engine.scheduling;
+
+/**
+ * Raised in queue mode when every cluster-wide slot of a definition is held.
+ * The instance has not started; its work item goes back to the queue.
+ */
+public class ConcurrencyLimitReachedException extends RuntimeException {
+
+    public ConcurrencyLimitReachedException(String definitionName) {
+        super("Definition '" + definitionName + "' is at its maxConcurrency");
+    }
+}
@@ -0,0 +1,222 @@
+package com.workflow.engine.scheduling;
+
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces a definition's {@code maxConcurrency}. An instance over the limit
+ * is not started: it stays PENDING in a FIFO per definition and runs when a
+ * running instance of the definition finishes. Resumed instances wait the
+ * same way.
+ *
+ * <p>When {@link ConcurrencySlots} are available (queue mode), the limit
+ * holds across the cluster and instances do not wait here: an instance
+ * that finds every slot held fails with
+ * {@link ConcurrencyLimitReachedException}, so that its work item goes back
+ * to the queue instead of holding one of the node's in-flight places.
+ *
+ * <p>A definition redeployed with a different limit applies it to the next
+ * admission. Instances already running over a lowered limit are not stopped.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private static final class Limit {
+        final Deque<Waiter> waiting = new ArrayDeque<>();
+        int maxConcurrency;
+        int running;
+
+        Limit(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        boolean hasRoom() {
+            return maxConcurrency <= 0 || running < maxConcurrency;
+        }
+    }
+
+    private record Waiter(Limit limit, MonoSink<Permit> sink, Permit permit) {
+    }
+
+    /**
+     * One running instance's place in its definition's limit. Released at
+     * most once.
+     */
+    private final class Permit {
+        private final Limit limit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Limit limit) {
+            this.limit = limit;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                ConcurrencyLimiter.this.release(limit);
+            }
+        }
+    }
+
+    private final Optional<ConcurrencySlots> clusterSlots;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+    private final Queue<Waiter> admitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger draining = new AtomicInteger();
+
+    public ConcurrencyLimiter(Optional<ConcurrencySlots> clusterSlots, MeterRegistry meterRegistry) {
+        this.clusterSlots = clusterSlots;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Subscribes to {@code execution} once the instance is admitted, and
+     * frees its place when the execution terminates or is cancelled.
+     */
+    public <T> Mono<T> admit(CompiledWorkflowDefinition definition, UUID instanceId, Mono<T> execution) {
+        int maxConcurrency = definition.model().maxConcurrency();
+        if (maxConcurrency <= 0 && !limits.containsKey(definition.name())) {
+            return execution;
+        }
+        Limit limit = limits.computeIfAbsent(definition.name(), name -> register(name, maxConcurrency));
+        if (clusterSlots.isPresent() && maxConcurrency > 0) {
+            return withClusterSlot(clusterSlots.get(), definition.name(), maxConcurrency, instanceId,
+                Mono.usingWhen(Mono.fromSupplier(() -> count(limit, maxConcurrency)), permit -> execution,
+                    permit -> Mono.fromRunnable(permit::release)));
+        }
+        return Mono.usingWhen(acquire(limit, maxConcurrency), permit -> execution, permit -> Mono.fromRunnable(permit::release));
+    }
+
+    public int waiting(String definitionName) {
+        Limit limit = limits.get(definitionName);
+        if (limit == null) {
+            return 0;
+        }
+        synchronized (limit) {
+            return limit.waiting.size();
+        }
+    }
+
+    public int running(String definitionName) {
+        Limit limit = limits.get(definitionName);
+        if (limit == null) {
+            return 0;
+        }
+        synchronized (limit) {
+            return limit.running;
+        }
+    }
+
+    private <T> Mono<T> withClusterSlot(ConcurrencySlots slots, String definitionName, int maxConcurrency,
+                                        UUID instanceId, Mono<T> execution) {
+        Mono<Boolean> slot = Mono.defer(() -> slots.tryAcquire(definitionName, maxConcurrency, instanceId))
+            .filter(acquired -> acquired)
+            .switchIfEmpty(Mono.error(() -> new ConcurrencyLimitReachedException(definitionName)));
+        return Mono.usingWhen(slot, acquired -> execution, acquired -> slots.release(definitionName, instanceId));
+    }
+
+    /**
+     * Counts an instance that holds a cluster slot as running, without
+     * waiting for local room.
+     */
+    private Permit count(Limit limit, int maxConcurrency) {
+        synchronized (limit) {
+            limit.maxConcurrency = maxConcurrency;
+            limit.running++;
+        }
+        return new Permit(limit);
+    }
+
+    private Mono<Permit> acquire(Limit limit, int maxConcurrency) {
+        return Mono.create(sink -> {
+            Permit permit = new Permit(limit);
+            Waiter waiter = new Waiter(limit, sink, permit);
+            boolean immediate;
+            synchronized (limit) {
+                limit.maxConcurrency = maxConcurrency;
+                immediate = limit.waiting.isEmpty() && limit.hasRoom();
+                if (immediate) {
+                    limit.running++;
+                } else {
+                    limit.waiting.addLast(waiter);
+                }
+            }
+            if (immediate) {
+                sink.success(permit);
+                return;
+            }
+            sink.onCancel(() -> {
+                boolean removed;
+                synchronized (limit) {
+                    removed = limit.waiting.remove(waiter);
+                }
+                if (!removed) {
+                    // Admitted concurrently with the cancellation; the instance will not run
+                    permit.release();
+                }
+            });
+            // The limit may have been raised by this admission
+            dispatch(limit);
+        });
+    }
+
+    private void release(Limit limit) {
+        synchronized (limit) {
+            limit.running--;
+        }
+        dispatch(limit);
+    }
+
+    private void dispatch(Limit limit) {
+        synchronized (limit) {
+            while (!limit.waiting.isEmpty() && limit.hasRoom()) {
+                limit.running++;
+                admitted.add(limit.waiting.pollFirst());
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Starts admitted instances. One that finishes synchronously admits the
+     * next from inside this loop, so a long FIFO does not grow the stack.
+     */
+    private void drain() {
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            Waiter waiter;
+            while ((waiter = admitted.poll()) != null) {
+                waiter.sink().success(waiter.permit());
+            }
+        } while (draining.decrementAndGet() != 0);
+    }
+
+    private Limit register(String definitionName, int maxConcurrency) {
+        Limit limit = new Limit(maxConcurrency);
+        Gauge.builder("workflow.concurrency.running", limit, l -> running(definitionName))
+            .description("Instances of a definition with maxConcurrency running on this node")
+            .tag("definition", definitionName)
+            .register(meterRegistry);
+        Gauge.builder("workflow.concurrency.waiting", limit, l -> waiting(definitionName))
+            .description("Instances of a definition waiting for a maxConcurrency slot on this node")
+            .tag("definition", definitionName)
+            .register(meterRegistry);
+        return limit;
+    }
+}
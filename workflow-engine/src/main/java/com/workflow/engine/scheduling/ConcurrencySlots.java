@@ -0,0 +1,20 @@
+package com.workflow.engine.scheduling;
+
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Running slots of a definition shared by every node, consulted by
+ * {@link ConcurrencyLimiter} after it has admitted an instance locally.
+ */
+public interface ConcurrencySlots {
+
+    /**
+     * Takes one of the definition's {@code maxConcurrency} slots for the
+     * instance. Emits false when they are all held.
+     */
+    Mono<Boolean> tryAcquire(String definitionName, int maxConcurrency, UUID instanceId);
+
+    Mono<Void> release(String definitionName, UUID instanceId);
+}
@@ -0,0 +1,25 @@
+package com.workflow.engine.scheduling;
+
+import com.workflow.engine.model.Priority;
+import reactor.core.publisher.Mono;
+
+/**
+ * Scheduling overrides of one start call: a priority instead of the
+ * definition's, and a tenant whose instances share one queue instead of
+ * queuing per definition. Either may be null.
+ */
+public record Scheduling(Priority priority, String tenant) {
+
+    public static final Scheduling DEFAULT = new Scheduling(null, null);
+
+    public static Scheduling of(String priority, String tenant) {
+        return new Scheduling(Priority.parse(priority), tenant == null || tenant.isBlank() ? null : tenant);
+    }
+
+    /**
+     * Makes these overrides visible to the steps {@code execution} runs.
+     */
+    public <T> Mono<T> scope(Mono<T> execution) {
+        return this.equals(DEFAULT) ? execution : execution.contextWrite(context -> context.put(Scheduling.class, this));
+    }
+}
@@ -0,0 +1,278 @@
+package com.workflow.engine.scheduling;
+
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits at most {@code max-concurrent-steps} steps of this node at a time,
+ * so that the event loop, the connection pool and the http client are shared
+ * by weight rather than by arrival. Waiting steps are queued per definition,
+ * or per tenant when the start call named one, and per priority class.
+ *
+ * <p>Queues are served by start-time fair queuing: a step's start tag is the
+ * later of the current virtual time and the finish tag of the previous step
+ * of its queue, its finish tag adds {@code 1 / weight}, and the waiting step
+ * with the lowest start tag runs next. A queue's weight is its class weight
+ * times the definition's {@code weight}. Low priority work keeps making
+ * progress, at a rate bounded by its weight. A queue that empties starts
+ * again at the current virtual time, so idle time earns no credit.
+ *
+ * <p>Steps are admitted without queuing while there are free slots and no
+ * step is waiting.
+ */
+@Component
+public class StepScheduler {
+
+    private static final String OTHER_QUEUE = "other";
+
+    private record QueueKey(String queue, Priority priority) {
+    }
+
+    private static final class StepQueue {
+        final double weight;
+        double lastFinish;
+        int waiting;
+
+        StepQueue(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final class Waiter {
+        final QueueKey key;
+        final StepQueue queue;
+        final double start;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+        MonoSink<Permit> sink;
+        boolean cancelled;
+        Permit permit;
+
+        Waiter(QueueKey key, StepQueue queue, double start, long sequence) {
+            this.key = key;
+            this.queue = queue;
+            this.start = start;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A slot held by one running step. Released at most once.
+     */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                StepScheduler.this.release();
+            }
+        }
+    }
+
+    /**
+     * Wait statistics of one queue, as served from {@code /api/scheduler}.
+     */
+    public record QueueStats(String queue, String priority, int waiting, long admitted,
+                             double meanWaitMillis, double maxWaitMillis) {
+    }
+
+    private final int maxConcurrentSteps;
+    private final Map<Priority, Integer> weights;
+    private final int maxQueues;
+    private final MeterRegistry meterRegistry;
+    private final Map<QueueKey, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Queue<Waiter> admitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger draining = new AtomicInteger();
+
+    // Guarded by this
+    private final Map<QueueKey, StepQueue> queues = new HashMap<>();
+    private final PriorityQueue<Waiter> pending = new PriorityQueue<>(
+        Comparator.comparingDouble((Waiter waiter) -> waiter.start).thenComparingLong(waiter -> waiter.sequence));
+    private double virtualTime;
+    private long sequence;
+    private int running;
+
+    public StepScheduler(MeterRegistry meterRegistry,
+                         @Value("${workflow.scheduler.max-concurrent-steps:256}") int maxConcurrentSteps,
+                         @Value("${workflow.scheduler.high-weight:8}") int highWeight,
+                         @Value("${workflow.scheduler.normal-weight:4}") int normalWeight,
+                         @Value("${workflow.scheduler.low-weight:1}") int lowWeight,
+                         @Value("${workflow.scheduler.max-queues:1000}") int maxQueues) {
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrentSteps = maxConcurrentSteps;
+        this.weights = Map.of(Priority.HIGH, highWeight, Priority.NORMAL, normalWeight, Priority.LOW, lowWeight);
+        this.maxQueues = maxQueues;
+
+        Gauge.builder("workflow.scheduler.waiting", this, StepScheduler::waiting)
+            .description("Steps waiting for an execution slot on this node")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code step} once the scheduler admits it. The queue and priority
+     * come from the {@link Scheduling} in the subscriber context, falling back
+     * to the definition's. With {@code max-concurrent-steps} at 0, steps are
+     * not limited.
+     */
+    public <T> Mono<T> schedule(WorkflowDefinitionModel definition, Mono<T> step) {
+        if (maxConcurrentSteps <= 0) {
+            return step;
+        }
+        return Mono.deferContextual(context -> {
+            Scheduling scheduling = context.getOrDefault(Scheduling.class, Scheduling.DEFAULT);
+            Priority priority = scheduling.priority() != null ? scheduling.priority()
+                : definition.priority() != null ? definition.priority() : Priority.NORMAL;
+            QueueKey key = scheduling.tenant() != null
+                ? new QueueKey("tenant:" + scheduling.tenant(), priority)
+                : new QueueKey(definition.name(), priority);
+            double weight = (double) weights.get(priority) * (scheduling.tenant() != null ? 1 : definition.weight());
+            return Mono.usingWhen(admit(key, weight), permit -> step, permit -> Mono.fromRunnable(permit::release));
+        });
+    }
+
+    public List<QueueStats> stats() {
+        Map<QueueKey, Integer> waitingByQueue = new HashMap<>();
+        synchronized (this) {
+            queues.forEach((key, queue) -> waitingByQueue.put(key, queue.waiting));
+        }
+        List<QueueStats> stats = new ArrayList<>();
+        waitTimers.forEach((key, timer) -> stats.add(new QueueStats(key.queue(), tag(key.priority()),
+            waitingByQueue.getOrDefault(key, 0), timer.count(),
+            timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS))));
+        stats.sort(Comparator.comparing(QueueStats::queue).thenComparing(QueueStats::priority));
+        return stats;
+    }
+
+    private Mono<Permit> admit(QueueKey key, double weight) {
+        return Mono.create(sink -> {
+            Permit immediate = null;
+            Waiter waiter = null;
+            synchronized (this) {
+                if (running < maxConcurrentSteps && pending.isEmpty()) {
+                    running++;
+                    immediate = new Permit();
+                } else {
+                    StepQueue queue = queues.computeIfAbsent(key, k -> new StepQueue(weight));
+                    double start = Math.max(virtualTime, queue.lastFinish);
+                    queue.lastFinish = start + 1 / queue.weight;
+                    queue.waiting++;
+                    waiter = new Waiter(key, queue, start, sequence++);
+                    waiter.sink = sink;
+                    pending.add(waiter);
+                }
+            }
+            if (immediate != null) {
+                waitTimer(key).record(0, TimeUnit.NANOSECONDS);
+                sink.success(immediate);
+                return;
+            }
+            Waiter queued = waiter;
+            sink.onCancel(() -> cancel(queued));
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit granted;
+        synchronized (this) {
+            if (waiter.permit == null) {
+                // Left in the heap and skipped when it comes up
+                waiter.cancelled = true;
+                leave(waiter);
+                return;
+            }
+            granted = waiter.permit;
+        }
+        // Admitted concurrently with the cancellation; the step will not run
+        granted.release();
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+            while (running < maxConcurrentSteps && !pending.isEmpty()) {
+                Waiter next = pending.poll();
+                if (next.cancelled) {
+                    continue;
+                }
+                virtualTime = next.start;
+                running++;
+                next.permit = new Permit();
+                leave(next);
+                admitted.add(next);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Starts admitted steps. A step that completes synchronously releases its
+     * slot from inside this loop; the step admitted then is started by the
+     * loop rather than by a nested call, so a long queue does not grow the
+     * stack.
+     */
+    private void drain() {
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            Waiter waiter;
+            while ((waiter = admitted.poll()) != null) {
+                waitTimer(waiter.key).record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+                waiter.sink.success(waiter.permit);
+            }
+        } while (draining.decrementAndGet() != 0);
+    }
+
+    // Guarded by this
+    private void leave(Waiter waiter) {
+        if (--waiter.queue.waiting == 0 && queues.get(waiter.key) == waiter.queue) {
+            queues.remove(waiter.key);
+        }
+    }
+
+    private synchronized int waiting() {
+        int waiting = 0;
+        for (StepQueue queue : queues.values()) {
+            waiting += queue.waiting;
+        }
+        return waiting;
+    }
+
+    private Timer waitTimer(QueueKey key) {
+        Timer timer = waitTimers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        QueueKey tagged = waitTimers.size() < maxQueues ? key : new QueueKey(OTHER_QUEUE, key.priority());
+        return waitTimers.computeIfAbsent(tagged, k -> Timer.builder("workflow.scheduler.wait")
+            .description("Time steps waited for an execution slot")
+            .tag("queue", k.queue())
+            .tag("priority", tag(k.priority()))
+            .register(meterRegistry));
+    }
+
+    private static String tag(Priority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+}
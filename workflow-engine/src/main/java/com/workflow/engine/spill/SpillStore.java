@@ -0,0 +1,249 @@
+package com.workflow.engine.spill;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.workflow.engine.model.SpilledValue;
+import com.workflow.engine.model.ValueSpiller;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps large context variables, typically http response bodies, out of the
+ * Java heap. A value whose estimated JSON size reaches {@code threshold} is
+ * encoded as JSON into a direct buffer, or into a memory-mapped spill file
+ * once {@code max-memory} of direct buffers is in use, and replaced with a
+ * {@link SpilledValue}. The value is decoded again when a step reads it, and
+ * the decoded copy is shared while anything still references it.
+ *
+ * <p>Handles are shared by every copy of a context and by the checkpoints
+ * built from it, so nothing releases them explicitly. The off-heap memory of
+ * a handle is freed once the handle is garbage collected. Spill files are
+ * unlinked as soon as they are mapped and disappear with their mapping.
+ *
+ * <p>Values that cannot be encoded as JSON stay on the heap. Numbers come
+ * back as the smallest type that holds them, and maps and lists as
+ * {@code LinkedHashMap} and {@code ArrayList}.
+ */
+@Component
+public class SpillStore implements ValueSpiller {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillStore.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Cleaner cleaner = Cleaner.create();
+
+    // Counted for values with no better estimate, such as numbers and booleans
+    private static final long SCALAR_SIZE = 8;
+
+    private final boolean enabled;
+    private final long threshold;
+    private final long maxMemory;
+    private final Path directory;
+    private final AtomicLong memoryBytes = new AtomicLong();
+    private final AtomicLong fileBytes = new AtomicLong();
+    private final AtomicLong values = new AtomicLong();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder materializations = new LongAdder();
+
+    public SpillStore(MeterRegistry meterRegistry,
+                      @Value("${workflow.spill.enabled:true}") boolean enabled,
+                      @Value("${workflow.spill.threshold:1MB}") DataSize threshold,
+                      @Value("${workflow.spill.max-memory:256MB}") DataSize maxMemory,
+                      @Value("${workflow.spill.directory:${java.io.tmpdir}/workflow-spill}") Path directory) {
+        this.enabled = enabled;
+        this.threshold = threshold.toBytes();
+        this.maxMemory = maxMemory.toBytes();
+        this.directory = directory;
+
+        Gauge.builder("workflow.spill.bytes", memoryBytes, AtomicLong::get)
+            .description("Bytes of spilled variables held in direct memory")
+            .tag("tier", "memory")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("workflow.spill.bytes", fileBytes, AtomicLong::get)
+            .description("Bytes of spilled variables held in mapped spill files")
+            .tag("tier", "file")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("workflow.spill.values", values, AtomicLong::get)
+            .description("Spilled variables not yet garbage collected")
+            .register(meterRegistry);
+        FunctionCounter.builder("workflow.spill.written", writtenBytes, LongAdder::sum)
+            .description("Bytes of variables spilled since startup")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("workflow.spill.materializations", materializations, LongAdder::sum)
+            .description("Spilled variables decoded back onto the heap")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Object spill(Object value) {
+        if (!enabled || value == null || value instanceof SpilledValue || estimate(value, 0, threshold) < threshold) {
+            return value;
+        }
+        byte[] encoded;
+        try {
+            encoded = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            logger.debug("Keeping a {} on the heap, it cannot be encoded as JSON", value.getClass().getName(), e);
+            return value;
+        }
+        if (encoded.length < threshold) {
+            return value;
+        }
+
+        boolean inMemory = memoryBytes.addAndGet(encoded.length) <= maxMemory;
+        AtomicLong tier = memoryBytes;
+        ByteBuffer buffer;
+        if (inMemory) {
+            buffer = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+        } else {
+            memoryBytes.addAndGet(-encoded.length);
+            fileBytes.addAndGet(encoded.length);
+            tier = fileBytes;
+            try {
+                buffer = map(encoded);
+            } catch (IOException e) {
+                fileBytes.addAndGet(-encoded.length);
+                throw new UncheckedIOException("Failed to write spill file in " + directory, e);
+            }
+        }
+        writtenBytes.add(encoded.length);
+        values.incrementAndGet();
+
+        Spilled spilled = new Spilled(buffer);
+        cleaner.register(spilled, new Release(tier, values, encoded.length));
+        return spilled;
+    }
+
+    public long memoryBytes() {
+        return memoryBytes.get();
+    }
+
+    public long fileBytes() {
+        return fileBytes.get();
+    }
+
+    /**
+     * Writes {@code encoded} to a new spill file and maps it. The file is
+     * unlinked right away, so it is reclaimed with the mapping and never
+     * outlives the process.
+     */
+    private ByteBuffer map(byte[] encoded) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "variable-", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer source = ByteBuffer.wrap(encoded);
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, encoded.length);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Estimates the JSON size of {@code value} from string lengths and
+     * element counts, added to {@code size}. Stops as soon as the total
+     * reaches {@code limit}, so small values are cheap to rule out and large
+     * ones are not walked in full.
+     */
+    static long estimate(Object value, long size, long limit) {
+        if (value instanceof CharSequence text) {
+            return size + text.length() + 2;
+        }
+        if (value instanceof byte[] bytes) {
+            return size + bytes.length * 4L / 3 + 2;
+        }
+        if (value instanceof Map<?, ?> map) {
+            size += 2;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size = estimate(entry.getValue(), estimate(String.valueOf(entry.getKey()), size + 2, limit), limit);
+                if (size >= limit) {
+                    return size;
+                }
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            size += 2;
+            for (Object element : collection) {
+                size = estimate(element, size + 1, limit);
+                if (size >= limit) {
+                    return size;
+                }
+            }
+            return size;
+        }
+        return size + SCALAR_SIZE;
+    }
+
+    private final class Spilled implements SpilledValue {
+
+        private final ByteBuffer buffer;
+        private volatile WeakReference<Object> materialized = new WeakReference<>(null);
+
+        Spilled(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public Object materialize() {
+            Object value = materialized.get();
+            if (value == null) {
+                try {
+                    value = objectMapper.readValue(new ByteBufferBackedInputStream(buffer.duplicate()), Object.class);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to decode spilled variable", e);
+                }
+                materialized = new WeakReference<>(value);
+                materializations.increment();
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public String toString() {
+            return "SpilledValue[" + size() + " bytes]";
+        }
+    }
+
+    /**
+     * Runs once a handle is unreachable. Must not refer to the handle.
+     */
+    private record Release(AtomicLong tier, AtomicLong values, long bytes) implements Runnable {
+
+        @Override
+        public void run() {
+            tier.addAndGet(-bytes);
+            values.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.workflow.engine.stats;
+
+import com.workflow.engine.listener.WorkflowExecutionListener;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStatusCount;
+import com.workflow.storage.repository.WorkflowStatusCountRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-definition, per-status instance counters updated on every status
+ * transition. Local deltas are periodically pushed to the
+ * {@code workflow_status_counts} summary table, and the summary is read back
+ * so that every node converges on cluster-wide totals.
+ * <p>
+ * Adding up deltas drifts whenever one is lost or counted twice, for example
+ * by a node that stops before pushing its deltas. The summary is therefore
+ * recounted from the state store at startup and every
+ * {@code workflow.stats.recount-interval}, overwriting each row with the
+ * absolute count and discarding the local deltas the count already includes.
+ */
+@Component
+public class WorkflowStatusCounters implements WorkflowExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowStatusCounters.class);
+
+    public record Key(UUID workflowDefinitionId, String status) {
+    }
+
+    private final WorkflowStatusCountRepository countRepository;
+    private final WorkflowStateStore stateStore;
+
+    // Totals as of the last reconciliation
+    private volatile Map<Key, Long> reconciled = Map.of();
+    // Transitions observed locally and not yet written to the summary table
+    private final ConcurrentHashMap<Key, LongAdder> pending = new ConcurrentHashMap<>();
+    // Deltas written to the summary table but not yet reflected in `reconciled`
+    private final ConcurrentHashMap<Key, LongAdder> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile boolean seeded;
+
+    public WorkflowStatusCounters(WorkflowStatusCountRepository countRepository, WorkflowStateStore stateStore,
+                                  MeterRegistry meterRegistry) {
+        this.countRepository = countRepository;
+        this.stateStore = stateStore;
+        for (String status : List.of("PENDING", "RUNNING", "COMPLETED", "FAILED")) {
+            Gauge.builder("workflow.instances", this, counters -> counters.total(status))
+                .description("Workflow instances across the cluster by status; PENDING instances are queued")
+                .tag("status", status)
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void onInstanceTransition(WorkflowInstance instance, String previousStatus) {
+        if (previousStatus != null) {
+            adjust(pending, new Key(instance.workflowDefinitionId(), previousStatus), -1);
+        }
+        adjust(pending, new Key(instance.workflowDefinitionId(), instance.status()), 1);
+    }
+
+    public Map<Key, Long> snapshot() {
+        Map<Key, Long> result = new HashMap<>(reconciled);
+        inFlight.forEach((key, delta) -> result.merge(key, delta.sum(), Long::sum));
+        pending.forEach((key, delta) -> result.merge(key, delta.sum(), Long::sum));
+        result.values().removeIf(count -> count == 0);
+        return result;
+    }
+
+    /**
+     * Total across all definitions, without building a snapshot.
+     */
+    public long total(String status) {
+        long total = 0;
+        for (Map.Entry<Key, Long> entry : reconciled.entrySet()) {
+            if (entry.getKey().status().equals(status)) {
+                total += entry.getValue();
+            }
+        }
+        total += sum(inFlight, status);
+        total += sum(pending, status);
+        return total;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        // Deltas are held back until the first recount, which would otherwise
+        // add them on top of a count that already includes them
+        recount();
+    }
+
+    /**
+     * Replaces the summary table with a count of the instances in the state
+     * store. Local deltas taken before the count are dropped, since the
+     * count includes them; later ones are pushed by the next reconciliation.
+     */
+    @Scheduled(fixedDelayString = "${workflow.stats.recount-interval:PT5M}",
+               initialDelayString = "${workflow.stats.recount-interval:PT5M}")
+    public void recount() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+
+        Map<Key, Long> drained = new HashMap<>();
+        pending.forEach((key, delta) -> {
+            long value = delta.sumThenReset();
+            if (value != 0) {
+                drained.put(key, value);
+            }
+        });
+
+        Mono<Map<Key, Long>> counted = stateStore.countInstancesByStatus()
+            .collectMap(count -> new Key(count.workflowDefinitionId(), count.status()),
+                        WorkflowStatusCount::instanceCount);
+
+        counted
+            .flatMap(counts -> countRepository.findAll()
+                // Rows with no instances left are zeroed rather than kept at a stale count
+                .filter(row -> !counts.containsKey(new Key(row.workflowDefinitionId(), row.status())))
+                .concatMap(row -> countRepository.setCount(row.workflowDefinitionId(), row.status(), 0))
+                .thenMany(Flux.fromIterable(counts.entrySet()))
+                .concatMap(entry -> countRepository.setCount(
+                    entry.getKey().workflowDefinitionId(), entry.getKey().status(), entry.getValue()))
+                .then(Mono.just(counts)))
+            .doOnNext(counts -> {
+                reconciled = Map.copyOf(counts);
+                inFlight.clear();
+                seeded = true;
+            })
+            .doOnError(error -> drained.forEach((key, value) -> adjust(pending, key, value)))
+            .doFinally(signal -> reconciling.set(false))
+            .subscribe(
+                ignored -> { },
+                error -> logger.warn("Failed to recount workflow status counters", error)
+            );
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.stats.reconcile-interval:PT10S}",
+               initialDelayString = "${workflow.stats.reconcile-interval:PT10S}")
+    public void reconcile() {
+        if (!seeded || !reconciling.compareAndSet(false, true)) {
+            return;
+        }
+
+        Map<Key, Long> drained = new HashMap<>();
+        pending.forEach((key, delta) -> {
+            long value = delta.sumThenReset();
+            if (value != 0) {
+                drained.put(key, value);
+                adjust(inFlight, key, value);
+            }
+        });
+
+        Flux.fromIterable(drained.entrySet())
+            .concatMap(entry -> countRepository.applyDelta(
+                    entry.getKey().workflowDefinitionId(), entry.getKey().status(), entry.getValue())
+                .onErrorResume(error -> {
+                    logger.warn("Failed to apply status counter delta for {}", entry.getKey(), error);
+                    adjust(pending, entry.getKey(), entry.getValue());
+                    adjust(inFlight, entry.getKey(), -entry.getValue());
+                    return Mono.empty();
+                }))
+            .thenMany(countRepository.findAll())
+            .collectMap(count -> new Key(count.workflowDefinitionId(), count.status()),
+                        WorkflowStatusCount::instanceCount)
+            .doOnNext(summary -> {
+                // Every in-flight delta has been applied by now, so the summary includes it
+                reconciled = Map.copyOf(summary);
+                inFlight.clear();
+            })
+            .doFinally(signal -> reconciling.set(false))
+            .subscribe(
+                ignored -> { },
+                error -> logger.warn("Failed to reconcile workflow status counters", error)
+            );
+    }
+
+    private static long sum(ConcurrentHashMap<Key, LongAdder> counters, String status) {
+        long sum = 0;
+        for (Map.Entry<Key, LongAdder> entry : counters.entrySet()) {
+            if (entry.getKey().status().equals(status)) {
+                sum += entry.getValue().sum();
+            }
+        }
+        return sum;
+    }
+
+    private static void adjust(ConcurrentHashMap<Key, LongAdder> counters, Key key, long delta) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+}
@@ -0,0 +1,77 @@
+package com.workflow.engine.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps traces in memory so they can be queried without an external
+ * collector. Traces in progress are visible with the spans finished so far;
+ * finished traces are kept up to a fixed number, oldest evicted first.
+ */
+@Component
+public class InMemoryTraceExporter {
+
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final Map<String, TraceBuffer> active = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, TraceBuffer> finished = new LinkedHashMap<>();
+
+    public InMemoryTraceExporter(@Value("${workflow.tracing.max-traces:1000}") int maxTraces,
+                                 @Value("${workflow.tracing.max-spans-per-trace:500}") int maxSpansPerTrace) {
+        this.maxTraces = maxTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+    }
+
+    TraceBuffer begin(UUID instanceId, String name) {
+        TraceBuffer trace = new TraceBuffer(instanceId, name, maxSpansPerTrace);
+        active.put(trace.traceId(), trace);
+        return trace;
+    }
+
+    void finish(TraceBuffer trace) {
+        synchronized (finished) {
+            finished.put(trace.traceId(), trace);
+            if (finished.size() > maxTraces) {
+                finished.remove(finished.keySet().iterator().next());
+            }
+        }
+        // Removed after it is in `finished` so that lookups never miss it
+        active.remove(trace.traceId());
+    }
+
+    /**
+     * Most recent traces first, optionally only those of one instance.
+     */
+    public List<TraceSummary> recent(UUID instanceId, int limit) {
+        List<TraceBuffer> candidates = new ArrayList<>(active.values());
+        synchronized (finished) {
+            candidates.addAll(finished.values());
+        }
+        return candidates.stream()
+            .filter(trace -> instanceId == null || instanceId.equals(trace.instanceId()))
+            .distinct()
+            .map(TraceBuffer::summary)
+            .sorted(Comparator.comparing(TraceSummary::start).reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    public Optional<Trace> find(String traceId) {
+        TraceBuffer trace = active.get(traceId);
+        if (trace == null) {
+            synchronized (finished) {
+                trace = finished.get(traceId);
+            }
+        }
+        return Optional.ofNullable(trace).map(TraceBuffer::snapshot);
+    }
+}
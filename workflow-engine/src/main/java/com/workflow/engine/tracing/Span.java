@@ -0,0 +1,67 @@
+package com.workflow.engine.tracing;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A span being recorded. Ending it adds it to its trace; only the first end
+ * counts.
+ */
+final class Span {
+
+    private final TraceBuffer trace;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Instant start = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, String> attributes;
+    private boolean ended;
+
+    Span(TraceBuffer trace, String parentSpanId, String name, Map<String, String> attributes) {
+        this.trace = trace;
+        this.spanId = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.attributes = new LinkedHashMap<>(attributes);
+    }
+
+    Span child(String childName, Map<String, String> childAttributes) {
+        return new Span(trace, spanId, childName, childAttributes);
+    }
+
+    TraceBuffer trace() {
+        return trace;
+    }
+
+    boolean isRoot() {
+        return parentSpanId == null;
+    }
+
+    TraceContext context() {
+        return new TraceContext(trace.traceId(), spanId);
+    }
+
+    synchronized void tag(String key, String value) {
+        attributes.put(key, value);
+    }
+
+    /**
+     * Ends the span, returning false if it had already ended.
+     */
+    synchronized boolean end(String status, Throwable error) {
+        if (ended) {
+            return false;
+        }
+        ended = true;
+        if (error != null) {
+            attributes.put("error", String.valueOf(error.getMessage()));
+        }
+        long durationMicros = (System.nanoTime() - startNanos) / 1000;
+        trace.add(new SpanData(spanId, parentSpanId, name, start, durationMicros, status, Map.copyOf(attributes)));
+        return true;
+    }
+}
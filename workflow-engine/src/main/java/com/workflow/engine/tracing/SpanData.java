@@ -0,0 +1,19 @@
+package com.workflow.engine.tracing;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A finished span. {@code status} is {@code OK}, {@code ERROR} or
+ * {@code CANCELLED}.
+ */
+public record SpanData(
+    String spanId,
+    String parentSpanId,
+    String name,
+    Instant start,
+    long durationMicros,
+    String status,
+    Map<String, String> attributes
+) {
+}
@@ -0,0 +1,10 @@
+package com.workflow.engine.tracing;
+
+import java.util.List;
+
+/**
+ * A trace with its spans in the order they finished. Spans of a trace that is
+ * still in progress are the ones finished so far.
+ */
+public record Trace(TraceSummary summary, List<SpanData> spans) {
+}
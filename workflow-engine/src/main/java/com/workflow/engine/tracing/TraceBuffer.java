@@ -0,0 +1,63 @@
+package com.workflow.engine.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Collects the finished spans of one trace, up to a fixed number so that a
+ * long-running instance cannot grow its trace without bound.
+ */
+final class TraceBuffer {
+
+    private final String traceId;
+    private final UUID instanceId;
+    private final String name;
+    private final Instant start = Instant.now();
+    private final int maxSpans;
+    private final List<SpanData> spans = new ArrayList<>();
+    private int droppedSpans;
+    private SpanData root;
+
+    TraceBuffer(UUID instanceId, String name, int maxSpans) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceId = HexFormat.of().toHexDigits(random.nextLong()) + HexFormat.of().toHexDigits(random.nextLong());
+        this.instanceId = instanceId;
+        this.name = name;
+        this.maxSpans = maxSpans;
+    }
+
+    String traceId() {
+        return traceId;
+    }
+
+    UUID instanceId() {
+        return instanceId;
+    }
+
+    synchronized void add(SpanData span) {
+        if (span.parentSpanId() == null) {
+            root = span;
+        }
+        // The root is always kept, it carries the trace's duration and status
+        if (spans.size() < maxSpans || span.parentSpanId() == null) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    synchronized TraceSummary summary() {
+        return new TraceSummary(traceId, instanceId, name, start,
+            root != null ? root.durationMicros() : null,
+            root != null ? root.status() : null,
+            root == null, spans.size(), droppedSpans);
+    }
+
+    synchronized Trace snapshot() {
+        return new Trace(summary(), List.copyOf(spans));
+    }
+}
@@ -0,0 +1,24 @@
+package com.workflow.engine.tracing;
+
+import reactor.util.context.ContextView;
+
+import java.util.Optional;
+
+/**
+ * Identifies the active span for outbound calls, in W3C Trace Context form.
+ */
+public record TraceContext(String traceId, String spanId) {
+
+    public static final String TRACEPARENT = "traceparent";
+
+    /**
+     * The context of the span the subscriber runs in, if any.
+     */
+    public static Optional<TraceContext> current(ContextView context) {
+        return context.<Span>getOrEmpty(Span.class).map(Span::context);
+    }
+
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+}
@@ -0,0 +1,21 @@
+package com.workflow.engine.tracing;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One execution of a workflow instance. {@code durationMicros} and
+ * {@code status} are null while the execution is in progress.
+ */
+public record TraceSummary(
+    String traceId,
+    UUID instanceId,
+    String name,
+    Instant start,
+    Long durationMicros,
+    String status,
+    boolean inProgress,
+    int spanCount,
+    int droppedSpans
+) {
+}
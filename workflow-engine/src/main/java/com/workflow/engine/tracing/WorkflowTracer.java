@@ -0,0 +1,75 @@
+package com.workflow.engine.tracing;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records one trace per execution of a workflow instance, with child spans
+ * for the operations inside it. The active span travels in the Reactor
+ * context, so operations started inside a traced execution become its
+ * children without the span being passed around, and operations outside one
+ * are not traced at all.
+ */
+@Component
+public class WorkflowTracer {
+
+    private final InMemoryTraceExporter exporter;
+    private final boolean enabled;
+
+    public WorkflowTracer(InMemoryTraceExporter exporter,
+                          @Value("${workflow.tracing.enabled:true}") boolean enabled) {
+        this.exporter = exporter;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Traces an execution of the instance as the root span of a new trace.
+     */
+    public Mono<WorkflowInstance> traceInstance(UUID instanceId, String definitionName, Mono<WorkflowInstance> execution) {
+        if (!enabled) {
+            return execution;
+        }
+        return Mono.defer(() -> {
+            TraceBuffer trace = exporter.begin(instanceId, definitionName);
+            Span root = new Span(trace, null, "workflow " + definitionName,
+                Map.of("instanceId", instanceId.toString(), "definition", definitionName));
+            return record(execution.doOnNext(instance -> root.tag("status", instance.status())), root)
+                .contextWrite(context -> context.put(Span.class, root));
+        });
+    }
+
+    /**
+     * Traces the operation as a child of the active span.
+     */
+    public <T> Mono<T> trace(String name, Map<String, String> attributes, Mono<T> operation) {
+        if (!enabled) {
+            return operation;
+        }
+        return Mono.deferContextual(context -> {
+            Span parent = context.getOrDefault(Span.class, null);
+            if (parent == null) {
+                return operation;
+            }
+            Span span = parent.child(name, attributes);
+            return record(operation, span).contextWrite(inner -> inner.put(Span.class, span));
+        });
+    }
+
+    private <T> Mono<T> record(Mono<T> operation, Span span) {
+        return operation
+            .doOnSuccess(value -> end(span, "OK", null))
+            .doOnError(error -> end(span, "ERROR", error))
+            .doOnCancel(() -> end(span, "CANCELLED", null));
+    }
+
+    private void end(Span span, String status, Throwable error) {
+        if (span.end(status, error) && span.isRoot()) {
+            exporter.finish(span.trace());
+        }
+    }
+}
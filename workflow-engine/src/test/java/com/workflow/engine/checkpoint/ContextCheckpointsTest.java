@@ -0,0 +1,163 @@
+package com.workflow.engine.checkpoint;
+
+import com.workflow.engine.executor.LeaseLostException;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.queue.WorkItemLeases;
+import com.workflow.storage.entity.ContextCheckpoint;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.ContextCheckpointRepository;
+import com.workflow.storage.repository.WorkItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ContextCheckpointsTest {
+
+    private static final String NODE_ID = "node-1";
+
+    @Mock
+    private ContextCheckpointRepository checkpointRepository;
+    @Mock
+    private WorkItemRepository workItemRepository;
+
+    private final List<ContextCheckpoint> rows = new ArrayList<>();
+    private final WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{\"orderId\": 1}");
+    private ContextCheckpoints checkpoints;
+
+    @BeforeEach
+    void setUp() {
+        // An in-memory stand-in for the checkpoint table
+        when(checkpointRepository.insert(any(), any(), anyBoolean(), any(), any(), any(), any())).thenAnswer(call -> {
+            if (!NODE_ID.equals(call.getArgument(1))) {
+                return Mono.empty();
+            }
+            long id = rows.size() + 1L;
+            rows.add(new ContextCheckpoint(id, call.getArgument(0), call.getArgument(2), call.getArgument(3),
+                call.getArgument(4), call.getArgument(5), call.getArgument(6), null));
+            return Mono.just(id);
+        });
+        when(checkpointRepository.deleteBefore(any(), anyLong())).thenAnswer(call -> {
+            long before = call.getArgument(1);
+            rows.removeIf(row -> row.id() < before);
+            return Mono.just(1);
+        });
+        when(checkpointRepository.findSinceLatestSnapshot(any())).thenAnswer(call -> {
+            long latestFull = rows.stream().filter(ContextCheckpoint::fullSnapshot)
+                .mapToLong(ContextCheckpoint::id).max().orElse(Long.MAX_VALUE);
+            return Flux.fromIterable(rows.stream().filter(row -> row.id() >= latestFull).toList());
+        });
+        checkpoints = checkpoints(NODE_ID);
+    }
+
+    private ContextCheckpoints checkpoints(String nodeId) {
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        return new ContextCheckpoints(checkpointRepository, new WorkItemLeases(workItemRepository, metrics, nodeId),
+            metrics, 3, 100);
+    }
+
+    @Test
+    void shouldWriteOnlyChangesAfterFirstSnapshot() {
+        // Given
+        ExecutionContext context = new ExecutionContext(instance.id(), Map.of("batchSize", 100, "payload", "large"));
+        context.setVariable("input", instance.input());
+        context.setStepResult("fetch", Map.of("status", 200));
+        checkpoints.checkpoint(instance, "check", context).block();
+
+        // When
+        context.setStepResult("check", Map.of("result", true));
+        context.setVariable("batchSize", 50);
+        checkpoints.checkpoint(instance, "save", context).block();
+
+        // Then
+        assertThat(rows).extracting(ContextCheckpoint::fullSnapshot).containsExactly(true, false);
+        assertThat(rows.get(0).variables()).contains("payload", "batchSize", "input").doesNotContain("fetch");
+        assertThat(rows.get(0).stepResults()).contains("fetch");
+        assertThat(rows.get(1).variables()).isEqualTo("{\"batchSize\":50}");
+        assertThat(rows.get(1).stepResults()).isEqualTo("{\"check\":{\"result\":true}}");
+        assertThat(rows.get(1).resultStepId()).isEqualTo("check");
+    }
+
+    @Test
+    void shouldCompactAfterConfiguredNumberOfDeltas() {
+        // Given
+        ExecutionContext context = new ExecutionContext(instance.id(), Map.of("batchSize", 100));
+
+        // When
+        for (int step = 0; step < 6; step++) {
+            context.setStepResult("step-" + step, "result-" + step);
+            checkpoints.checkpoint(instance, "step-" + (step + 1), context).block();
+        }
+
+        // Then
+        assertThat(rows).extracting(ContextCheckpoint::fullSnapshot).containsExactly(true, false);
+        assertThat(rows.get(0).stepResults()).contains("step-0", "step-4");
+    }
+
+    @Test
+    void shouldRestoreContextFromSnapshotAndDeltas() {
+        // Given
+        ExecutionContext context = new ExecutionContext(instance.id(), Map.of("batchSize", 100, "obsolete", true));
+        for (int step = 0; step < 5; step++) {
+            context.setStepResult("step-" + step, Map.of("value", step));
+            if (step == 3) {
+                context.setVariable("batchSize", 10);
+            }
+            checkpoints.checkpoint(instance, "step-" + (step + 1), context).block();
+        }
+        ExecutionContext fresh = new ExecutionContext(instance.id(), Map.of("batchSize", 100));
+
+        // When
+        ExecutionContext restored = checkpoints(NODE_ID).restore(instance, fresh).block();
+
+        // Then
+        assertThat(restored.getVariable("batchSize")).isEqualTo(10);
+        assertThat(restored.getVariable("obsolete")).isEqualTo(true);
+        assertThat(restored.getStepResults()).containsOnlyKeys("step-0", "step-1", "step-2", "step-3", "step-4");
+        assertThat(restored.getLastResult()).isEqualTo(Map.of("value", 4));
+        assertThat(restored.getVariable("result")).isEqualTo(Map.of("value", 4));
+    }
+
+    @Test
+    void shouldFailWithLeaseLostWhenAnotherNodeOwnsTheInstance() {
+        // Given
+        ExecutionContext context = new ExecutionContext(instance.id(), Map.of("batchSize", 100));
+        context.setStepResult("fetch", Map.of("status", 200));
+
+        // When / Then
+        StepVerifier.create(checkpoints("node-2").checkpoint(instance, "check", context))
+            .expectError(LeaseLostException.class)
+            .verify();
+        assertThat(rows).isEmpty();
+    }
+
+    @Test
+    void shouldKeepInitialContextWhenNothingWasCheckpointed() {
+        // Given
+        ExecutionContext fresh = new ExecutionContext(instance.id(), Map.of("batchSize", 100));
+
+        // When / Then
+        assertThat(checkpoints.restore(instance, fresh).block()).isSameAs(fresh);
+    }
+}
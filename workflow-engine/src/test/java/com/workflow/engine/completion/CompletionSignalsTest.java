@@ -0,0 +1,42 @@
+package com.workflow.engine.completion;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompletionSignalsTest {
+
+    private final CompletionSignals signals = new CompletionSignals();
+
+    @Test
+    void shouldReleaseWaitersWhenInstanceTerminates() {
+        // Given
+        WorkflowInstance running = WorkflowInstance.create(UUID.randomUUID(), "{}").withStatus("RUNNING");
+
+        // When / Then
+        StepVerifier.create(signals.awaitTerminal(running.id()))
+            .then(() -> assertThat(signals.waitingInstances()).isEqualTo(1))
+            .then(() -> signals.onInstanceTransition(running.withStatus("COMPLETED"), "RUNNING"))
+            .verifyComplete();
+        assertThat(signals.waitingInstances()).isZero();
+    }
+
+    @Test
+    void shouldForgetWaitersThatTimeOut() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+
+        // When
+        StepVerifier.create(signals.awaitTerminal(instanceId).timeout(Duration.ofMillis(50), Mono.empty()))
+            .verifyComplete();
+
+        // Then
+        assertThat(signals.waitingInstances()).isZero();
+    }
+}
@@ -0,0 +1,101 @@
+package com.workflow.engine.executor;
+
+import com.workflow.engine.model.StepDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultProjectionTest {
+
+    private static final Map<String, Object> HTTP_RESULT = Map.of(
+        "status", 200,
+        "body", "{\"id\": 7, \"items\": [{\"sku\": \"a-1\"}, {\"sku\": \"b-2\"}], \"debug\": \"lots of text\"}",
+        "url", "https://api.example.com/orders/7",
+        "method", "GET"
+    );
+
+    private final ResultProjection projection = new ResultProjection();
+
+    @Test
+    void shouldKeepOnlySelectedFields() {
+        // Given
+        StepDefinition step = step(Map.of("resultSelector", "{status: ['status'], id: #json(['body'])['id']}"));
+        projection.prepare(step);
+
+        // When
+        Object result = projection.apply(step, HTTP_RESULT);
+
+        // Then
+        assertThat(result).isEqualTo(Map.of("status", 200, "id", 7));
+    }
+
+    @Test
+    void shouldFollowOutputPathIntoJsonBody() {
+        // Given
+        StepDefinition step = step(Map.of("outputPath", "$.body.items[1]['sku']"));
+        projection.prepare(step);
+
+        // When
+        Object result = projection.apply(step, HTTP_RESULT);
+
+        // Then
+        assertThat(result).isEqualTo("b-2");
+    }
+
+    @Test
+    void shouldApplyOutputPathAfterSelector() {
+        // Given
+        StepDefinition step = step(Map.of(
+            "resultSelector", "#json(#result['body'])",
+            "outputPath", "$.items"));
+
+        // When
+        Object result = projection.apply(step, HTTP_RESULT);
+
+        // Then
+        assertThat(result).isEqualTo(List.of(Map.of("sku", "a-1"), Map.of("sku", "b-2")));
+    }
+
+    @Test
+    void shouldReturnResultUnchangedWithoutOptions() {
+        // Given
+        StepDefinition step = step(Map.of());
+
+        // When / Then
+        assertThat(projection.apply(step, HTTP_RESULT)).isSameAs(HTTP_RESULT);
+    }
+
+    @Test
+    void shouldRejectMalformedPathWhenPreparing() {
+        // Given
+        StepDefinition step = step(Map.of("outputPath", "$.body..id"));
+
+        // When / Then
+        assertThatThrownBy(() -> projection.prepare(step))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid outputPath");
+    }
+
+    @Test
+    void shouldFailWhenPathIsMissingFromResult() {
+        // Given
+        StepDefinition step = step(Map.of("outputPath", "$.body.customer"));
+
+        // When / Then
+        assertThatThrownBy(() -> projection.apply(step, HTTP_RESULT))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("not found in result");
+    }
+
+    private static StepDefinition step(Map<String, Object> options) {
+        Map<String, Object> config = new HashMap<>(options);
+        config.put("method", "GET");
+        config.put("url", "https://api.example.com/orders/7");
+        return new StepDefinition("fetch", "http", config, null, null, null);
+    }
+}
@@ -0,0 +1,157 @@
+package com.workflow.engine.executor;
+
+import com.workflow.engine.executor.impl.LogStepExecutor;
+import com.workflow.engine.latency.LatencyHistograms;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.model.ValueSpiller;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.profile.ExecutionProfiler;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import com.workflow.engine.scheduling.ConcurrencyLimiter;
+import com.workflow.engine.scheduling.StepScheduler;
+import com.workflow.engine.tracing.InMemoryTraceExporter;
+import com.workflow.engine.tracing.WorkflowTracer;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.store.WorkflowStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowExecutorTest {
+
+    @Mock
+    private WorkflowStateStore stateStore;
+
+    private final Map<UUID, WorkflowInstance> storedInstances = new ConcurrentHashMap<>();
+    private CompiledWorkflowDefinition definition;
+
+    @BeforeEach
+    void setUp() {
+        // Versioned like the R2DBC store, so that saving a stale copy fails
+        when(stateStore.saveInstance(any())).thenAnswer(invocation -> {
+            WorkflowInstance instance = invocation.getArgument(0);
+            WorkflowInstance stored = storedInstances.get(instance.id());
+            if (stored != null && stored.version() != instance.version()) {
+                return Mono.error(new OptimisticLockingFailureException("Stale version of " + instance.id()));
+            }
+            WorkflowInstance saved = instance.withVersion(instance.version() + 1);
+            storedInstances.put(saved.id(), saved);
+            return Mono.just(saved);
+        });
+        when(stateStore.saveStep(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        WorkflowDefinitionModel model = new WorkflowDefinitionModel("greet", "1.0.0", List.of(
+            new StepDefinition("first", "log", Map.of("message", "hello"), "second", null, null),
+            new StepDefinition("second", "log", Map.of("message", "again"), null, null, null)
+        ), Map.of(), Priority.NORMAL, 1, 0);
+        definition = new CompiledWorkflowDefinition(UUID.randomUUID(), model.name(), model.version(), model);
+    }
+
+    private WorkflowExecutor executor(List<WorkflowCheckpointer> checkpointers) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EngineMetrics metrics = new EngineMetrics(meterRegistry);
+        return new WorkflowExecutor(new StepExecutorRegistry(List.of(new LogStepExecutor()), metrics), stateStore,
+            List.of(), checkpointers, metrics, new WorkflowTracer(new InMemoryTraceExporter(10, 10), false),
+            new ExecutionProfiler(10), new LatencyHistograms(Duration.ofMinutes(1), 10), ValueSpiller.NONE,
+            new StepScheduler(meterRegistry, 0, 8, 4, 1, 10),
+            new ConcurrencyLimiter(Optional.empty(), meterRegistry));
+    }
+
+    @Test
+    void shouldStopWithoutRecordingAnythingWhenTheLeaseIsLost() {
+        // Given
+        WorkflowCheckpointer lostLease = (instance, nextStepId, context) -> Mono.error(new LeaseLostException(instance.id()));
+        WorkflowInstance instance = WorkflowInstance.create(definition.id(), "{}");
+
+        // When / Then
+        StepVerifier.create(executor(List.of(lostLease)).runInstance(definition, instance))
+            .expectError(LeaseLostException.class)
+            .verify();
+
+        ArgumentCaptor<WorkflowStep> steps = ArgumentCaptor.forClass(WorkflowStep.class);
+        verify(stateStore, atLeastOnce()).saveStep(steps.capture());
+        assertThat(steps.getAllValues()).extracting(WorkflowStep::stepId).containsOnly("first");
+        assertThat(steps.getAllValues()).extracting(WorkflowStep::status).doesNotContain("FAILED");
+
+        ArgumentCaptor<WorkflowInstance> instances = ArgumentCaptor.forClass(WorkflowInstance.class);
+        verify(stateStore, atLeastOnce()).saveInstance(instances.capture());
+        assertThat(instances.getAllValues()).extracting(WorkflowInstance::status).doesNotContain("FAILED");
+    }
+
+    @Test
+    void shouldReleaseTheInstanceFromTheStoreWhenExecutionEnds() {
+        // Given
+        WorkflowCheckpointer lostLease = (instance, nextStepId, context) -> Mono.error(new LeaseLostException(instance.id()));
+        WorkflowInstance abandoned = WorkflowInstance.create(definition.id(), "{}");
+        WorkflowInstance completed = WorkflowInstance.create(definition.id(), "{}");
+
+        // When
+        StepVerifier.create(executor(List.of(lostLease)).runInstance(definition, abandoned))
+            .expectError(LeaseLostException.class)
+            .verify();
+        StepVerifier.create(executor(List.of()).runInstance(definition, completed))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        // Then
+        verify(stateStore).release(abandoned.id());
+        verify(stateStore).release(completed.id());
+    }
+
+    @Test
+    void shouldRecordOtherCheckpointFailuresAsStepFailures() {
+        // Given
+        WorkflowCheckpointer failing = (instance, nextStepId, context) -> Mono.error(new IllegalStateException("disk full"));
+        WorkflowInstance instance = WorkflowInstance.create(definition.id(), "{}");
+
+        // When / Then
+        StepVerifier.create(executor(List.of(failing)).runInstance(definition, instance))
+            .assertNext(failed -> {
+                assertThat(failed.status()).isEqualTo("FAILED");
+                assertThat(failed.errorMessage()).isEqualTo("disk full");
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldFailTheLatestSavedInstanceWhenTheCheckpointFailsAfterTheStepIsSaved() {
+        // Given
+        WorkflowCheckpointer failing = (instance, nextStepId, context) -> Mono.error(new IllegalStateException("disk full"));
+        WorkflowInstance instance = WorkflowInstance.create(definition.id(), "{}");
+
+        // When
+        StepVerifier.create(executor(List.of(failing)).runInstance(definition, instance))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        // Then
+        WorkflowInstance stored = storedInstances.get(instance.id());
+        assertThat(stored.status()).isEqualTo("FAILED");
+        assertThat(stored.currentStepId()).isEqualTo("first");
+    }
+}
@@ -0,0 +1,66 @@
+package com.workflow.engine.executor.impl;
+
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.StepDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+class ConditionStepExecutorTest {
+
+    private ConditionStepExecutor conditionStepExecutor;
+
+    @BeforeEach
+    void setUp() {
+        conditionStepExecutor = new ConditionStepExecutor();
+    }
+
+    @Test
+    void shouldEvaluatePreparedExpression() {
+        // Given
+        StepDefinition step = new StepDefinition("check", "condition", Map.of("expression", "#batchSize > 50"),
+            null, "big", "small");
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID(), Map.of("batchSize", 100));
+        conditionStepExecutor.prepare(step);
+
+        // When / Then
+        StepVerifier.create(conditionStepExecutor.execute(step, context))
+            .assertNext(result -> assertThat(result).asInstanceOf(MAP).containsEntry("result", true))
+            .verifyComplete();
+        assertThat(context.isConditionResult()).isTrue();
+    }
+
+    @Test
+    void shouldAddressEarlierStepResultsById() {
+        // Given
+        StepDefinition step = new StepDefinition("check", "condition",
+            Map.of("expression", "#steps['fetch-data']['status'] == 200 && #result['status'] == 500"),
+            null, "ok", "failed");
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID(), Map.of());
+        context.setStepResult("fetch-data", Map.of("status", 200));
+        context.setStepResult("notify", Map.of("status", 500));
+
+        // When / Then
+        StepVerifier.create(conditionStepExecutor.execute(step, context))
+            .assertNext(result -> assertThat(result).asInstanceOf(MAP).containsEntry("result", true))
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectUnparseableExpressionWhenPreparing() {
+        // Given
+        StepDefinition step = new StepDefinition("check", "condition", Map.of("expression", "#batchSize >"),
+            null, "big", "small");
+
+        // When / Then
+        assertThatThrownBy(() -> conditionStepExecutor.prepare(step))
+            .isInstanceOf(RuntimeException.class);
+    }
+}
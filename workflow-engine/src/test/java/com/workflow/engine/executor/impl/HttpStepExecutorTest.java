@@ -0,0 +1,71 @@
+package com.workflow.engine.executor.impl;
+
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.StepDefinition;
+import com.workflow.engine.tracing.InMemoryTraceExporter;
+import com.workflow.engine.tracing.WorkflowTracer;
+import com.workflow.storage.entity.WorkflowInstance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+class HttpStepExecutorTest {
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private HttpStepExecutor httpStepExecutor;
+
+    @BeforeEach
+    void setUp() {
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+            requests.add(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("{\"ok\": true}").build());
+        });
+        httpStepExecutor = new HttpStepExecutor(webClientBuilder, new EngineMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void shouldPropagateTraceContext() {
+        // Given
+        WorkflowTracer tracer = new WorkflowTracer(new InMemoryTraceExporter(10, 10), true);
+        StepDefinition step = new StepDefinition("fetch", "http",
+            Map.of("method", "GET", "url", "http://orders.internal/orders/1"), null, null, null);
+        UUID instanceId = UUID.randomUUID();
+        Mono<Object> request = tracer.trace("execute http", Map.of(),
+            httpStepExecutor.execute(step, new ExecutionContext(instanceId, Map.of())));
+
+        // When
+        tracer.traceInstance(instanceId, "orders", request.thenReturn(WorkflowInstance.create(instanceId, "{}"))).block();
+
+        // Then
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).headers().getFirst("traceparent")).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+    }
+
+    @Test
+    void shouldNotAddTraceparentOutsideATrace() {
+        // Given
+        StepDefinition step = new StepDefinition("fetch", "http",
+            Map.of("method", "GET", "url", "http://orders.internal/orders/1"), null, null, null);
+
+        // When / Then
+        StepVerifier.create(httpStepExecutor.execute(step, new ExecutionContext(UUID.randomUUID(), Map.of())))
+            .assertNext(result -> assertThat(result).asInstanceOf(MAP).containsEntry("status", 200))
+            .verifyComplete();
+        assertThat(requests.get(0).headers().containsKey("traceparent")).isFalse();
+    }
+}
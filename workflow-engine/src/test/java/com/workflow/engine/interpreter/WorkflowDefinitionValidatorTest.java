@@ -0,0 +1,85 @@
+package com.workflow.engine.interpreter;
+
+import com.workflow.engine.executor.impl.HttpStepExecutor;
+import com.workflow.engine.executor.impl.LogStepExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.registry.StepExecutorRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkflowDefinitionValidatorTest {
+
+    private final WorkflowYamlParser parser = new WorkflowYamlParser();
+    private WorkflowDefinitionValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        StepExecutorRegistry registry = new StepExecutorRegistry(
+            List.of(new LogStepExecutor(), new HttpStepExecutor(WebClient.builder(), metrics)), metrics);
+        validator = new WorkflowDefinitionValidator(registry);
+    }
+
+    private WorkflowDefinitionModel httpWorkflow(String method) {
+        return parser.parseWorkflow("""
+            name: fetch-order
+            steps:
+              - id: fetch
+                type: http
+                method: %s
+                url: http://orders.internal/orders/1
+            """.formatted(method));
+    }
+
+    @Test
+    void shouldRejectUnknownHttpMethod() {
+        // Given
+        WorkflowDefinitionModel model = httpWorkflow("GTE");
+
+        // When / Then
+        assertThatThrownBy(() -> validator.validate(model))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("step 'fetch': Unknown HTTP method 'GTE'");
+    }
+
+    @Test
+    void shouldAcceptStandardHttpMethodInAnyCase() {
+        // Given
+        WorkflowDefinitionModel model = httpWorkflow("post");
+
+        // When / Then
+        assertThatCode(() -> validator.validate(model)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void shouldReportEveryProblemAtOnce() {
+        // Given
+        WorkflowDefinitionModel model = parser.parseWorkflow("""
+            name: broken
+            weight: 0
+            steps:
+              - id: greet
+                type: log
+                message: hello
+                next: missing
+              - id: greet
+                type: teleport
+            """);
+
+        // When / Then
+        assertThatThrownBy(() -> validator.validate(model))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("weight must be at least 1")
+            .hasMessageContaining("duplicate step id 'greet'")
+            .hasMessageContaining("unknown type 'teleport'")
+            .hasMessageContaining("refers to unknown step 'missing'");
+    }
+}
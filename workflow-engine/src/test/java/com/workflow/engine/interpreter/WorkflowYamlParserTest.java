@@ -1,5 +1,6 @@
 package com.workflow.engine.interpreter;
 
+import com.workflow.engine.model.Priority;
 import com.workflow.engine.model.StepDefinition;
 import com.workflow.engine.model.WorkflowDefinitionModel;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,4 +87,32 @@ class WorkflowYamlParserTest {
         assertThat(conditionStep.onTrue()).isEqualTo("success-step");
         assertThat(conditionStep.onFalse()).isEqualTo("error-step");
     }
+
+    @Test
+    void shouldParseSchedulingDefaults() {
+        // Given
+        String yaml = """
+            name: backfill
+            priority: Low
+            weight: 2
+            maxConcurrency: 3
+            steps:
+              - id: log
+                type: log
+                message: hello
+            """;
+
+        // When
+        WorkflowDefinitionModel workflow = yamlParser.parseWorkflow(yaml);
+
+        // Then
+        assertThat(workflow.priority()).isEqualTo(Priority.LOW);
+        assertThat(workflow.weight()).isEqualTo(2);
+        assertThat(workflow.maxConcurrency()).isEqualTo(3);
+        assertThat(yamlParser.parseWorkflow(yaml.replace("maxConcurrency: 3\n", "")).maxConcurrency()).isZero();
+        assertThat(yamlParser.parseWorkflow(yaml.replace("priority: Low\n", "")).priority()).isEqualTo(Priority.NORMAL);
+        assertThatThrownBy(() -> yamlParser.parseWorkflow(yaml.replace("Low", "urgent")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unknown priority 'urgent'");
+    }
 }
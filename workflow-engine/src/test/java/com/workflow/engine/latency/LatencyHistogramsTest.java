@@ -0,0 +1,136 @@
+package com.workflow.engine.latency;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramsTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T12:00:00Z");
+
+    private Instant now = T0;
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+    private final LatencyHistograms histograms = new LatencyHistograms(Duration.ofMinutes(5), 10, clock);
+
+    @Test
+    void shouldRotateRecordedValuesIntoIntervals() {
+        // Given
+        for (int i = 1; i <= 100; i++) {
+            histograms.record("order", "fetch", i * 1000L);
+        }
+        histograms.record("order", null, 250_000);
+        now = T0.plusSeconds(10);
+
+        // When
+        List<LatencyInterval> closed = histograms.rotate();
+
+        // Then
+        assertThat(closed).hasSize(2);
+        LatencyInterval fetch = closed.stream().filter(interval -> "fetch".equals(interval.stepId())).findFirst().orElseThrow();
+        assertThat(fetch.start()).isEqualTo(T0);
+        assertThat(fetch.end()).isEqualTo(T0.plusSeconds(10));
+        assertThat(fetch.histogram().getTotalCount()).isEqualTo(100);
+        assertThat(histograms.intervals("order", T0)).hasSize(2);
+        assertThat(histograms.intervals("other", T0)).isEmpty();
+    }
+
+    @Test
+    void shouldDropIntervalsOutsideRetention() {
+        // Given
+        histograms.record("order", "fetch", 1000);
+        now = T0.plusSeconds(10);
+        histograms.rotate();
+
+        // When
+        now = T0.plus(Duration.ofMinutes(10));
+        List<LatencyInterval> closed = histograms.rotate();
+
+        // Then
+        assertThat(closed).isEmpty();
+        assertThat(histograms.intervals("order", T0.minusSeconds(1))).isEmpty();
+    }
+
+    @Test
+    void shouldDropSamplesBeyondSeriesLimit() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            histograms.record("order", "step-" + i, 1000);
+        }
+
+        // When
+        histograms.record("order", "step-10", 1000);
+
+        // Then
+        assertThat(histograms.droppedSamples()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMergeIntervalsIntoWindowAndPoints() {
+        // Given
+        List<LatencyInterval> intervals = List.of(
+            interval("fetch", 0, 10, 10_000, 100),
+            interval("fetch", 10, 20, 20_000, 100),
+            interval("fetch", 60, 70, 100_000, 100),
+            interval(null, 60, 70, 500_000, 10)
+        );
+
+        // When
+        LatencyReport report = LatencyReport.of("order", "node", intervals, T0, T0.plusSeconds(120),
+            Duration.ofMinutes(1));
+
+        // Then
+        assertThat(report.series()).extracting(LatencyReport.Series::stepId).containsExactly(null, "fetch");
+        LatencyReport.Series fetch = report.series().get(1);
+        assertThat(fetch.window().count()).isEqualTo(300);
+        assertThat(fetch.window().p50Millis()).isCloseTo(20, within(0.5));
+        assertThat(fetch.window().p99Millis()).isCloseTo(100, within(1.0));
+        assertThat(fetch.points()).extracting(LatencyReport.Point::start)
+            .containsExactly(T0, T0.plusSeconds(60));
+        assertThat(fetch.points().get(0).latency().count()).isEqualTo(200);
+        assertThat(fetch.points().get(0).latency().maxMillis()).isCloseTo(20, within(0.5));
+    }
+
+    @Test
+    void shouldRoundTripSnapshotEncoding() {
+        // Given
+        Histogram histogram = new Histogram(2);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 37L);
+        }
+
+        // When
+        Histogram decoded = LatencySnapshots.decode(LatencySnapshots.encode(histogram));
+
+        // Then
+        assertThat(decoded).isEqualTo(histogram);
+    }
+
+    private static LatencyInterval interval(String stepId, int startSeconds, int endSeconds, long micros, int count) {
+        Histogram histogram = new Histogram(2);
+        histogram.recordValueWithCount(micros, count);
+        return new LatencyInterval("order", stepId, T0.plusSeconds(startSeconds), T0.plusSeconds(endSeconds), histogram);
+    }
+}
@@ -0,0 +1,62 @@
+package com.workflow.engine.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EngineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new EngineMetrics(meterRegistry);
+    }
+
+    @Test
+    void shouldRecordStepDurationByOutcome() {
+        // Given
+        EngineMetrics.Outcomes timers = metrics.stepTimers("log");
+
+        // When
+        StepVerifier.create(timers.time(Mono.just("done"))).expectNext("done").verifyComplete();
+        StepVerifier.create(timers.time(Mono.error(new IllegalStateException("boom")))).verifyError();
+
+        // Then
+        assertThat(meterRegistry.get("workflow.step.duration").tag("type", "log").tag("outcome", "success").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("workflow.step.duration").tag("type", "log").tag("outcome", "failure").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void shouldTrackExecutingInstancesWhileSubscribed() {
+        // Given
+        Mono<String> execution = metrics.trackExecuting(Mono.fromCallable(
+            () -> String.valueOf(meterRegistry.get("workflow.instances.executing").gauge().value())));
+
+        // When / Then
+        StepVerifier.create(execution).expectNext("1.0").verifyComplete();
+        assertThat(meterRegistry.get("workflow.instances.executing").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldFoldHostsBeyondLimitIntoOther() {
+        // When
+        for (int i = 0; i <= EngineMetrics.MAX_HTTP_HOSTS; i++) {
+            metrics.timeHttp("host-" + i, Mono.just(i)).block();
+        }
+
+        // Then
+        assertThat(meterRegistry.get("workflow.http.client.duration").tag("outcome", "success").timers())
+            .hasSize(EngineMetrics.MAX_HTTP_HOSTS + 1);
+        assertThat(meterRegistry.get("workflow.http.client.duration").tag("host", "other").tag("outcome", "success")
+            .timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,144 @@
+package com.workflow.engine.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentMapTest {
+
+    /**
+     * Keys with a chosen hash code, to force collisions and deep tries.
+     */
+    private record Key(String name, int hash) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomUpdates() {
+        // Given
+        Random random = new Random(42);
+        Map<Key, Integer> expected = new HashMap<>();
+        PersistentMap<Key, Integer> actual = PersistentMap.empty();
+
+        // When
+        for (int i = 0; i < 20_000; i++) {
+            // Few distinct hashes, so many keys share every hash bit
+            Key key = new Key("key-" + random.nextInt(2_000), random.nextInt(300) * 0x9E3779B9);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.without(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.with(key, i);
+            }
+        }
+
+        // Then
+        assertThat(actual).hasSize(expected.size());
+        assertThat(actual).isEqualTo(expected);
+        assertThat(Map.copyOf(actual)).isEqualTo(expected);
+        for (Key key : expected.keySet()) {
+            assertThat(actual.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+
+    @Test
+    void shouldDiffAgainstEarlierVersion() {
+        // Given
+        Random random = new Random(7);
+        PersistentMap<Key, Integer> base = PersistentMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            base = base.with(new Key("key-" + i, random.nextInt(1_000) * 0x9E3779B9), i);
+        }
+        PersistentMap<Key, Integer> current = base;
+        Map<Key, Integer> expectedChanges = new HashMap<>();
+        List<Key> keys = List.copyOf(base.keySet());
+        for (int i = 0; i < 50; i++) {
+            Key key = keys.get(random.nextInt(keys.size()));
+            current = current.with(key, -i);
+            expectedChanges.put(key, -i);
+        }
+        Key added = new Key("added", 12345);
+        current = current.with(added, 1);
+        expectedChanges.put(added, 1);
+        Key removed = keys.get(0);
+        current = current.without(removed);
+        expectedChanges.remove(removed);
+
+        // When
+        Map<Key, Integer> changes = new HashMap<>();
+        List<Key> removals = new ArrayList<>();
+        current.diff(base, new PersistentMap.Changes<>() {
+            @Override
+            public void changed(Key key, Integer value) {
+                changes.put(key, value);
+            }
+
+            @Override
+            public void removed(Key key) {
+                removals.add(key);
+            }
+        });
+
+        // Then
+        assertThat(changes).isEqualTo(expectedChanges);
+        assertThat(removals).containsExactly(removed);
+    }
+
+    @Test
+    void shouldLeaveEarlierVersionsUnchanged() {
+        // Given
+        PersistentMap<String, Object> base = PersistentMap.<String, Object>empty()
+            .with("a", 1)
+            .with("b", 2);
+
+        // When
+        PersistentMap<String, Object> changed = base.with("a", 10).without("b").with("c", null);
+
+        // Then
+        assertThat(base).containsExactlyInAnyOrderEntriesOf(Map.of("a", 1, "b", 2));
+        assertThat(changed).hasSize(2).containsEntry("a", 10).containsEntry("c", null);
+        assertThat(changed.containsKey("c")).isTrue();
+        assertThat(changed.containsKey("b")).isFalse();
+    }
+
+    @Test
+    void shouldReturnSameMapWhenNothingChanges() {
+        // Given
+        Object value = new Object();
+        PersistentMap<String, Object> map = PersistentMap.<String, Object>empty().with("a", value);
+
+        // When / Then
+        assertThat(map.with("a", value)).isSameAs(map);
+        assertThat(map.without("missing")).isSameAs(map);
+    }
+
+    @Test
+    void shouldForkExecutionContextsIndependently() {
+        // Given
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID(), Map.of("batchSize", 100));
+        context.setStepResult("fetch", "fetched");
+
+        // When
+        ExecutionContext fork = context.copy();
+        fork.setStepResult("left", "left-result");
+        context.setStepResult("right", "right-result");
+
+        // Then
+        assertThat(fork.getStepResults()).containsOnlyKeys("fetch", "left");
+        assertThat(context.getStepResults()).containsOnlyKeys("fetch", "right");
+        assertThat(fork.getVariable("result")).isEqualTo("left-result");
+        assertThat(context.getVariable("result")).isEqualTo("right-result");
+        assertThat(List.of(fork.getVariable("batchSize"), context.getVariable("batchSize"))).containsOnly(100);
+    }
+}
@@ -0,0 +1,124 @@
+package com.workflow.engine.profile;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstanceProfileTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final UUID instanceId = UUID.randomUUID();
+
+    @Test
+    void shouldBreakDownSequentialInstanceFromTimestamps() {
+        // Given
+        WorkflowInstance instance = instance("COMPLETED", 0, 40_000);
+        List<WorkflowStep> steps = List.of(
+            step("fetch", "http", "COMPLETED", 500, 1_500),
+            step("wait", "delay", "COMPLETED", 1_600, 31_600),
+            step("save", "http", "COMPLETED", 31_700, 39_700)
+        );
+
+        // When
+        InstanceProfile profile = InstanceProfile.of(instance, steps, null, T0.plusSeconds(60));
+
+        // Then
+        assertThat(profile.source()).isEqualTo("timestamps");
+        assertThat(profile.running()).isFalse();
+        assertThat(profile.wallMillis()).isEqualTo(40_000);
+        assertThat(profile.breakdown().queueWaitMillis()).isEqualTo(500);
+        assertThat(profile.breakdown().stepExecutionMillis()).isEqualTo(9_000);
+        assertThat(profile.breakdown().timerWaitMillis()).isEqualTo(30_000);
+        assertThat(profile.breakdown().persistenceMillis()).isNull();
+        assertThat(profile.breakdown().otherMillis()).isEqualTo(500);
+        assertThat(profile.criticalPath()).extracting(InstanceProfile.StepTiming::stepId)
+            .containsExactly("fetch", "wait", "save");
+        assertThat(profile.criticalPath()).extracting(InstanceProfile.StepTiming::waitBeforeMillis)
+            .containsExactly(500.0, 100.0, 100.0);
+    }
+
+    @Test
+    void shouldPreferEngineCountersWhenAvailable() {
+        // Given
+        ExecutionProfiler profiler = new ExecutionProfiler(10);
+        Mono<String> execution = profiler.timePersistence(Mono.delay(Duration.ofMillis(20)).thenReturn("saved"))
+            .then(profiler.timeExecution("http", Mono.delay(Duration.ofMillis(30)).thenReturn("called")))
+            .then(profiler.timeExecution("delay", Mono.delay(Duration.ofMillis(40)).thenReturn("waited")));
+        profiler.profile(instanceId, execution).block();
+        ExecutionCounters counters = profiler.counters(instanceId).orElseThrow();
+        WorkflowInstance instance = instance("COMPLETED", 0, 1_000);
+
+        // When
+        InstanceProfile profile = InstanceProfile.of(instance, List.of(), counters, T0.plusSeconds(60));
+
+        // Then
+        assertThat(profile.source()).isEqualTo("engine");
+        assertThat(counters.persistenceCalls()).isEqualTo(1);
+        assertThat(profile.breakdown().persistenceMillis()).isGreaterThanOrEqualTo(20);
+        assertThat(profile.breakdown().stepExecutionMillis()).isGreaterThanOrEqualTo(30);
+        assertThat(profile.breakdown().timerWaitMillis()).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    void shouldCountFailedAttemptsFollowedByAnotherAttemptAsRetries() {
+        // Given
+        WorkflowInstance instance = instance("RUNNING", 0, 0);
+        List<WorkflowStep> steps = List.of(
+            step("fetch", "http", "FAILED", 0, 2_000),
+            step("fetch", "http", "COMPLETED", 3_000, 4_000),
+            step("poll", "http", "COMPLETED", 4_000, 4_500),
+            step("poll", "http", "COMPLETED", 4_500, 5_000),
+            step("save", "http", "RUNNING", 5_000, -1)
+        );
+
+        // When
+        InstanceProfile profile = InstanceProfile.of(instance, steps, null, T0.plusSeconds(6));
+
+        // Then
+        assertThat(profile.running()).isTrue();
+        assertThat(profile.wallMillis()).isEqualTo(6_000);
+        assertThat(profile.retries().attempts()).isEqualTo(1);
+        assertThat(profile.retries().millis()).isEqualTo(2_000);
+        assertThat(profile.steps()).last().extracting(InstanceProfile.StepTiming::durationMillis).isEqualTo(1_000.0);
+    }
+
+    @Test
+    void shouldFollowTheSlowestBranchOnTheCriticalPath() {
+        // Given
+        WorkflowInstance instance = instance("COMPLETED", 0, 10_000);
+        List<WorkflowStep> steps = List.of(
+            step("split", "log", "COMPLETED", 0, 100),
+            step("fast", "http", "COMPLETED", 200, 1_000),
+            step("slow", "http", "COMPLETED", 150, 8_000),
+            step("join", "log", "COMPLETED", 8_500, 9_000)
+        );
+
+        // When
+        InstanceProfile profile = InstanceProfile.of(instance, steps, null, T0.plusSeconds(60));
+
+        // Then
+        assertThat(profile.steps()).hasSize(4);
+        assertThat(profile.criticalPath()).extracting(InstanceProfile.StepTiming::stepId)
+            .containsExactly("split", "slow", "join");
+        assertThat(profile.criticalPath().get(2).waitBeforeMillis()).isEqualTo(500.0);
+    }
+
+    private WorkflowInstance instance(String status, long createdMillis, long completedMillis) {
+        LocalDateTime completed = completedMillis > 0 ? T0.plusNanos(completedMillis * 1_000_000) : null;
+        return new WorkflowInstance(instanceId, UUID.randomUUID(), status, null, "{}", null, null,
+            T0.plusNanos(createdMillis * 1_000_000), completed, completed, 0L);
+    }
+
+    private WorkflowStep step(String stepId, String type, String status, long startMillis, long endMillis) {
+        return new WorkflowStep(UUID.randomUUID(), instanceId, stepId, type, "{}", status, null, null, null,
+            T0.plusNanos(startMillis * 1_000_000), endMillis >= 0 ? T0.plusNanos(endMillis * 1_000_000) : null, 0, 3);
+    }
+}
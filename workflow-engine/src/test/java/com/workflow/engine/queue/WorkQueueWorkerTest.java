@@ -0,0 +1,129 @@
+package com.workflow.engine.queue;
+
+import com.workflow.engine.executor.WorkflowExecutor;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import com.workflow.engine.registry.WorkflowDefinitionCache;
+import com.workflow.engine.scheduling.ConcurrencyLimitReachedException;
+import com.workflow.storage.entity.WorkItem;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.WorkItemRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkQueueWorkerTest {
+
+    private static final String NODE_ID = "node-1";
+
+    @Mock
+    private WorkItemRepository workItemRepository;
+    @Mock
+    private WorkflowStateStore stateStore;
+    @Mock
+    private WorkflowDefinitionCache definitionCache;
+    @Mock
+    private WorkflowExecutor workflowExecutor;
+
+    private WorkQueueWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        EngineMetrics metrics = new EngineMetrics(new SimpleMeterRegistry());
+        worker = new WorkQueueWorker(workItemRepository, stateStore, definitionCache, workflowExecutor,
+            new WorkItemLeases(workItemRepository, metrics, NODE_ID), metrics, 10, 100, 3, Duration.ofSeconds(30),
+            Duration.ofSeconds(1));
+    }
+
+    private static WorkItem item(WorkflowInstance instance, int attempts) {
+        return new WorkItem(UUID.randomUUID(), instance.id(), null, NODE_ID, LocalDateTime.now().plusSeconds(30),
+            attempts, null, null, null, null, LocalDateTime.now());
+    }
+
+    @Test
+    void shouldFailInstanceAndDropItemAfterMaxAttempts() {
+        // Given
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{}");
+        WorkItem exhausted = item(instance, 4);
+        when(workItemRepository.claimBatch(eq(NODE_ID), anyLong(), anyInt())).thenReturn(Flux.just(exhausted));
+        when(stateStore.findInstance(instance.id())).thenReturn(Mono.just(instance));
+        when(workflowExecutor.failInstance(any(), any())).thenAnswer(invocation -> Mono.just(instance.withError("gave up")));
+        when(workItemRepository.complete(exhausted.id(), NODE_ID)).thenReturn(Mono.just(1));
+
+        // When
+        worker.poll();
+
+        // Then
+        verify(workflowExecutor).failInstance(instance, "Gave up after 3 attempts");
+        verify(workItemRepository).complete(exhausted.id(), NODE_ID);
+        verify(definitionCache, never()).getById(any());
+    }
+
+    @Test
+    void shouldReturnItemToQueueWhenDefinitionIsAtMaxConcurrency() {
+        // Given
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{}");
+        WorkItem limited = item(instance, 1);
+        WorkflowDefinitionModel model = new WorkflowDefinitionModel("fragile", "1.0.0", List.of(), Map.of(),
+            Priority.NORMAL, 1, 1);
+        CompiledWorkflowDefinition definition = new CompiledWorkflowDefinition(instance.workflowDefinitionId(),
+            model.name(), model.version(), model);
+        when(workItemRepository.claimBatch(eq(NODE_ID), anyLong(), anyInt())).thenReturn(Flux.just(limited));
+        when(stateStore.findInstance(instance.id())).thenReturn(Mono.just(instance));
+        when(definitionCache.getById(instance.workflowDefinitionId())).thenReturn(Mono.just(definition));
+        when(workflowExecutor.resumeWorkflow(definition, instance, null))
+            .thenReturn(Mono.error(new ConcurrencyLimitReachedException("fragile")));
+        when(workItemRepository.release(limited.id(), NODE_ID, 1.0)).thenReturn(Mono.just(1));
+        PublisherProbe<Integer> completed = PublisherProbe.of(Mono.just(1));
+        when(workItemRepository.complete(limited.id(), NODE_ID)).thenReturn(completed.mono());
+
+        // When
+        worker.poll();
+
+        // Then
+        verify(workItemRepository).release(limited.id(), NODE_ID, 1.0);
+        completed.assertWasNotSubscribed();
+    }
+
+    @Test
+    void shouldRunItemWithinMaxAttempts() {
+        // Given
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{}");
+        WorkItem retried = item(instance, 3);
+        when(workItemRepository.claimBatch(eq(NODE_ID), anyLong(), anyInt())).thenReturn(Flux.just(retried));
+        when(stateStore.findInstance(instance.id())).thenReturn(Mono.just(instance));
+        when(definitionCache.getById(instance.workflowDefinitionId())).thenReturn(Mono.empty());
+        when(workItemRepository.complete(retried.id(), NODE_ID)).thenReturn(Mono.just(1));
+
+        // When
+        worker.poll();
+
+        // Then
+        verify(definitionCache).getById(instance.workflowDefinitionId());
+        verify(workflowExecutor, never()).failInstance(any(), any());
+    }
+}
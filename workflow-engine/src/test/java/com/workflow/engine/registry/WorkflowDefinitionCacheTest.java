@@ -0,0 +1,98 @@
+package com.workflow.engine.registry;
+
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.notify.PostgresNotifications;
+import com.workflow.storage.repository.WorkflowDefinitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowDefinitionCacheTest {
+
+    private static final String YAML = """
+        name: greeting
+        version: 1.0.0
+        steps:
+          - id: greet
+            type: log
+            message: "Hello"
+        """;
+
+    @Mock
+    private WorkflowDefinitionRepository definitionRepository;
+
+    @Mock
+    private PostgresNotifications notifications;
+
+    private WorkflowDefinitionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new WorkflowDefinitionCache(definitionRepository, new WorkflowYamlParser(),
+            new StepExecutorRegistry(List.of(), new EngineMetrics(new SimpleMeterRegistry())), notifications);
+    }
+
+    @Test
+    void shouldReadThroughOnceAndReloadAfterChange() {
+        // Given
+        WorkflowDefinition definition = WorkflowDefinition.create("greeting", YAML, "1.0.0");
+        when(definitionRepository.findByNameAndActive("greeting", true)).thenReturn(Mono.just(definition));
+        when(notifications.notify(WorkflowDefinitionCache.INVALIDATION_CHANNEL, "greeting")).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(cache.getActive("greeting").then(Mono.defer(() -> cache.getActive("greeting"))))
+            .expectNextMatches(compiled -> compiled.id().equals(definition.id()) && compiled.model().steps().size() == 1)
+            .verifyComplete();
+        StepVerifier.create(cache.publishChange("greeting").then(Mono.defer(() -> cache.getActive("greeting"))))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        // Then
+        verify(definitionRepository, times(2)).findByNameAndActive("greeting", true);
+    }
+
+    @Test
+    void shouldDropActiveDefinitionsWhenListeningResumes() {
+        // Given
+        WorkflowDefinition original = WorkflowDefinition.create("greeting", YAML, "1.0.0");
+        WorkflowDefinition redeployed = WorkflowDefinition.create("greeting", YAML.replace("1.0.0", "1.0.1"), "1.0.1");
+        when(definitionRepository.findByNameAndActive("greeting", true))
+            .thenReturn(Mono.just(original), Mono.just(redeployed));
+        AtomicReference<Runnable> onListening = new AtomicReference<>();
+        when(notifications.listen(eq(WorkflowDefinitionCache.INVALIDATION_CHANNEL), any())).thenAnswer(invocation -> {
+            onListening.set(invocation.getArgument(1));
+            return Flux.never();
+        });
+        cache.listenForChanges();
+        StepVerifier.create(cache.getActive("greeting"))
+            .expectNextMatches(compiled -> compiled.id().equals(original.id()))
+            .verifyComplete();
+
+        // When - the connection dropped while another node redeployed, so its NOTIFY never arrived
+        onListening.get().run();
+
+        // Then
+        StepVerifier.create(cache.getActive("greeting"))
+            .expectNextMatches(compiled -> compiled.id().equals(redeployed.id()))
+            .verifyComplete();
+        cache.shutdown();
+    }
+}
@@ -0,0 +1,115 @@
+package com.workflow.engine.registry;
+
+import com.workflow.engine.executor.StepExecutor;
+import com.workflow.engine.interpreter.WorkflowDefinitionValidator;
+import com.workflow.engine.interpreter.WorkflowYamlParser;
+import com.workflow.engine.metrics.EngineMetrics;
+import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.notify.PostgresNotifications;
+import com.workflow.storage.repository.WorkflowDefinitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowDefinitionDeployerTest {
+
+    private static final String V1 = """
+        name: greeting
+        version: 1.0.0
+        steps:
+          - id: greet
+            type: log
+            message: "Hello"
+        """;
+
+    private static final String V1_EDITED = """
+        name: greeting
+        version: 1.0.0
+        steps:
+          - id: greet
+            type: log
+            message: "Hello again"
+        """;
+
+    @Mock
+    private WorkflowDefinitionRepository definitionRepository;
+
+    @Mock
+    private PostgresNotifications notifications;
+
+    private WorkflowDefinitionCache cache;
+    private WorkflowDefinitionDeployer deployer;
+
+    @BeforeEach
+    void setUp() {
+        StepExecutor logExecutor = mock(StepExecutor.class);
+        when(logExecutor.getStepType()).thenReturn("log");
+        WorkflowYamlParser parser = new WorkflowYamlParser();
+        StepExecutorRegistry executorRegistry = new StepExecutorRegistry(List.of(logExecutor),
+            new EngineMetrics(new SimpleMeterRegistry()));
+        cache = new WorkflowDefinitionCache(definitionRepository, parser, executorRegistry, notifications);
+        deployer = new WorkflowDefinitionDeployer(definitionRepository, parser,
+            new WorkflowDefinitionValidator(executorRegistry), cache);
+    }
+
+    @Test
+    void shouldStoreEditWithoutVersionBumpAsFingerprintedVersion() {
+        // Given
+        WorkflowDefinition active = WorkflowDefinition.create("greeting", V1, "1.0.0");
+        when(definitionRepository.findByNameAndActive("greeting", true)).thenReturn(Mono.just(active));
+        when(definitionRepository.findByNameAndVersion("greeting", "1.0.0")).thenReturn(Mono.just(active));
+        when(definitionRepository.findByNameAndVersion(eq("greeting"), startsWith("1.0.0+")))
+            .thenReturn(Mono.empty());
+        when(definitionRepository.insertActive(any(), eq("greeting"), eq(V1_EDITED), anyString())).thenReturn(Mono.just(1));
+        when(notifications.notify(WorkflowDefinitionCache.INVALIDATION_CHANNEL, "greeting")).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(deployer.deploy("greeting", V1_EDITED))
+            .assertNext(deployed -> assertThat(deployed.version()).matches("1\\.0\\.0\\+[0-9a-f]{12}"))
+            .verifyComplete();
+
+        // Then the new version is served from the cache without another lookup
+        StepVerifier.create(cache.getActive("greeting"))
+            .assertNext(compiled -> assertThat(compiled.model().steps().get(0).config()).containsEntry("message", "Hello again"))
+            .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectInvalidDefinitionWithoutWriting() {
+        // Given
+        String broken = """
+            name: greeting
+            steps:
+              - id: greet
+                type: teleport
+                next: nowhere
+            """;
+
+        // When / Then
+        StepVerifier.create(deployer.deploy("greeting", broken))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown type 'teleport'")
+                .hasMessageContaining("unknown step 'nowhere'"))
+            .verify();
+        verify(definitionRepository, never()).insertActive(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,136 @@
+package com.workflow.engine.scheduling;
+
+import com.workflow.engine.model.CompiledWorkflowDefinition;
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    private static CompiledWorkflowDefinition definition(int maxConcurrency) {
+        WorkflowDefinitionModel model = new WorkflowDefinitionModel("fragile", "1.0.0", List.of(), Map.of(),
+            Priority.NORMAL, 1, maxConcurrency);
+        return new CompiledWorkflowDefinition(UUID.randomUUID(), model.name(), model.version(), model);
+    }
+
+    private Mono<String> execution(String label, Sinks.Empty<Void> finish) {
+        return Mono.defer(() -> {
+            started.add(label);
+            return finish.asMono().thenReturn(label);
+        });
+    }
+
+    @Test
+    void shouldAdmitWaitingInstancesInArrivalOrder() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(Optional.empty(), new SimpleMeterRegistry());
+        CompiledWorkflowDefinition definition = definition(2);
+        List<Sinks.Empty<Void>> finishes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Sinks.Empty<Void> finish = Sinks.empty();
+            finishes.add(finish);
+            limiter.admit(definition, UUID.randomUUID(), execution("instance-" + i, finish)).subscribe();
+        }
+
+        // When / Then
+        assertThat(started).containsExactly("instance-0", "instance-1");
+        assertThat(limiter.running("fragile")).isEqualTo(2);
+        assertThat(limiter.waiting("fragile")).isEqualTo(3);
+
+        finishes.get(1).tryEmitEmpty();
+        assertThat(started).containsExactly("instance-0", "instance-1", "instance-2");
+
+        finishes.get(0).tryEmitEmpty();
+        finishes.get(2).tryEmitEmpty();
+        assertThat(started).containsExactly("instance-0", "instance-1", "instance-2", "instance-3", "instance-4");
+        assertThat(limiter.waiting("fragile")).isZero();
+    }
+
+    @Test
+    void shouldFreeTheSlotOfCancelledInstances() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(Optional.empty(), new SimpleMeterRegistry());
+        CompiledWorkflowDefinition definition = definition(1);
+        Disposable running = limiter.admit(definition, UUID.randomUUID(), execution("running", Sinks.empty())).subscribe();
+        Disposable waiting = limiter.admit(definition, UUID.randomUUID(), execution("waiting", Sinks.empty())).subscribe();
+        limiter.admit(definition, UUID.randomUUID(), execution("next", Sinks.empty())).subscribe();
+
+        // When
+        waiting.dispose();
+        running.dispose();
+
+        // Then
+        assertThat(started).containsExactly("running", "next");
+        assertThat(limiter.running("fragile")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotLimitDefinitionsWithoutMaxConcurrency() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(Optional.empty(), new SimpleMeterRegistry());
+        CompiledWorkflowDefinition definition = definition(0);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            limiter.admit(definition, UUID.randomUUID(), execution("instance-" + i, Sinks.empty())).subscribe();
+        }
+
+        // Then
+        assertThat(started).hasSize(3);
+        assertThat(limiter.running("fragile")).isZero();
+    }
+
+    @Test
+    void shouldRejectInsteadOfWaitingWhenClusterSlotsAreHeld() {
+        // Given
+        AtomicBoolean free = new AtomicBoolean();
+        List<UUID> released = new ArrayList<>();
+        ConcurrencySlots slots = new ConcurrencySlots() {
+            @Override
+            public Mono<Boolean> tryAcquire(String definitionName, int maxConcurrency, UUID instanceId) {
+                return Mono.fromSupplier(free::get);
+            }
+
+            @Override
+            public Mono<Void> release(String definitionName, UUID instanceId) {
+                return Mono.fromRunnable(() -> released.add(instanceId));
+            }
+        };
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(Optional.of(slots), new SimpleMeterRegistry());
+        UUID instanceId = UUID.randomUUID();
+        Mono<String> admitted = limiter.admit(definition(1), instanceId, execution("instance", Sinks.empty()));
+
+        // When / Then
+        StepVerifier.create(admitted)
+            .expectError(ConcurrencyLimitReachedException.class)
+            .verify();
+        assertThat(started).isEmpty();
+        assertThat(released).isEmpty();
+
+        free.set(true);
+        Disposable running = admitted.subscribe();
+        assertThat(started).containsExactly("instance");
+        assertThat(limiter.running("fragile")).isEqualTo(1);
+        assertThat(limiter.waiting("fragile")).isZero();
+
+        running.dispose();
+        assertThat(released).containsExactly(instanceId);
+        assertThat(limiter.running("fragile")).isZero();
+    }
+}
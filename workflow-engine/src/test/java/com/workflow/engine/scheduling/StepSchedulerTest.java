@@ -0,0 +1,131 @@
+package com.workflow.engine.scheduling;
+
+import com.workflow.engine.model.Priority;
+import com.workflow.engine.model.WorkflowDefinitionModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepSchedulerTest {
+
+    private final StepScheduler scheduler = new StepScheduler(new SimpleMeterRegistry(), 1, 8, 4, 1, 100);
+    private final List<String> order = new ArrayList<>();
+
+    private static WorkflowDefinitionModel definition(String name, Priority priority, int weight) {
+        return new WorkflowDefinitionModel(name, "1.0.0", List.of(), Map.of(), priority, weight, 0);
+    }
+
+    private Mono<String> step(String label) {
+        return Mono.fromSupplier(() -> {
+            order.add(label);
+            return label;
+        });
+    }
+
+    /**
+     * Takes the only slot until the returned sink completes.
+     */
+    private Sinks.Empty<Void> occupy() {
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        scheduler.schedule(definition("blocker", Priority.NORMAL, 1), blocker.asMono()).subscribe();
+        return blocker;
+    }
+
+    @Test
+    void shouldRunHighPriorityStepsAheadOfBackfill() {
+        // Given
+        Sinks.Empty<Void> blocker = occupy();
+        WorkflowDefinitionModel backfill = definition("backfill", Priority.LOW, 1);
+        WorkflowDefinitionModel checkout = definition("checkout", Priority.HIGH, 1);
+        for (int i = 0; i < 4; i++) {
+            scheduler.schedule(backfill, step("backfill-" + i)).subscribe();
+        }
+        scheduler.schedule(checkout, step("checkout")).subscribe();
+
+        // When
+        blocker.tryEmitEmpty();
+
+        // Then
+        assertThat(order).hasSize(5);
+        assertThat(order.indexOf("checkout")).isLessThanOrEqualTo(1);
+        assertThat(order).containsSubsequence("backfill-0", "backfill-1", "backfill-2", "backfill-3");
+    }
+
+    @Test
+    void shouldShareSlotsByWeight() {
+        // Given
+        Sinks.Empty<Void> blocker = occupy();
+        WorkflowDefinitionModel heavy = definition("heavy", Priority.NORMAL, 3);
+        WorkflowDefinitionModel light = definition("light", Priority.NORMAL, 1);
+        for (int i = 0; i < 8; i++) {
+            scheduler.schedule(heavy, step("heavy")).subscribe();
+            scheduler.schedule(light, step("light")).subscribe();
+        }
+
+        // When
+        blocker.tryEmitEmpty();
+
+        // Then
+        assertThat(order.subList(0, 8)).filteredOn("heavy"::equals).hasSize(6);
+    }
+
+    @Test
+    void shouldQueueTenantsSeparatelyFromDefinition() {
+        // Given
+        Sinks.Empty<Void> blocker = occupy();
+        WorkflowDefinitionModel shared = definition("shared", Priority.NORMAL, 1);
+        for (int i = 0; i < 3; i++) {
+            new Scheduling(null, "noisy").scope(scheduler.schedule(shared, step("noisy"))).subscribe();
+        }
+        new Scheduling(null, "quiet").scope(scheduler.schedule(shared, step("quiet"))).subscribe();
+
+        // When
+        blocker.tryEmitEmpty();
+
+        // Then
+        assertThat(order).containsExactly("noisy", "quiet", "noisy", "noisy");
+        assertThat(scheduler.stats()).extracting(StepScheduler.QueueStats::queue)
+            .contains("tenant:noisy", "tenant:quiet");
+    }
+
+    @Test
+    void shouldSkipCancelledStepsAndReleaseTheirSlot() {
+        // Given
+        Sinks.Empty<Void> blocker = occupy();
+        WorkflowDefinitionModel model = definition("model", Priority.NORMAL, 1);
+        Disposable cancelled = scheduler.schedule(model, step("cancelled")).subscribe();
+        scheduler.schedule(model, step("kept")).subscribe();
+
+        // When
+        cancelled.dispose();
+        blocker.tryEmitEmpty();
+
+        // Then
+        assertThat(order).containsExactly("kept");
+        assertThat(scheduler.stats()).allSatisfy(stats -> assertThat(stats.waiting()).isZero());
+    }
+
+    @Test
+    void shouldDrainLongQueueOfSynchronousSteps() {
+        // Given
+        Sinks.Empty<Void> blocker = occupy();
+        WorkflowDefinitionModel model = definition("model", Priority.NORMAL, 1);
+        for (int i = 0; i < 20_000; i++) {
+            scheduler.schedule(model, step("step")).subscribe();
+        }
+
+        // When
+        blocker.tryEmitEmpty();
+
+        // Then
+        assertThat(order).hasSize(20_000);
+    }
+}
@@ -0,0 +1,117 @@
+package com.workflow.engine.spill;
+
+import com.workflow.engine.executor.impl.ConditionStepExecutor;
+import com.workflow.engine.model.ExecutionContext;
+import com.workflow.engine.model.SpilledValue;
+import com.workflow.engine.model.StepDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillStoreTest {
+
+    private static final String BODY = "x".repeat(4096);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SpillStore store(DataSize maxMemory) {
+        return new SpillStore(meterRegistry, true, DataSize.ofKilobytes(1), maxMemory, directory);
+    }
+
+    @Test
+    void shouldKeepSmallValuesOnHeap() {
+        // Given
+        SpillStore store = store(DataSize.ofMegabytes(1));
+        Map<String, Object> small = Map.of("status", 200, "body", "ok");
+
+        // When / Then
+        assertThat(store.spill(small)).isSameAs(small);
+        assertThat(store.memoryBytes()).isZero();
+    }
+
+    @Test
+    void shouldSpillLargeValuesToMemoryAndMaterializeThem() {
+        // Given
+        SpillStore store = store(DataSize.ofMegabytes(1));
+        Map<String, Object> response = Map.of("status", 200, "body", BODY, "tags", List.of("a", "b"));
+
+        // When
+        Object spilled = store.spill(response);
+
+        // Then
+        assertThat(spilled).isInstanceOf(SpilledValue.class);
+        SpilledValue handle = (SpilledValue) spilled;
+        assertThat(handle.materialize()).isEqualTo(response);
+        assertThat(handle.materialize()).isSameAs(handle.materialize());
+        assertThat(store.memoryBytes()).isEqualTo(handle.size());
+        assertThat(meterRegistry.get("workflow.spill.bytes").tag("tier", "memory").gauge().value())
+            .isEqualTo(handle.size());
+        assertThat(meterRegistry.get("workflow.spill.written").functionCounter().count()).isEqualTo(handle.size());
+    }
+
+    @Test
+    void shouldSpillToMappedFilesBeyondMemoryBudget() {
+        // Given
+        SpillStore store = store(DataSize.ofBytes(0));
+
+        // When
+        SpilledValue handle = (SpilledValue) store.spill(BODY);
+
+        // Then
+        assertThat(handle.materialize()).isEqualTo(BODY);
+        assertThat(store.memoryBytes()).isZero();
+        assertThat(store.fileBytes()).isEqualTo(handle.size());
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldMaterializeSpilledVariablesThroughContext() {
+        // Given
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID(), Map.of(), store(DataSize.ofMegabytes(1)));
+        Map<String, Object> response = Map.of("status", 200, "body", BODY);
+
+        // When
+        context.setStepResult("fetch", response);
+        context.setVariable("payload", BODY);
+
+        // Then
+        assertThat(context.getVariables().get("payload")).isInstanceOf(SpilledValue.class);
+        assertThat(context.getStepResults().get("fetch")).isInstanceOf(SpilledValue.class);
+        assertThat(context.getVariable("payload")).isEqualTo(BODY);
+        assertThat(context.getLastResult()).isEqualTo(response);
+        assertThat(context.copy().getVariables().get("payload")).isSameAs(context.getVariables().get("payload"));
+    }
+
+    @Test
+    void shouldEvaluateConditionsAgainstSpilledResults() {
+        // Given
+        ExecutionContext context = new ExecutionContext(UUID.randomUUID(), Map.of(), store(DataSize.ofMegabytes(1)));
+        context.setStepResult("fetch", Map.of("status", 200, "body", BODY));
+        StepDefinition step = new StepDefinition("check", "condition",
+            Map.of("expression", "#steps['fetch']['status'] == 200 && #result['body'].length() == 4096"),
+            null, "ok", "failed");
+
+        // When
+        new ConditionStepExecutor().execute(step, context).block();
+
+        // Then
+        assertThat(context.isConditionResult()).isTrue();
+    }
+
+    @Test
+    void shouldStopEstimatingOnceLimitIsReached() {
+        assertThat(SpillStore.estimate("abc", 0, 100)).isEqualTo(5);
+        assertThat(SpillStore.estimate(List.of(BODY, BODY, BODY), 0, 100)).isLessThan(2 * BODY.length());
+    }
+}
@@ -0,0 +1,113 @@
+package com.workflow.engine.stats;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStatusCount;
+import com.workflow.storage.repository.WorkflowStatusCountRepository;
+import com.workflow.storage.store.WorkflowStateStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WorkflowStatusCountersTest {
+
+    @Mock
+    private WorkflowStatusCountRepository countRepository;
+
+    @Mock
+    private WorkflowStateStore stateStore;
+
+    private WorkflowStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new WorkflowStatusCounters(countRepository, stateStore, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldTrackStatusTransitionsPerDefinition() {
+        // Given
+        UUID definitionId = UUID.randomUUID();
+        WorkflowInstance pending = WorkflowInstance.create(definitionId, "{}");
+        WorkflowInstance running = pending.withStatus("RUNNING");
+
+        // When
+        counters.onInstanceTransition(pending, null);
+        counters.onInstanceTransition(WorkflowInstance.create(definitionId, "{}"), null);
+        counters.onInstanceTransition(running, "PENDING");
+        counters.onInstanceTransition(running.withStatus("COMPLETED"), "RUNNING");
+
+        // Then
+        Map<WorkflowStatusCounters.Key, Long> snapshot = counters.snapshot();
+        assertThat(snapshot)
+            .containsEntry(new WorkflowStatusCounters.Key(definitionId, "PENDING"), 1L)
+            .containsEntry(new WorkflowStatusCounters.Key(definitionId, "COMPLETED"), 1L)
+            .doesNotContainKey(new WorkflowStatusCounters.Key(definitionId, "RUNNING"));
+    }
+
+    @Test
+    void shouldNotCountTransitionsBeforeStartupTwice() {
+        // Given - the restarted node saw one instance complete before it was ready,
+        // and the store already holds that instance as COMPLETED
+        UUID definitionId = UUID.randomUUID();
+        WorkflowInstance running = WorkflowInstance.create(definitionId, "{}").withStatus("RUNNING");
+        counters.onInstanceTransition(running.withStatus("COMPLETED"), "RUNNING");
+        when(stateStore.countInstancesByStatus()).thenReturn(Flux.just(count(definitionId, "COMPLETED", 4)));
+        when(countRepository.findAll()).thenReturn(
+            Flux.just(count(definitionId, "COMPLETED", 3), count(definitionId, "RUNNING", 1)),
+            Flux.just(count(definitionId, "COMPLETED", 4), count(definitionId, "RUNNING", 0)));
+        when(countRepository.setCount(any(), anyString(), anyLong())).thenReturn(Mono.just(1));
+
+        // When
+        counters.seed();
+        counters.reconcile();
+
+        // Then
+        assertThat(counters.snapshot())
+            .containsExactlyEntriesOf(Map.of(new WorkflowStatusCounters.Key(definitionId, "COMPLETED"), 4L));
+        verify(countRepository).setCount(definitionId, "COMPLETED", 4);
+        verify(countRepository, never()).applyDelta(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void shouldCorrectDriftedSummaryRowsOnRecount() {
+        // Given - the summary kept deltas of a node that stopped before pushing its decrements
+        UUID definitionId = UUID.randomUUID();
+        when(stateStore.countInstancesByStatus()).thenReturn(Flux.just(count(definitionId, "RUNNING", 2),
+            count(definitionId, "COMPLETED", 7)));
+        when(countRepository.findAll()).thenReturn(Flux.just(count(definitionId, "RUNNING", 5),
+            count(definitionId, "PENDING", 3), count(definitionId, "COMPLETED", 7)));
+        when(countRepository.setCount(any(), anyString(), anyLong())).thenReturn(Mono.just(1));
+
+        // When
+        counters.onInstanceTransition(WorkflowInstance.create(definitionId, "{}").withStatus("RUNNING"), "PENDING");
+        counters.recount();
+
+        // Then
+        verify(countRepository).setCount(definitionId, "RUNNING", 2);
+        verify(countRepository).setCount(definitionId, "PENDING", 0);
+        assertThat(counters.total("RUNNING")).isEqualTo(2);
+        assertThat(counters.total("PENDING")).isZero();
+        assertThat(counters.total("COMPLETED")).isEqualTo(7);
+    }
+
+    private static WorkflowStatusCount count(UUID definitionId, String status, long instanceCount) {
+        return new WorkflowStatusCount(definitionId, status, instanceCount, null);
+    }
+}
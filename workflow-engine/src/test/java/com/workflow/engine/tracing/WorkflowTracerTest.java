@@ -0,0 +1,126 @@
+package com.workflow.engine.tracing;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkflowTracerTest {
+
+    private InMemoryTraceExporter exporter;
+    private WorkflowTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new InMemoryTraceExporter(2, 3);
+        tracer = new WorkflowTracer(exporter, true);
+    }
+
+    @Test
+    void shouldNestSpansUnderTheInstanceTrace() {
+        // Given
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{}");
+        Mono<WorkflowInstance> execution = tracer.trace("step fetch", Map.of("stepId", "fetch"),
+                tracer.trace("persist save-step", Map.of(), Mono.just("saved")))
+            .thenReturn(instance.withStatus("COMPLETED"));
+
+        // When
+        StepVerifier.create(tracer.traceInstance(instance.id(), "orders", execution))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        // Then
+        List<TraceSummary> traces = exporter.recent(instance.id(), 10);
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).inProgress()).isFalse();
+        assertThat(traces.get(0).status()).isEqualTo("OK");
+
+        List<SpanData> spans = exporter.find(traces.get(0).traceId()).orElseThrow().spans();
+        assertThat(spans).extracting(SpanData::name)
+            .containsExactly("persist save-step", "step fetch", "workflow orders");
+        assertThat(spans.get(0).parentSpanId()).isEqualTo(spans.get(1).spanId());
+        assertThat(spans.get(1).parentSpanId()).isEqualTo(spans.get(2).spanId());
+        assertThat(spans.get(2).parentSpanId()).isNull();
+        assertThat(spans.get(2).attributes()).containsEntry("status", "COMPLETED");
+    }
+
+    @Test
+    void shouldExposeTraceparentToOperationsInsideASpan() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+        Mono<String> traceparent = tracer.trace("execute http", Map.of(),
+            Mono.deferContextual(context -> Mono.just(TraceContext.current(context).orElseThrow().traceparent())));
+
+        // When
+        String header = tracer.traceInstance(instanceId, "orders",
+                traceparent.map(value -> WorkflowInstance.create(instanceId, value)))
+            .map(WorkflowInstance::input)
+            .block();
+
+        // Then
+        SpanData httpSpan = exporter.find(exporter.recent(instanceId, 1).get(0).traceId()).orElseThrow().spans().get(0);
+        assertThat(header).matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+        assertThat(header).endsWith("-" + httpSpan.spanId() + "-01");
+    }
+
+    @Test
+    void shouldNotTraceOperationsOutsideAnInstance() {
+        // When
+        StepVerifier.create(tracer.trace("persist enqueue", Map.of(), Mono.just(1)))
+            .expectNext(1)
+            .verifyComplete();
+
+        // Then
+        assertThat(exporter.recent(null, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldEvictTheOldestFinishedTraces() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+        Mono<WorkflowInstance> execution = tracer.trace("step a", Map.of(), Mono.just(1))
+            .then(tracer.trace("step b", Map.of(), Mono.just(2)))
+            .then(tracer.trace("step c", Map.of(), Mono.error(new IllegalStateException("boom"))))
+            .then(Mono.<WorkflowInstance>empty());
+
+        // When
+        StepVerifier.create(tracer.traceInstance(instanceId, "orders", execution)).verifyError();
+        for (int i = 0; i < 2; i++) {
+            tracer.traceInstance(UUID.randomUUID(), "other", Mono.empty()).block();
+        }
+
+        // Then
+        assertThat(exporter.recent(null, 10)).hasSize(2).allMatch(trace -> trace.name().equals("other"));
+        assertThat(exporter.recent(instanceId, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepTheRootWhenSpansOverflow() {
+        // Given
+        UUID instanceId = UUID.randomUUID();
+        Mono<WorkflowInstance> execution = tracer.trace("step a", Map.of(), Mono.just(1))
+            .then(tracer.trace("step b", Map.of(), Mono.just(2)))
+            .then(tracer.trace("step c", Map.of(), Mono.just(3)))
+            .then(tracer.trace("step d", Map.of(), Mono.error(new IllegalStateException("boom"))))
+            .then(Mono.<WorkflowInstance>empty());
+
+        // When
+        StepVerifier.create(tracer.traceInstance(instanceId, "orders", execution)).verifyError();
+
+        // Then
+        TraceSummary summary = exporter.recent(instanceId, 1).get(0);
+        Trace trace = exporter.find(summary.traceId()).orElseThrow();
+        assertThat(summary.status()).isEqualTo("ERROR");
+        assertThat(summary.droppedSpans()).isEqualTo(1);
+        assertThat(trace.spans()).extracting(SpanData::name)
+            .containsExactly("step a", "step b", "step c", "workflow orders");
+        assertThat(trace.spans().get(3).attributes()).containsEntry("error", "boom");
+    }
+}
@@ -0,0 +1,154 @@
+package com.workflow.storage.embedded;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary encoding of instance and step rows for the embedded store. Nullable
+ * values are prefixed with a presence flag; strings are length-prefixed UTF-8
+ * so that large step outputs are not limited to 64 KB.
+ */
+final class EmbeddedRecordCodec {
+
+    static final byte INSTANCE = 1;
+    static final byte STEP = 2;
+
+    private EmbeddedRecordCodec() {
+    }
+
+    static byte[] encodeInstance(WorkflowInstance instance) {
+        return encode(out -> {
+            writeUuid(out, instance.id());
+            writeUuid(out, instance.workflowDefinitionId());
+            writeString(out, instance.status());
+            writeString(out, instance.currentStepId());
+            writeString(out, instance.input());
+            writeString(out, instance.output());
+            writeString(out, instance.errorMessage());
+            writeTimestamp(out, instance.startedAt());
+            writeTimestamp(out, instance.completedAt());
+            writeTimestamp(out, instance.updatedAt());
+            out.writeLong(instance.version());
+        });
+    }
+
+    static WorkflowInstance decodeInstance(ByteBuffer in) {
+        return new WorkflowInstance(
+            readUuid(in),
+            readUuid(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readTimestamp(in),
+            readTimestamp(in),
+            readTimestamp(in),
+            in.getLong()
+        );
+    }
+
+    static byte[] encodeStep(WorkflowStep step) {
+        return encode(out -> {
+            writeUuid(out, step.id());
+            writeUuid(out, step.workflowInstanceId());
+            writeString(out, step.stepId());
+            writeString(out, step.stepType());
+            writeString(out, step.stepConfig());
+            writeString(out, step.status());
+            writeString(out, step.input());
+            writeString(out, step.output());
+            writeString(out, step.errorMessage());
+            writeTimestamp(out, step.startedAt());
+            writeTimestamp(out, step.completedAt());
+            out.writeInt(step.retryCount());
+            out.writeInt(step.maxRetries());
+        });
+    }
+
+    static WorkflowStep decodeStep(ByteBuffer in) {
+        return new WorkflowStep(
+            readUuid(in),
+            readUuid(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readString(in),
+            readTimestamp(in),
+            readTimestamp(in),
+            in.getInt(),
+            in.getInt()
+        );
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return in.get() == 0 ? null : new UUID(in.getLong(), in.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer in) {
+        return in.get() == 0 ? null : LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,227 @@
+package com.workflow.storage.embedded;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.store.WorkflowStateStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node execution state store on local disk. Every save appends the
+ * full row to a {@link SegmentedLog}, and in-memory indexes map instance ids,
+ * statuses and step ids to the offset of the latest record. The indexes are
+ * rebuilt by scanning the segments on startup.
+ *
+ * <p>Every save leaves the record it replaces behind as garbage. A periodic
+ * pass compacts sealed segments in which at least
+ * {@code workflow.embedded.compaction-threshold} of the bytes are garbage, so
+ * the log grows with the number of instances rather than the number of saves.
+ * Instances are never removed, though, so the latest record of every instance
+ * and step stays on disk.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.persistence.mode", havingValue = "embedded")
+public class EmbeddedWorkflowStateStore implements WorkflowStateStore {
+
+    private final Map<UUID, Long> instanceOffsets = new ConcurrentHashMap<>();
+    private final Map<UUID, String> instanceStatuses = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> instancesByStatus = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, Long>> stepOffsets = new ConcurrentHashMap<>();
+    private final double compactionThreshold;
+    private final SegmentedLog log;
+
+    public EmbeddedWorkflowStateStore(@Value("${workflow.embedded.directory:./data/workflow-store}") Path directory,
+                                      @Value("${workflow.embedded.segment-size:64MB}") DataSize segmentSize,
+                                      @Value("${workflow.embedded.fsync-interval:PT0.002S}") Duration fsyncInterval,
+                                      @Value("${workflow.embedded.compaction-threshold:0.5}") double compactionThreshold)
+            throws IOException {
+        this.compactionThreshold = compactionThreshold;
+        // Instance and step ids are both random UUIDs, so one map tracks the origin of either
+        Map<UUID, Long> origins = new HashMap<>();
+        List<Long> superseded = new ArrayList<>();
+        this.log = new SegmentedLog(directory, segmentSize.toBytes(), fsyncInterval,
+            (offset, origin, record) -> replay(offset, origin, record, origins, superseded));
+        superseded.forEach(log::release);
+    }
+
+    @Scheduled(fixedDelayString = "${workflow.embedded.compaction-interval:PT1M}")
+    public void compact() {
+        log.compact(compactionThreshold, this::isLive, this::moved);
+    }
+
+    public int segmentCount() {
+        return log.segmentCount();
+    }
+
+    public long sizeBytes() {
+        return log.sizeBytes();
+    }
+
+    public long garbageBytes() {
+        return log.garbageBytes();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        log.close();
+    }
+
+    @Override
+    public Mono<WorkflowInstance> saveInstance(WorkflowInstance instance) {
+        SegmentedLog.Appended appended = log.append(EmbeddedRecordCodec.INSTANCE, EmbeddedRecordCodec.encodeInstance(instance));
+        // Indexes only point at durable records, so readers never see state a crash could lose
+        return appended.durable()
+            .then(Mono.fromRunnable(() -> release(indexInstance(instance, appended.offset()))))
+            .thenReturn(instance);
+    }
+
+    @Override
+    public Mono<WorkflowStep> saveStep(WorkflowStep step) {
+        SegmentedLog.Appended appended = log.append(EmbeddedRecordCodec.STEP, EmbeddedRecordCodec.encodeStep(step));
+        return appended.durable()
+            .then(Mono.fromRunnable(() -> release(indexStep(step, appended.offset()))))
+            .thenReturn(step);
+    }
+
+    @Override
+    public Mono<WorkflowInstance> findInstance(UUID instanceId) {
+        return Mono.justOrEmpty(instanceOffsets.get(instanceId))
+            .map(this::readInstance);
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findAllInstances() {
+        return Flux.fromIterable(List.copyOf(instanceOffsets.values()))
+            .map(this::readInstance);
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findInstancesByStatus(String status) {
+        return Flux.fromIterable(List.copyOf(instancesByStatus.getOrDefault(status, Set.of())))
+            .flatMap(this::findInstance);
+    }
+
+    @Override
+    public Flux<WorkflowStep> findSteps(UUID instanceId) {
+        Map<UUID, Long> offsets = stepOffsets.get(instanceId);
+        if (offsets == null) {
+            return Flux.empty();
+        }
+        List<Long> snapshot;
+        synchronized (offsets) {
+            snapshot = List.copyOf(offsets.values());
+        }
+        return Flux.fromIterable(snapshot).map(this::readStep);
+    }
+
+    private void replay(long offset, long origin, ByteBuffer record, Map<UUID, Long> origins, List<Long> superseded) {
+        ByteBuffer payload = record.duplicate();
+        byte type = payload.get();
+        Long replaced = null;
+        if (type == EmbeddedRecordCodec.INSTANCE) {
+            WorkflowInstance instance = EmbeddedRecordCodec.decodeInstance(payload);
+            replaced = isLatest(origins, instance.id(), origin) ? indexInstance(instance, offset) : Long.valueOf(offset);
+        } else if (type == EmbeddedRecordCodec.STEP) {
+            WorkflowStep step = EmbeddedRecordCodec.decodeStep(payload);
+            replaced = isLatest(origins, step.id(), origin) ? indexStep(step, offset) : Long.valueOf(offset);
+        }
+        if (replaced != null) {
+            superseded.add(replaced);
+        }
+    }
+
+    // A copy made by compaction can sit after a newer save of the same row, so the later origin wins, not the later offset
+    private static boolean isLatest(Map<UUID, Long> origins, UUID id, long origin) {
+        Long latest = origins.get(id);
+        if (latest != null && latest > origin) {
+            return false;
+        }
+        origins.put(id, origin);
+        return true;
+    }
+
+    private boolean isLive(long offset, ByteBuffer record) {
+        ByteBuffer payload = record.duplicate();
+        byte type = payload.get();
+        if (type == EmbeddedRecordCodec.INSTANCE) {
+            return Long.valueOf(offset).equals(instanceOffsets.get(EmbeddedRecordCodec.decodeInstance(payload).id()));
+        }
+        if (type == EmbeddedRecordCodec.STEP) {
+            WorkflowStep step = EmbeddedRecordCodec.decodeStep(payload);
+            Map<UUID, Long> offsets = stepOffsets.get(step.workflowInstanceId());
+            return offsets != null && Long.valueOf(offset).equals(offsets.get(step.id()));
+        }
+        return false;
+    }
+
+    private void moved(long from, long to, ByteBuffer record) {
+        ByteBuffer payload = record.duplicate();
+        byte type = payload.get();
+        boolean repointed = false;
+        if (type == EmbeddedRecordCodec.INSTANCE) {
+            repointed = instanceOffsets.replace(EmbeddedRecordCodec.decodeInstance(payload).id(), from, to);
+        } else if (type == EmbeddedRecordCodec.STEP) {
+            WorkflowStep step = EmbeddedRecordCodec.decodeStep(payload);
+            Map<UUID, Long> offsets = stepOffsets.get(step.workflowInstanceId());
+            repointed = offsets != null && offsets.replace(step.id(), from, to);
+        }
+        if (!repointed) {
+            // A save of the same row landed while the copy was in flight
+            log.release(to);
+        }
+    }
+
+    private void release(Long superseded) {
+        if (superseded != null) {
+            log.release(superseded);
+        }
+    }
+
+    private Long indexInstance(WorkflowInstance instance, long offset) {
+        Long superseded = instanceOffsets.put(instance.id(), offset);
+        String previous = instanceStatuses.put(instance.id(), instance.status());
+        if (previous != null && !previous.equals(instance.status())) {
+            instancesByStatus.getOrDefault(previous, Set.of()).remove(instance.id());
+        }
+        instancesByStatus.computeIfAbsent(instance.status(), status -> ConcurrentHashMap.newKeySet()).add(instance.id());
+        return superseded;
+    }
+
+    private Long indexStep(WorkflowStep step, long offset) {
+        Map<UUID, Long> offsets = stepOffsets.computeIfAbsent(step.workflowInstanceId(),
+            id -> Collections.synchronizedMap(new LinkedHashMap<>()));
+        return offsets.put(step.id(), offset);
+    }
+
+    private WorkflowInstance readInstance(long offset) {
+        ByteBuffer record = log.read(offset);
+        record.get();
+        return EmbeddedRecordCodec.decodeInstance(record);
+    }
+
+    private WorkflowStep readStep(long offset) {
+        ByteBuffer record = log.read(offset);
+        record.get();
+        return EmbeddedRecordCodec.decodeStep(record);
+    }
+}
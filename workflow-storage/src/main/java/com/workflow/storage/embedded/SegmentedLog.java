@@ -0,0 +1,430 @@
+package com.workflow.storage.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log split into fixed-size segment files. The log doubles as the
+ * write-ahead log: an append is acknowledged once a background flusher has
+ * forced it to disk, and all appends that arrived since the previous flush
+ * share one fsync. Records are addressed by their global offset. Sealed
+ * segments are read through read-only memory mappings, and the active segment
+ * through positional reads.
+ *
+ * <p>Callers report superseded records through {@link #release}, and
+ * {@link #compact} rewrites sealed segments that are mostly garbage: their
+ * live records are appended again and the segment file is deleted on the
+ * following pass, so that readers still holding an old offset can finish.
+ *
+ * <p>Record layout: {@code [int length][int crc32c][byte type][payload]},
+ * where length covers type and payload. A record moved by compaction is
+ * wrapped as {@code [RELOCATED][long origin][byte type][payload]}, where
+ * origin is the offset it was first appended at; reads and replay unwrap it.
+ */
+public class SegmentedLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedLog.class);
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final byte RELOCATED = -1;
+    private static final int RELOCATED_HEADER_SIZE = 1 + Long.BYTES;
+
+    private record Segment(long baseOffset, Path path, FileChannel channel, AtomicLong garbageBytes) {
+    }
+
+    /**
+     * Receives every record found on startup, in log order.
+     */
+    @FunctionalInterface
+    public interface Replay {
+
+        /**
+         * @param offset where the record is stored
+         * @param origin where the record was first appended; differs from
+         *               offset only for records moved by compaction
+         * @param record the type followed by the payload
+         */
+        void accept(long offset, long origin, ByteBuffer record);
+    }
+
+    /**
+     * Receives each record compaction moved, once the copy is durable.
+     */
+    @FunctionalInterface
+    public interface Relocated {
+
+        void moved(long from, long to, ByteBuffer record);
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<Long, MappedByteBuffer> mappings = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object writeLock = new Object();
+    private final List<Segment> retired = new ArrayList<>();
+
+    private Segment active;
+    private long nextOffset;
+    private List<Sinks.One<Void>> unflushed = new ArrayList<>();
+    private boolean closed;
+
+    public SegmentedLog(Path directory, long segmentSize, Duration fsyncInterval,
+                        Replay recovery) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        recover(recovery);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "segmented-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMicros = Math.max(1, fsyncInterval.toNanos() / 1000);
+        flusher.scheduleWithFixedDelay(this::flush, intervalMicros, intervalMicros, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Appends a record and returns its offset together with a signal that
+     * completes once the record is durable.
+     */
+    public Appended append(byte type, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1 + payload.length);
+        record.putInt(1 + payload.length);
+        record.putInt(checksum(type, payload));
+        record.put(type);
+        record.put(payload);
+        return append(record.flip());
+    }
+
+    private Appended append(ByteBuffer record) {
+        Sinks.One<Void> durable = Sinks.one();
+        long offset;
+        synchronized (writeLock) {
+            try {
+                long activeLength = nextOffset - active.baseOffset();
+                if (activeLength > 0 && activeLength + record.remaining() > segmentSize) {
+                    roll();
+                }
+                offset = nextOffset;
+                while (record.hasRemaining()) {
+                    active.channel().write(record);
+                }
+                nextOffset += record.limit();
+                unflushed.add(durable);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to segment " + active.path(), e);
+            }
+        }
+        return new Appended(offset, durable.asMono());
+    }
+
+    public record Appended(long offset, Mono<Void> durable) {
+    }
+
+    /**
+     * Reads the record at the given offset, returning its type followed by
+     * the payload.
+     */
+    public ByteBuffer read(long offset) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null) {
+            throw new IllegalArgumentException("No segment holds offset " + offset);
+        }
+        Segment segment = entry.getValue();
+        long position = offset - segment.baseOffset();
+
+        try {
+            MappedByteBuffer mapping = mappings.get(segment.baseOffset());
+            if (mapping != null) {
+                return unwrap(mapping.slice((int) position + HEADER_SIZE, mapping.getInt((int) position)));
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(segment.channel(), header, position);
+            ByteBuffer body = ByteBuffer.allocate(header.getInt(0));
+            readFully(segment.channel(), body, position + HEADER_SIZE);
+            return unwrap(body.flip());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read offset " + offset + " from " + segment.path(), e);
+        }
+    }
+
+    /**
+     * Counts the record at the given offset as garbage, because a later
+     * record replaced it.
+     */
+    public void release(long offset) {
+        Segment segment = segments.floorEntry(offset).getValue();
+        long position = offset - segment.baseOffset();
+        try {
+            MappedByteBuffer mapping = mappings.get(segment.baseOffset());
+            int length;
+            if (mapping != null) {
+                length = mapping.getInt((int) position);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+                readFully(segment.channel(), header, position);
+                length = header.getInt(0);
+            }
+            segment.garbageBytes().addAndGet(HEADER_SIZE + length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read offset " + offset + " from " + segment.path(), e);
+        }
+    }
+
+    /**
+     * Deletes the segments retired by the previous pass, then rewrites every
+     * sealed segment in which at least {@code threshold} of the bytes are
+     * garbage. Records accepted by {@code live} are appended again, and each
+     * move is reported to {@code relocated} once the copies are durable; the
+     * rewritten segments are retired. Returns the number of segments retired.
+     */
+    public synchronized int compact(double threshold, BiPredicate<Long, ByteBuffer> live, Relocated relocated) {
+        if (closed) {
+            return 0;
+        }
+        deleteRetired();
+
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Segment segment : segments.headMap(active.baseOffset()).values()) {
+                MappedByteBuffer mapping = mappings.get(segment.baseOffset());
+                if (segment.garbageBytes().get() >= threshold * mapping.capacity()) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        for (Segment segment : candidates) {
+            MappedByteBuffer mapping = mappings.get(segment.baseOffset());
+            List<long[]> moves = new ArrayList<>();
+            List<Mono<Void>> durable = new ArrayList<>();
+            int position = 0;
+            while (position < mapping.capacity()) {
+                int length = mapping.getInt(position);
+                long offset = segment.baseOffset() + position;
+                ByteBuffer body = mapping.slice(position + HEADER_SIZE, length);
+                if (live.test(offset, unwrap(body))) {
+                    long origin = body.get(0) == RELOCATED ? body.getLong(1) : offset;
+                    Appended copy = append(relocatedRecord(origin, body));
+                    moves.add(new long[] {offset, copy.offset()});
+                    durable.add(copy.durable());
+                }
+                position += HEADER_SIZE + length;
+            }
+
+            Mono.when(durable).block();
+            for (long[] move : moves) {
+                relocated.moved(move[0], move[1], read(move[1]));
+            }
+            retired.add(segment);
+            logger.info("Compacted {}: moved {} live records, {} bytes were garbage", segment.path(), moves.size(),
+                segment.garbageBytes().get());
+        }
+        return candidates.size();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Bytes held by all segment files, including retired segments not yet
+     * deleted.
+     */
+    public long sizeBytes() {
+        synchronized (writeLock) {
+            long sealed = mappings.values().stream().mapToLong(MappedByteBuffer::capacity).sum();
+            return sealed + nextOffset - active.baseOffset();
+        }
+    }
+
+    public long garbageBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.garbageBytes().get()).sum();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        flusher.shutdown();
+        flush();
+        deleteRetired();
+        for (Segment segment : segments.values()) {
+            segment.channel().close();
+        }
+    }
+
+    private void deleteRetired() {
+        for (Segment segment : retired) {
+            segments.remove(segment.baseOffset());
+            mappings.remove(segment.baseOffset());
+            try {
+                segment.channel().close();
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                logger.warn("Failed to delete compacted segment {}", segment.path(), e);
+            }
+        }
+        retired.clear();
+    }
+
+    private void flush() {
+        List<Sinks.One<Void>> waiting;
+        FileChannel channel;
+        synchronized (writeLock) {
+            if (unflushed.isEmpty()) {
+                return;
+            }
+            waiting = unflushed;
+            unflushed = new ArrayList<>();
+            channel = active.channel();
+        }
+
+        try {
+            channel.force(false);
+            waiting.forEach(Sinks.One::tryEmitEmpty);
+        } catch (IOException e) {
+            logger.error("Failed to fsync segment log in {}", directory, e);
+            waiting.forEach(sink -> sink.tryEmitError(e));
+        }
+    }
+
+    // Called with writeLock held
+    private void roll() throws IOException {
+        // Earlier appends still waiting for fsync live in the segment being sealed
+        active.channel().force(false);
+        mappings.put(active.baseOffset(), active.channel().map(FileChannel.MapMode.READ_ONLY, 0, nextOffset - active.baseOffset()));
+        active = openSegment(nextOffset);
+    }
+
+    private Segment openSegment(long baseOffset) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        Segment segment = new Segment(baseOffset, path, channel, new AtomicLong());
+        segments.put(baseOffset, segment);
+        return segment;
+    }
+
+    private void recover(Replay recovery) throws IOException {
+        List<Long> baseOffsets;
+        try (Stream<Path> files = Files.list(directory)) {
+            baseOffsets = files
+                .map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toList();
+        }
+
+        for (Long baseOffset : baseOffsets) {
+            Segment segment = openSegment(baseOffset);
+            long validLength = scan(segment, recovery);
+            if (validLength < segment.channel().size()) {
+                // A torn write from a crash; everything after the last valid record is discarded
+                logger.warn("Truncating {} from {} to {} bytes", segment.path(), segment.channel().size(), validLength);
+                segment.channel().truncate(validLength);
+            }
+            segment.channel().position(validLength);
+            nextOffset = baseOffset + validLength;
+        }
+
+        if (segments.isEmpty()) {
+            active = openSegment(0);
+        } else {
+            active = segments.lastEntry().getValue();
+            for (Segment segment : segments.headMap(active.baseOffset()).values()) {
+                mappings.put(segment.baseOffset(), segment.channel().map(FileChannel.MapMode.READ_ONLY, 0, segment.channel().size()));
+            }
+        }
+    }
+
+    private long scan(Segment segment, Replay recovery) throws IOException {
+        long size = segment.channel().size();
+        if (size == 0) {
+            return 0;
+        }
+        MappedByteBuffer mapping = segment.channel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int position = 0;
+        while (position + HEADER_SIZE <= size) {
+            int length = mapping.getInt(position);
+            int crc = mapping.getInt(position + 4);
+            if (length <= 0 || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer body = mapping.slice(position + HEADER_SIZE, length);
+            byte type = body.get(0);
+            byte[] payload = new byte[length - 1];
+            body.get(1, payload);
+            if (checksum(type, payload) != crc) {
+                break;
+            }
+            long offset = segment.baseOffset() + position;
+            recovery.accept(offset, type == RELOCATED ? body.getLong(1) : offset, unwrap(body));
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static ByteBuffer relocatedRecord(long origin, ByteBuffer body) {
+        ByteBuffer original = unwrap(body);
+        byte[] payload = new byte[Long.BYTES + original.remaining()];
+        ByteBuffer.wrap(payload).putLong(origin).put(original.duplicate());
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1 + payload.length);
+        record.putInt(1 + payload.length);
+        record.putInt(checksum(RELOCATED, payload));
+        record.put(RELOCATED);
+        record.put(payload);
+        return record.flip();
+    }
+
+    private static ByteBuffer unwrap(ByteBuffer body) {
+        if (body.get(0) != RELOCATED) {
+            return body;
+        }
+        return body.slice(RELOCATED_HEADER_SIZE, body.limit() - RELOCATED_HEADER_SIZE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment at " + position);
+            }
+        }
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
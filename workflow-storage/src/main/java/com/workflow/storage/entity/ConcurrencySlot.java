@@ -0,0 +1,15 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_concurrency_slots")
+public record ConcurrencySlot(
+    String definitionName,
+    int slot,
+    UUID workflowInstanceId,
+    String leaseOwner,
+    LocalDateTime leaseExpiresAt
+) {
+}
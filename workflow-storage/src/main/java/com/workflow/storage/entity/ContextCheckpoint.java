@@ -0,0 +1,20 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_context_checkpoints")
+public record ContextCheckpoint(
+    @Id
+    Long id,
+    UUID workflowInstanceId,
+    boolean fullSnapshot,
+    String variables, // JSON object
+    String stepResults, // JSON object
+    String removedVariables, // JSON array, null when nothing was removed
+    String resultStepId,
+    LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,14 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_idempotency_keys")
+public record IdempotencyKey(
+    String workflowName,
+    String idempotencyKey,
+    UUID workflowInstanceId,
+    LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,18 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+
+@Table("workflow_latency_snapshots")
+public record LatencySnapshot(
+    @Id Long id,
+    String nodeId,
+    String definitionName,
+    String stepId,
+    LocalDateTime intervalStart,
+    LocalDateTime intervalEnd,
+    long sampleCount,
+    String histogram
+) {
+}
@@ -0,0 +1,23 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_work_items")
+public record WorkItem(
+    @Id
+    UUID id,
+    UUID workflowInstanceId,
+    String stepId, // next step to run, null means the first step
+    String leaseOwner,
+    LocalDateTime leaseExpiresAt,
+    int attempts,
+    String priority, // null means the definition's
+    String tenant,
+    String definitionName, // only set when the definition has a maxConcurrency
+    Integer maxConcurrency,
+    LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,18 @@
+package com.workflow.storage.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection of {@link WorkflowDefinition} without the YAML content, for
+ * listings that do not need it.
+ */
+public record WorkflowDefinitionSummary(
+    UUID id,
+    String name,
+    String version,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    boolean active
+) {
+}
@@ -0,0 +1,19 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_events")
+public record WorkflowEvent(
+    @Id
+    Long id,
+    UUID workflowInstanceId,
+    String eventType, // InstanceCreated, InstanceStarted, InstanceUpdated, InstanceCompleted, InstanceFailed,
+                      // StepScheduled, StepStarted, StepCompleted, StepFailed
+    UUID stepRecordId,
+    String payload,   // JSON object holding only the fields changed by this transition
+    LocalDateTime occurredAt
+) {
+}
@@ -1,6 +1,7 @@
 package com.workflow.storage.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -17,12 +18,18 @@ public record WorkflowInstance(
     String errorMessage,
     LocalDateTime startedAt,
     LocalDateTime completedAt,
-    LocalDateTime updatedAt
+    LocalDateTime updatedAt,
+    @Version
+    long version
 ) {
     public static WorkflowInstance create(UUID workflowDefinitionId, String input) {
+        return create(UUID.randomUUID(), workflowDefinitionId, input);
+    }
+
+    public static WorkflowInstance create(UUID id, UUID workflowDefinitionId, String input) {
         var now = LocalDateTime.now();
         return new WorkflowInstance(
-            UUID.randomUUID(),
+            id,
             workflowDefinitionId,
             "PENDING",
             null,
@@ -31,36 +38,56 @@ public record WorkflowInstance(
             null,
             now,
             null,
-            now
+            now,
+            0L
         );
     }
 
+    public boolean isTerminal() {
+        return isTerminal(status);
+    }
+
+    public static boolean isTerminal(String status) {
+        return "COMPLETED".equals(status) || "FAILED".equals(status) || "CANCELLED".equals(status);
+    }
+
     public WorkflowInstance withStatus(String newStatus) {
         return new WorkflowInstance(
             id, workflowDefinitionId, newStatus, currentStepId, input, output, errorMessage,
             startedAt, newStatus.equals("COMPLETED") || newStatus.equals("FAILED") ? LocalDateTime.now() : completedAt,
-            LocalDateTime.now()
+            LocalDateTime.now(), version
         );
     }
 
     public WorkflowInstance withCurrentStep(String stepId) {
         return new WorkflowInstance(
             id, workflowDefinitionId, status, stepId, input, output, errorMessage,
-            startedAt, completedAt, LocalDateTime.now()
+            startedAt, completedAt, LocalDateTime.now(), version
         );
     }
 
     public WorkflowInstance withOutput(String newOutput) {
         return new WorkflowInstance(
             id, workflowDefinitionId, status, currentStepId, input, newOutput, errorMessage,
-            startedAt, completedAt, LocalDateTime.now()
+            startedAt, completedAt, LocalDateTime.now(), version
+        );
+    }
+
+    /**
+     * The same instance at another version, for rows written outside the
+     * repository. A version of 0 marks the instance as not yet inserted.
+     */
+    public WorkflowInstance withVersion(long newVersion) {
+        return new WorkflowInstance(
+            id, workflowDefinitionId, status, currentStepId, input, output, errorMessage,
+            startedAt, completedAt, updatedAt, newVersion
         );
     }
 
     public WorkflowInstance withError(String error) {
         return new WorkflowInstance(
             id, workflowDefinitionId, "FAILED", currentStepId, input, output, error,
-            startedAt, LocalDateTime.now(), LocalDateTime.now()
+            startedAt, LocalDateTime.now(), LocalDateTime.now(), version
         );
     }
 }
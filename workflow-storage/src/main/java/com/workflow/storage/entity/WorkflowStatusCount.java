@@ -0,0 +1,14 @@
+package com.workflow.storage.entity;
+
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Table("workflow_status_counts")
+public record WorkflowStatusCount(
+    UUID workflowDefinitionId,
+    String status,
+    long instanceCount,
+    LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,130 @@
+package com.workflow.storage.notify;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Thin wrapper around PostgreSQL {@code LISTEN/NOTIFY}. Each {@link #listen}
+ * subscription holds one dedicated connection and reconnects with backoff if
+ * that connection drops. {@link #publish} and {@link #subscribe} lift the
+ * NOTIFY payload size limit by storing large payloads in
+ * {@code workflow_notification_payloads} and sending only their id.
+ */
+@Component
+public class PostgresNotifications {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresNotifications.class);
+    // NOTIFY rejects payloads of 8000 bytes or more
+    private static final int MAX_INLINE_BYTES = 7900;
+    private static final String INLINE = "=";
+    private static final String REFERENCE = "@";
+
+    private final ConnectionFactory connectionFactory;
+    private final DatabaseClient databaseClient;
+
+    public PostgresNotifications(ConnectionFactory connectionFactory, DatabaseClient databaseClient) {
+        this.connectionFactory = connectionFactory;
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> notify(String channel, String payload) {
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+            .bind("channel", channel)
+            .bind("payload", payload)
+            .fetch()
+            .rowsUpdated()
+            .then();
+    }
+
+    public Mono<Void> publish(String channel, String payload) {
+        if (payload.getBytes(StandardCharsets.UTF_8).length < MAX_INLINE_BYTES) {
+            return notify(channel, INLINE + payload);
+        }
+        return databaseClient.sql("INSERT INTO workflow_notification_payloads (payload) VALUES (:payload) RETURNING id")
+            .bind("payload", payload)
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .flatMap(id -> notify(channel, REFERENCE + id));
+    }
+
+    public Flux<String> subscribe(String channel) {
+        return listen(channel).concatMap(this::resolve);
+    }
+
+    public Mono<Long> purgePayloads(Duration retention) {
+        return databaseClient.sql("""
+                DELETE FROM workflow_notification_payloads
+                WHERE created_at < CURRENT_TIMESTAMP - make_interval(secs => :seconds)
+                """)
+            .bind("seconds", retention.toSeconds())
+            .fetch()
+            .rowsUpdated();
+    }
+
+    public Flux<String> listen(String channel) {
+        return listen(channel, () -> { });
+    }
+
+    /**
+     * Like {@link #listen(String)}, running {@code onListening} every time LISTEN
+     * takes effect, including after a reconnect. Notifications sent while the
+     * connection was down are lost, so callers use it to resynchronise.
+     */
+    public Flux<String> listen(String channel, Runnable onListening) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> {
+                    PostgresqlConnection postgres = unwrap(connection);
+                    return postgres.createStatement("LISTEN " + channel)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .then(Mono.fromRunnable(onListening))
+                        .thenMany(postgres.getNotifications())
+                        .mapNotNull(Notification::getParameter);
+                },
+                Connection::close)
+            .doOnError(error -> logger.warn("LISTEN on channel {} failed, reconnecting", channel, error))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)));
+    }
+
+    private Mono<String> resolve(String notification) {
+        if (!notification.startsWith(REFERENCE)) {
+            return Mono.just(notification.substring(INLINE.length()));
+        }
+        long id = Long.parseLong(notification.substring(REFERENCE.length()));
+        return databaseClient.sql("SELECT payload FROM workflow_notification_payloads WHERE id = :id")
+            .bind("id", id)
+            .map(row -> row.get("payload", String.class))
+            .one()
+            .switchIfEmpty(Mono.fromRunnable(() -> logger.warn("Notification payload {} was purged before it was read", id)))
+            .onErrorResume(error -> {
+                logger.warn("Failed to load notification payload {}", id, error);
+                return Mono.empty();
+            });
+    }
+
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped) {
+            current = wrapped.unwrap();
+        }
+        if (current instanceof PostgresqlConnection postgres) {
+            return postgres;
+        }
+        throw new IllegalStateException("LISTEN/NOTIFY requires a PostgreSQL connection, got " + connection.getClass().getName());
+    }
+}
@@ -0,0 +1,57 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.ConcurrencySlot;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface ConcurrencySlotRepository extends org.springframework.data.repository.Repository<ConcurrencySlot, String> {
+
+    /**
+     * Takes the lowest free or expired slot below {@code maxConcurrency}, or
+     * the slot the instance already holds. Emits nothing when every slot is
+     * held, including when another node took the same slot concurrently.
+     */
+    @Query("""
+        INSERT INTO workflow_concurrency_slots (definition_name, slot, workflow_instance_id, lease_owner, lease_expires_at)
+        SELECT :definitionName, candidate.slot, :workflowInstanceId, :owner,
+               CURRENT_TIMESTAMP + make_interval(secs => :leaseSeconds)
+        FROM generate_series(0, :maxConcurrency - 1) AS candidate(slot)
+        LEFT JOIN workflow_concurrency_slots held
+            ON held.definition_name = :definitionName AND held.slot = candidate.slot
+        WHERE held.slot IS NULL
+           OR held.lease_expires_at < CURRENT_TIMESTAMP
+           OR held.workflow_instance_id = :workflowInstanceId
+        ORDER BY held.workflow_instance_id = :workflowInstanceId DESC NULLS LAST, candidate.slot
+        LIMIT 1
+        ON CONFLICT (definition_name, slot) DO UPDATE
+        SET workflow_instance_id = EXCLUDED.workflow_instance_id,
+            lease_owner = EXCLUDED.lease_owner,
+            lease_expires_at = EXCLUDED.lease_expires_at
+        WHERE workflow_concurrency_slots.lease_expires_at < CURRENT_TIMESTAMP
+           OR workflow_concurrency_slots.workflow_instance_id = EXCLUDED.workflow_instance_id
+        RETURNING slot
+        """)
+    Mono<Integer> acquire(String definitionName, int maxConcurrency, UUID workflowInstanceId, String owner,
+                          long leaseSeconds);
+
+    @Query("""
+        UPDATE workflow_concurrency_slots
+        SET lease_expires_at = CURRENT_TIMESTAMP + make_interval(secs => :leaseSeconds)
+        WHERE lease_owner = :owner AND workflow_instance_id IN (:workflowInstanceIds)
+        RETURNING workflow_instance_id
+        """)
+    Flux<UUID> renew(String owner, Collection<UUID> workflowInstanceIds, long leaseSeconds);
+
+    @Modifying
+    @Query("""
+        DELETE FROM workflow_concurrency_slots
+        WHERE definition_name = :definitionName AND workflow_instance_id = :workflowInstanceId AND lease_owner = :owner
+        """)
+    Mono<Integer> release(String definitionName, UUID workflowInstanceId, String owner);
+}
@@ -0,0 +1,49 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.ContextCheckpoint;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.UUID;
+
+@Repository
+public interface ContextCheckpointRepository extends org.springframework.data.repository.Repository<ContextCheckpoint, Long> {
+
+    /**
+     * Writes a checkpoint if {@code owner} still holds the lease on the
+     * instance's work item, returning nothing otherwise.
+     */
+    @Query("""
+        INSERT INTO workflow_context_checkpoints (workflow_instance_id, full_snapshot, variables, step_results,
+                                                  removed_variables, result_step_id, created_at)
+        SELECT :workflowInstanceId, :fullSnapshot, :variables, :stepResults, :removedVariables, :resultStepId,
+               CURRENT_TIMESTAMP
+        WHERE EXISTS (SELECT 1 FROM workflow_work_items
+                      WHERE workflow_instance_id = :workflowInstanceId AND lease_owner = :owner)
+        RETURNING id
+        """)
+    Mono<Long> insert(UUID workflowInstanceId, String owner, boolean fullSnapshot, String variables, String stepResults,
+                      String removedVariables, String resultStepId);
+
+    /**
+     * The latest full snapshot of the instance followed by the deltas written after it.
+     */
+    @Query("""
+        SELECT * FROM workflow_context_checkpoints
+        WHERE workflow_instance_id = :workflowInstanceId
+          AND id >= (SELECT MAX(id) FROM workflow_context_checkpoints
+                     WHERE workflow_instance_id = :workflowInstanceId AND full_snapshot)
+        ORDER BY id
+        """)
+    Flux<ContextCheckpoint> findSinceLatestSnapshot(UUID workflowInstanceId);
+
+    @Modifying
+    @Query("DELETE FROM workflow_context_checkpoints WHERE workflow_instance_id = :workflowInstanceId AND id < :id")
+    Mono<Integer> deleteBefore(UUID workflowInstanceId, long id);
+
+    @Modifying
+    @Query("DELETE FROM workflow_context_checkpoints WHERE workflow_instance_id = :workflowInstanceId")
+    Mono<Integer> deleteByInstance(UUID workflowInstanceId);
+}
@@ -0,0 +1,52 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.IdempotencyKey;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends org.springframework.data.repository.Repository<IdempotencyKey, String> {
+
+    /**
+     * Claims the key for a new instance. Emits the instance id if the key was
+     * free or its previous claim is older than the window, and completes
+     * empty if another instance holds it.
+     */
+    @Query("""
+        INSERT INTO workflow_idempotency_keys (workflow_name, idempotency_key, workflow_instance_id, created_at)
+        VALUES (:workflowName, :idempotencyKey, :workflowInstanceId, CURRENT_TIMESTAMP)
+        ON CONFLICT (workflow_name, idempotency_key) DO UPDATE
+        SET workflow_instance_id = EXCLUDED.workflow_instance_id, created_at = EXCLUDED.created_at
+        WHERE workflow_idempotency_keys.created_at < CURRENT_TIMESTAMP - make_interval(secs => :windowSeconds)
+        RETURNING workflow_instance_id
+        """)
+    Mono<UUID> claim(String workflowName, String idempotencyKey, UUID workflowInstanceId, long windowSeconds);
+
+    @Query("""
+        SELECT * FROM workflow_idempotency_keys
+        WHERE workflow_name = :workflowName AND idempotency_key = :idempotencyKey
+        """)
+    Mono<IdempotencyKey> find(String workflowName, String idempotencyKey);
+
+    /**
+     * Frees a key claimed for an instance that was never created, unless it
+     * has been claimed again since.
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM workflow_idempotency_keys
+        WHERE workflow_name = :workflowName AND idempotency_key = :idempotencyKey
+          AND workflow_instance_id = :workflowInstanceId
+        """)
+    Mono<Integer> release(String workflowName, String idempotencyKey, UUID workflowInstanceId);
+
+    @Modifying
+    @Query("""
+        DELETE FROM workflow_idempotency_keys
+        WHERE created_at < CURRENT_TIMESTAMP - make_interval(secs => :windowSeconds)
+        """)
+    Mono<Integer> purgeOlderThan(long windowSeconds);
+}
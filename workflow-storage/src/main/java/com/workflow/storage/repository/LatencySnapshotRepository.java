@@ -0,0 +1,33 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.LatencySnapshot;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.LocalDateTime;
+
+@Repository
+public interface LatencySnapshotRepository extends org.springframework.data.repository.Repository<LatencySnapshot, Long> {
+
+    @Modifying
+    @Query("""
+        INSERT INTO workflow_latency_snapshots (node_id, definition_name, step_id, interval_start, interval_end,
+                                                sample_count, histogram)
+        VALUES (:nodeId, :definitionName, :stepId, :intervalStart, :intervalEnd, :sampleCount, :histogram)
+        """)
+    Mono<Integer> insert(String nodeId, String definitionName, String stepId, LocalDateTime intervalStart,
+                         LocalDateTime intervalEnd, long sampleCount, String histogram);
+
+    @Query("""
+        SELECT * FROM workflow_latency_snapshots
+        WHERE definition_name = :definitionName AND interval_end > :after
+        ORDER BY interval_start
+        """)
+    Flux<LatencySnapshot> findByDefinitionEndedAfter(String definitionName, LocalDateTime after);
+
+    @Modifying
+    @Query("DELETE FROM workflow_latency_snapshots WHERE interval_end < :before")
+    Mono<Integer> purgeEndedBefore(LocalDateTime before);
+}
@@ -0,0 +1,90 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.WorkItem;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface WorkItemRepository extends R2dbcRepository<WorkItem, UUID> {
+
+    @Modifying
+    @Query("""
+        INSERT INTO workflow_work_items (id, workflow_instance_id, step_id, attempts, priority, tenant,
+                                         definition_name, max_concurrency, created_at)
+        VALUES (:id, :workflowInstanceId, :stepId, 0, :priority, :tenant, :definitionName, :maxConcurrency,
+                CURRENT_TIMESTAMP)
+        """)
+    Mono<Integer> enqueue(UUID id, UUID workflowInstanceId, String stepId, String priority, String tenant,
+                          String definitionName, Integer maxConcurrency);
+
+    @Modifying
+    @Query("""
+        INSERT INTO workflow_work_items (id, workflow_instance_id, step_id, attempts, priority, tenant,
+                                         definition_name, max_concurrency, created_at)
+        SELECT item.id, item.workflow_instance_id, NULL, 0, :priority, :tenant, :definitionName, :maxConcurrency,
+               CURRENT_TIMESTAMP
+        FROM unnest(:ids, :workflowInstanceIds) AS item(id, workflow_instance_id)
+        """)
+    Mono<Integer> enqueueAll(UUID[] ids, UUID[] workflowInstanceIds, String priority, String tenant,
+                             String definitionName, Integer maxConcurrency);
+
+    /**
+     * Claims the oldest claimable items, skipping those of definitions whose
+     * concurrency slots are all held.
+     */
+    @Query("""
+        UPDATE workflow_work_items
+        SET lease_owner = :owner,
+            lease_expires_at = CURRENT_TIMESTAMP + make_interval(secs => :leaseSeconds),
+            attempts = attempts + 1
+        WHERE id IN (
+            SELECT item.id FROM workflow_work_items item
+            WHERE (item.lease_expires_at IS NULL OR item.lease_expires_at < CURRENT_TIMESTAMP)
+              AND (item.max_concurrency IS NULL
+                   OR item.max_concurrency > (SELECT COUNT(*) FROM workflow_concurrency_slots slot
+                                              WHERE slot.definition_name = item.definition_name
+                                                AND slot.lease_expires_at >= CURRENT_TIMESTAMP))
+            ORDER BY item.created_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+        """)
+    Flux<WorkItem> claimBatch(String owner, long leaseSeconds, int limit);
+
+    /**
+     * Hands a claimed item back to the queue without counting the claim as an
+     * attempt. The item can be claimed again after {@code delaySeconds}.
+     */
+    @Modifying
+    @Query("""
+        UPDATE workflow_work_items
+        SET lease_owner = NULL,
+            lease_expires_at = CURRENT_TIMESTAMP + make_interval(secs => :delaySeconds),
+            attempts = attempts - 1
+        WHERE id = :id AND lease_owner = :owner
+        """)
+    Mono<Integer> release(UUID id, String owner, double delaySeconds);
+
+    @Query("""
+        UPDATE workflow_work_items
+        SET lease_expires_at = CURRENT_TIMESTAMP + make_interval(secs => :leaseSeconds)
+        WHERE lease_owner = :owner AND id IN (:ids)
+        RETURNING id
+        """)
+    Flux<UUID> renewLeases(String owner, Collection<UUID> ids, long leaseSeconds);
+
+    @Modifying
+    @Query("UPDATE workflow_work_items SET step_id = :stepId WHERE id = :id AND lease_owner = :owner")
+    Mono<Integer> advance(UUID id, String owner, String stepId);
+
+    @Modifying
+    @Query("DELETE FROM workflow_work_items WHERE id = :id AND lease_owner = :owner")
+    Mono<Integer> complete(UUID id, String owner);
+}
@@ -1,8 +1,12 @@
 package com.workflow.storage.repository;
 
 import com.workflow.storage.entity.WorkflowDefinition;
+import com.workflow.storage.entity.WorkflowDefinitionSummary;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.util.UUID;
 
@@ -12,4 +16,34 @@ public interface WorkflowDefinitionRepository extends R2dbcRepository<WorkflowDe
     Mono<WorkflowDefinition> findByNameAndActive(String name, boolean active);
 
     Mono<WorkflowDefinition> findByNameAndVersion(String name, String version);
+
+    Flux<WorkflowDefinition> findByActive(boolean active);
+
+    @Query("SELECT id, name, version, created_at, updated_at, active FROM workflow_definitions ORDER BY name, created_at")
+    Flux<WorkflowDefinitionSummary> findAllSummaries();
+
+    /**
+     * Inserts a new version and makes it the only active one for its name, in
+     * a single statement.
+     */
+    @Modifying
+    @Query("""
+        WITH superseded AS (
+            UPDATE workflow_definitions SET active = false, updated_at = CURRENT_TIMESTAMP
+            WHERE name = :name AND active
+        )
+        INSERT INTO workflow_definitions (id, name, yaml_content, version, created_at, updated_at, active)
+        VALUES (:id, :name, :yamlContent, :version, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, true)
+        """)
+    Mono<Integer> insertActive(UUID id, String name, String yamlContent, String version);
+
+    /**
+     * Makes an existing version the only active one for its name.
+     */
+    @Modifying
+    @Query("""
+        UPDATE workflow_definitions SET active = (id = :id), updated_at = CURRENT_TIMESTAMP
+        WHERE name = :name AND (active OR id = :id)
+        """)
+    Mono<Integer> activate(UUID id, String name);
 }
@@ -0,0 +1,13 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.WorkflowEvent;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowEventRepository extends R2dbcRepository<WorkflowEvent, Long> {
+
+    Flux<WorkflowEvent> findByWorkflowInstanceIdOrderById(UUID workflowInstanceId);
+}
@@ -0,0 +1,36 @@
+package com.workflow.storage.repository;
+
+import com.workflow.storage.entity.WorkflowStatusCount;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowStatusCountRepository extends org.springframework.data.repository.Repository<WorkflowStatusCount, UUID> {
+
+    @Query("SELECT * FROM workflow_status_counts")
+    Flux<WorkflowStatusCount> findAll();
+
+    @Modifying
+    @Query("""
+        INSERT INTO workflow_status_counts (workflow_definition_id, status, instance_count, updated_at)
+        VALUES (:workflowDefinitionId, :status, :delta, CURRENT_TIMESTAMP)
+        ON CONFLICT (workflow_definition_id, status)
+        DO UPDATE SET instance_count = workflow_status_counts.instance_count + EXCLUDED.instance_count,
+                      updated_at = CURRENT_TIMESTAMP
+        """)
+    Mono<Integer> applyDelta(UUID workflowDefinitionId, String status, long delta);
+
+    @Modifying
+    @Query("""
+        INSERT INTO workflow_status_counts (workflow_definition_id, status, instance_count, updated_at)
+        VALUES (:workflowDefinitionId, :status, :instanceCount, CURRENT_TIMESTAMP)
+        ON CONFLICT (workflow_definition_id, status)
+        DO UPDATE SET instance_count = EXCLUDED.instance_count,
+                      updated_at = CURRENT_TIMESTAMP
+        """)
+    Mono<Integer> setCount(UUID workflowDefinitionId, String status, long instanceCount);
+}
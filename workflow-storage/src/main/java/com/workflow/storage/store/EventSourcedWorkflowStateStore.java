@@ -0,0 +1,306 @@
+package com.workflow.storage.store;
+
+import com.workflow.storage.entity.WorkflowEvent;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStatusCount;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.repository.WorkflowEventRepository;
+import com.workflow.storage.repository.WorkflowInstanceRepository;
+import com.workflow.storage.repository.WorkflowStepRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.workflow.storage.store.SqlBatches.bind;
+import static com.workflow.storage.store.SqlBatches.placeholders;
+
+/**
+ * Appends every transition to {@code workflow_events} instead of updating the
+ * state rows in place. Concurrent appends are coalesced into multi-row
+ * inserts. Instances executing on this node are served from an in-memory
+ * projection, which is dropped when the execution ends, and the state tables
+ * are written once, when an instance reaches a terminal state. Instances that
+ * are in neither place are rebuilt by replaying their events. Listing reads
+ * only the projections and the state tables, so {@link #findAllInstances} and
+ * {@link #findInstancesByStatus} see unfinished instances only while this
+ * node executes them.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.persistence.mode", havingValue = "event-log")
+public class EventSourcedWorkflowStateStore implements WorkflowStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSourcedWorkflowStateStore.class);
+
+    private record PendingEvent(WorkflowEvent event, Sinks.One<Void> appended) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private final WorkflowEventRepository eventRepository;
+    private final WorkflowInstanceRepository instanceRepository;
+    private final WorkflowStepRepository stepRepository;
+    private final Map<UUID, WorkflowEventProjection> live = new ConcurrentHashMap<>();
+    private final Sinks.Many<PendingEvent> appendQueue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable appender;
+
+    public EventSourcedWorkflowStateStore(DatabaseClient databaseClient,
+                                          WorkflowEventRepository eventRepository,
+                                          WorkflowInstanceRepository instanceRepository,
+                                          WorkflowStepRepository stepRepository,
+                                          @Value("${workflow.event-log.batch-size:256}") int batchSize,
+                                          @Value("${workflow.event-log.max-batch-delay:PT0.005S}") Duration maxBatchDelay) {
+        this.databaseClient = databaseClient;
+        this.eventRepository = eventRepository;
+        this.instanceRepository = instanceRepository;
+        this.stepRepository = stepRepository;
+        this.appender = appendQueue.asFlux()
+            .bufferTimeout(batchSize, maxBatchDelay)
+            .concatMap(this::insertBatch)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        appendQueue.tryEmitComplete();
+        appender.dispose();
+    }
+
+    @Override
+    public Mono<WorkflowInstance> saveInstance(WorkflowInstance instance) {
+        // A new instance may be claimed by any node, so it is held only once it runs here
+        WorkflowEventProjection projection = "PENDING".equals(instance.status())
+            ? live.getOrDefault(instance.id(), new WorkflowEventProjection())
+            : live.computeIfAbsent(instance.id(), id -> new WorkflowEventProjection());
+        WorkflowEvent event;
+        synchronized (projection) {
+            event = projection.recordInstance(instance);
+        }
+
+        Mono<Void> appended = append(event);
+        if (instance.isTerminal()) {
+            appended = appended
+                .then(projectToStateTables(projection))
+                .doFinally(signal -> live.remove(instance.id()));
+        }
+        return appended.thenReturn(instance);
+    }
+
+    @Override
+    public Mono<WorkflowStep> saveStep(WorkflowStep step) {
+        WorkflowEventProjection projection = live.computeIfAbsent(step.workflowInstanceId(), id -> new WorkflowEventProjection());
+        WorkflowEvent event;
+        synchronized (projection) {
+            event = projection.recordStep(step);
+        }
+        return append(event).thenReturn(step);
+    }
+
+    @Override
+    public Mono<WorkflowInstance> findInstance(UUID instanceId) {
+        WorkflowEventProjection projection = live.get(instanceId);
+        if (projection != null && projection.getInstance() != null) {
+            return Mono.just(projection.getInstance());
+        }
+        return instanceRepository.findById(instanceId)
+            .switchIfEmpty(Mono.defer(() -> replay(instanceId).mapNotNull(WorkflowEventProjection::getInstance)));
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findAllInstances() {
+        List<WorkflowInstance> running = live.values().stream()
+            .map(WorkflowEventProjection::getInstance)
+            .filter(instance -> instance != null)
+            .toList();
+        return Flux.fromIterable(running)
+            .concatWith(instanceRepository.findAll().filter(instance -> !live.containsKey(instance.id())));
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findInstancesByStatus(String status) {
+        List<WorkflowInstance> running = live.values().stream()
+            .map(WorkflowEventProjection::getInstance)
+            .filter(instance -> instance != null && status.equals(instance.status()))
+            .toList();
+        return Flux.fromIterable(running)
+            .concatWith(instanceRepository.findByStatus(status).filter(instance -> !live.containsKey(instance.id())));
+    }
+
+    @Override
+    public Flux<WorkflowStep> findSteps(UUID instanceId) {
+        WorkflowEventProjection projection = live.get(instanceId);
+        if (projection != null) {
+            synchronized (projection) {
+                return Flux.fromIterable(List.copyOf(projection.getSteps()));
+            }
+        }
+        return stepRepository.findByWorkflowInstanceIdOrderByStartedAt(instanceId)
+            .switchIfEmpty(Flux.defer(() -> replay(instanceId).flatMapIterable(WorkflowEventProjection::getSteps)));
+    }
+
+    /**
+     * Counts the state tables together with the instances that so far exist
+     * only in the event log, using the status of each one's latest instance
+     * event that set it.
+     */
+    @Override
+    public Flux<WorkflowStatusCount> countInstancesByStatus() {
+        return databaseClient.sql("""
+                WITH instance_events AS (
+                    SELECT e.workflow_instance_id, e.id, e.payload::jsonb AS fields
+                    FROM workflow_events e
+                    WHERE e.step_record_id IS NULL
+                      AND NOT EXISTS (SELECT 1 FROM workflow_instances i WHERE i.id = e.workflow_instance_id)
+                ),
+                latest_status AS (
+                    SELECT DISTINCT ON (workflow_instance_id) workflow_instance_id, fields ->> 'status' AS status
+                    FROM instance_events
+                    WHERE fields ->> 'status' IS NOT NULL
+                    ORDER BY workflow_instance_id, id DESC
+                ),
+                definition AS (
+                    SELECT DISTINCT ON (workflow_instance_id) workflow_instance_id,
+                           (fields ->> 'workflowDefinitionId')::uuid AS workflow_definition_id
+                    FROM instance_events
+                    WHERE fields ->> 'workflowDefinitionId' IS NOT NULL
+                    ORDER BY workflow_instance_id, id
+                )
+                SELECT workflow_definition_id, status, COUNT(*) AS instance_count
+                FROM (
+                    SELECT workflow_definition_id, status FROM workflow_instances
+                    UNION ALL
+                    SELECT d.workflow_definition_id, s.status
+                    FROM latest_status s JOIN definition d ON d.workflow_instance_id = s.workflow_instance_id
+                ) instances
+                GROUP BY workflow_definition_id, status
+                """)
+            .map((row, metadata) -> new WorkflowStatusCount(row.get("workflow_definition_id", UUID.class),
+                row.get("status", String.class), row.get("instance_count", Long.class), null))
+            .all();
+    }
+
+    @Override
+    public void release(UUID instanceId) {
+        // The next save of the instance, here or elsewhere, records every field again
+        live.remove(instanceId);
+    }
+
+    public Mono<WorkflowEventProjection> replay(UUID instanceId) {
+        return eventRepository.findByWorkflowInstanceIdOrderById(instanceId)
+            .reduce(new WorkflowEventProjection(), (projection, event) -> {
+                projection.apply(event);
+                return projection;
+            });
+    }
+
+    private Mono<Void> append(WorkflowEvent event) {
+        Sinks.One<Void> appended = Sinks.one();
+        appendQueue.emitNext(new PendingEvent(event, appended), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return appended.asMono();
+    }
+
+    private Mono<Void> insertBatch(List<PendingEvent> batch) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+            "INSERT INTO workflow_events (workflow_instance_id, event_type, step_record_id, payload, occurred_at) VALUES "
+                + placeholders(batch.size(), 5));
+        for (int i = 0; i < batch.size(); i++) {
+            WorkflowEvent event = batch.get(i).event();
+            int base = i * 5;
+            spec = bind(spec, base, event.workflowInstanceId(), UUID.class);
+            spec = bind(spec, base + 1, event.eventType(), String.class);
+            spec = bind(spec, base + 2, event.stepRecordId(), UUID.class);
+            spec = bind(spec, base + 3, event.payload(), String.class);
+            spec = bind(spec, base + 4, event.occurredAt(), LocalDateTime.class);
+        }
+
+        return spec.fetch().rowsUpdated()
+            .doOnSuccess(rows -> batch.forEach(pending -> pending.appended().tryEmitEmpty()))
+            .onErrorResume(error -> {
+                logger.error("Failed to append {} workflow events", batch.size(), error);
+                batch.forEach(pending -> pending.appended().tryEmitError(error));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Void> projectToStateTables(WorkflowEventProjection projection) {
+        WorkflowInstance instance;
+        List<WorkflowStep> steps;
+        synchronized (projection) {
+            instance = projection.getInstance();
+            steps = new ArrayList<>(projection.getSteps());
+        }
+
+        // A first projection inserts at version 1, as a repository insert would
+        DatabaseClient.GenericExecuteSpec instanceSpec = databaseClient.sql("""
+            INSERT INTO workflow_instances (id, workflow_definition_id, status, current_step_id, input, output,
+                                            error_message, started_at, completed_at, updated_at, version)
+            VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, 1)
+            ON CONFLICT (id) DO UPDATE SET status = EXCLUDED.status, current_step_id = EXCLUDED.current_step_id,
+                output = EXCLUDED.output, error_message = EXCLUDED.error_message,
+                completed_at = EXCLUDED.completed_at, updated_at = EXCLUDED.updated_at,
+                version = workflow_instances.version + 1
+            """);
+        instanceSpec = bind(instanceSpec, 0, instance.id(), UUID.class);
+        instanceSpec = bind(instanceSpec, 1, instance.workflowDefinitionId(), UUID.class);
+        instanceSpec = bind(instanceSpec, 2, instance.status(), String.class);
+        instanceSpec = bind(instanceSpec, 3, instance.currentStepId(), String.class);
+        instanceSpec = bind(instanceSpec, 4, instance.input(), String.class);
+        instanceSpec = bind(instanceSpec, 5, instance.output(), String.class);
+        instanceSpec = bind(instanceSpec, 6, instance.errorMessage(), String.class);
+        instanceSpec = bind(instanceSpec, 7, instance.startedAt(), LocalDateTime.class);
+        instanceSpec = bind(instanceSpec, 8, instance.completedAt(), LocalDateTime.class);
+        instanceSpec = bind(instanceSpec, 9, instance.updatedAt(), LocalDateTime.class);
+
+        return instanceSpec.fetch().rowsUpdated()
+            .then(steps.isEmpty() ? Mono.empty() : projectSteps(steps))
+            .onErrorResume(error -> {
+                // The event log stays authoritative; the instance can still be replayed
+                logger.warn("Failed to project workflow instance {} to state tables", instance.id(), error);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> projectSteps(List<WorkflowStep> steps) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+            INSERT INTO workflow_steps (id, workflow_instance_id, step_id, step_type, step_config, status, input,
+                                        output, error_message, started_at, completed_at, retry_count, max_retries)
+            VALUES %s
+            ON CONFLICT (id) DO UPDATE SET status = EXCLUDED.status, output = EXCLUDED.output,
+                error_message = EXCLUDED.error_message, started_at = EXCLUDED.started_at,
+                completed_at = EXCLUDED.completed_at, retry_count = EXCLUDED.retry_count
+            """.formatted(placeholders(steps.size(), 13)));
+        for (int i = 0; i < steps.size(); i++) {
+            WorkflowStep step = steps.get(i);
+            int base = i * 13;
+            spec = bind(spec, base, step.id(), UUID.class);
+            spec = bind(spec, base + 1, step.workflowInstanceId(), UUID.class);
+            spec = bind(spec, base + 2, step.stepId(), String.class);
+            spec = bind(spec, base + 3, step.stepType(), String.class);
+            spec = bind(spec, base + 4, step.stepConfig(), String.class);
+            spec = bind(spec, base + 5, step.status(), String.class);
+            spec = bind(spec, base + 6, step.input(), String.class);
+            spec = bind(spec, base + 7, step.output(), String.class);
+            spec = bind(spec, base + 8, step.errorMessage(), String.class);
+            spec = bind(spec, base + 9, step.startedAt(), LocalDateTime.class);
+            spec = bind(spec, base + 10, step.completedAt(), LocalDateTime.class);
+            spec = bind(spec, base + 11, step.retryCount(), Integer.class);
+            spec = bind(spec, base + 12, step.maxRetries(), Integer.class);
+        }
+        return spec.fetch().rowsUpdated().then();
+    }
+}
@@ -0,0 +1,113 @@
+package com.workflow.storage.store;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStatusCount;
+import com.workflow.storage.entity.WorkflowStep;
+import com.workflow.storage.repository.WorkflowInstanceRepository;
+import com.workflow.storage.repository.WorkflowStepRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.workflow.storage.store.SqlBatches.bind;
+import static com.workflow.storage.store.SqlBatches.placeholders;
+
+/**
+ * Keeps the current state in {@code workflow_instances} and
+ * {@code workflow_steps}, updating the rows in place on every transition.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.persistence.mode", havingValue = "state", matchIfMissing = true)
+public class R2dbcWorkflowStateStore implements WorkflowStateStore {
+
+    private final DatabaseClient databaseClient;
+    private final WorkflowInstanceRepository instanceRepository;
+    private final WorkflowStepRepository stepRepository;
+
+    public R2dbcWorkflowStateStore(DatabaseClient databaseClient,
+                                   WorkflowInstanceRepository instanceRepository,
+                                   WorkflowStepRepository stepRepository) {
+        this.databaseClient = databaseClient;
+        this.instanceRepository = instanceRepository;
+        this.stepRepository = stepRepository;
+    }
+
+    @Override
+    public Mono<WorkflowInstance> saveInstance(WorkflowInstance instance) {
+        return instanceRepository.save(instance);
+    }
+
+    @Override
+    public Flux<WorkflowInstance> saveInstances(List<WorkflowInstance> instances) {
+        if (instances.isEmpty()) {
+            return Flux.empty();
+        }
+
+        // Inserted at version 1, as the repository would, so that the next save is an update
+        List<WorkflowInstance> inserted = instances.stream().map(instance -> instance.withVersion(1)).toList();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+            INSERT INTO workflow_instances (id, workflow_definition_id, status, current_step_id, input, output,
+                                            error_message, started_at, completed_at, updated_at, version)
+            VALUES %s
+            """.formatted(placeholders(instances.size(), 11)));
+        for (int i = 0; i < inserted.size(); i++) {
+            WorkflowInstance instance = inserted.get(i);
+            int base = i * 11;
+            spec = bind(spec, base, instance.id(), UUID.class);
+            spec = bind(spec, base + 1, instance.workflowDefinitionId(), UUID.class);
+            spec = bind(spec, base + 2, instance.status(), String.class);
+            spec = bind(spec, base + 3, instance.currentStepId(), String.class);
+            spec = bind(spec, base + 4, instance.input(), String.class);
+            spec = bind(spec, base + 5, instance.output(), String.class);
+            spec = bind(spec, base + 6, instance.errorMessage(), String.class);
+            spec = bind(spec, base + 7, instance.startedAt(), LocalDateTime.class);
+            spec = bind(spec, base + 8, instance.completedAt(), LocalDateTime.class);
+            spec = bind(spec, base + 9, instance.updatedAt(), LocalDateTime.class);
+            spec = bind(spec, base + 10, instance.version(), Long.class);
+        }
+        return spec.fetch().rowsUpdated().thenMany(Flux.fromIterable(inserted));
+    }
+
+    @Override
+    public Mono<WorkflowStep> saveStep(WorkflowStep step) {
+        return stepRepository.save(step);
+    }
+
+    @Override
+    public Mono<WorkflowInstance> findInstance(UUID instanceId) {
+        return instanceRepository.findById(instanceId);
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findAllInstances() {
+        return instanceRepository.findAll();
+    }
+
+    @Override
+    public Flux<WorkflowInstance> findInstancesByStatus(String status) {
+        return instanceRepository.findByStatus(status);
+    }
+
+    @Override
+    public Flux<WorkflowStep> findSteps(UUID instanceId) {
+        return stepRepository.findByWorkflowInstanceIdOrderByStartedAt(instanceId);
+    }
+
+    @Override
+    public Flux<WorkflowStatusCount> countInstancesByStatus() {
+        return databaseClient.sql("""
+                SELECT workflow_definition_id, status, COUNT(*) AS instance_count
+                FROM workflow_instances
+                GROUP BY workflow_definition_id, status
+                """)
+            .map((row, metadata) -> new WorkflowStatusCount(row.get("workflow_definition_id", UUID.class),
+                row.get("status", String.class), row.get("instance_count", Long.class), null))
+            .all();
+    }
+}
@@ -0,0 +1,30 @@
+package com.workflow.storage.store;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Helpers for building multi-row statements with positional bind markers.
+ */
+final class SqlBatches {
+
+    private SqlBatches() {
+    }
+
+    // Builds "($1, $2), ($3, $4)" for a multi-row VALUES clause
+    static String placeholders(int rows, int columns) {
+        StringBuilder values = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            values.append(row == 0 ? "(" : ", (");
+            for (int column = 1; column <= columns; column++) {
+                values.append(column == 1 ? "$" : ", $").append(row * columns + column);
+            }
+            values.append(")");
+        }
+        return values.toString();
+    }
+
+    static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec,
+                                                  int index, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+    }
+}
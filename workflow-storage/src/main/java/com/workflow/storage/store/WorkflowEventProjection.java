@@ -0,0 +1,181 @@
+package com.workflow.storage.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.workflow.storage.entity.WorkflowEvent;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Current state of one workflow instance folded from its event log. Each
+ * event holds only the fields that changed, so recording a transition
+ * produces the event and applying the events in order rebuilds the state.
+ */
+public class WorkflowEventProjection {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<>() { };
+
+    private WorkflowInstance instance;
+    private final Map<UUID, WorkflowStep> steps = new LinkedHashMap<>();
+
+    public WorkflowInstance getInstance() {
+        return instance;
+    }
+
+    public Collection<WorkflowStep> getSteps() {
+        return steps.values();
+    }
+
+    public WorkflowEvent recordInstance(WorkflowInstance current) {
+        Map<String, String> changes = diff(instance == null ? Map.of() : instanceFields(instance), instanceFields(current));
+        String eventType = switch (current.status()) {
+            case "PENDING" -> instance == null ? "InstanceCreated" : "InstanceUpdated";
+            case "RUNNING" -> instance == null || !"RUNNING".equals(instance.status()) ? "InstanceStarted" : "InstanceUpdated";
+            case "COMPLETED" -> "InstanceCompleted";
+            case "FAILED" -> "InstanceFailed";
+            default -> "InstanceUpdated";
+        };
+        instance = current;
+        return new WorkflowEvent(null, current.id(), eventType, null, toJson(changes), LocalDateTime.now());
+    }
+
+    public WorkflowEvent recordStep(WorkflowStep current) {
+        WorkflowStep previous = steps.get(current.id());
+        Map<String, String> changes = diff(previous == null ? Map.of() : stepFields(previous), stepFields(current));
+        String eventType = switch (current.status()) {
+            case "RUNNING" -> "StepStarted";
+            case "COMPLETED" -> "StepCompleted";
+            case "FAILED" -> "StepFailed";
+            default -> "StepScheduled";
+        };
+        steps.put(current.id(), current);
+        return new WorkflowEvent(null, current.workflowInstanceId(), eventType, current.id(), toJson(changes), LocalDateTime.now());
+    }
+
+    public void apply(WorkflowEvent event) {
+        Map<String, String> changes = fromJson(event.payload());
+        if (event.stepRecordId() == null) {
+            Map<String, String> fields = instance == null ? new HashMap<>() : instanceFields(instance);
+            fields.putAll(changes);
+            instance = toInstance(event.workflowInstanceId(), fields);
+        } else {
+            WorkflowStep previous = steps.get(event.stepRecordId());
+            Map<String, String> fields = previous == null ? new HashMap<>() : stepFields(previous);
+            fields.putAll(changes);
+            steps.put(event.stepRecordId(), toStep(event.stepRecordId(), fields));
+        }
+    }
+
+    private static Map<String, String> diff(Map<String, String> before, Map<String, String> after) {
+        Map<String, String> changes = new HashMap<>();
+        after.forEach((key, value) -> {
+            if (!Objects.equals(before.get(key), value)) {
+                changes.put(key, value);
+            }
+        });
+        return changes;
+    }
+
+    private static Map<String, String> instanceFields(WorkflowInstance instance) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("workflowDefinitionId", string(instance.workflowDefinitionId()));
+        fields.put("status", instance.status());
+        fields.put("currentStepId", instance.currentStepId());
+        fields.put("input", instance.input());
+        fields.put("output", instance.output());
+        fields.put("errorMessage", instance.errorMessage());
+        fields.put("startedAt", string(instance.startedAt()));
+        fields.put("completedAt", string(instance.completedAt()));
+        fields.put("updatedAt", string(instance.updatedAt()));
+        return fields;
+    }
+
+    private static WorkflowInstance toInstance(UUID id, Map<String, String> fields) {
+        return new WorkflowInstance(
+            id,
+            uuid(fields.get("workflowDefinitionId")),
+            fields.get("status"),
+            fields.get("currentStepId"),
+            fields.get("input"),
+            fields.get("output"),
+            fields.get("errorMessage"),
+            timestamp(fields.get("startedAt")),
+            timestamp(fields.get("completedAt")),
+            timestamp(fields.get("updatedAt")),
+            0L
+        );
+    }
+
+    private static Map<String, String> stepFields(WorkflowStep step) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("workflowInstanceId", string(step.workflowInstanceId()));
+        fields.put("stepId", step.stepId());
+        fields.put("stepType", step.stepType());
+        fields.put("stepConfig", step.stepConfig());
+        fields.put("status", step.status());
+        fields.put("input", step.input());
+        fields.put("output", step.output());
+        fields.put("errorMessage", step.errorMessage());
+        fields.put("startedAt", string(step.startedAt()));
+        fields.put("completedAt", string(step.completedAt()));
+        fields.put("retryCount", String.valueOf(step.retryCount()));
+        fields.put("maxRetries", String.valueOf(step.maxRetries()));
+        return fields;
+    }
+
+    private static WorkflowStep toStep(UUID id, Map<String, String> fields) {
+        return new WorkflowStep(
+            id,
+            uuid(fields.get("workflowInstanceId")),
+            fields.get("stepId"),
+            fields.get("stepType"),
+            fields.get("stepConfig"),
+            fields.get("status"),
+            fields.get("input"),
+            fields.get("output"),
+            fields.get("errorMessage"),
+            timestamp(fields.get("startedAt")),
+            timestamp(fields.get("completedAt")),
+            fields.get("retryCount") != null ? Integer.parseInt(fields.get("retryCount")) : 0,
+            fields.get("maxRetries") != null ? Integer.parseInt(fields.get("maxRetries")) : 0
+        );
+    }
+
+    private static String toJson(Map<String, String> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize workflow event payload", e);
+        }
+    }
+
+    private static Map<String, String> fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read workflow event payload", e);
+        }
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static UUID uuid(String value) {
+        return value == null ? null : UUID.fromString(value);
+    }
+
+    private static LocalDateTime timestamp(String value) {
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+}
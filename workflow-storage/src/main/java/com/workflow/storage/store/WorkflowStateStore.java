@@ -0,0 +1,61 @@
+package com.workflow.storage.store;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStatusCount;
+import com.workflow.storage.entity.WorkflowStep;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Persistence of execution state for workflow instances and their steps.
+ * The implementation is selected with {@code workflow.persistence.mode}.
+ */
+public interface WorkflowStateStore {
+
+    Mono<WorkflowInstance> saveInstance(WorkflowInstance instance);
+
+    /**
+     * Saves a batch of new instances. Stores backed by a database override this
+     * to write the whole batch with one statement.
+     */
+    default Flux<WorkflowInstance> saveInstances(List<WorkflowInstance> instances) {
+        return Flux.fromIterable(instances).flatMapSequential(this::saveInstance);
+    }
+
+    Mono<WorkflowStep> saveStep(WorkflowStep step);
+
+    Mono<WorkflowInstance> findInstance(UUID instanceId);
+
+    Flux<WorkflowInstance> findAllInstances();
+
+    Flux<WorkflowInstance> findInstancesByStatus(String status);
+
+    Flux<WorkflowStep> findSteps(UUID instanceId);
+
+    /**
+     * Counts every instance by definition and status as of now, so that
+     * counters which only add up transitions can be corrected. Stores backed
+     * by a database override this to count with one query.
+     */
+    default Flux<WorkflowStatusCount> countInstancesByStatus() {
+        return findAllInstances()
+            .collect(Collectors.groupingBy(
+                instance -> Map.entry(instance.workflowDefinitionId(), instance.status()), Collectors.counting()))
+            .flatMapIterable(Map::entrySet)
+            .map(entry -> new WorkflowStatusCount(
+                entry.getKey().getKey(), entry.getKey().getValue(), entry.getValue(), null));
+    }
+
+    /**
+     * Called when this node stops executing an instance, however the
+     * execution ended. Stores that keep state in memory for instances in
+     * flight drop it here.
+     */
+    default void release(UUID instanceId) {
+    }
+}
@@ -24,7 +24,8 @@ CREATE TABLE workflow_instances (
     error_message TEXT,
     started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     completed_at TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Workflow steps table
@@ -51,3 +52,107 @@ CREATE INDEX idx_workflow_instances_definition_id ON workflow_instances(workflow
 CREATE INDEX idx_workflow_steps_instance_id ON workflow_steps(workflow_instance_id);
 CREATE INDEX idx_workflow_steps_status ON workflow_steps(status);
 CREATE INDEX idx_workflow_instances_updated_at ON workflow_instances(updated_at);
+
+-- Per-definition status counters, maintained incrementally by the engine
+CREATE TABLE workflow_status_counts (
+    workflow_definition_id UUID NOT NULL REFERENCES workflow_definitions(id),
+    status VARCHAR(50) NOT NULL,
+    instance_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (workflow_definition_id, status)
+);
+
+-- Runnable instance steps, claimed by engine nodes with FOR UPDATE SKIP LOCKED.
+-- No foreign key to workflow_instances: in event-log mode that row is only written once the instance finishes.
+CREATE TABLE workflow_work_items (
+    id UUID PRIMARY KEY,
+    workflow_instance_id UUID NOT NULL,
+    step_id VARCHAR(255),
+    lease_owner VARCHAR(255),
+    lease_expires_at TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    -- Scheduling overrides of the start call; null falls back to the definition's priority and queue
+    priority VARCHAR(16),
+    tenant VARCHAR(255),
+    -- Set for definitions with maxConcurrency, so that claims skip items of a definition at its limit
+    definition_name VARCHAR(255),
+    max_concurrency INTEGER,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_workflow_work_items_claimable ON workflow_work_items(lease_expires_at, created_at);
+
+-- Append-only execution history, used when workflow.persistence.mode is event-log
+CREATE TABLE workflow_events (
+    id BIGSERIAL PRIMARY KEY,
+    workflow_instance_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    step_record_id UUID,
+    payload TEXT NOT NULL,
+    occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_workflow_events_instance_id ON workflow_events(workflow_instance_id, id);
+
+-- Notification payloads too large for NOTIFY, sent by reference
+CREATE TABLE workflow_notification_payloads (
+    id BIGSERIAL PRIMARY KEY,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Idempotency-Key header values seen by workflow start requests
+CREATE TABLE workflow_idempotency_keys (
+    workflow_name VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    workflow_instance_id UUID NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (workflow_name, idempotency_key)
+);
+
+CREATE INDEX idx_workflow_idempotency_keys_created_at ON workflow_idempotency_keys(created_at);
+
+-- Execution context checkpoints of queued instances. A full snapshot is followed by deltas
+-- holding only what changed since the previous row; restore applies them in id order.
+-- Like workflow_work_items, no foreign key to workflow_instances, which event-log mode writes late.
+CREATE TABLE workflow_context_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    workflow_instance_id UUID NOT NULL,
+    full_snapshot BOOLEAN NOT NULL,
+    -- JSON objects of set variables and step results, and a JSON array of removed variables
+    variables TEXT NOT NULL,
+    step_results TEXT NOT NULL,
+    removed_variables TEXT,
+    -- Step whose result is the current result, instead of storing the result twice
+    result_step_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_workflow_context_checkpoints_instance ON workflow_context_checkpoints(workflow_instance_id, id);
+
+-- Per-node latency histograms per definition and step, one row per interval with samples
+CREATE TABLE workflow_latency_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    node_id VARCHAR(255) NOT NULL,
+    definition_name VARCHAR(255) NOT NULL,
+    -- Empty for whole-instance durations
+    step_id VARCHAR(255) NOT NULL,
+    interval_start TIMESTAMP NOT NULL,
+    interval_end TIMESTAMP NOT NULL,
+    sample_count BIGINT NOT NULL,
+    -- Base64 of the compressed HdrHistogram encoding, values in microseconds
+    histogram TEXT NOT NULL
+);
+
+CREATE INDEX idx_workflow_latency_snapshots_definition ON workflow_latency_snapshots(definition_name, interval_end);
+
+-- Cluster-wide running slots of definitions with maxConcurrency, numbered 0 to maxConcurrency - 1.
+-- The primary key is what bounds concurrent holders; an expired lease frees its slot for another node.
+CREATE TABLE workflow_concurrency_slots (
+    definition_name VARCHAR(255) NOT NULL,
+    slot INTEGER NOT NULL,
+    workflow_instance_id UUID NOT NULL,
+    lease_owner VARCHAR(255) NOT NULL,
+    lease_expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (definition_name, slot)
+);
@@ -0,0 +1,108 @@
+package com.workflow.storage.embedded;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddedWorkflowStateStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldServeLatestStateAndIndexByStatus() throws Exception {
+        // Given
+        EmbeddedWorkflowStateStore store = openStore();
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{}");
+
+        // When
+        store.saveInstance(instance).block();
+        store.saveInstance(instance.withStatus("RUNNING")).block();
+
+        // Then
+        StepVerifier.create(store.findInstance(instance.id()))
+            .assertNext(found -> assertThat(found.status()).isEqualTo("RUNNING"))
+            .verifyComplete();
+        StepVerifier.create(store.findInstancesByStatus("PENDING")).verifyComplete();
+        StepVerifier.create(store.findInstancesByStatus("RUNNING").map(WorkflowInstance::id))
+            .expectNext(instance.id())
+            .verifyComplete();
+        store.close();
+    }
+
+    @Test
+    void shouldRebuildIndexesAcrossSegmentsOnRestart() throws Exception {
+        // Given
+        EmbeddedWorkflowStateStore store = openStore();
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "x".repeat(600));
+        WorkflowStep step = WorkflowStep.create(instance.id(), "step1", "log", "{}", null);
+        store.saveInstance(instance).block();
+        store.saveStep(step.withStatus("RUNNING")).block();
+        store.saveStep(step.withStatus("RUNNING").withResult("done")).block();
+        store.saveInstance(instance.withStatus("COMPLETED")).block();
+        store.close();
+
+        // When
+        EmbeddedWorkflowStateStore reopened = openStore();
+
+        // Then
+        assertThat(directory.toFile().list()).hasSizeGreaterThan(1);
+        StepVerifier.create(reopened.findInstance(instance.id()))
+            .assertNext(found -> {
+                assertThat(found.status()).isEqualTo("COMPLETED");
+                assertThat(found.input()).hasSize(600);
+            })
+            .verifyComplete();
+        StepVerifier.create(reopened.findSteps(instance.id()))
+            .assertNext(found -> assertThat(found.output()).isEqualTo("done"))
+            .verifyComplete();
+        reopened.close();
+    }
+
+    @Test
+    void shouldMoveLiveRecordsOutOfCompactedSegmentsAndDeleteThem() throws Exception {
+        // Given
+        EmbeddedWorkflowStateStore store = openStore();
+        WorkflowInstance small = WorkflowInstance.create(UUID.randomUUID(), "{}");
+        WorkflowInstance large = WorkflowInstance.create(UUID.randomUUID(), "x".repeat(600));
+        store.saveInstance(small).block();
+        store.saveInstance(large).block();
+        store.saveInstance(large.withStatus("RUNNING")).block();
+        store.saveInstance(large.withStatus("COMPLETED")).block();
+        int segmentsBefore = store.segmentCount();
+
+        // When
+        store.compact();
+        store.compact();
+
+        // Then
+        assertThat(store.segmentCount()).isLessThan(segmentsBefore);
+        assertThat(directory.toFile().list()).hasSize(store.segmentCount());
+        StepVerifier.create(store.findInstance(small.id()))
+            .assertNext(found -> assertThat(found.status()).isEqualTo("PENDING"))
+            .verifyComplete();
+        store.close();
+
+        EmbeddedWorkflowStateStore reopened = openStore();
+        StepVerifier.create(reopened.findInstance(small.id()))
+            .assertNext(found -> assertThat(found.status()).isEqualTo("PENDING"))
+            .verifyComplete();
+        StepVerifier.create(reopened.findInstance(large.id()))
+            .assertNext(found -> assertThat(found.status()).isEqualTo("COMPLETED"))
+            .verifyComplete();
+        reopened.close();
+    }
+
+    private EmbeddedWorkflowStateStore openStore() throws Exception {
+        return new EmbeddedWorkflowStateStore(directory, DataSize.ofKilobytes(1), Duration.ofMillis(1), 0.5);
+    }
+}
@@ -0,0 +1,75 @@
+package com.workflow.storage.store;
+
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.repository.WorkflowInstanceRepository;
+import com.workflow.storage.repository.WorkflowStepRepository;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class R2dbcWorkflowStateStoreTest {
+
+    private R2dbcWorkflowStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+            "r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+        databaseClient.sql("""
+            CREATE TABLE workflow_instances (
+                id UUID PRIMARY KEY,
+                workflow_definition_id UUID NOT NULL,
+                status VARCHAR(50) NOT NULL,
+                current_step_id VARCHAR(255),
+                input TEXT,
+                output TEXT,
+                error_message TEXT,
+                started_at TIMESTAMP,
+                completed_at TIMESTAMP,
+                updated_at TIMESTAMP,
+                version BIGINT NOT NULL
+            )
+            """).then().block();
+
+        R2dbcRepositoryFactory repositories = new R2dbcRepositoryFactory(new R2dbcEntityTemplate(connectionFactory));
+        store = new R2dbcWorkflowStateStore(databaseClient,
+            repositories.getRepository(WorkflowInstanceRepository.class),
+            repositories.getRepository(WorkflowStepRepository.class));
+    }
+
+    @Test
+    void shouldUpdateBulkCreatedInstancesWhenTheyRun() {
+        // Given
+        UUID definitionId = UUID.randomUUID();
+        List<WorkflowInstance> created = store.saveInstances(List.of(
+            WorkflowInstance.create(definitionId, "{\"line\": 1}"),
+            WorkflowInstance.create(definitionId, "{\"line\": 2}")
+        )).collectList().block();
+
+        // When
+        WorkflowInstance running = created.get(0).withStatus("RUNNING");
+
+        // Then
+        assertThat(created).extracting(WorkflowInstance::version).containsExactly(1L, 1L);
+        StepVerifier.create(store.saveInstance(running))
+            .assertNext(saved -> assertThat(saved.version()).isEqualTo(2L))
+            .verifyComplete();
+        StepVerifier.create(store.findInstance(running.id()))
+            .assertNext(found -> {
+                assertThat(found.status()).isEqualTo("RUNNING");
+                assertThat(found.version()).isEqualTo(2L);
+            })
+            .verifyComplete();
+    }
+}
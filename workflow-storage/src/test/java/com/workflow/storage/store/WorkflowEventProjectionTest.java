@@ -0,0 +1,63 @@
+package com.workflow.storage.store;
+
+import com.workflow.storage.entity.WorkflowEvent;
+import com.workflow.storage.entity.WorkflowInstance;
+import com.workflow.storage.entity.WorkflowStep;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkflowEventProjectionTest {
+
+    @Test
+    void shouldReplayRecordedTransitions() {
+        // Given
+        WorkflowEventProjection recorder = new WorkflowEventProjection();
+        List<WorkflowEvent> events = new ArrayList<>();
+
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "{\"userId\": 1}");
+        WorkflowStep step = WorkflowStep.create(instance.id(), "step1", "log", "{}", "{\"userId\": 1}");
+
+        events.add(recorder.recordInstance(instance));
+        events.add(recorder.recordInstance(instance.withStatus("RUNNING")));
+        events.add(recorder.recordStep(step.withStatus("RUNNING")));
+        events.add(recorder.recordStep(step.withStatus("RUNNING").withResult("done")));
+        WorkflowInstance completed = instance.withStatus("RUNNING").withCurrentStep("step1").withStatus("COMPLETED");
+        events.add(recorder.recordInstance(completed));
+
+        // When
+        WorkflowEventProjection replayed = new WorkflowEventProjection();
+        events.forEach(replayed::apply);
+
+        // Then
+        assertThat(events).extracting(WorkflowEvent::eventType).containsExactly(
+            "InstanceCreated", "InstanceStarted", "StepStarted", "StepCompleted", "InstanceCompleted");
+        assertThat(replayed.getInstance().status()).isEqualTo("COMPLETED");
+        assertThat(replayed.getInstance().currentStepId()).isEqualTo("step1");
+        assertThat(replayed.getInstance().input()).isEqualTo("{\"userId\": 1}");
+        assertThat(replayed.getSteps()).singleElement()
+            .satisfies(replayedStep -> {
+                assertThat(replayedStep.status()).isEqualTo("COMPLETED");
+                assertThat(replayedStep.output()).isEqualTo("done");
+                assertThat(replayedStep.startedAt()).isNotNull();
+            });
+    }
+
+    @Test
+    void shouldOnlyStoreChangedFieldsInPayload() {
+        // Given
+        WorkflowEventProjection recorder = new WorkflowEventProjection();
+        WorkflowInstance instance = WorkflowInstance.create(UUID.randomUUID(), "large input");
+        recorder.recordInstance(instance);
+
+        // When
+        WorkflowEvent event = recorder.recordInstance(instance.withCurrentStep("step2"));
+
+        // Then
+        assertThat(event.payload()).contains("currentStepId").doesNotContain("large input");
+    }
+}
@@ -1,9 +1,12 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { Link } from 'react-router-dom';
 import axios from 'axios';
 import WorkflowCard from './WorkflowCard';
 import StatusFilter from './StatusFilter';
 import StartWorkflowModal from './StartWorkflowModal';
+import useWorkflowUpdates from '../hooks/useWorkflowUpdates';
+
+const DASHBOARD_SUBSCRIPTION = { types: ['instance'] };
 
 const Dashboard = () => {
   const [workflows, setWorkflows] = useState([]);
@@ -19,21 +22,43 @@ const Dashboard = () => {
     failed: 0
   });
 
-  useEffect(() => {
-    fetchWorkflows();
-    const interval = setInterval(fetchWorkflows, 5000); // Refresh every 5 seconds
-    return () => clearInterval(interval);
+  // Mirrors `workflows` synchronously so that back-to-back updates see each other
+  const workflowsRef = useRef([]);
+
+  const applyUpdate = useCallback((message) => {
+    if (message.type !== 'instance') return;
+    const { instance } = message.data;
+
+    const current = workflowsRef.current;
+    const index = current.findIndex(w => w.id === instance.id);
+    // The status this page last saw; the server may have conflated transitions in between
+    const previousStatus = index === -1 ? null : current[index].status;
+    const next = index === -1
+      ? [instance, ...current]
+      : current.map((w, i) => (i === index ? instance : w));
+
+    workflowsRef.current = next;
+    setWorkflows(next);
+    setStats(stats => adjustStats(stats, previousStatus, instance.status));
   }, []);
 
+  // Polls every 5 seconds only while the WebSocket is disconnected
+  const refresh = useCallback(() => fetchWorkflows(), []);
+  useWorkflowUpdates(applyUpdate, refresh, 5000, DASHBOARD_SUBSCRIPTION);
+
   useEffect(() => {
     filterWorkflows();
-    calculateStats();
   }, [workflows, selectedStatus]);
 
   const fetchWorkflows = async () => {
     try {
-      const response = await axios.get('/api/workflows');
-      setWorkflows(response.data);
+      const [workflowsResponse, statsResponse] = await Promise.all([
+        axios.get('/api/workflows'),
+        axios.get('/api/workflows/stats')
+      ]);
+      workflowsRef.current = workflowsResponse.data;
+      setWorkflows(workflowsResponse.data);
+      setStats(toDashboardStats(statsResponse.data));
       setError(null);
     } catch (err) {
       setError('Failed to fetch workflows');
@@ -51,17 +76,28 @@ const Dashboard = () => {
     }
   };
 
-  const calculateStats = () => {
-    const stats = workflows.reduce((acc, workflow) => {
-      acc.total++;
-      const status = workflow.status.toLowerCase();
-      if (status === 'running') acc.running++;
-      else if (status === 'completed') acc.completed++;
-      else if (status === 'failed') acc.failed++;
-      return acc;
-    }, { total: 0, running: 0, completed: 0, failed: 0 });
-
-    setStats(stats);
+  const toDashboardStats = (summary) => {
+    const byStatus = summary.byStatus || {};
+    return {
+      total: summary.total || 0,
+      running: byStatus.RUNNING || 0,
+      completed: byStatus.COMPLETED || 0,
+      failed: byStatus.FAILED || 0
+    };
+  };
+
+  const adjustStats = (current, previousStatus, status) => {
+    const next = { ...current };
+    const key = (s) => s?.toLowerCase();
+    if (previousStatus == null) {
+      next.total += 1;
+    } else if (key(previousStatus) in next) {
+      next[key(previousStatus)] -= 1;
+    }
+    if (key(status) in next && key(status) !== 'total') {
+      next[key(status)] += 1;
+    }
+    return next;
   };
 
   const handleWorkflowStarted = () => {
@@ -0,0 +1,121 @@
+import React, { useState, useEffect } from 'react';
+import axios from 'axios';
+import { LineChart, Line, XAxis, YAxis, Tooltip, Legend, CartesianGrid, ResponsiveContainer } from 'recharts';
+
+const RANGES = ['15m', '1h', '6h', '24h'];
+const STEPS = { '15m': '30s', '1h': '1m', '6h': '10m', '24h': '30m' };
+
+// Percentiles per step and for the whole instance, merged from the engine's latency histograms
+const LatencyChart = ({ definitionName }) => {
+  const [range, setRange] = useState('15m');
+  const [report, setReport] = useState(null);
+  const [selected, setSelected] = useState('');
+  const [error, setError] = useState(null);
+
+  useEffect(() => {
+    if (!definitionName) return;
+    const fetchLatency = async () => {
+      try {
+        const response = await axios.get(`/api/latency/${encodeURIComponent(definitionName)}`, {
+          params: { window: range, step: STEPS[range] }
+        });
+        setReport(response.data);
+        setError(null);
+      } catch (err) {
+        setError('Failed to fetch latency');
+      }
+    };
+    fetchLatency();
+    const timer = setInterval(fetchLatency, 10000);
+    return () => clearInterval(timer);
+  }, [definitionName, range]);
+
+  const seriesKey = (series) => series.stepId ?? '';
+  const current = report?.series.find(series => seriesKey(series) === selected);
+  const points = current?.points.map(point => ({
+    time: new Date(point.start).toLocaleTimeString(),
+    p50: point.latency.p50Millis,
+    p95: point.latency.p95Millis,
+    p99: point.latency.p99Millis
+  })) || [];
+
+  return (
+    <div className="bg-white rounded-lg shadow-sm border border-gray-200">
+      <div className="px-6 py-4 border-b border-gray-200 flex items-center justify-between">
+        <h2 className="text-lg font-semibold text-gray-900">
+          Latency of {definitionName}
+        </h2>
+        <div className="flex items-center space-x-2">
+          <select
+            value={selected}
+            onChange={(e) => setSelected(e.target.value)}
+            className="border border-gray-300 rounded-md px-2 py-1 text-sm"
+          >
+            <option value="">Whole instance</option>
+            {report?.series.filter(series => series.stepId).map(series => (
+              <option key={series.stepId} value={series.stepId}>Step {series.stepId}</option>
+            ))}
+          </select>
+          <select
+            value={range}
+            onChange={(e) => setRange(e.target.value)}
+            className="border border-gray-300 rounded-md px-2 py-1 text-sm"
+          >
+            {RANGES.map(option => (
+              <option key={option} value={option}>Last {option}</option>
+            ))}
+          </select>
+        </div>
+      </div>
+
+      <div className="p-6">
+        {error ? (
+          <div className="text-sm text-red-700">{error}</div>
+        ) : !current ? (
+          <div className="text-center py-8 text-gray-500">
+            No latency recorded in this window
+          </div>
+        ) : (
+          <>
+            <div className="grid grid-cols-2 md:grid-cols-5 gap-4 mb-6 text-sm">
+              <div>
+                <p className="font-medium text-gray-500">Samples</p>
+                <p className="text-gray-900">{current.window.count}</p>
+              </div>
+              <div>
+                <p className="font-medium text-gray-500">p50</p>
+                <p className="text-gray-900">{current.window.p50Millis.toFixed(1)} ms</p>
+              </div>
+              <div>
+                <p className="font-medium text-gray-500">p95</p>
+                <p className="text-gray-900">{current.window.p95Millis.toFixed(1)} ms</p>
+              </div>
+              <div>
+                <p className="font-medium text-gray-500">p99</p>
+                <p className="text-gray-900">{current.window.p99Millis.toFixed(1)} ms</p>
+              </div>
+              <div>
+                <p className="font-medium text-gray-500">Max</p>
+                <p className="text-gray-900">{current.window.maxMillis.toFixed(1)} ms</p>
+              </div>
+            </div>
+            <ResponsiveContainer width="100%" height={240}>
+              <LineChart data={points}>
+                <CartesianGrid strokeDasharray="3 3" />
+                <XAxis dataKey="time" tick={{ fontSize: 12 }} />
+                <YAxis unit=" ms" tick={{ fontSize: 12 }} />
+                <Tooltip formatter={(value) => `${value.toFixed(1)} ms`} />
+                <Legend />
+                <Line type="monotone" dataKey="p50" stroke="#2563eb" dot={false} />
+                <Line type="monotone" dataKey="p95" stroke="#f59e0b" dot={false} />
+                <Line type="monotone" dataKey="p99" stroke="#dc2626" dot={false} />
+              </LineChart>
+            </ResponsiveContainer>
+          </>
+        )}
+      </div>
+    </div>
+  );
+};
+
+export default LatencyChart;
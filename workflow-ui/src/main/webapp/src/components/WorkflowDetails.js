@@ -1,6 +1,8 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback, useMemo } from 'react';
 import { useParams, Link } from 'react-router-dom';
 import axios from 'axios';
+import useWorkflowUpdates from '../hooks/useWorkflowUpdates';
+import LatencyChart from './LatencyChart';
 
 const WorkflowDetails = () => {
   const { id } = useParams();
@@ -8,18 +10,41 @@ const WorkflowDetails = () => {
   const [steps, setSteps] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  const [definitionName, setDefinitionName] = useState(null);
+
+  const applyUpdate = useCallback((message) => {
+    if (message.type === 'instance' && message.data.instance.id === id) {
+      setWorkflow(message.data.instance);
+    } else if (message.type === 'step' && message.data.workflowInstanceId === id) {
+      const step = message.data;
+      setSteps(current => {
+        const index = current.findIndex(s => s.id === step.id);
+        if (index === -1) return [...current, step];
+        const next = [...current];
+        next[index] = step;
+        return next;
+      });
+    }
+  }, [id]);
 
-  useEffect(() => {
+  // Polls every 3 seconds only while the WebSocket is disconnected
+  const refresh = useCallback(() => {
     fetchWorkflowDetails();
     fetchWorkflowSteps();
-
-    const interval = setInterval(() => {
-      fetchWorkflowDetails();
-      fetchWorkflowSteps();
-    }, 3000); // Refresh every 3 seconds
-
-    return () => clearInterval(interval);
   }, [id]);
+  const subscription = useMemo(() => ({ instanceIds: [id] }), [id]);
+  useWorkflowUpdates(applyUpdate, refresh, 3000, subscription);
+
+  const definitionId = workflow?.workflowDefinitionId;
+  useEffect(() => {
+    if (!definitionId) return;
+    axios.get('/api/definitions')
+      .then(response => {
+        const definition = response.data.find(d => d.id === definitionId);
+        setDefinitionName(definition ? definition.name : null);
+      })
+      .catch(() => setDefinitionName(null));
+  }, [definitionId]);
 
   const fetchWorkflowDetails = async () => {
     try {
@@ -263,6 +288,8 @@ const WorkflowDetails = () => {
           )}
         </div>
       </div>
+
+      {definitionName && <LatencyChart definitionName={definitionName} />}
     </div>
   );
 };
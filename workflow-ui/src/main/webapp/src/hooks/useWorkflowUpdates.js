@@ -0,0 +1,82 @@
+import { useEffect, useRef } from 'react';
+
+const RECONNECT_DELAY_MS = 5000;
+
+const socketUrl = () => {
+  const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
+  return `${protocol}//${window.location.host}/ws/workflow-updates`;
+};
+
+// Subscribes to instance and step updates pushed over the WebSocket.
+// `refresh` loads the full state: once on mount, once after every reconnect,
+// and every `pollInterval` ms while the socket is down. `refresh` must be
+// memoized; a new function reconnects and reloads. `subscription` narrows the
+// updates the server sends ({ types, instanceIds, definitionIds, statuses }).
+const useWorkflowUpdates = (onUpdate, refresh, pollInterval, subscription) => {
+  const onUpdateRef = useRef(onUpdate);
+  onUpdateRef.current = onUpdate;
+
+  useEffect(() => {
+    let socket;
+    let pollTimer = null;
+    let reconnectTimer = null;
+    let disconnected = false;
+    let unmounted = false;
+
+    const startPolling = () => {
+      if (!pollTimer) {
+        pollTimer = setInterval(refresh, pollInterval);
+      }
+    };
+
+    const stopPolling = () => {
+      clearInterval(pollTimer);
+      pollTimer = null;
+    };
+
+    const connect = () => {
+      socket = new WebSocket(socketUrl());
+
+      socket.onopen = () => {
+        stopPolling();
+        if (subscription) {
+          socket.send(JSON.stringify({ type: 'subscribe', ...subscription }));
+        }
+        if (disconnected) {
+          // Updates sent while we were away are lost, so resync once
+          disconnected = false;
+          refresh();
+        }
+      };
+
+      socket.onmessage = (event) => {
+        const message = JSON.parse(event.data);
+        if (message.type === 'resync') {
+          // The server dropped updates for this client because it fell behind
+          refresh();
+        } else if (message.type !== 'heartbeat') {
+          onUpdateRef.current(message);
+        }
+      };
+
+      socket.onclose = () => {
+        if (unmounted) return;
+        disconnected = true;
+        startPolling();
+        reconnectTimer = setTimeout(connect, RECONNECT_DELAY_MS);
+      };
+    };
+
+    refresh();
+    connect();
+
+    return () => {
+      unmounted = true;
+      stopPolling();
+      clearTimeout(reconnectTimer);
+      socket.close();
+    };
+  }, [refresh, pollInterval, subscription]);
+};
+
+export default useWorkflowUpdates;